@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.benchmarks;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.openjdk.jmh.annotations.Mode.AverageTime;
+
+import bio.overture.score.client.cli.Terminal;
+import bio.overture.score.client.progress.Progress;
+import bio.overture.score.client.progress.ProgressDataChannel;
+import bio.overture.score.client.transport.FileDataChannel;
+import bio.overture.score.client.transport.MemoryMappedDataChannel;
+import bio.overture.score.client.transport.PipedDataChannel;
+import bio.overture.score.core.model.DataChannel;
+import com.google.common.io.ByteStreams;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import lombok.val;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Moves one part through each {@link DataChannel} implementation over a loopback sink: {@code
+ * writeTo} (upload) drains into a discarding stream, {@code readFrom} (download) fills the channel
+ * from an in-memory stream, so the numbers reflect the channel and its MD5 and not the network.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(AverageTime)
+@OutputTimeUnit(MILLISECONDS)
+@Fork(
+    value = 2,
+    jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DataChannelBenchmark {
+
+  /** Part sizes: a small part and the client's default part size. */
+  @Param({"1048576", "20971520"})
+  private int partSize;
+
+  private byte[] payload;
+  private File file;
+  private RandomAccessFile mappedFile;
+  private MemoryMappedDataChannel mappedChannel;
+  private ExecutorService producer;
+  private Progress progress;
+  private OutputStream sink;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    payload = Payloads.bytes(partSize);
+    file = Payloads.file(partSize);
+    mappedFile = new RandomAccessFile(file, "rw");
+    mappedChannel =
+        new MemoryMappedDataChannel(
+            mappedFile.getChannel().map(MapMode.READ_WRITE, 0, partSize), 0, partSize, null);
+    producer = Executors.newSingleThreadExecutor();
+    progress = new Progress(new Terminal(false, true), true, 1, 0);
+    sink = ByteStreams.nullOutputStream();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    producer.shutdownNow();
+    mappedFile.close();
+    file.delete();
+  }
+
+  @Benchmark
+  public String fileWriteTo() throws IOException {
+    return writeTo(new FileDataChannel(file, 0, partSize, null));
+  }
+
+  @Benchmark
+  public void fileReadFrom() throws IOException {
+    new FileDataChannel(file, 0, partSize, null).readFrom(source());
+  }
+
+  @Benchmark
+  public String mappedWriteTo() throws IOException {
+    mappedChannel.reset();
+    return writeTo(mappedChannel);
+  }
+
+  @Benchmark
+  public void mappedReadFrom() throws IOException {
+    mappedChannel.reset();
+    mappedChannel.readFrom(source());
+  }
+
+  @Benchmark
+  public String pipedWriteTo() throws Exception {
+    // Same pipe sizing as PipedParallelPartObjectTransport
+    val pos = new PipedOutputStream();
+    val pis = new PipedInputStream(pos, partSize);
+    val produced =
+        producer.submit(
+            () -> {
+              try (OutputStream os = pos) {
+                os.write(payload);
+              }
+              return null;
+            });
+
+    val md5 = writeTo(new PipedDataChannel(pis, 0, partSize, null));
+    produced.get();
+    return md5;
+  }
+
+  @Benchmark
+  public String progressWriteTo() throws IOException {
+    mappedChannel.reset();
+    return writeTo(new ProgressDataChannel(mappedChannel, progress));
+  }
+
+  @Benchmark
+  public void progressReadFrom() throws IOException {
+    mappedChannel.reset();
+    new ProgressDataChannel(mappedChannel, progress).readFrom(source());
+  }
+
+  private String writeTo(DataChannel channel) throws IOException {
+    channel.writeTo(sink);
+    return channel.getMd5();
+  }
+
+  private ByteArrayInputStream source() {
+    return new ByteArrayInputStream(payload);
+  }
+}
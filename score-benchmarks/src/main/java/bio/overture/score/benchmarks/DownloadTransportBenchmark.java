@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.benchmarks;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.openjdk.jmh.annotations.Mode.AverageTime;
+
+import bio.overture.score.client.cli.Terminal;
+import bio.overture.score.client.progress.Progress;
+import bio.overture.score.client.transport.MemoryMappedParallelPartObjectTransport;
+import bio.overture.score.client.transport.ParallelPartObjectTransport.RemoteParallelBuilder;
+import bio.overture.score.client.transport.PositionalParallelPartObjectTransport;
+import bio.overture.score.client.transport.Transport;
+import bio.overture.score.core.model.Part;
+import com.google.common.collect.Lists;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import lombok.val;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Whole-object downloads through the memory mapped transport and the positional write transport,
+ * with a memory budget large enough that neither is throttled. Every benchmark runs in its own fork
+ * and prints the fork's peak resident set size (Linux only) when the trial ends, which is where the
+ * two differ beyond throughput: mapped parts count against the process until they are unmapped.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(AverageTime)
+@OutputTimeUnit(MILLISECONDS)
+@Fork(
+    value = 1,
+    jvmArgsAppend = {
+      "-Xms1g",
+      "-Xmx1g",
+      // as in the score-client launcher, so that mapped parts are unmapped eagerly
+      "--add-opens=java.base/jdk.internal.ref=ALL-UNNAMED",
+      "--add-opens=java.base/java.nio=ALL-UNNAMED"
+    })
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DownloadTransportBenchmark {
+
+  /** Constants. */
+  private static final int PART_SIZE = 16 * 1024 * 1024;
+
+  private static final int PART_COUNT = 16;
+  private static final int THREADS = 4;
+  private static final int MEMORY_PARTS = 8;
+  private static final int HASHERS = 2;
+  private static final int WRITERS = 2;
+  private static final long FORCE_INTERVAL = 4L * PART_SIZE;
+  private static final long ROUND_TRIP_MILLIS = 2;
+  private static final String OBJECT_ID = "benchmark";
+
+  private File outputDir;
+  private LoopbackStorageService storage;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    outputDir = Files.createTempDirectory("score-benchmark-").toFile();
+    storage = new LoopbackStorageService(Payloads.bytes(PART_SIZE * PART_COUNT), ROUND_TRIP_MILLIS);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    new File(outputDir, OBJECT_ID).delete();
+    outputDir.delete();
+
+    val status = Paths.get("/proc/self/status");
+    if (Files.exists(status)) {
+      Files.lines(status)
+          .filter(line -> line.startsWith("VmHWM"))
+          .forEach(line -> System.out.println("\nPeak RSS " + line.substring(6).trim()));
+    }
+  }
+
+  @Benchmark
+  public void memoryMappedReceive() {
+    configure(MemoryMappedParallelPartObjectTransport.builder()).build().receive(outputDir);
+  }
+
+  @Benchmark
+  public void positionalReceive() {
+    configure(PositionalParallelPartObjectTransport.builder()).build().receive(outputDir);
+  }
+
+  @Benchmark
+  public void positionalReceivePipelined() {
+    configure(PositionalParallelPartObjectTransport.builder().withPipeline(HASHERS, WRITERS))
+        .build()
+        .receive(outputDir);
+  }
+
+  @Benchmark
+  public void positionalReceiveBatchedForce() {
+    configure(PositionalParallelPartObjectTransport.builder().withForceInterval(FORCE_INTERVAL))
+        .build()
+        .receive(outputDir);
+  }
+
+  private Transport.Builder configure(RemoteParallelBuilder builder) {
+    // Parts are recorded as transferred, so each transfer starts from fresh ones
+    val parts = createParts();
+    return builder
+        .withMemory((long) PART_SIZE * MEMORY_PARTS)
+        .withNumberOfWorkerThreads(THREADS)
+        .withProxy(storage)
+        .withProgressBar(new Progress(new Terminal(false, true), true, parts.size(), 0))
+        .withParts(parts)
+        .withObjectId(OBJECT_ID)
+        .withSessionId(OBJECT_ID)
+        .withTransportMode(Transport.Mode.DOWNLOAD);
+  }
+
+  private static List<Part> createParts() {
+    val parts = Lists.<Part>newArrayList();
+    for (int i = 0; i < PART_COUNT; i++) {
+      parts.add(
+          Part.builder()
+              .partNumber(i + 1)
+              .offset((long) PART_SIZE * i)
+              .partSize(PART_SIZE)
+              .build());
+    }
+
+    return parts;
+  }
+}
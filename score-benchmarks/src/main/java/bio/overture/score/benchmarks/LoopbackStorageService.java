@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.benchmarks;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import bio.overture.score.client.storage.StorageService;
+import bio.overture.score.core.model.DataChannel;
+import bio.overture.score.core.model.ListingFilter;
+import bio.overture.score.core.model.ObjectInfo;
+import bio.overture.score.core.model.ObjectSpecification;
+import bio.overture.score.core.model.Part;
+import bio.overture.score.core.model.UploadProgress;
+import com.google.common.io.ByteStreams;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Storage service that transfers parts in memory: uploads drain the channel into a discarding
+ * stream and downloads fill it from a payload, each followed by a fixed round trip delay standing
+ * in for the network. Only the part transfer operations the transports call are supported.
+ */
+@RequiredArgsConstructor
+public class LoopbackStorageService implements StorageService {
+
+  /** Configuration. */
+  @NonNull private final byte[] payload;
+
+  private final long roundTripMillis;
+
+  @Override
+  public void uploadPart(DataChannel channel, Part part, String objectId, String uploadId)
+      throws IOException {
+    channel.writeTo(ByteStreams.nullOutputStream());
+    roundTrip();
+  }
+
+  @Override
+  public void downloadPart(DataChannel channel, Part part, String objectId, File outputDir)
+      throws IOException {
+    // hashed like a real download, so that the hashing cost is part of the measurement
+    part.setMd5(
+        channel.readAndHash(
+            new ByteArrayInputStream(payload, (int) part.getOffset(), (int) part.getPartSize())));
+    roundTrip();
+  }
+
+  @Override
+  public void finalizeUpload(String objectId, String uploadId) {}
+
+  @Override
+  public void finalizeDownload(File outDir, String objectId) {}
+
+  @Override
+  public void finalizeUploadPart(
+      String objectId,
+      String uploadId,
+      int partNumber,
+      String md5,
+      String etag,
+      boolean disableChecksum) {}
+
+  @Override
+  public void deleteDownloadPart(File stateDir, String objectId, Part part) {}
+
+  @Override
+  public void deleteUploadPart(String objectId, String uploadId, Part part) {}
+
+  @Override
+  public List<ObjectInfo> listObjects() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public List<ObjectInfo> listObjects(ListingFilter filter) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public UploadProgress getProgress(String objectId, long fileSize) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public ObjectSpecification initiateUpload(
+      String objectId, long length, boolean overwrite, String md5) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public boolean isObjectExist(String objectId) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public ObjectSpecification getDownloadSpecification(String objectId, long offset, long length) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public ObjectSpecification getExternalDownloadSpecification(
+      String objectId, long offset, long length) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public boolean isDownloadDataRecoverable(File stateDir, String objectId, long fileSize) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public boolean isUploadDataRecoverable(String objectId, long fileSize) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public String ping() {
+    throw new UnsupportedOperationException();
+  }
+
+  private void roundTrip() {
+    LockSupport.parkNanos(MILLISECONDS.toNanos(roundTripMillis));
+  }
+}
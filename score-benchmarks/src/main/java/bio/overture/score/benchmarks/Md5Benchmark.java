@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.benchmarks;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.openjdk.jmh.annotations.Mode.AverageTime;
+
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingOutputStream;
+import com.google.common.io.ByteStreams;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import lombok.val;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * MD5 of one part written in {@link Payloads#CHUNK_SIZE} blocks, the way the data channels feed it:
+ * Guava's {@link HashingOutputStream} (what the client uses) against the JDK alternatives.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(AverageTime)
+@OutputTimeUnit(MILLISECONDS)
+@Fork(
+    value = 2,
+    jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class Md5Benchmark {
+
+  @Param({"1048576", "20971520"})
+  private int partSize;
+
+  private byte[] payload;
+  private ByteBuffer directPayload;
+  private OutputStream sink;
+
+  @Setup
+  public void setUp() {
+    payload = Payloads.bytes(partSize);
+    directPayload = ByteBuffer.allocateDirect(partSize);
+    directPayload.put(payload);
+    sink = ByteStreams.nullOutputStream();
+  }
+
+  @Benchmark
+  public Object guavaHashingOutputStream() throws IOException {
+    val hos = new HashingOutputStream(Hashing.md5(), sink);
+    write(hos);
+    return hos.hash();
+  }
+
+  @Benchmark
+  public byte[] digestOutputStream() throws IOException, NoSuchAlgorithmException {
+    val dos = new DigestOutputStream(sink, MessageDigest.getInstance("MD5"));
+    write(dos);
+    return dos.getMessageDigest().digest();
+  }
+
+  @Benchmark
+  public byte[] messageDigestArray() throws NoSuchAlgorithmException {
+    val md = MessageDigest.getInstance("MD5");
+    for (int offset = 0; offset < partSize; offset += Payloads.CHUNK_SIZE) {
+      md.update(payload, offset, Math.min(Payloads.CHUNK_SIZE, partSize - offset));
+    }
+    return md.digest();
+  }
+
+  @Benchmark
+  public byte[] messageDigestDirectBuffer() throws NoSuchAlgorithmException {
+    val md = MessageDigest.getInstance("MD5");
+    val buffer = directPayload.duplicate();
+    buffer.clear();
+    md.update(buffer);
+    return md.digest();
+  }
+
+  private void write(OutputStream os) throws IOException {
+    for (int offset = 0; offset < partSize; offset += Payloads.CHUNK_SIZE) {
+      os.write(payload, offset, Math.min(Payloads.CHUNK_SIZE, partSize - offset));
+    }
+  }
+}
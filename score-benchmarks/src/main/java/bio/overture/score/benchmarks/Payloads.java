@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.benchmarks;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+import lombok.NoArgsConstructor;
+import lombok.val;
+
+/** Deterministic inputs shared by the benchmarks so that runs are comparable across machines. */
+@NoArgsConstructor(access = PRIVATE)
+public final class Payloads {
+
+  /** Constants. */
+  private static final long SEED = 0x5c0de;
+
+  /** Same block size {@link java.nio.channels.Channels#newChannel} uses to feed a stream. */
+  public static final int CHUNK_SIZE = 8192;
+
+  public static byte[] bytes(int size) {
+    val bytes = new byte[size];
+    new Random(SEED).nextBytes(bytes);
+    return bytes;
+  }
+
+  public static File file(int size) throws IOException {
+    val file = File.createTempFile("score-benchmark-", ".bin");
+    file.deleteOnExit();
+    Files.write(file.toPath(), bytes(size));
+    return file;
+  }
+}
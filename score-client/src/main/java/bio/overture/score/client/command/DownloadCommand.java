@@ -20,11 +20,13 @@ package bio.overture.score.client.command;
 import static bio.overture.score.client.cli.Parameters.checkParameter;
 import static bio.overture.score.client.util.Formats.formatBytes;
 import static java.lang.String.format;
+import static java.util.Comparator.comparingLong;
 import static java.util.stream.Collectors.toList;
 
 import bio.overture.score.client.cli.ConverterFactory.OutputLayoutConverter;
 import bio.overture.score.client.cli.CreatableDirectoryValidator;
 import bio.overture.score.client.cli.ObjectIdListValidator;
+import bio.overture.score.client.config.TransportProperties;
 import bio.overture.score.client.download.DownloadRequest;
 import bio.overture.score.client.download.DownloadService;
 import bio.overture.score.client.exception.BadManifestException;
@@ -32,17 +34,24 @@ import bio.overture.score.client.manifest.ManifestResource;
 import bio.overture.score.client.manifest.ManifestService;
 import bio.overture.score.client.metadata.Entity;
 import bio.overture.score.client.metadata.MetadataService;
+import bio.overture.score.client.transport.PartScheduler;
 import com.beust.jcommander.Parameter;
 import com.beust.jcommander.Parameters;
 import com.google.common.collect.Multimaps;
 import com.google.common.io.Files;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Stream;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
@@ -135,6 +144,10 @@ public class DownloadCommand extends RepositoryAccessCommand {
 
   @Autowired private MetadataService metadataService;
   @Autowired private DownloadService downloadService;
+  @Autowired private TransportProperties transportProperties;
+
+  /** State */
+  private final Set<String> indexIds = new HashSet<>();
 
   @Override
   public int execute() throws Exception {
@@ -188,7 +201,8 @@ public class DownloadCommand extends RepositoryAccessCommand {
     // Entities are defined in Meta service
     val entities = resolveEntities(objectIds);
 
-    if (!verifyLocalAvailableSpace(entities)) {
+    val sizes = downloadService.getObjectSizes(entities);
+    if (!verifyLocalAvailableSpace(sizes)) {
       return FAILURE_STATUS;
     }
 
@@ -212,50 +226,13 @@ public class DownloadCommand extends RepositoryAccessCommand {
       }
     }
 
-    for (val entity : entitySet) {
-      terminal
-          .printLine()
-          .printf(
-              "[%s/%s] Downloading object: %s (%s)%n",
-              i++, entities.size(), terminal.value(entity.getId()), entity.getFileName())
-          .printLine();
-
-      val builder = DownloadRequest.builder();
-      val request =
-          builder
-              .outputDir(outputDir)
-              .entity(entity)
-              .objectId(entity.getId())
-              .offset(offset)
-              .length(length)
-              .validate(validate)
-              .build();
-
-      // only try to re-download a file that exists if --force was specified on the command line
-      val target = getLayoutTarget(entity);
-      if (target.exists()) {
-        if (force) {
-          log.warn(
-              format(
-                  "File '%s' shouldn't exist anymore, but it does... trying to delete it...",
-                  target));
-          if (!target.delete()) {
-            log.warn(format("Couldn't delete existing file '%s'", target));
-          }
-        } else {
-          terminal.printf(
-              "Download file '%s' already exists and --force was not specified... not re-downloading it.",
-              target);
-          continue;
-        }
+    val objects = Math.min(transportProperties.getObjects(), entitySet.size());
+    if (objects > 1) {
+      downloadTogether(entitySet, sizes, objects);
+    } else {
+      for (val entity : entitySet) {
+        download(entity, i++ + "/" + entities.size(), null, 0);
       }
-      // Download the file by parts into <outputDir>/<.objectId>, resuming from previous downloads
-      // if possible.
-      // Don't try to resume if --force was specified.
-      downloadService.download(request, force);
-
-      // Rename file to target.
-      finalizeDownload(entity);
     }
 
     terminal.println("Done.");
@@ -263,6 +240,126 @@ public class DownloadCommand extends RepositoryAccessCommand {
     return SUCCESS_STATUS;
   }
 
+  /**
+   * Downloads up to {@code objects} entities at once, their parts sharing one pool of workers.
+   * Index files go first, then the smallest objects, and each object is finalized as soon as its
+   * own parts are done. After a failure no further object is started, and the failure is rethrown
+   * once the objects in flight are done.
+   */
+  @SneakyThrows
+  private void downloadTogether(Set<Entity> entities, Map<Entity, Long> sizes, int objects) {
+    val ranked = new ArrayList<Entity>(entities);
+    ranked.sort(comparingLong(entity -> rank(entity, sizes)));
+
+    val workers =
+        transportProperties.isAdaptive()
+            ? Math.max(transportProperties.getParallel(), transportProperties.getMaxParallel())
+            : transportProperties.getParallel();
+    val drivers =
+        Executors.newFixedThreadPool(
+            objects, new ThreadFactoryBuilder().setNameFormat("object-%s").build());
+    val failed = new AtomicBoolean();
+    val memory = transportProperties.getMemory() * 1024 * 1024 * 1024;
+    try (PartScheduler scheduler = new PartScheduler(Math.max(1, workers), memory)) {
+      val results = new ArrayList<Future<?>>();
+      for (int i = 0; i < ranked.size(); i++) {
+        val entity = ranked.get(i);
+        val position = (i + 1) + "/" + ranked.size();
+        results.add(
+            drivers.submit(
+                () -> {
+                  if (failed.get()) {
+                    return null;
+                  }
+
+                  try {
+                    download(entity, position, scheduler, rank(entity, sizes));
+                  } catch (Throwable e) {
+                    // stops objects not yet started, whichever result is awaited first
+                    failed.set(true);
+                    throw e;
+                  }
+                  return null;
+                }));
+      }
+      drivers.shutdown();
+
+      Throwable failure = null;
+      for (val result : results) {
+        try {
+          result.get();
+        } catch (ExecutionException e) {
+          log.error("Failed to download object", e.getCause());
+          failure = failure == null ? e.getCause() : failure;
+        }
+      }
+
+      if (failure != null) {
+        throw failure;
+      }
+    } finally {
+      drivers.shutdownNow();
+    }
+  }
+
+  /** Order of the parts of {@code entity} on a shared scheduler, lowest first. */
+  private long rank(Entity entity, Map<Entity, Long> sizes) {
+    // Index files first, as the files they index are of little use without them
+    if (indexIds.contains(entity.getId())) {
+      return 0;
+    }
+
+    return 1 + sizes.getOrDefault(entity, Long.MAX_VALUE - 1);
+  }
+
+  private void download(Entity entity, String position, PartScheduler scheduler, long rank)
+      throws IOException {
+    terminal
+        .printLine()
+        .printf(
+            "[%s] Downloading object: %s (%s)%n",
+            position, terminal.value(entity.getId()), entity.getFileName())
+        .printLine();
+
+    val request =
+        DownloadRequest.builder()
+            .outputDir(outputDir)
+            .entity(entity)
+            .objectId(entity.getId())
+            .offset(offset)
+            .length(length)
+            .validate(validate)
+            .scheduler(scheduler)
+            .rank(rank)
+            .build();
+
+    // only try to re-download a file that exists if --force was specified on the command line
+    val target = getLayoutTarget(entity);
+    if (target.exists()) {
+      if (force) {
+        log.warn(
+            format(
+                "File '%s' shouldn't exist anymore, but it does... trying to delete it...",
+                target));
+        if (!target.delete()) {
+          log.warn(format("Couldn't delete existing file '%s'", target));
+        }
+      } else {
+        terminal.printf(
+            "Download file '%s' already exists and --force was not specified... not re-downloading it.",
+            target);
+        return;
+      }
+    }
+    // Download the file by parts into <outputDir>/<.objectId>, resuming from previous downloads
+    // if possible.
+    // Don't try to resume if --force was specified.
+    downloadService.download(request, force);
+
+    // Rename file to target.
+    finalizeDownload(entity);
+  }
+
   /**
    * Move the entity into its final destination. File is initially downloaded into file named with
    * object id. To complete download, it is renamed to filename stored in Metadata record
@@ -325,6 +422,7 @@ public class DownloadCommand extends RepositoryAccessCommand {
         val indexEntity = metadataService.getIndexEntity(entity);
         if (indexEntity.isPresent()) {
           entities.add(indexEntity.get());
+          indexIds.add(indexEntity.get().getId());
         }
       }
     }
@@ -379,8 +477,8 @@ public class DownloadCommand extends RepositoryAccessCommand {
     return fs.getUsableSpace();
   }
 
-  private boolean verifyLocalAvailableSpace(Set<Entity> entities) {
-    val spaceRequired = downloadService.getSpaceRequired(entities);
+  private boolean verifyLocalAvailableSpace(Map<Entity, Long> sizes) {
+    val spaceRequired = sizes.values().stream().mapToLong(Long::longValue).sum();
     val spaceAvailable = getLocalAvailableSpace();
     log.warn(
         "Space required: {} ({})  Space available: {} ({})",
@@ -38,6 +38,7 @@ import bio.overture.score.client.metadata.MetadataService;
 import bio.overture.score.client.mount.MountService;
 import bio.overture.score.client.mount.MountStorageContext;
 import bio.overture.score.client.storage.StorageService;
+import bio.overture.score.core.model.ListingFilter;
 import bio.overture.score.core.model.ObjectInfo;
 import bio.overture.score.fs.StorageFileLayout;
 import bio.overture.score.fs.StorageFileSystems;
@@ -54,6 +55,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Stream;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
@@ -176,11 +178,8 @@ public class MountCommand extends RepositoryAccessCommand {
 
       log.info("Indexing remote objects...");
       terminal.printStatus(i++, "Indexing remote objects" + tip + ". Please wait");
+      // With a manifest, only the objects it lists
       List<ObjectInfo> objects = terminal.printWaiting(this::resolveObjects);
-      if (hasManifest()) {
-        // Manifest is a filtered view y'all!
-        objects = filterManifestObjects(objects);
-      }
 
       // Filter for objects that have no entities.
       val entityIds = entities.stream().map(Entity::getId).collect(toSet());
@@ -354,8 +353,20 @@ public class MountCommand extends RepositoryAccessCommand {
   //
 
   private List<ObjectInfo> resolveObjects() throws IOException {
-    return resolveList(
-        "objects", storageService::listObjects, new TypeReference<List<ObjectInfo>>() {});
+    if (hasManifest() && !cacheMetadata) {
+      // Only transfer the manifest's objects
+      return storageService.listObjects(resolveManifestFilter());
+    }
+
+    // The cache always holds the full listing so that it can be reused across manifests
+    val objects =
+        resolveList(
+            "objects", storageService::listObjects, new TypeReference<List<ObjectInfo>>() {});
+    if (hasManifest()) {
+      return objects.stream().filter(resolveManifestFilter()).collect(toList());
+    }
+
+    return objects;
   }
 
   private List<Entity> resolveEntities() throws IOException {
@@ -389,14 +400,15 @@ public class MountCommand extends RepositoryAccessCommand {
     return manifestResource != null;
   }
 
-  private List<ObjectInfo> filterManifestObjects(List<ObjectInfo> objects) {
+  private ListingFilter resolveManifestFilter() {
     val manifest = manifestService.getDownloadManifest(manifestResource);
 
     val objectIds =
         manifest.getEntries().stream()
             .flatMap(entry -> Stream.of(entry.getFileUuid(), entry.getIndexFileUuid()))
+            .filter(Objects::nonNull)
             .collect(toSet());
 
-    return objects.stream().filter(object -> objectIds.contains(object.getId())).collect(toList());
+    return ListingFilter.builder().objectIds(objectIds).build();
   }
 }
@@ -18,20 +18,31 @@
 package bio.overture.score.client.command;
 
 import static bio.overture.score.client.cli.Parameters.checkParameter;
+import static java.util.Comparator.comparingLong;
 
 import bio.overture.score.client.cli.FileValidator;
 import bio.overture.score.client.cli.ObjectIdValidator;
+import bio.overture.score.client.config.TransportProperties;
 import bio.overture.score.client.manifest.ManifestResource;
 import bio.overture.score.client.manifest.ManifestService;
 import bio.overture.score.client.manifest.UploadManifest;
+import bio.overture.score.client.manifest.UploadManifest.ManifestEntry;
+import bio.overture.score.client.transport.PartScheduler;
 import bio.overture.score.client.upload.UploadService;
 import bio.overture.score.client.util.BeanUtil;
 import com.beust.jcommander.Parameter;
 import com.beust.jcommander.Parameters;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.annotation.PostConstruct;
+import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -45,6 +56,9 @@ import org.springframework.stereotype.Component;
     commandDescription = "Upload file object(s) to the remote storage repository")
 public class UploadCommand extends RepositoryAccessCommand {
 
+  /** Constants. */
+  private static final String AUTO_MD5 = "auto";
+
   /** Options. */
   @Parameter(
       names = "--file",
@@ -64,7 +78,11 @@ public class UploadCommand extends RepositoryAccessCommand {
       validateValueWith = ObjectIdValidator.class)
   private String objectId;
 
-  @Parameter(names = "--md5", description = "MD5 checksum of file to upload")
+  @Parameter(
+      names = "--md5",
+      description =
+          "MD5 checksum of file to upload, or 'auto' to compute it while uploading for the server"
+              + " to verify")
   private String md5;
 
   @Parameter(
@@ -82,6 +100,8 @@ public class UploadCommand extends RepositoryAccessCommand {
 
   @Autowired private BeanUtil beanUtil;
 
+  @Autowired private TransportProperties transportProperties;
+
   @PostConstruct
   public void initializeStorageProfile() throws Exception {
     uploader = (UploadService) beanUtil.getBeanForProfile(UploadService.class);
@@ -104,12 +124,17 @@ public class UploadCommand extends RepositoryAccessCommand {
     terminal.print("\r");
     if (manifestResource != null) {
       val manifest = readManifest();
-      for (val entry : manifest.getEntries()) {
-        val objectId = entry.getFileUuid();
-        val file = new File(entry.getFileName());
-        val checksum = entry.getFileMd5sum();
+      val objects = Math.min(transportProperties.getObjects(), manifest.getEntries().size());
+      if (objects > 1) {
+        uploadTogether(manifest.getEntries(), objects);
+      } else {
+        for (val entry : manifest.getEntries()) {
+          val objectId = entry.getFileUuid();
+          val file = new File(entry.getFileName());
+          val checksum = entry.getFileMd5sum();
 
-        uploadFile(objectId, file, checksum);
+          uploadFile(objectId, file, checksum);
+        }
       }
     } else {
       checkParameter(file != null, "--file must be specified if --object-id is specified");
@@ -120,8 +145,74 @@ public class UploadCommand extends RepositoryAccessCommand {
     return SUCCESS_STATUS;
   }
 
+  /**
+   * Uploads up to {@code objects} files at once, their parts sharing one pool of workers and one
+   * memory budget. The existence checks of all files run ahead of their uploads, and the smallest
+   * files go first. A failed file does not hold up the others; the first failure is rethrown once
+   * every file has been attempted.
+   */
+  @SneakyThrows
+  private void uploadTogether(List<ManifestEntry> entries, int objects) {
+    val ranked = new ArrayList<ManifestEntry>(entries);
+    ranked.sort(comparingLong(entry -> new File(entry.getFileName()).length()));
+
+    val workers =
+        transportProperties.isAdaptive()
+            ? Math.max(transportProperties.getParallel(), transportProperties.getMaxParallel())
+            : transportProperties.getParallel();
+    val checks =
+        Executors.newFixedThreadPool(
+            objects, new ThreadFactoryBuilder().setNameFormat("check-%s").build());
+    val drivers =
+        Executors.newFixedThreadPool(
+            objects, new ThreadFactoryBuilder().setNameFormat("object-%s").build());
+    val memory = transportProperties.getMemory() * 1024 * 1024 * 1024;
+    try (PartScheduler scheduler = new PartScheduler(Math.max(1, workers), memory)) {
+      val results = new ArrayList<Future<?>>();
+      for (val entry : ranked) {
+        val objectId = entry.getFileUuid();
+        val file = new File(entry.getFileName());
+        val exists = checks.submit(() -> checkFile(objectId, file));
+        results.add(
+            drivers.submit(
+                () -> {
+                  uploadFile(objectId, file, entry.getFileMd5sum(), exists.get(), scheduler);
+                  return null;
+                }));
+      }
+      checks.shutdown();
+      drivers.shutdown();
+
+      Throwable failure = null;
+      for (int i = 0; i < results.size(); i++) {
+        try {
+          results.get(i).get();
+        } catch (ExecutionException e) {
+          // A failed existence check surfaces wrapped once more by its driver
+          val cause =
+              e.getCause() instanceof ExecutionException ? e.getCause().getCause() : e.getCause();
+          log.error("Failed to upload file '{}'", ranked.get(i).getFileName(), cause);
+          terminal.printError(
+              "Failed to upload file '%s': %s", ranked.get(i).getFileName(), cause.getMessage());
+          failure = failure == null ? cause : failure;
+        }
+      }
+
+      if (failure != null) {
+        throw failure;
+      }
+    } finally {
+      checks.shutdownNow();
+      drivers.shutdownNow();
+    }
+  }
+
   private void uploadFile(String objectId, File file, String md5) throws IOException {
-    log.info("Uploading file '{}'...", file);
+    uploadFile(objectId, file, md5, checkFile(objectId, file), null);
+  }
+
+  /** Validates {@code file} for upload and returns whether {@code objectId} exists remotely. */
+  private boolean checkFile(String objectId, File file) throws IOException {
     checkParameter(
         file.length() > 0,
         "File '%s' is empty. Uploads of empty files are not permitted. Aborting...%n",
@@ -133,13 +224,22 @@ public class UploadCommand extends RepositoryAccessCommand {
         "Object id %s already exists remotely and --force was not specified. Aborting...%n",
         objectId);
 
+    return exists;
+  }
+
+  private void uploadFile(
+      String objectId, File file, String md5, boolean exists, PartScheduler scheduler)
+      throws IOException {
+    log.info("Uploading file '{}'...", file);
     val warn = isForce && exists;
     if (warn) {
       terminal.printWarn("Object %s exists and --force specified. Overwriting...", objectId);
     }
 
     terminal.printf("Uploading object: '%s' using the object id %s%n", file, objectId);
-    uploader.upload(file, objectId, md5, isForce);
+    // The uploader digests the file itself when given no checksum
+    val checksum = AUTO_MD5.equalsIgnoreCase(md5) ? null : md5;
+    uploader.upload(file, objectId, checksum, isForce, scheduler);
     terminal.println("Upload completed");
   }
 
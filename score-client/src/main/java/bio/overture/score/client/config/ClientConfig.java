@@ -29,9 +29,14 @@ import bio.overture.score.client.exception.NotResumableException;
 import bio.overture.score.client.exception.NotRetryableException;
 import bio.overture.score.client.exception.RetryableException;
 import bio.overture.score.client.exception.ServiceRetryableResponseErrorHandler;
+import bio.overture.score.client.jfr.RetryEventListener;
+import bio.overture.score.client.progress.ServerTimingInterceptor;
+import bio.overture.score.client.progress.TransferTimings;
+import bio.overture.score.client.transport.AdaptiveReadTimeout;
 import bio.overture.score.client.upload.UploadStateStore;
 import com.google.common.collect.ImmutableMap;
 import java.io.IOException;
+import java.net.HttpURLConnection;
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.SSLContext;
 import lombok.SneakyThrows;
@@ -111,9 +116,10 @@ public class ClientConfig {
   }
 
   @Bean
-  public RestTemplate serviceTemplate() {
+  public RestTemplate serviceTemplate(TransferTimings transferTimings) {
     val serviceTemplate = new RestTemplate(clientHttpRequestFactory());
     serviceTemplate.setErrorHandler(new ServiceRetryableResponseErrorHandler());
+    serviceTemplate.getInterceptors().add(new ServerTimingInterceptor(transferTimings));
 
     return serviceTemplate;
   }
@@ -126,6 +132,11 @@ public class ClientConfig {
     return dataTemplate;
   }
 
+  @Bean
+  public AdaptiveReadTimeout dataReadTimeout() {
+    return new AdaptiveReadTimeout(properties.getReadTimeoutSeconds() * 1000);
+  }
+
   @Bean
   public RestTemplate pingTemplate() {
     val pingTemplate = new RestTemplate(pingHttpRequestFactory());
@@ -153,6 +164,7 @@ public class ClientConfig {
     val retry = new RetryTemplate();
     retry.setBackOffPolicy(backOffPolicy);
     retry.setRetryPolicy(retryPolicy);
+    retry.registerListener(new RetryEventListener(retryPolicy));
 
     return retry;
   }
@@ -187,7 +199,18 @@ public class ClientConfig {
   }
 
   private SimpleClientHttpRequestFactory streamingClientHttpRequestFactory() {
-    val factory = new SimpleClientHttpRequestFactory();
+    val readTimeout = dataReadTimeout();
+    val factory =
+        new SimpleClientHttpRequestFactory() {
+
+          @Override
+          protected void prepareConnection(HttpURLConnection connection, String httpMethod)
+              throws IOException {
+            super.prepareConnection(connection, httpMethod);
+            // shortened by the transports to the throughput they observe
+            connection.setReadTimeout(readTimeout.getMillis());
+          }
+        };
 
     // SimpleClientHttpRequestFactory *will 100%* ignore these, but lets do it anyways in hopes
     // to maximize the number of places that it may be used elsewhere
@@ -18,9 +18,12 @@
 package bio.overture.score.client.config;
 
 import bio.overture.score.client.storage.StorageService;
+import bio.overture.score.client.transport.AdaptiveReadTimeout;
 import bio.overture.score.client.transport.MemoryMappedParallelPartObjectTransport;
 import bio.overture.score.client.transport.ParallelPartObjectTransport;
+import bio.overture.score.client.transport.ParallelPartObjectTransport.RemoteParallelBuilder;
 import bio.overture.score.client.transport.PipedParallelPartObjectTransport;
+import bio.overture.score.client.transport.PositionalParallelPartObjectTransport;
 import bio.overture.score.client.transport.SequentialPartObjectTransport;
 import bio.overture.score.client.transport.Transport;
 import lombok.extern.slf4j.Slf4j;
@@ -35,6 +38,7 @@ public class TransportConfig {
 
   @Autowired TransportProperties properties;
   @Autowired StorageService proxy;
+  @Autowired AdaptiveReadTimeout dataReadTimeout;
 
   @Bean
   public Transport.Builder builder() {
@@ -60,6 +64,16 @@ public class TransportConfig {
         log.debug("Transport: {}", "Sequential");
         builder = SequentialPartObjectTransport.builder().withProxy(proxy);
         break;
+      case "positional":
+        log.debug("Transport: {}", "Positional");
+        builder =
+            PositionalParallelPartObjectTransport.builder()
+                .withForceInterval(properties.getForceInterval())
+                .withPipeline(properties.getHashThreads(), properties.getWriteThreads())
+                .withMemory(properties.getMemory() * 1024 * 1024 * 1024)
+                .withNumberOfWorkerThreads(properties.getParallel())
+                .withProxy(proxy);
+        break;
       default:
         builder =
             PipedParallelPartObjectTransport.builder()
@@ -69,6 +83,14 @@ public class TransportConfig {
         log.debug("Transport: {}, Builder: {}", "local", builder);
     }
 
+    if (properties.isAdaptive() && builder instanceof RemoteParallelBuilder) {
+      log.debug(
+          "Adaptive concurrency: {}-{}", properties.getMinParallel(), properties.getMaxParallel());
+      ((RemoteParallelBuilder) builder)
+          .withAdaptiveConcurrency(properties.getMinParallel(), properties.getMaxParallel())
+          .withReadTimeout(dataReadTimeout);
+    }
+
     return builder;
   }
 }
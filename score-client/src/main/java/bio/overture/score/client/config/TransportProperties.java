@@ -29,4 +29,12 @@ public class TransportProperties {
   String fileFrom;
   long memory;
   int parallel;
+  long forceInterval;
+  int hashThreads;
+  int writeThreads;
+  int verifyThreads;
+  boolean adaptive;
+  int minParallel;
+  int maxParallel;
+  int objects;
 }
@@ -18,6 +18,7 @@
 package bio.overture.score.client.download;
 
 import bio.overture.score.client.metadata.Entity;
+import bio.overture.score.client.transport.PartScheduler;
 import java.io.File;
 import lombok.Builder;
 import lombok.Data;
@@ -33,6 +34,12 @@ public class DownloadRequest {
   private boolean validate;
   private Entity entity;
 
+  /** Shared by the objects downloaded together, if any. */
+  private PartScheduler scheduler;
+
+  /** Order of this object's parts on the {@link #scheduler}, lowest first. */
+  private long rank;
+
   public File getOutputFilePath() {
     return new File(outputDir, objectId);
   }
@@ -19,14 +19,23 @@ package bio.overture.score.client.download;
 
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.Iterables.getOnlyElement;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.util.stream.Collectors.toList;
 
 import bio.overture.score.client.cli.Terminal;
+import bio.overture.score.client.config.TransportProperties;
 import bio.overture.score.client.exception.NotResumableException;
 import bio.overture.score.client.exception.NotRetryableException;
 import bio.overture.score.client.exception.RetryableException;
 import bio.overture.score.client.metadata.Entity;
 import bio.overture.score.client.progress.Progress;
+import bio.overture.score.client.progress.TransferTimings;
+import bio.overture.score.client.state.FileFingerprint;
 import bio.overture.score.client.storage.StorageService;
+import bio.overture.score.client.transport.IncrementalChecksum;
+import bio.overture.score.client.transport.ParallelPartObjectTransport.RemoteParallelBuilder;
+import bio.overture.score.client.transport.PartVerifier;
+import bio.overture.score.client.transport.ResumableMd5;
 import bio.overture.score.client.transport.Transport;
 import bio.overture.score.core.model.ObjectSpecification;
 import bio.overture.score.core.model.Part;
@@ -37,12 +46,16 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.net.URL;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 import javax.annotation.PostConstruct;
 import lombok.NonNull;
 import lombok.SneakyThrows;
@@ -69,6 +82,8 @@ public class DownloadService {
   @Autowired private DownloadStateStore downloadStateStore;
   @Autowired private Transport.Builder transportBuilder;
   @Autowired private Terminal terminal;
+  @Autowired private TransferTimings transferTimings;
+  @Autowired private TransportProperties transportProperties;
 
   @PostConstruct
   public void setup() {
@@ -107,37 +122,41 @@ public class DownloadService {
    */
   public void download(DownloadRequest downloadRequest, boolean redo) throws IOException {
     log.debug("Beginning download of {}", downloadRequest.toString());
-    int retry = 0;
-    for (; retry < retryNumber; retry++) {
-      try {
-        if (redo) {
-          resetDownload(downloadRequest.getOutputFilePath());
-          startNewDownload(downloadRequest);
-        } else {
-          // Only perform checksum the first time of the resume
-          resumeIfPossible(downloadRequest, retry == 0 ? true : false);
-        }
-        return;
-      } catch (NotResumableException e) {
-        log.error("Failed to handle download request", e.getCause());
-        throw e;
-      } catch (NotRetryableException e) {
-        log.warn(
-            "Download failed during last execution. Checking data integrity. Please wait...", e);
-        if (storageService.isDownloadDataRecoverable(
-            downloadRequest.getOutputDir(),
-            downloadRequest.getObjectId(),
-            downloadRequest.getOutputFilePath().length())) {
-          redo = false;
-        } else {
+    try {
+      int retry = 0;
+      for (; retry < retryNumber; retry++) {
+        try {
+          if (redo) {
+            resetDownload(downloadRequest.getOutputFilePath());
+            startNewDownload(downloadRequest);
+          } else {
+            // Only perform checksum the first time of the resume
+            resumeIfPossible(downloadRequest, retry == 0 ? true : false);
+          }
+          return;
+        } catch (NotResumableException e) {
+          log.error("Failed to handle download request", e.getCause());
+          throw e;
+        } catch (NotRetryableException e) {
+          log.warn(
+              "Download failed during last execution. Checking data integrity. Please wait...", e);
+          if (storageService.isDownloadDataRecoverable(
+              downloadRequest.getOutputDir(),
+              downloadRequest.getObjectId(),
+              downloadRequest.getOutputFilePath().length())) {
+            redo = false;
+          } else {
+            redo = true;
+          }
+        } catch (RetryableException e) {
           redo = true;
         }
-      } catch (RetryableException e) {
-        redo = true;
       }
-    }
-    if (retry == retryNumber) {
-      throw new RuntimeException("Number of retries exhausted");
+      if (retry == retryNumber) {
+        throw new RuntimeException("Number of retries exhausted");
+      }
+    } finally {
+      transferTimings.report(terminal, downloadRequest.getObjectId(), quiet);
     }
   }
 
@@ -163,8 +182,12 @@ public class DownloadService {
     resume(request, spec, checksum);
   }
 
-  private void resume(DownloadRequest request, ObjectSpecification spec, boolean checksum) {
+  private void resume(DownloadRequest request, ObjectSpecification spec, boolean checksum)
+      throws IOException {
     log.info("Resuming from previous download...");
+    if (checksum) {
+      checksum = verifyCompletedParts(request, spec);
+    }
 
     val totalParts = spec.getParts().size();
     val completedParts = numCompletedParts(spec.getParts());
@@ -175,20 +198,61 @@ public class DownloadService {
         totalParts,
         completedParts,
         remainingParts);
-    val progress = new Progress(terminal, quiet, totalParts, completedParts);
-    downloadParts(
-        spec.getParts(),
-        request.getOutputDir(),
-        request.getObjectId(),
-        request.getObjectId(),
-        progress,
-        checksum);
+    val progress = newProgress(request, totalParts, completedParts);
+    try (IncrementalChecksum md5 = startChecksum(request, spec)) {
+      downloadParts(request, spec.getParts(), progress, checksum, md5);
+
+      if (request.isValidate()) {
+        terminal.printStatus("Verifying checksum...");
+        doMd5Checksum(request, spec, md5);
+        terminal.printStatus("Ok");
+      }
+    }
+  }
+
+  /**
+   * Checks the parts completed by an earlier attempt ahead of the transfer. None are read if the
+   * output file still has the fingerprint recorded when that attempt stopped. Otherwise they are
+   * hashed on a pool of their own and the corrupted ones are marked to be downloaded again. Returns
+   * whether the transport is still to check them, as when the parts are kept in files of their own.
+   */
+  private boolean verifyCompletedParts(DownloadRequest request, ObjectSpecification spec)
+      throws IOException {
+    val dir = request.getOutputDir();
+    val objectId = request.getObjectId();
+    val file = request.getOutputFilePath();
+    val fingerprint = FileFingerprint.of(file);
+    if (fingerprint.isPresent()
+        && fingerprint.equals(downloadStateStore.loadFingerprint(dir, objectId))) {
+      log.info("{} is unchanged since the last attempt, skipping verification", file);
+      return false;
+    }
+
+    val size = Downloads.calculateTotalSize(spec.getParts());
+    if (!fingerprint.isPresent() || fingerprint.get().getSize() != size) {
+      return true;
+    }
 
-    if (request.isValidate()) {
-      terminal.printStatus("Verifying checksum...");
-      doMd5Checksum(request, spec);
-      terminal.printStatus("Ok");
+    val completed = spec.getParts().stream().filter(Part::isCompleted).collect(toList());
+    terminal.printStatus("Verifying " + completed.size() + " completed parts...");
+    val verifier = new PartVerifier(transportProperties.getVerifyThreads());
+    val positions = Downloads.calculatePositions(spec.getParts());
+    for (val part : verifier.findCorrupted(file, completed, positions)) {
+      log.info("Part #{} is corrupted. Re-downloading...", part.getPartNumber());
+      downloadStateStore.deletePart(dir, objectId, part);
+      part.setMd5(null);
     }
+
+    return false;
+  }
+
+  /**
+   * Objects sharing a scheduler are downloaded at once, so their progress bars are kept quiet
+   * rather than overwriting each other.
+   */
+  private Progress newProgress(DownloadRequest request, int totalParts, int completedParts) {
+    return new Progress(
+        terminal, quiet || request.getScheduler() != null, totalParts, completedParts);
   }
 
   /** Calculate the number of completed parts */
@@ -218,14 +282,19 @@ public class DownloadService {
    */
   @SneakyThrows
   public long getSpaceRequired(Set<Entity> entities) {
-    long total = 0L;
+    return getObjectSizes(entities).values().stream().mapToLong(Long::longValue).sum();
+  }
 
+  /** Looks up the size of each of the {@code entities}. */
+  @SneakyThrows
+  public Map<Entity, Long> getObjectSizes(Set<Entity> entities) {
+    val sizes = new LinkedHashMap<Entity, Long>();
     for (val entity : entities) {
       val spec = storageService.getDownloadSpecification(entity.getId());
-      total += spec.getObjectSize();
+      sizes.put(entity, spec.getObjectSize());
     }
 
-    return total;
+    return sizes;
   }
 
   /** Start a download given the object id */
@@ -263,46 +332,144 @@ public class DownloadService {
     downloadStateStore.init(dir, spec);
 
     // TODO: Assign session id
-    val progress = new Progress(terminal, quiet, spec.getParts().size(), 0);
-    downloadParts(
-        spec.getParts(), dir, request.getObjectId(), request.getObjectId(), progress, false);
-
-    if (request.isValidate()) {
-      terminal.printStatus("Verifying checksum...");
-      log.info("Beginning MD5 checksum calculation for {}", request.getOutputFilePath().toString());
-      doMd5Checksum(request, spec);
+    val progress = newProgress(request, spec.getParts().size(), 0);
+    try (IncrementalChecksum md5 = startChecksum(request, spec)) {
+      downloadParts(request, spec.getParts(), progress, false, md5);
+
+      if (request.isValidate()) {
+        terminal.printStatus("Verifying checksum...");
+        log.info("Completing MD5 checksum calculation for {}", request.getOutputFilePath());
+        doMd5Checksum(request, spec, md5);
+      }
+    }
+  }
+
+  /**
+   * Starts hashing the object as its parts arrive, from the checkpoint of an earlier attempt if
+   * there is one, when the object is to be validated and the transport writes its parts straight
+   * into the output file; null otherwise.
+   */
+  private IncrementalChecksum startChecksum(DownloadRequest request, ObjectSpecification spec) {
+    if (!request.isValidate() || spec.getObjectMd5() == null || !isReceivedInPlace()) {
+      return null;
     }
+
+    val dir = request.getOutputDir();
+    val objectId = request.getObjectId();
+    val size = Downloads.calculateTotalSize(spec.getParts());
+    val md5 =
+        downloadStateStore
+            .loadDigest(dir, objectId)
+            .map(checkpoint -> restoreChecksum(checkpoint, size))
+            .orElseGet(ResumableMd5::new);
+    log.debug("Hashing {} from byte {} of {}", objectId, md5.getCount(), size);
+
+    return new IncrementalChecksum(
+        request.getOutputFilePath(),
+        size,
+        md5,
+        checkpoint -> downloadStateStore.commitDigest(dir, objectId, checkpoint));
+  }
+
+  /** Whether the transport writes parts into the output file as they arrive. */
+  private boolean isReceivedInPlace() {
+    return transportBuilder instanceof RemoteParallelBuilder
+        && ((RemoteParallelBuilder) transportBuilder).isReceivedInPlace();
+  }
+
+  private static ResumableMd5 restoreChecksum(String checkpoint, long size) {
+    try {
+      val md5 = ResumableMd5.restore(checkpoint);
+      if (md5.getCount() <= size) {
+        return md5;
+      }
+    } catch (IllegalArgumentException e) {
+      log.warn("Ignoring checksum checkpoint: {}", e.getMessage());
+    }
+
+    return new ResumableMd5();
   }
 
   /** start downloading parts using a specific configured data transport */
   @SneakyThrows
   private void downloadParts(
+      DownloadRequest request,
       List<Part> parts,
-      File file,
-      String objectId,
-      String sessionId,
       Progress progressBar,
-      boolean checksum) {
+      boolean checksum,
+      IncrementalChecksum md5) {
     log.debug("Setting up download of parts");
-    transportBuilder
-        .withProxy(storageService)
-        .withProgressBar(progressBar)
-        .withParts(parts)
-        .withObjectId(objectId)
-        .withTransportMode(Transport.Mode.DOWNLOAD)
-        .withChecksum(checksum)
-        .withSessionId(sessionId);
-    transportBuilder.build().receive(file);
+    Transport transport;
+    // The builder is shared by the objects downloaded together
+    synchronized (transportBuilder) {
+      transportBuilder
+          .withProxy(storageService)
+          .withProgressBar(progressBar)
+          .withParts(parts)
+          .withObjectId(request.getObjectId())
+          .withTransportMode(Transport.Mode.DOWNLOAD)
+          .withChecksum(checksum)
+          .withSessionId(request.getObjectId());
+      if (transportBuilder instanceof RemoteParallelBuilder) {
+        ((RemoteParallelBuilder) transportBuilder)
+            .withScheduler(request.getScheduler(), request.getRank())
+            .withPartListener(md5 == null ? null : listener(parts, md5));
+      }
+      transport = transportBuilder.build();
+    }
+
+    val dir = request.getOutputDir();
+    val objectId = request.getObjectId();
+    // An attempt cut short leaves no fingerprint, so its completed parts are verified on resume
+    downloadStateStore.clearFingerprint(dir, objectId);
+    try {
+      transport.receive(dir);
+    } finally {
+      commitFingerprint(request);
+    }
   }
 
-  private void doMd5Checksum(DownloadRequest req, ObjectSpecification spec) {
+  /**
+   * Records the fingerprint of the output file once its contents are on disk. A fingerprint
+   * committed ahead of writes still in the page cache would outlive a crash that loses them, and
+   * the parts they belong to would be trusted on resume without being read.
+   */
+  private void commitFingerprint(DownloadRequest request) throws IOException {
+    val file = request.getOutputFilePath();
+    if (!file.exists()) {
+      return;
+    }
+
+    try (FileChannel channel = FileChannel.open(file.toPath(), READ)) {
+      channel.force(true);
+    } catch (IOException e) {
+      log.warn(
+          "Failed to flush '{}', its parts will be verified on resume: {}", file, e.getMessage());
+      return;
+    }
+
+    val fingerprint = FileFingerprint.of(file);
+    if (fingerprint.isPresent()) {
+      downloadStateStore.commitFingerprint(
+          request.getOutputDir(), request.getObjectId(), fingerprint.get());
+    }
+  }
+
+  /** Reports each part to {@code md5} at its position in the file. */
+  private static Consumer<Part> listener(List<Part> parts, IncrementalChecksum md5) {
+    val positions = Downloads.calculatePositions(parts);
+    return part -> md5.completed(positions.get(part.getPartNumber()), part.getPartSize());
+  }
+
+  private void doMd5Checksum(
+      DownloadRequest req, ObjectSpecification spec, IncrementalChecksum md5) {
 
     if (spec.getObjectMd5() == null) {
       log.warn("meta file does not contain the object MD5 checksum. Skipping check.");
       return;
     }
     val outputFile = req.getOutputFilePath();
-    val downloadedMd5 = calculateChecksum(outputFile);
+    val downloadedMd5 = getChecksum(outputFile, spec, md5);
 
     boolean check;
     try {
@@ -328,7 +495,29 @@ public class DownloadService {
     }
   }
 
-  private String calculateChecksum(File outputFile) {
+  /**
+   * The MD5 hashed while downloading when it matches, else that of a full pass over the file: a
+   * part rewritten after it was hashed, as when resuming with a corrupted part, leaves a stale
+   * digest.
+   */
+  private String getChecksum(File outputFile, ObjectSpecification spec, IncrementalChecksum md5) {
+    if (md5 != null) {
+      try {
+        val incremental = md5.finish();
+        if (MD5s.isEqual(incremental, spec.getObjectMd5())) {
+          return incremental;
+        }
+
+        log.warn("MD5 hashed during download of {} does not match; rehashing", outputFile);
+      } catch (IOException | IllegalArgumentException e) {
+        log.warn("Could not hash {} during download: {}", outputFile, e.getMessage());
+      }
+    }
+
+    return calculateChecksum(outputFile);
+  }
+
+  static String calculateChecksum(File outputFile) {
     String downloadedMd5 = null;
     try {
       val md = MessageDigest.getInstance("MD5");
@@ -357,7 +546,7 @@ public class DownloadService {
     return downloadedMd5;
   }
 
-  private String decodeDigest(byte[] digest) {
+  private static String decodeDigest(byte[] digest) {
     return BaseEncoding.base16().lowerCase().encode(digest);
   }
 }
@@ -18,6 +18,7 @@
 package bio.overture.score.client.download;
 
 import bio.overture.score.client.exception.NotRetryableException;
+import bio.overture.score.client.state.FileFingerprint;
 import bio.overture.score.client.state.TransferState;
 import bio.overture.score.client.util.BeanUtil;
 import bio.overture.score.client.util.PresignedUrlValidator;
@@ -27,7 +28,10 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
 import javax.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
@@ -77,6 +81,14 @@ public class DownloadStateStore extends TransferState {
     return "meta";
   }
 
+  private String getDigestName() {
+    return "md5";
+  }
+
+  private String getFingerprintName() {
+    return "fingerprint";
+  }
+
   public boolean hasStarted(File stateDir, String objectId) {
     return Files.exists(
         new File(getObjectStateDir(stateDir, objectId), getSpecificationName()).toPath());
@@ -137,6 +149,78 @@ public class DownloadStateStore extends TransferState {
     }
   }
 
+  /**
+   * Records the state of the whole-object MD5 computed so far, replacing the previous one in a
+   * single move so that a crash never leaves half a checkpoint.
+   */
+  public void commitDigest(File stateDir, String objectId, String checkpoint) {
+    replace(getObjectStateDir(stateDir, objectId), getDigestName(), checkpoint);
+  }
+
+  /** The last state committed by {@link #commitDigest}, if any. */
+  public Optional<String> loadDigest(File stateDir, String objectId) {
+    return load(getObjectStateDir(stateDir, objectId), getDigestName());
+  }
+
+  /**
+   * Records the fingerprint of the output file as a transfer stops, vouching for the parts
+   * completed so far for as long as the file keeps it. Nothing is recorded once the download is
+   * finalized.
+   */
+  public void commitFingerprint(File stateDir, String objectId, FileFingerprint fingerprint) {
+    if (hasStarted(stateDir, objectId)) {
+      replace(getObjectStateDir(stateDir, objectId), getFingerprintName(), fingerprint.serialize());
+    }
+  }
+
+  /** The fingerprint recorded by {@link #commitFingerprint}, if it still stands. */
+  public Optional<FileFingerprint> loadFingerprint(File stateDir, String objectId) {
+    try {
+      return load(getObjectStateDir(stateDir, objectId), getFingerprintName())
+          .map(FileFingerprint::parse);
+    } catch (IllegalArgumentException e) {
+      log.warn("Ignoring file fingerprint: {}", e.getMessage());
+      return Optional.empty();
+    }
+  }
+
+  /** Withdraws the fingerprint while a transfer writes to the output file. */
+  public void clearFingerprint(File stateDir, String objectId) {
+    try {
+      Files.deleteIfExists(
+          new File(getObjectStateDir(stateDir, objectId), getFingerprintName()).toPath());
+    } catch (IOException e) {
+      throw new NotRetryableException(e);
+    }
+  }
+
+  /** Writes {@code name} afresh through a temporary file. */
+  private static void replace(File objectStateDir, String name, String content) {
+    try {
+      val temp = new File(objectStateDir, name + ".tmp").toPath();
+      Files.write(temp, content.getBytes(StandardCharsets.UTF_8));
+      Files.move(
+          temp,
+          new File(objectStateDir, name).toPath(),
+          StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new NotRetryableException(e);
+    }
+  }
+
+  private static Optional<String> load(File objectStateDir, String name) {
+    val file = new File(objectStateDir, name).toPath();
+    try {
+      return Files.exists(file)
+          ? Optional.of(new String(Files.readAllBytes(file), StandardCharsets.UTF_8))
+          : Optional.empty();
+    } catch (IOException e) {
+      log.warn("Failed to read {}: {}", file, e.getMessage());
+      return Optional.empty();
+    }
+  }
+
   private Part loadPart(File stateDir, String objectId, String partFileName) {
     File objectStateDir = getObjectStateDir(stateDir, objectId);
     File partFile = new File(objectStateDir, partFileName);
@@ -19,7 +19,12 @@ package bio.overture.score.client.download;
 
 import bio.overture.score.core.model.Part;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import lombok.val;
 
 public class Downloads {
 
@@ -34,4 +39,21 @@ public class Downloads {
     }
     return total;
   }
+
+  /**
+   * Position of each part in the downloaded file, by part number. The file starts at the requested
+   * offset rather than at the start of the object, so parts are laid out back to back from 0.
+   */
+  public static Map<Integer, Long> calculatePositions(List<Part> parts) {
+    val sorted = new ArrayList<Part>(parts);
+    Collections.sort(sorted);
+
+    val positions = new HashMap<Integer, Long>();
+    long position = 0;
+    for (val part : sorted) {
+      positions.put(part.getPartNumber(), position);
+      position += part.getPartSize();
+    }
+    return positions;
+  }
 }
@@ -36,6 +36,11 @@ public class ServiceRetryableResponseErrorHandler extends DefaultResponseErrorHa
         log.warn("Bad request. Stop processing: {}", response.getStatusText());
         throw notRetryableException("Storage client error: ", response);
 
+      case CONFLICT:
+        // e.g. the uploaded object does not match its MD5, which sending it again cannot fix
+        log.warn("Conflict. Stop processing: {}", response.getStatusText());
+        throw notResumableException("Storage client error: ", response);
+
       case INTERNAL_SERVER_ERROR:
         log.warn("Server error. Stop processing: {}", response.getStatusText());
         throw notResumableException("Storage client error: ", response);
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.client.jfr;
+
+import bio.overture.score.core.model.Part;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Flight Recorder event spanning the transfer of a single part, including its retries. */
+@Name("bio.overture.score.client.PartTransfer")
+@Label("Part Transfer")
+@Category({"Score", "Client"})
+@Description("Upload or download of a single object part")
+@StackTrace(false)
+public class PartTransferEvent extends jdk.jfr.Event {
+
+  public static final String UPLOAD = "upload";
+  public static final String DOWNLOAD = "download";
+
+  @Label("Direction")
+  String direction;
+
+  @Label("Object Id")
+  String objectId;
+
+  @Label("Part Number")
+  int partNumber;
+
+  @Label("Offset")
+  @DataAmount
+  long offset;
+
+  @Label("Bytes")
+  @DataAmount
+  long bytes;
+
+  @Label("Attempts")
+  int attempts;
+
+  @Label("Succeeded")
+  boolean succeeded;
+
+  public PartTransferEvent(String direction, String objectId, Part part) {
+    this.direction = direction;
+    this.objectId = objectId;
+    this.partNumber = part.getPartNumber();
+    this.offset = part.getOffset();
+    this.bytes = part.getPartSize();
+  }
+
+  public void attempt() {
+    attempts++;
+  }
+
+  public void succeeded() {
+    succeeded = true;
+  }
+}
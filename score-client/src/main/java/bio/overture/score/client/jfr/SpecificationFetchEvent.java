@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.client.jfr;
+
+import bio.overture.score.core.model.ObjectSpecification;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Flight Recorder event spanning the retrieval of an object specification from the server. */
+@Name("bio.overture.score.client.SpecificationFetch")
+@Label("Specification Fetch")
+@Category({"Score", "Client"})
+@Description("Request for the upload or download specification of an object")
+@StackTrace(false)
+public class SpecificationFetchEvent extends jdk.jfr.Event {
+
+  public static final String UPLOAD = "upload";
+  public static final String DOWNLOAD = "download";
+  public static final String EXTERNAL = "external";
+
+  @Label("Kind")
+  String kind;
+
+  @Label("Object Id")
+  String objectId;
+
+  @Label("Length")
+  @DataAmount
+  long length;
+
+  @Label("Parts")
+  int parts;
+
+  public SpecificationFetchEvent(String kind, String objectId, long length) {
+    this.kind = kind;
+    this.objectId = objectId;
+    this.length = length;
+  }
+
+  public ObjectSpecification fetched(ObjectSpecification spec) {
+    if (spec != null && spec.getParts() != null) {
+      parts = spec.getParts().size();
+    }
+    return spec;
+  }
+}
@@ -114,6 +114,11 @@ public class Progress {
                 + terminal.value(String.format("%15s", formatCount(bytesWritten.get()))));
   }
 
+  /** Adds a line to the report printed by {@link #end(boolean)}. */
+  public void report(String label, String value) {
+    terminal.println(terminal.label(String.format("%-20s", label)) + ": " + terminal.value(value));
+  }
+
   public void incrementParts(int partCount) {
     partsPercent = completedParts.addAndGet(partCount) * 100 / totalParts;
   }
@@ -38,6 +38,11 @@ public class ProgressDataChannel extends ForwardingDataChannel {
     super.readFrom(new ProgressInputStream(inputStream, progress));
   }
 
+  @Override
+  public String readAndHash(InputStream inputStream) throws IOException {
+    return super.readAndHash(new ProgressInputStream(inputStream, progress));
+  }
+
   @Override
   public void writeTo(OutputStream outputStream) throws IOException {
     super.writeTo(new ProgressOutputStream(outputStream, progress));
@@ -46,6 +46,11 @@ public class ProgressMemoryMappedDataChannel extends ForwardingDataChannel {
     super.readFrom(new ProgressMemoryMappedInputStream(inputStream, progress));
   }
 
+  @Override
+  public String readAndHash(InputStream inputStream) throws IOException {
+    return super.readAndHash(new ProgressMemoryMappedInputStream(inputStream, progress));
+  }
+
   @Override
   public void writeTo(OutputStream outputStream) throws IOException {
     super.writeTo(new ProgressMemoryMappedOutputStream(outputStream, progress));
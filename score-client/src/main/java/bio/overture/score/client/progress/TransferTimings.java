@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.client.progress;
+
+import bio.overture.score.client.cli.Terminal;
+import bio.overture.score.core.util.ServerTimings;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.stereotype.Component;
+
+/**
+ * Assigns each object transfer a correlation id, sent with every request made to the server for it,
+ * and sums the {@code Server-Timing} the server reports back so that the transfer report can
+ * attribute server time to its backends.
+ */
+@Slf4j
+@Component
+public class TransferTimings {
+
+  /** State. */
+  private final ConcurrentMap<String, Transfer> transfersByObjectId = new ConcurrentHashMap<>();
+
+  private final ConcurrentMap<String, Transfer> transfersByCorrelationId =
+      new ConcurrentHashMap<>();
+
+  /**
+   * @return the correlation id of the transfer of {@code objectId}, starting one if needed
+   */
+  public String getCorrelationId(@NonNull String objectId) {
+    return transfersByObjectId
+        .computeIfAbsent(
+            objectId,
+            id -> {
+              val transfer = new Transfer(UUID.randomUUID().toString());
+              transfersByCorrelationId.put(transfer.getCorrelationId(), transfer);
+              return transfer;
+            })
+        .getCorrelationId();
+  }
+
+  /** Adds the {@code Server-Timing} of a response to the transfer it was made for. */
+  public void record(@NonNull String correlationId, String serverTiming) {
+    val transfer = transfersByCorrelationId.get(correlationId);
+    if (transfer != null) {
+      transfer.record(serverTiming);
+    }
+  }
+
+  /**
+   * Ends the transfer of {@code objectId}.
+   *
+   * @return the transfer, if any request was made for it
+   */
+  public Optional<Transfer> finish(@NonNull String objectId) {
+    val transfer = transfersByObjectId.remove(objectId);
+    if (transfer != null) {
+      transfersByCorrelationId.remove(transfer.getCorrelationId());
+    }
+    return Optional.ofNullable(transfer);
+  }
+
+  /** Ends the transfer of {@code objectId} and adds its server time to the transfer report. */
+  public void report(@NonNull Terminal terminal, @NonNull String objectId, boolean quiet) {
+    finish(objectId)
+        .ifPresent(
+            transfer -> {
+              log.info("Server time for object {}: {}", objectId, transfer);
+              if (!quiet) {
+                terminal.println(
+                    terminal.label("Server time         ")
+                        + ": "
+                        + terminal.value(transfer.toString()));
+              }
+            });
+  }
+
+  /** Server time spent on the requests of one transfer. */
+  @RequiredArgsConstructor
+  public static class Transfer {
+
+    @Getter private final String correlationId;
+    @Getter private int requests;
+    private final Map<String, Double> durations = new LinkedHashMap<>();
+
+    synchronized void record(String serverTiming) {
+      requests++;
+      ServerTimings.parse(serverTiming, durations);
+    }
+
+    /**
+     * @return milliseconds spent in each phase reported by the server, summed over all requests
+     */
+    public synchronized Map<String, Double> getDurations() {
+      return new LinkedHashMap<>(durations);
+    }
+
+    @Override
+    public synchronized String toString() {
+      val text = new StringBuilder();
+      for (val entry : durations.entrySet()) {
+        text.append(entry.getKey())
+            .append(' ')
+            .append(String.format(Locale.ROOT, "%.0f", entry.getValue()))
+            .append("ms, ");
+      }
+      return text.append(requests)
+          .append(requests == 1 ? " request" : " requests")
+          .append(" (correlation id ")
+          .append(correlationId)
+          .append(')')
+          .toString();
+    }
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.client.state;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Optional;
+import lombok.NonNull;
+import lombok.Value;
+import lombok.val;
+
+/**
+ * A cheap stand-in for the contents of a file: its size, modification time and file key (the device
+ * and inode on Unix). Recorded when a transfer stops, an unchanged fingerprint on resume means the
+ * file was not written since, so the parts completed by then need not be read again.
+ */
+@Value
+public class FileFingerprint {
+
+  long size;
+  long modified;
+  String key;
+
+  /** The fingerprint of {@code file} as it is now, or empty if there is no such file. */
+  public static Optional<FileFingerprint> of(@NonNull File file) throws IOException {
+    try {
+      val attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+      val key = attributes.fileKey();
+      return Optional.of(
+          new FileFingerprint(
+              attributes.size(),
+              attributes.lastModifiedTime().to(NANOSECONDS),
+              key == null ? null : key.toString()));
+    } catch (NoSuchFileException e) {
+      return Optional.empty();
+    }
+  }
+
+  /** Reads a fingerprint written by {@link #serialize()}. */
+  public static FileFingerprint parse(@NonNull String value) {
+    val fields = value.trim().split(":", 3);
+    if (fields.length != 3) {
+      throw new IllegalArgumentException("Malformed file fingerprint '" + value + "'");
+    }
+
+    return new FileFingerprint(
+        Long.parseLong(fields[0]),
+        Long.parseLong(fields[1]),
+        fields[2].isEmpty() ? null : fields[2]);
+  }
+
+  public String serialize() {
+    return size + ":" + modified + ":" + (key == null ? "" : key);
+  }
+}
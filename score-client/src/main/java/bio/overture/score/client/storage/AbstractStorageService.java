@@ -6,11 +6,12 @@ import bio.overture.score.client.download.DownloadStateStore;
 import bio.overture.score.client.exception.NotResumableException;
 import bio.overture.score.client.exception.NotRetryableException;
 import bio.overture.score.client.exception.RetryableException;
+import bio.overture.score.client.jfr.PartTransferEvent;
+import bio.overture.score.client.jfr.RetryEventListener;
+import bio.overture.score.client.progress.TransferTimings;
 import bio.overture.score.core.model.DataChannel;
 import bio.overture.score.core.model.Part;
 import bio.overture.score.core.util.Parts;
-import com.google.common.hash.Hashing;
-import com.google.common.hash.HashingInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
@@ -32,17 +33,33 @@ public abstract class AbstractStorageService implements StorageService {
   private final DownloadStateStore downloadStateStore;
   private final RestTemplate dataTemplate;
   private final RetryTemplate retry;
+  private final TransferTimings transferTimings;
 
   protected abstract Optional<String> getEncryptedAccessToken();
 
   @Override
   public void downloadPart(DataChannel channel, Part part, String objectId, File outputDir)
       throws IOException {
+    PartTransferEvent event = new PartTransferEvent(PartTransferEvent.DOWNLOAD, objectId, part);
+    event.begin();
+    try {
+      downloadPart(channel, part, objectId, outputDir, event);
+      event.succeeded();
+    } finally {
+      event.commit();
+    }
+  }
+
+  private void downloadPart(
+      DataChannel channel, Part part, String objectId, File outputDir, PartTransferEvent event)
+      throws IOException {
     retry.execute(
         new RetryCallback<Void, IOException>() {
 
           @Override
           public Void doWithRetry(RetryContext ctx) throws IOException {
+            ctx.setAttribute(RetryEventListener.OPERATION, "downloadPart");
+            event.attempt();
             log.debug("Download Part URL: {}", part.getUrl());
             try {
               // the actual GET operation
@@ -56,13 +73,7 @@ public abstract class AbstractStorageService implements StorageService {
                         String token = getEncryptedAccessToken().orElse("");
                         request.getHeaders().set(SCORE_TOKEN_KEY, token);
                       },
-                      response -> {
-                        try (HashingInputStream his =
-                            new HashingInputStream(Hashing.md5(), response.getBody())) {
-                          channel.readFrom(his);
-                          return his.hash().toString();
-                        }
-                      });
+                      response -> channel.readAndHash(response.getBody()));
 
               part.setMd5(md5);
               checkState(
@@ -83,8 +94,9 @@ public abstract class AbstractStorageService implements StorageService {
               throw e;
             } catch (Throwable e) {
               log.warn(
-                  "Failed to receive part for part number: {}. Retrying. {}",
+                  "Failed to receive part for part number: {} (correlation id {}). Retrying. {}",
                   part.getPartNumber(),
+                  transferTimings.getCorrelationId(objectId),
                   e.getMessage());
               channel.reset();
               throw new RetryableException(e);
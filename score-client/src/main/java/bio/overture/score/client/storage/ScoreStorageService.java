@@ -17,6 +17,7 @@
  */
 package bio.overture.score.client.storage;
 
+import static bio.overture.score.core.util.ServerTimings.CORRELATION_ID_HEADER;
 import static org.springframework.http.HttpMethod.DELETE;
 import static org.springframework.http.HttpMethod.GET;
 import static org.springframework.http.HttpMethod.POST;
@@ -27,13 +28,21 @@ import bio.overture.score.client.encryption.TokenEncryptionService;
 import bio.overture.score.client.exception.NotResumableException;
 import bio.overture.score.client.exception.NotRetryableException;
 import bio.overture.score.client.exception.RetryableException;
+import bio.overture.score.client.jfr.PartTransferEvent;
+import bio.overture.score.client.jfr.RetryEventListener;
+import bio.overture.score.client.jfr.SpecificationFetchEvent;
+import bio.overture.score.client.progress.TransferTimings;
 import bio.overture.score.core.model.DataChannel;
+import bio.overture.score.core.model.ListingFilter;
 import bio.overture.score.core.model.ObjectInfo;
 import bio.overture.score.core.model.ObjectSpecification;
 import bio.overture.score.core.model.Part;
 import bio.overture.score.core.model.UploadProgress;
 import com.amazonaws.services.s3.Headers;
 import com.amazonaws.services.s3.model.SSEAlgorithm;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.SocketTimeoutException;
@@ -53,6 +62,7 @@ import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.retry.RetryCallback;
 import org.springframework.retry.RetryContext;
 import org.springframework.retry.support.RetryTemplate;
@@ -68,6 +78,9 @@ import org.springframework.web.client.RestTemplate;
 @Profile({"dev", "collab", "aws", "default"})
 public class ScoreStorageService extends AbstractStorageService {
 
+  /** Constants. */
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
   /** Configuration. */
   private String endpoint;
 
@@ -80,6 +93,7 @@ public class ScoreStorageService extends AbstractStorageService {
   private TokenEncryptionService tokenEncryptionService;
   private RetryTemplate retry;
   private RestTemplate dataTemplate;
+  private TransferTimings transferTimings;
 
   @Autowired
   public ScoreStorageService(
@@ -91,8 +105,9 @@ public class ScoreStorageService extends AbstractStorageService {
       @Qualifier("pingTemplate") @NonNull RestTemplate pingTemplate,
       @Qualifier("clientVersion") @NonNull String clientVersion,
       @NonNull ClientProperties properties,
-      @NonNull TokenEncryptionService tokenEncryptionService) {
-    super(downloadStateStore, dataTemplate, retry);
+      @NonNull TokenEncryptionService tokenEncryptionService,
+      @NonNull TransferTimings transferTimings) {
+    super(downloadStateStore, dataTemplate, retry, transferTimings);
     this.dataTemplate = dataTemplate;
     this.retry = retry;
     this.serviceTemplate = serviceTemplate;
@@ -100,6 +115,7 @@ public class ScoreStorageService extends AbstractStorageService {
     this.clientVersion = clientVersion;
     this.properties = properties;
     this.tokenEncryptionService = tokenEncryptionService;
+    this.transferTimings = transferTimings;
     this.endpoint = endpoint;
     log.info("**********************LOADED SCORE STORAGE SERVICE");
   }
@@ -119,6 +135,35 @@ public class ScoreStorageService extends AbstractStorageService {
                 .getBody());
   }
 
+  /**
+   * Lists only the objects matching {@code filter}. The listing is streamed as newline delimited
+   * JSON so that large listings are parsed incrementally rather than buffered as a single array.
+   */
+  @Override
+  @SneakyThrows
+  public List<ObjectInfo> listObjects(@NonNull ListingFilter filter) {
+    log.debug("Listing objects matching {}...", filter);
+    return retry.execute(
+        ctx ->
+            serviceTemplate.execute(
+                endpoint + "/listing",
+                POST,
+                request -> {
+                  request.getHeaders().addAll(defaultHeaders());
+                  request.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                  request.getHeaders().setAccept(List.of(MediaType.APPLICATION_NDJSON));
+                  MAPPER.writeValue(request.getBody(), filter);
+                },
+                response -> {
+                  val objects = Lists.<ObjectInfo>newArrayList();
+                  try (MappingIterator<ObjectInfo> iterator =
+                      MAPPER.readerFor(ObjectInfo.class).readValues(response.getBody())) {
+                    iterator.forEachRemaining(objects::add);
+                  }
+                  return objects;
+                }));
+  }
+
   @Override
   public UploadProgress getProgress(String objectId, long fileSize) throws IOException {
     return retry.execute(
@@ -127,7 +172,7 @@ public class ScoreStorageService extends AbstractStorageService {
                 .exchange(
                     endpoint + "/upload/{object-id}/status?fileSize={file-size}",
                     GET,
-                    defaultEntity(),
+                    defaultEntity(objectId),
                     UploadProgress.class,
                     objectId,
                     fileSize)
@@ -141,11 +186,26 @@ public class ScoreStorageService extends AbstractStorageService {
   @Override
   public void uploadPart(DataChannel channel, Part part, String objectId, String uploadId)
       throws IOException {
+    PartTransferEvent event = new PartTransferEvent(PartTransferEvent.UPLOAD, objectId, part);
+    event.begin();
+    try {
+      uploadPart(channel, part, objectId, uploadId, event);
+      event.succeeded();
+    } finally {
+      event.commit();
+    }
+  }
+
+  private void uploadPart(
+      DataChannel channel, Part part, String objectId, String uploadId, PartTransferEvent event)
+      throws IOException {
     retry.execute(
         new RetryCallback<Void, IOException>() {
 
           @Override
           public Void doWithRetry(RetryContext ctx) throws IOException {
+            ctx.setAttribute(RetryEventListener.OPERATION, "uploadPart");
+            event.attempt();
             log.debug("Upload Part URL: {}", part.getUrl());
 
             final RequestCallback callback =
@@ -210,34 +270,48 @@ public class ScoreStorageService extends AbstractStorageService {
   public ObjectSpecification initiateUpload(
       String objectId, long length, boolean overwrite, String md5) throws IOException {
     log.debug("Initiating upload, object-id: {} overwrite: {}", objectId, overwrite);
-    return retry.execute(
-        ctx ->
-            serviceTemplate
-                .exchange(
-                    endpoint
-                        + "/upload/{object-id}/uploads?fileSize={file-size}&overwrite={overwrite}&md5={checksum}",
-                    POST,
-                    defaultEntity(),
-                    ObjectSpecification.class,
-                    objectId,
-                    length,
-                    overwrite,
-                    md5)
-                .getBody());
+    SpecificationFetchEvent event =
+        new SpecificationFetchEvent(SpecificationFetchEvent.UPLOAD, objectId, length);
+    event.begin();
+    try {
+      return event.fetched(
+          retry.execute(
+              ctx ->
+                  serviceTemplate
+                      .exchange(
+                          endpoint
+                              + "/upload/{object-id}/uploads?fileSize={file-size}&overwrite={overwrite}&md5={checksum}",
+                          POST,
+                          defaultEntity(objectId),
+                          ObjectSpecification.class,
+                          objectId,
+                          length,
+                          overwrite,
+                          md5)
+                      .getBody()));
+    } finally {
+      event.commit();
+    }
   }
 
   @Override
   public void finalizeUpload(String objectId, String uploadId) throws IOException {
-    log.debug("finalizing upload, object-id: {}, upload-id: {}", objectId, uploadId);
+    finalizeUpload(objectId, uploadId, null);
+  }
+
+  @Override
+  public void finalizeUpload(String objectId, String uploadId, String md5) throws IOException {
+    log.debug("finalizing upload, object-id: {}, upload-id: {}, md5: {}", objectId, uploadId, md5);
     retry.execute(
         ctx -> {
           serviceTemplate.exchange(
-              endpoint + "/upload/{object-id}?uploadId={upload-id}",
+              endpoint + "/upload/{object-id}?uploadId={upload-id}&md5={md5}",
               HttpMethod.POST,
-              defaultEntity(),
+              defaultEntity(objectId),
               Void.class,
               objectId,
-              uploadId);
+              uploadId,
+              md5);
           return null;
         });
     log.debug("finalizing upload returned");
@@ -264,7 +338,7 @@ public class ScoreStorageService extends AbstractStorageService {
                 endpoint
                     + "/upload/{object-id}/parts?uploadId={upload-id}&partNumber={partNumber}&md5={md5}&etag={etag}",
                 HttpMethod.POST,
-                defaultEntity(),
+                defaultEntity(objectId),
                 Void.class,
                 objectId,
                 uploadId,
@@ -287,7 +361,7 @@ public class ScoreStorageService extends AbstractStorageService {
                   .exchange(
                       endpoint + "/upload/{object-id}",
                       GET,
-                      defaultEntity(),
+                      defaultEntity(objectId),
                       Boolean.class,
                       objectId)
                   .getBody();
@@ -299,19 +373,27 @@ public class ScoreStorageService extends AbstractStorageService {
   public ObjectSpecification getDownloadSpecification(String objectId, long offset, long length)
       throws IOException {
     log.debug("Endpoint: {}", endpoint);
-    return retry.execute(
-        ctx -> {
-          return serviceTemplate
-              .exchange(
-                  endpoint + "/download/{object-id}?offset={offset}&length={length}",
-                  GET,
-                  defaultEntity(),
-                  ObjectSpecification.class,
-                  objectId,
-                  offset,
-                  length)
-              .getBody();
-        });
+    SpecificationFetchEvent event =
+        new SpecificationFetchEvent(SpecificationFetchEvent.DOWNLOAD, objectId, length);
+    event.begin();
+    try {
+      return event.fetched(
+          retry.execute(
+              ctx -> {
+                return serviceTemplate
+                    .exchange(
+                        endpoint + "/download/{object-id}?offset={offset}&length={length}",
+                        GET,
+                        defaultEntity(objectId),
+                        ObjectSpecification.class,
+                        objectId,
+                        offset,
+                        length)
+                    .getBody();
+              }));
+    } finally {
+      event.commit();
+    }
   }
 
   /**
@@ -323,19 +405,27 @@ public class ScoreStorageService extends AbstractStorageService {
   public ObjectSpecification getExternalDownloadSpecification(
       String objectId, long offset, long length) throws IOException {
     log.debug("Endpoint: {}", endpoint);
-    return retry.execute(
-        ctx ->
-            serviceTemplate
-                .exchange(
-                    endpoint
-                        + "/download/{object-id}?offset={offset}&length={length}&external=true",
-                    GET,
-                    defaultEntity(),
-                    ObjectSpecification.class,
-                    objectId,
-                    offset,
-                    length)
-                .getBody());
+    SpecificationFetchEvent event =
+        new SpecificationFetchEvent(SpecificationFetchEvent.EXTERNAL, objectId, length);
+    event.begin();
+    try {
+      return event.fetched(
+          retry.execute(
+              ctx ->
+                  serviceTemplate
+                      .exchange(
+                          endpoint
+                              + "/download/{object-id}?offset={offset}&length={length}&external=true",
+                          GET,
+                          defaultEntity(objectId),
+                          ObjectSpecification.class,
+                          objectId,
+                          offset,
+                          length)
+                      .getBody()));
+    } finally {
+      event.commit();
+    }
   }
 
   @Override
@@ -346,7 +436,7 @@ public class ScoreStorageService extends AbstractStorageService {
           serviceTemplate.exchange(
               endpoint + "/upload/{object-id}/parts?uploadId={upload-id}&partNumber={partNumber}",
               DELETE,
-              defaultEntity(),
+              defaultEntity(objectId),
               Void.class,
               objectId,
               uploadId,
@@ -364,7 +454,7 @@ public class ScoreStorageService extends AbstractStorageService {
             serviceTemplate.exchange(
                 endpoint + "/upload/{object-id}/recovery?fileSize={file-size}",
                 HttpMethod.POST,
-                defaultEntity(),
+                defaultEntity(objectId),
                 Boolean.class,
                 objectId,
                 fileSize);
@@ -416,6 +506,13 @@ public class ScoreStorageService extends AbstractStorageService {
     return new HttpEntity<Object>(defaultHeaders());
   }
 
+  /** Headers for a request made on behalf of the transfer of {@code objectId}. */
+  private HttpEntity<Object> defaultEntity(String objectId) {
+    val requestHeaders = defaultHeaders();
+    requestHeaders.add(CORRELATION_ID_HEADER, transferTimings.getCorrelationId(objectId));
+    return new HttpEntity<Object>(requestHeaders);
+  }
+
   private HttpHeaders defaultHeaders() {
     val requestHeaders = new HttpHeaders();
     requestHeaders.add(HttpHeaders.USER_AGENT, clientVersion);
@@ -1,6 +1,7 @@
 package bio.overture.score.client.storage;
 
 import bio.overture.score.core.model.DataChannel;
+import bio.overture.score.core.model.ListingFilter;
 import bio.overture.score.core.model.ObjectInfo;
 import bio.overture.score.core.model.ObjectSpecification;
 import bio.overture.score.core.model.Part;
@@ -13,6 +14,8 @@ public interface StorageService {
 
   List<ObjectInfo> listObjects();
 
+  List<ObjectInfo> listObjects(ListingFilter filter);
+
   UploadProgress getProgress(String objectId, long fileSize) throws IOException;
 
   void downloadPart(DataChannel channel, Part part, String objectId, File outputDir)
@@ -28,6 +31,14 @@ public interface StorageService {
 
   void finalizeUpload(String objectId, String uploadId) throws IOException;
 
+  /**
+   * Finalizes the upload, having the server verify the object against {@code md5} when it is not
+   * {@code null}.
+   */
+  default void finalizeUpload(String objectId, String uploadId, String md5) throws IOException {
+    finalizeUpload(objectId, uploadId);
+  }
+
   void finalizeUploadPart(
       String objectId,
       String uploadId,
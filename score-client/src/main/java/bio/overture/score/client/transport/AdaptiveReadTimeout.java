@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.client.transport;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Read timeout of the data connections, shortened to what the observed throughput makes a stall.
+ * The configured timeout is the ceiling; on a fast link a connection that stops delivering is given
+ * up on, and its part retried, long before it would be reached.
+ */
+@Slf4j
+public class AdaptiveReadTimeout {
+
+  /** Constants. */
+  private static final int MIN_MILLIS = 10_000;
+
+  private static final long STALL_BYTES = 1024L * 1024L;
+  private static final int STALL_FACTOR = 8;
+
+  /** Configuration. */
+  private final int maxMillis;
+
+  /** State. */
+  private final AtomicInteger millis;
+
+  public AdaptiveReadTimeout(int maxMillis) {
+    checkArgument(maxMillis >= 0, "Read timeout must not be negative: %s", maxMillis);
+    this.maxMillis = maxMillis;
+    this.millis = new AtomicInteger(maxMillis);
+  }
+
+  /**
+   * @return the read timeout to apply to the next connection, 0 meaning none
+   */
+  public int getMillis() {
+    return millis.get();
+  }
+
+  /**
+   * Allows a connection {@value #STALL_FACTOR} times as long as receiving a megabyte takes at the
+   * per connection {@code bytesPerSecond} observed, between {@value #MIN_MILLIS} ms and the
+   * configured timeout.
+   */
+  public void adapt(double bytesPerSecond) {
+    if (maxMillis == 0 || bytesPerSecond <= 0) {
+      return;
+    }
+
+    long expected = (long) (STALL_FACTOR * STALL_BYTES * 1000 / bytesPerSecond);
+    int adapted = (int) Math.max(Math.min(MIN_MILLIS, maxMillis), Math.min(expected, maxMillis));
+    if (millis.getAndSet(adapted) != adapted) {
+      log.debug("Read timeout is now {} ms", adapted);
+    }
+  }
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.client.transport;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+/**
+ * Bounds the number of parts in flight. Between distinct bounds the limit adapts with additive
+ * increase and multiplicative decrease: after every window of as many transferred parts as the
+ * limit it grows by one, and it is halved when a part fails or when the throughput of a single part
+ * falls to less than half of the best recently seen, the sign that parts are queueing for the same
+ * link rather than adding to it.
+ *
+ * <p>With equal bounds the limit is fixed and this only counts parts in flight.
+ */
+@Slf4j
+public class ConcurrencyLimit {
+
+  /** Constants. */
+  private static final double DECREASE = 0.5;
+
+  private static final double LATENCY_TOLERANCE = 2.0;
+  private static final double BEST_DECAY = 0.9;
+
+  /** Configuration. */
+  private final int initial;
+
+  private final int min;
+  private final int max;
+  private final AdaptiveReadTimeout readTimeout;
+
+  /** State. */
+  private final ReentrantLock lock = new ReentrantLock();
+
+  private final Condition released = lock.newCondition();
+  private final long started = System.nanoTime();
+  private final List<Decision> decisions = new ArrayList<>();
+  private int limit;
+  private int inFlight;
+  private double bestPartRate;
+
+  /** State - Window. */
+  private long windowStart = started;
+
+  private int windowParts;
+  private long windowBytes;
+  private long windowNanos;
+
+  public ConcurrencyLimit(int initial, int min, int max, AdaptiveReadTimeout readTimeout) {
+    checkArgument(0 < min && min <= max, "Invalid concurrency bounds: %s-%s", min, max);
+    this.min = min;
+    this.max = max;
+    this.initial = Math.max(min, Math.min(initial, max));
+    this.limit = this.initial;
+    this.readTimeout = readTimeout;
+  }
+
+  public static ConcurrencyLimit fixed(int limit) {
+    return new ConcurrencyLimit(limit, limit, limit, null);
+  }
+
+  public boolean isAdaptive() {
+    return min < max;
+  }
+
+  /** Waits until another part may be put in flight. */
+  public void acquire() throws InterruptedException {
+    lock.lock();
+    try {
+      while (inFlight >= limit) {
+        released.await();
+      }
+
+      inFlight++;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Ends a part that transferred nothing, e.g. one found complete on resume. */
+  public void release() {
+    lock.lock();
+    try {
+      end();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Ends a part that transferred {@code bytes} in {@code nanos}. */
+  public void succeeded(long bytes, long nanos) {
+    lock.lock();
+    try {
+      end();
+      if (!isAdaptive()) {
+        return;
+      }
+
+      windowParts++;
+      windowBytes += bytes;
+      windowNanos += nanos;
+      if (windowParts >= limit) {
+        adapt();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Ends a part that failed. */
+  public void failed() {
+    lock.lock();
+    try {
+      end();
+      if (isAdaptive()) {
+        decide(decreased(), "error", 0);
+        resetWindow();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int getLimit() {
+    lock.lock();
+    try {
+      return limit;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public List<Decision> getDecisions() {
+    lock.lock();
+    try {
+      return ImmutableList.copyOf(decisions);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Summary of the decisions made, for the transfer report. */
+  @Override
+  public String toString() {
+    lock.lock();
+    try {
+      int increases = 0;
+      int latency = 0;
+      int errors = 0;
+      int low = initial;
+      int high = initial;
+      for (val decision : decisions) {
+        low = Math.min(low, decision.getTo());
+        high = Math.max(high, decision.getTo());
+        if (decision.getTo() > decision.getFrom()) {
+          increases++;
+        } else if (decision.getReason().equals("error")) {
+          errors++;
+        } else {
+          latency++;
+        }
+      }
+
+      return String.format(
+          Locale.ROOT,
+          "%d -> %d parts in flight (%d-%d), %d increases, %d decreases on latency, %d on errors",
+          initial,
+          limit,
+          low,
+          high,
+          increases,
+          latency,
+          errors);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void end() {
+    inFlight--;
+    released.signalAll();
+  }
+
+  private void adapt() {
+    val now = System.nanoTime();
+    val partRate = windowBytes * 1e9 / Math.max(1, windowNanos);
+    val rate = windowBytes * 1e9 / Math.max(1, now - windowStart);
+
+    if (partRate * LATENCY_TOLERANCE < bestPartRate) {
+      decide(decreased(), "latency", rate);
+    } else if (limit < max) {
+      decide(limit + 1, "increase", rate);
+    }
+
+    bestPartRate = Math.max(partRate, bestPartRate * BEST_DECAY);
+    if (readTimeout != null) {
+      readTimeout.adapt(partRate);
+    }
+    resetWindow();
+  }
+
+  private int decreased() {
+    return Math.max(min, (int) (limit * DECREASE));
+  }
+
+  private void decide(int to, String reason, double bytesPerSecond) {
+    if (to == limit) {
+      return;
+    }
+
+    val decision =
+        new Decision(
+            NANOSECONDS.toMillis(System.nanoTime() - started),
+            limit,
+            to,
+            reason,
+            bytesPerSecond / (1024 * 1024));
+    log.info("Concurrency: {}", decision);
+    decisions.add(decision);
+    limit = to;
+    released.signalAll();
+  }
+
+  private void resetWindow() {
+    windowStart = System.nanoTime();
+    windowParts = 0;
+    windowBytes = 0;
+    windowNanos = 0;
+  }
+
+  /** A change of the limit. */
+  @Value
+  public static class Decision {
+
+    long atMillis;
+    int from;
+    int to;
+    String reason;
+    double megabytesPerSecond;
+
+    @Override
+    public String toString() {
+      return String.format(
+          Locale.ROOT,
+          "%d -> %d at %d ms (%s, %.1f MB/s)",
+          from,
+          to,
+          atMillis,
+          reason,
+          megabytesPerSecond);
+    }
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.client.transport;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.NonNull;
+import lombok.val;
+
+/**
+ * Recycles fixed size direct buffers between parts. Direct memory is only reclaimed when its owner
+ * is garbage collected, so allocating a buffer per part grows the process long after the part is
+ * done; borrowing from a pool keeps the footprint at one buffer per concurrent worker.
+ */
+public class DirectBufferPool {
+
+  /** Configuration. */
+  private final int bufferSize;
+
+  /** State. */
+  private final ConcurrentLinkedQueue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+
+  private final AtomicInteger allocated = new AtomicInteger();
+
+  public DirectBufferPool(int bufferSize) {
+    checkArgument(bufferSize > 0, "Buffer size must be positive: %s", bufferSize);
+    this.bufferSize = bufferSize;
+  }
+
+  /** Takes a cleared buffer from the pool, allocating one if every buffer is in use. */
+  public ByteBuffer acquire() {
+    val buffer = buffers.poll();
+    if (buffer != null) {
+      return buffer;
+    }
+
+    allocated.incrementAndGet();
+    return ByteBuffer.allocateDirect(bufferSize);
+  }
+
+  /** Returns a buffer taken by {@link #acquire()} to the pool. */
+  public void release(@NonNull ByteBuffer buffer) {
+    checkArgument(buffer.capacity() == bufferSize, "Buffer does not belong to this pool");
+    buffer.clear();
+    buffers.offer(buffer);
+  }
+
+  public int getBufferSize() {
+    return bufferSize;
+  }
+
+  /** Number of buffers this pool has allocated over its lifetime. */
+  public int getAllocated() {
+    return allocated.get();
+  }
+}
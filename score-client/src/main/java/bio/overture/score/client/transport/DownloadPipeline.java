@@ -0,0 +1,396 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.client.transport;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import com.google.common.io.BaseEncoding;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+/**
+ * Receives parts in three stages, so that a slow disk does not throttle the socket and hashing does
+ * not compete with network reads. The part workers only read the network into pooled buffers;
+ * hashing threads digest the buffers and writer threads write them to the file at their offset, at
+ * the same time. Bounded queues between the stages block the readers once either stage falls
+ * behind, and every stage accounts the time it is busy, so that {@link #toString()} shows which
+ * resource is saturated.
+ *
+ * <p>The buffers of a part are digested in order by the one hashing thread the part is assigned to,
+ * and written in any order by any writer.
+ */
+@Slf4j
+public class DownloadPipeline implements Closeable {
+
+  /** Constants. */
+  private static final long POLL_MILLIS = 100;
+
+  private static final int BUFFERS_PER_THREAD = 2;
+
+  /** Dependencies. */
+  private final FileChannel file;
+
+  private final DirectBufferPool buffers;
+
+  /** State. */
+  private final List<BlockingQueue<Chunk>> hashQueues = new ArrayList<>();
+
+  private final BlockingQueue<Chunk> writeQueue;
+  private final List<Thread> threads = new ArrayList<>();
+  private final AtomicInteger streams = new AtomicInteger();
+  private final Stage network;
+  private final Stage hash;
+  private final Stage write;
+  private final long started = System.nanoTime();
+  private volatile boolean closed = false;
+
+  public DownloadPipeline(
+      @NonNull FileChannel file,
+      @NonNull DirectBufferPool buffers,
+      int readers,
+      int hashers,
+      int writers) {
+    checkArgument(readers > 0 && hashers > 0 && writers > 0, "Every stage needs a thread");
+    this.file = file;
+    this.buffers = buffers;
+    this.network = new Stage("network", readers);
+    this.hash = new Stage("hash", hashers);
+    this.write = new Stage("write", writers);
+
+    // Enough room for every reader to hand over buffers while the stage works through its own
+    val capacity = BUFFERS_PER_THREAD * Math.max(readers, writers);
+    for (int i = 0; i < hashers; i++) {
+      val queue = new ArrayBlockingQueue<Chunk>(capacity);
+      hashQueues.add(queue);
+      start("hasher-" + i, () -> drain(queue, hash, this::digest));
+    }
+
+    this.writeQueue = new ArrayBlockingQueue<Chunk>(capacity);
+    for (int i = 0; i < writers; i++) {
+      start("writer-" + i, () -> drain(writeQueue, write, this::write));
+    }
+  }
+
+  /**
+   * Reads {@code length} bytes from {@code is} into the file at {@code offset} and returns their
+   * MD5 once every buffer is hashed and written. A stream ending early leaves the part short, to be
+   * caught by the checksum of the whole part.
+   *
+   * <p>Neither returns nor throws before the stages are done with every buffer read, so a retry of
+   * the part never has its range written over by buffers of the attempt it replaces.
+   */
+  public String receive(@NonNull InputStream is, long offset, long length) throws IOException {
+    val stream =
+        new Stream(hashQueues.get(Math.floorMod(streams.getAndIncrement(), hashQueues.size())));
+    try {
+      return receive(stream, is, offset, length);
+    } finally {
+      stream.drain();
+    }
+  }
+
+  private String receive(Stream stream, InputStream is, long offset, long length)
+      throws IOException {
+    val readChannel = Channels.newChannel(is);
+    long read = 0;
+    boolean eos = false;
+    while (!eos && read < length) {
+      stream.checkFailure();
+      val buffer = buffers.acquire();
+      buffer.limit((int) Math.min(buffer.capacity(), length - read));
+
+      long start = System.nanoTime();
+      try {
+        while (buffer.hasRemaining()) {
+          if (readChannel.read(buffer) < 0) {
+            log.warn(
+                "Reached end of stream after {} of {} bytes", read + buffer.position(), length);
+            eos = true;
+            break;
+          }
+        }
+      } catch (IOException | RuntimeException e) {
+        buffers.release(buffer);
+        throw e;
+      } finally {
+        network.busy(System.nanoTime() - start);
+      }
+
+      buffer.flip();
+      if (!buffer.hasRemaining()) {
+        buffers.release(buffer);
+        break;
+      }
+
+      val chunk = new Chunk(stream, buffer, offset + read);
+      read += buffer.remaining();
+      handOver(chunk);
+    }
+
+    return stream.await();
+  }
+
+  /** Lets the stages finish the buffers they were handed, then stops them. */
+  @Override
+  public void close() {
+    closed = true;
+    for (val thread : threads) {
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+
+    log.debug("Pipeline stages: {}", this);
+  }
+
+  /** Share of each stage's thread time spent busy since the pipeline started. */
+  @Override
+  public String toString() {
+    val elapsed = System.nanoTime() - started;
+    return format(
+        "%s (%s blocked on full queues), %s, %s",
+        network.describe(elapsed),
+        percent(network.blocked.get(), elapsed * network.threads),
+        hash.describe(elapsed),
+        write.describe(elapsed));
+  }
+
+  private void start(String name, Runnable stage) {
+    val thread = new Thread(stage, name);
+    thread.setDaemon(true);
+    threads.add(thread);
+    thread.start();
+  }
+
+  /** Queues {@code chunk} to be hashed and written, or to neither if it cannot go to both. */
+  private void handOver(Chunk chunk) throws IOException {
+    chunk.stream.started();
+    int stages = 0;
+    try {
+      put(chunk.stream.hashQueue, chunk);
+      stages++;
+      put(writeQueue, chunk);
+      stages++;
+    } finally {
+      // a stage never handed the chunk counts as done with it
+      for (int i = stages; i < 2; i++) {
+        chunk.done();
+      }
+    }
+  }
+
+  /** Blocks while {@code queue} is full, which is how a lagging stage holds back the readers. */
+  private void put(BlockingQueue<Chunk> queue, Chunk chunk) throws IOException {
+    long start = System.nanoTime();
+    try {
+      while (!queue.offer(chunk, POLL_MILLIS, MILLISECONDS)) {
+        checkOpen();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted handing over part data");
+    } finally {
+      network.blocked.addAndGet(System.nanoTime() - start);
+    }
+  }
+
+  private void checkOpen() throws IOException {
+    if (closed) {
+      throw new IOException("Download pipeline is closed");
+    }
+  }
+
+  /**
+   * Runs {@code task} on each chunk of {@code queue} until the pipeline is closed and the queue is
+   * empty. Stage threads are never interrupted, as an interrupted write closes the shared file.
+   */
+  private void drain(BlockingQueue<Chunk> queue, Stage stage, ChunkTask task) {
+    while (!closed || !queue.isEmpty()) {
+      Chunk chunk;
+      try {
+        chunk = queue.poll(POLL_MILLIS, MILLISECONDS);
+      } catch (InterruptedException e) {
+        return;
+      }
+
+      if (chunk == null) {
+        continue;
+      }
+
+      long start = System.nanoTime();
+      try {
+        task.run(chunk);
+      } catch (Throwable e) {
+        chunk.stream.fail(e);
+      } finally {
+        stage.busy(System.nanoTime() - start);
+        chunk.done();
+      }
+    }
+  }
+
+  private void digest(Chunk chunk) {
+    chunk.stream.digest.update(chunk.buffer.duplicate());
+  }
+
+  private void write(Chunk chunk) throws IOException {
+    val buffer = chunk.buffer.duplicate();
+    long position = chunk.position;
+    while (buffer.hasRemaining()) {
+      position += file.write(buffer, position);
+    }
+  }
+
+  private static String percent(long part, long whole) {
+    return whole <= 0 ? "0%" : format("%d%%", Math.round(100.0 * part / whole));
+  }
+
+  private interface ChunkTask {
+
+    void run(Chunk chunk) throws IOException;
+  }
+
+  /** Time one stage's threads spent busy, and, for the readers, blocked on a full queue. */
+  @RequiredArgsConstructor
+  private static class Stage {
+
+    private final String name;
+    private final int threads;
+    private final AtomicLong busy = new AtomicLong();
+    private final AtomicLong blocked = new AtomicLong();
+
+    void busy(long nanos) {
+      busy.addAndGet(nanos);
+    }
+
+    String describe(long elapsed) {
+      return format("%s %s of %d", name, percent(busy.get(), elapsed * threads), threads);
+    }
+  }
+
+  /** One buffer of a part, released once it is both hashed and written. */
+  @RequiredArgsConstructor
+  private class Chunk {
+
+    private final Stream stream;
+    private final ByteBuffer buffer;
+    private final long position;
+    private final AtomicInteger stages = new AtomicInteger(2);
+
+    void done() {
+      if (stages.decrementAndGet() == 0) {
+        buffers.release(buffer);
+        stream.finished();
+      }
+    }
+  }
+
+  /** The buffers of one part in flight, and the digest over those hashed so far. */
+  private class Stream {
+
+    private final BlockingQueue<Chunk> hashQueue;
+    private final MessageDigest digest = md5();
+    private int pending = 0;
+    private Throwable failure = null;
+
+    Stream(BlockingQueue<Chunk> hashQueue) {
+      this.hashQueue = hashQueue;
+    }
+
+    synchronized void started() {
+      pending++;
+    }
+
+    synchronized void finished() {
+      if (--pending == 0) {
+        notifyAll();
+      }
+    }
+
+    synchronized void fail(Throwable e) {
+      if (failure == null) {
+        failure = e;
+      }
+    }
+
+    synchronized void checkFailure() throws IOException {
+      if (failure != null) {
+        throw new IOException("Failed to hash or write part data", failure);
+      }
+    }
+
+    /** Waits, even when interrupted, until the stages are done with every buffer handed over. */
+    synchronized void drain() {
+      boolean interrupted = false;
+      while (pending > 0) {
+        try {
+          wait(POLL_MILLIS);
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    synchronized String await() throws IOException {
+      try {
+        while (pending > 0) {
+          checkOpen();
+          wait(POLL_MILLIS);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted waiting for part data to be written");
+      }
+
+      checkFailure();
+      return BaseEncoding.base16().lowerCase().encode(digest.digest());
+    }
+  }
+
+  @SneakyThrows(NoSuchAlgorithmException.class)
+  private static MessageDigest md5() {
+    return MessageDigest.getInstance("MD5");
+  }
+}
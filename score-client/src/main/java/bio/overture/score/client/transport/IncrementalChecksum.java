@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.client.transport;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+/**
+ * Hashes a file into the MD5 of the whole object while its parts are still being transferred. Parts
+ * are reported as they are done, in any order: downloaded parts once on disk, uploaded parts once
+ * sent. One thread hashes the file front to back as far as the reported parts reach, so each part
+ * is read again shortly after the transfer wrote or read it, usually from the page cache. Once the
+ * transfer is done only the tail not yet hashed is left to read.
+ *
+ * <p>The digest state is checkpointed as parts are reported, so that a resumed transfer continues
+ * hashing from there.
+ */
+@Slf4j
+public class IncrementalChecksum implements Closeable {
+
+  /** Constants. */
+  private static final int BUFFER_SIZE = 1024 * 1024;
+
+  /** Configuration. */
+  private final File file;
+
+  private final long size;
+
+  /** Dependencies. */
+  private final Consumer<String> checkpoints;
+
+  /** State. */
+  private final ResumableMd5 md5;
+
+  /** Ranges of the file on disk but not yet hashed, by position. */
+  private final TreeMap<Long, Long> ranges = new TreeMap<>();
+
+  private final Thread thread;
+  private final Object commitLock = new Object();
+  private long hashed;
+  private String checkpoint = null;
+  private String committed = null;
+  private boolean finished = false;
+  private boolean closed = false;
+  private IOException failure = null;
+
+  /**
+   * Hashes {@code file}, {@code size} bytes long once downloaded, continuing from {@code md5}, and
+   * hands checkpoints of the digest state to {@code checkpoints}.
+   */
+  public IncrementalChecksum(
+      @NonNull File file,
+      long size,
+      @NonNull ResumableMd5 md5,
+      @NonNull Consumer<String> checkpoints) {
+    this.file = file;
+    this.size = size;
+    this.md5 = md5;
+    this.hashed = md5.getCount();
+    this.checkpoints = checkpoints;
+    this.thread = new Thread(this::run, "checksum-" + file.getName());
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Records that the part at {@code position} in the file, {@code length} bytes long, is done, and
+   * commits the latest checkpoint. Called by the worker that transferred the part, so every
+   * checkpoint is written before the transfer is finalized.
+   */
+  public void completed(long position, long length) {
+    String latest;
+    synchronized (this) {
+      if (position + length > hashed) {
+        ranges.put(position, position + length);
+        notifyAll();
+      }
+
+      latest = checkpoint;
+    }
+
+    commit(latest);
+  }
+
+  /** Waits for the whole file to be hashed, now that every part is done, and returns its MD5. */
+  public String finish() throws IOException {
+    synchronized (this) {
+      finished = true;
+      notifyAll();
+      try {
+        while (hashed < size && failure == null && !closed) {
+          wait();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted waiting for the checksum");
+      }
+
+      if (failure != null) {
+        throw failure;
+      }
+
+      if (hashed < size) {
+        throw new IOException("Checksum of " + file + " was closed before it was done");
+      }
+
+      return md5.hexDigest();
+    }
+  }
+
+  @Override
+  public void close() {
+    synchronized (this) {
+      closed = true;
+      notifyAll();
+    }
+
+    // the hashing thread reads through its own channel, so interrupting it only closes that one
+    thread.interrupt();
+  }
+
+  private void run() {
+    try (FileChannel channel = open()) {
+      val buffer = ByteBuffer.allocate(BUFFER_SIZE);
+      while (true) {
+        long end;
+        synchronized (this) {
+          while (!closed && reachable() <= hashed) {
+            wait();
+          }
+
+          if (closed) {
+            return;
+          }
+
+          end = reachable();
+        }
+
+        // only this thread advances the digest, so it is read outside the lock
+        long position = hashed;
+        while (position < end) {
+          buffer.clear();
+          buffer.limit((int) Math.min(buffer.capacity(), end - position));
+          if (channel.read(buffer, position) < 0) {
+            throw new EOFException("Reached end of " + file + " at " + position);
+          }
+
+          md5.update(buffer.array(), 0, buffer.position());
+          position += buffer.position();
+        }
+
+        synchronized (this) {
+          hashed = end;
+          ranges.headMap(end, true).clear();
+          checkpoint = md5.checkpoint();
+          notifyAll();
+        }
+      }
+    } catch (InterruptedException e) {
+      // closed
+    } catch (IOException e) {
+      synchronized (this) {
+        if (!closed) {
+          log.warn("Failed to hash '{}': {}", file, e.getMessage());
+          failure = e;
+        }
+        notifyAll();
+      }
+    }
+  }
+
+  /** Opens the file once the first part is reported, as a download only creates it then. */
+  private FileChannel open() throws IOException, InterruptedException {
+    synchronized (this) {
+      while (!closed && reachable() <= hashed) {
+        wait();
+      }
+    }
+
+    return FileChannel.open(file.toPath(), READ);
+  }
+
+  /** How far the file can be hashed: to the end once finished, else across contiguous parts. */
+  private long reachable() {
+    if (finished) {
+      return size;
+    }
+
+    long end = hashed;
+    Map.Entry<Long, Long> range;
+    while ((range = ranges.floorEntry(end)) != null && range.getValue() > end) {
+      end = range.getValue();
+    }
+
+    return end;
+  }
+
+  /** Writes {@code latest} unless already written, apart from the lock the hashing thread takes. */
+  private void commit(String latest) {
+    synchronized (commitLock) {
+      if (latest == null || latest.equals(committed)) {
+        return;
+      }
+
+      try {
+        checkpoints.accept(latest);
+        committed = latest;
+      } catch (RuntimeException e) {
+        // only costs rehashing from an earlier point on resume
+        log.debug("Failed to checkpoint checksum of '{}': {}", file, e.getMessage());
+      }
+    }
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.client.transport;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounds the bytes that parts in flight may hold in memory. Producers block in {@link
+ * #acquire(long)} until enough bytes are {@link #release(long) released} by finished parts, and are
+ * woken as soon as they are rather than polling.
+ *
+ * <p>A request larger than the whole budget is admitted once nothing else is in flight, so a part
+ * bigger than the configured memory is transferred alone instead of blocking forever.
+ */
+@Slf4j
+public class MemoryBudget {
+
+  /** Configuration. */
+  private final long capacity;
+
+  /** State. */
+  private final ReentrantLock lock = new ReentrantLock();
+
+  private final Condition released = lock.newCondition();
+  private long available;
+
+  public MemoryBudget(long capacity) {
+    checkArgument(capacity > 0, "Memory budget must be positive: %s", capacity);
+    this.capacity = capacity;
+    this.available = capacity;
+  }
+
+  /** Takes {@code bytes} from the budget if they are available now, without waiting. */
+  public boolean tryAcquire(long bytes) {
+    lock.lock();
+    try {
+      if (!fits(bytes)) {
+        return false;
+      }
+
+      available -= bytes;
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Takes {@code bytes} from the budget, waiting for finished parts to release them. */
+  public void acquire(long bytes) throws InterruptedException {
+    lock.lock();
+    try {
+      while (!fits(bytes)) {
+        log.debug("Waiting for {} bytes of memory, {} available", bytes, available);
+        released.await();
+      }
+
+      available -= bytes;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Returns {@code bytes} taken by {@link #acquire(long)} to the budget. */
+  public void release(long bytes) {
+    lock.lock();
+    try {
+      available += bytes;
+      released.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public long getAvailable() {
+    lock.lock();
+    try {
+      return available;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public long getCapacity() {
+    return capacity;
+  }
+
+  private boolean fits(long bytes) {
+    return bytes <= available || available == capacity;
+  }
+}
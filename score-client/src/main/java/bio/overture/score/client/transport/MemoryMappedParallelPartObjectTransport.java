@@ -17,12 +17,11 @@
  */
 package bio.overture.score.client.transport;
 
-import static java.util.concurrent.TimeUnit.MILLISECONDS;
-
 import bio.overture.score.client.download.Downloads;
 import bio.overture.score.client.exception.NotResumableException;
 import bio.overture.score.client.exception.NotRetryableException;
 import bio.overture.score.client.exception.RetryableException;
+import bio.overture.score.client.jfr.PartTransferEvent;
 import bio.overture.score.client.progress.ProgressDataChannel;
 import bio.overture.score.client.progress.ProgressMemoryMappedDataChannel;
 import bio.overture.score.core.model.DataChannel;
@@ -49,8 +48,6 @@ import lombok.val;
 @Slf4j
 public class MemoryMappedParallelPartObjectTransport extends ParallelPartObjectTransport {
 
-  private static final int FREE_MEMORY_TIME_DELAY = 10;
-
   @AllArgsConstructor
   private class FreeMemory implements Runnable {
 
@@ -63,7 +60,7 @@ public class MemoryMappedParallelPartObjectTransport extends ParallelPartObjectT
         channel.commitToDisk();
       } finally {
         log.debug("Memory is free: {}", channel.getLength());
-        memory.addAndGet(channel.getLength());
+        memory.release(channel.getLength());
       }
     }
   }
@@ -78,12 +75,14 @@ public class MemoryMappedParallelPartObjectTransport extends ParallelPartObjectT
   public void send(File file) {
     log.debug("send file: {}", file.getPath());
     AtomicInteger tasksSubmitted = new AtomicInteger();
-    ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+    ExecutorService executor = newWorkerPool("uploader-%s");
 
     ImmutableList.Builder<Future<Part>> results = ImmutableList.builder();
     progress.start();
     for (final Part part : parts) {
+      acquireMemory(PartTransferEvent.UPLOAD, part);
       tasksSubmitted.incrementAndGet();
+      boolean submitted = false;
       try (FileInputStream fis = new FileInputStream(file)) {
         final MappedByteBuffer buffer =
             fis.getChannel()
@@ -94,7 +93,9 @@ public class MemoryMappedParallelPartObjectTransport extends ParallelPartObjectT
         log.debug("Submitting new Callable task");
         // progress.incrementByteRead(part.getPartSize());
         results.add(
-            executor.submit(
+            submit(
+                executor,
+                part,
                 new Callable<Part>() {
 
                   @Override
@@ -121,38 +122,36 @@ public class MemoryMappedParallelPartObjectTransport extends ParallelPartObjectT
                     } finally {
                       // This is required due to memory mapping which happens natively
 
-                      memory.addAndGet(part.getPartSize());
+                      memory.release(part.getPartSize());
                       tasksSubmitted.decrementAndGet();
                     }
                     return part;
                   }
                 }));
+        submitted = true;
+      } finally {
+        // Once submitted, the part's task releases its memory
+        if (!submitted) {
+          memory.release(part.getPartSize());
+        }
       }
-      long remaining = memory.addAndGet(-part.getPartSize());
-      log.debug("Remaining Memory : {}", remaining);
+      log.debug("Remaining Memory : {}", memory.getAvailable());
       log.debug("Number of submitted tasks : {}", tasksSubmitted.get());
-      while (memory.get() < 0L) {
-        log.debug("Memory is low. Wait...");
-        TimeUnit.MILLISECONDS.sleep(FREE_MEMORY_TIME_DELAY);
-        // suggest to release buffers that are not longer needed (rely on java now)
-        // System.gc();
-      }
     }
 
     log.debug("thread pool shut down request ...");
-    executor.shutdown();
-    executor.awaitTermination(super.maxUploadDuration, TimeUnit.DAYS);
+    awaitParts(executor, results.build());
     log.debug("thread pool shut down request completed.");
 
     progress.stop();
     try {
       takeCareOfException(results.build());
-      proxy.finalizeUpload(objectId, uploadId);
+      proxy.finalizeUpload(objectId, uploadId, getObjectMd5());
     } catch (Throwable e) {
-      progress.end(true);
+      endProgress(true);
       throw e;
     }
-    progress.end(false);
+    endProgress(false);
   }
 
   @Override
@@ -163,11 +162,9 @@ public class MemoryMappedParallelPartObjectTransport extends ParallelPartObjectT
     long fileSize = Downloads.calculateTotalSize(parts);
 
     log.debug("Downloading object to file: {}, size:{}", filename.getPath(), fileSize);
-    val downloadExecutorService =
-        Executors.newFixedThreadPool(
-            nThreads, new ThreadFactoryBuilder().setNameFormat("downloader-%s").build());
+    val downloadExecutorService = newWorkerPool("downloader-%s");
     val memoryCollectorService =
-        Executors.newScheduledThreadPool(
+        Executors.newFixedThreadPool(
             Math.max(1, nThreads / 2),
             new ThreadFactoryBuilder().setNameFormat("memory-cleaner-%s").build());
 
@@ -189,6 +186,7 @@ public class MemoryMappedParallelPartObjectTransport extends ParallelPartObjectT
     long prevLength = 0;
     long offset = 0;
     for (final Part part : parts) {
+      acquireMemory(PartTransferEvent.DOWNLOAD, part);
       log.debug("Starting part {} download.", part);
       offset += prevLength;
       prevLength = part.getPartSize();
@@ -196,12 +194,15 @@ public class MemoryMappedParallelPartObjectTransport extends ParallelPartObjectT
 
       log.debug("Submitting part # '{}' download.", part.getPartNumber());
       results.push(
-          downloadExecutorService.submit(
+          submit(
+              downloadExecutorService,
+              part,
               new Callable<MemoryMappedDataChannel>() {
 
                 @Override
                 public MemoryMappedDataChannel call() throws Exception {
                   // tasksSubmitted.decrementAndGet();
+                  boolean mapped = false;
                   try (RandomAccessFile rf = new RandomAccessFile(filename, "rw")) {
                     try (FileChannel channel = rf.getChannel()) {
                       // TODO: the actual position to position the data block into the file might be
@@ -217,6 +218,7 @@ public class MemoryMappedParallelPartObjectTransport extends ParallelPartObjectT
                               buffer, part.getOffset(), part.getPartSize(), null);
                       val progressChannel =
                           new ProgressMemoryMappedDataChannel(memoryChannel, progress);
+                      mapped = true;
                       try {
                         log.debug("Checking if part #{} is downloaded", part.getPartNumber());
                         if (part.isCompleted()) {
@@ -247,25 +249,23 @@ public class MemoryMappedParallelPartObjectTransport extends ParallelPartObjectT
                         throw new NotRetryableException(e);
                       } finally {
                         log.debug("Submitted task for part #{}", part.getPartNumber());
-                        memoryCollectorService.schedule(
-                            new FreeMemory(memoryChannel), FREE_MEMORY_TIME_DELAY, MILLISECONDS);
+                        memoryCollectorService.execute(new FreeMemory(memoryChannel));
                       }
                     }
+                  } finally {
+                    // Once mapped, FreeMemory releases the part's memory
+                    if (!mapped) {
+                      memory.release(part.getPartSize());
+                    }
                   }
                 } // call()
               })); // results.push(submit(new Callable()))
-      memory.addAndGet(-part.getPartSize());
-      log.debug("Remaining Memory : {}", memory.get());
+      log.debug("Remaining Memory : {}", memory.getAvailable());
 
-      // if we have no free memory, can't process next Part
-      while (memory.get() < 0) {
+      // check finished parts as they complete instead of only at the end
+      while (!results.isEmpty() && results.getLast().isDone()) {
         try {
-          if (!results.isEmpty()) {
-            Future<MemoryMappedDataChannel> work = results.removeLast();
-            // check if the work is done properly instead of just waiting
-            work.get();
-          }
-          TimeUnit.MILLISECONDS.sleep(FREE_MEMORY_TIME_DELAY);
+          results.removeLast().get();
         } catch (ExecutionException e) {
           log.error("Download part failed", e);
           hasError = true;
@@ -282,15 +282,14 @@ public class MemoryMappedParallelPartObjectTransport extends ParallelPartObjectT
     } // for (part)
 
     log.info("all tasks are submitted, waiting for completion...");
-    downloadExecutorService.shutdown();
-    downloadExecutorService.awaitTermination(super.maxUploadDuration, TimeUnit.DAYS);
+    awaitParts(downloadExecutorService, results);
     memoryCollectorService.shutdown();
     memoryCollectorService.awaitTermination(super.maxUploadDuration, TimeUnit.DAYS);
     log.info("all tasks are completed");
 
     progress.stop();
     if (hasError) {
-      progress.end(true);
+      endProgress(true);
       throw new NotRetryableException(new IOException("some parts failed to download."));
     } else {
       try {
@@ -299,11 +298,11 @@ public class MemoryMappedParallelPartObjectTransport extends ParallelPartObjectT
         proxy.finalizeDownload(outputDir, objectId);
         log.info("Download is finalized");
       } catch (Throwable e) {
-        progress.end(true);
+        endProgress(true);
         throw e;
       }
     }
-    progress.end(false);
+    endProgress(false);
   }
 
   public static MemoryMappedParallelBuilder builder() {
@@ -312,6 +311,11 @@ public class MemoryMappedParallelPartObjectTransport extends ParallelPartObjectT
 
   public static class MemoryMappedParallelBuilder extends RemoteParallelBuilder {
 
+    @Override
+    public boolean isReceivedInPlace() {
+      return true;
+    }
+
     @Override
     public Transport build() {
       checkArgumentsNotNull();
@@ -20,6 +20,7 @@ package bio.overture.score.client.transport;
 import static com.google.common.base.Preconditions.checkState;
 
 import bio.overture.score.client.download.Downloads;
+import bio.overture.score.client.jfr.MemoryThrottleEvent;
 import bio.overture.score.client.progress.Progress;
 import bio.overture.score.client.progress.ProgressDataChannel;
 import bio.overture.score.client.storage.StorageService;
@@ -28,6 +29,8 @@ import bio.overture.score.core.model.Part;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Ordering;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -37,7 +40,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import lombok.*;
 import lombok.extern.slf4j.Slf4j;
 
@@ -57,7 +60,13 @@ public class ParallelPartObjectTransport implements Transport {
   protected final String objectId;
   protected final String uploadId;
   protected final Mode mode;
-  protected final AtomicLong memory;
+  protected final MemoryBudget memory;
+  protected final ConcurrencyLimit concurrency;
+  protected final PartScheduler scheduler;
+  protected final long rank;
+  protected final Consumer<Part> partListener;
+  protected final IncrementalChecksum objectChecksum;
+  protected final String objectMd5;
   protected final int maxUploadDuration;
   protected final boolean checksum;
 
@@ -68,9 +77,22 @@ public class ParallelPartObjectTransport implements Transport {
     this.parts = builder.parts;
     this.objectId = builder.objectId;
     this.uploadId = builder.uploadId;
-    this.nThreads = builder.nThreads;
+    // With adaptive concurrency there are enough workers for the upper bound, the limit decides
+    // how many of them have a part
+    this.nThreads = Math.max(builder.nThreads, builder.maxParallel);
     this.queueSize = nThreads * 2;
-    this.memory = new AtomicLong(builder.memory);
+    this.memory =
+        builder.scheduler == null
+            ? new MemoryBudget(builder.memory)
+            : builder.scheduler.getMemory();
+    this.concurrency =
+        new ConcurrencyLimit(
+            builder.nThreads, builder.minParallel, builder.maxParallel, builder.readTimeout);
+    this.scheduler = builder.scheduler;
+    this.rank = builder.rank;
+    this.partListener = builder.partListener;
+    this.objectChecksum = builder.objectChecksum;
+    this.objectMd5 = builder.objectMd5;
     this.maxUploadDuration = builder.maxUploadDuration;
     this.mode = builder.mode;
     this.checksum = builder.checksum;
@@ -79,13 +101,15 @@ public class ParallelPartObjectTransport implements Transport {
   @Override
   @SneakyThrows
   public void send(File file) {
-    ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+    ExecutorService executor = newWorkerPool("uploader-%s");
 
     ImmutableList.Builder<Future<Part>> results = ImmutableList.builder();
     progress.start();
     for (final Part part : parts) {
       results.add(
-          executor.submit(
+          submit(
+              executor,
+              part,
               new Callable<Part>() {
 
                 @Override
@@ -112,17 +136,16 @@ public class ParallelPartObjectTransport implements Transport {
               }));
     }
 
-    executor.shutdown();
-    executor.awaitTermination(maxUploadDuration, TimeUnit.DAYS);
+    awaitParts(executor, results.build());
     progress.stop();
     try {
       takeCareOfException(results.build());
-      proxy.finalizeUpload(objectId, uploadId);
+      proxy.finalizeUpload(objectId, uploadId, getObjectMd5());
     } catch (Throwable e) {
-      progress.end(true);
+      endProgress(true);
       throw e;
     }
-    progress.end(false);
+    endProgress(false);
   }
 
   @Override
@@ -130,7 +153,7 @@ public class ParallelPartObjectTransport implements Transport {
   public void receive(File outputDir) {
     long fileSize = Downloads.calculateTotalSize(parts);
     log.debug("downloading object id: {}, size:{}", objectId, fileSize);
-    ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+    ExecutorService executor = newWorkerPool("downloader-%s");
     ImmutableList.Builder<Future<Part>> results = ImmutableList.builder();
 
     // This is used to calculate
@@ -141,7 +164,9 @@ public class ParallelPartObjectTransport implements Transport {
     progress.start();
     for (final Part part : parts) {
       results.add(
-          executor.submit(
+          submit(
+              executor,
+              part,
               new Callable<Part>() {
 
                 @Override
@@ -173,8 +198,7 @@ public class ParallelPartObjectTransport implements Transport {
               }));
     }
 
-    executor.shutdown();
-    executor.awaitTermination(maxUploadDuration, TimeUnit.DAYS);
+    awaitParts(executor, results.build());
 
     try {
       mergeToFile(parts, outputDir);
@@ -198,10 +222,10 @@ public class ParallelPartObjectTransport implements Transport {
         log.warn("Please delete the temporary files at {}", outputDir.getAbsolutePath());
       }
     } catch (Throwable e) {
-      progress.end(true);
+      endProgress(true);
       throw e;
     }
-    progress.end(false);
+    endProgress(false);
   }
 
   private void cleanup(List<Part> parts, File outputDir) {
@@ -211,6 +235,106 @@ public class ParallelPartObjectTransport implements Transport {
     }
   }
 
+  /**
+   * Returns the pool to transfer the parts on, or, when they are queued on a shared {@link
+   * PartScheduler} instead, an executor without threads of its own, shut down like the pool.
+   */
+  protected ExecutorService newWorkerPool(String nameFormat) {
+    if (scheduler != null) {
+      return MoreExecutors.newDirectExecutorService();
+    }
+
+    return Executors.newFixedThreadPool(
+        nThreads, new ThreadFactoryBuilder().setNameFormat(nameFormat).build());
+  }
+
+  /**
+   * Submits the transfer of {@code part} once the concurrency limit lets another part in flight,
+   * reporting how it went back to the limit, and the part to the part listener once it is done.
+   */
+  protected <T> Future<T> submit(ExecutorService executor, Part part, Callable<T> transfer)
+      throws InterruptedException {
+    // parts complete before the transfer are only checksummed, which says nothing about the link
+    val sampled = !part.isCompleted();
+    Callable<T> measured =
+        () -> {
+          val start = System.nanoTime();
+          boolean succeeded = false;
+          try {
+            T result = transfer.call();
+            succeeded = true;
+            if (partListener != null) {
+              partListener.accept(part);
+            }
+            return result;
+          } finally {
+            if (!succeeded) {
+              concurrency.failed();
+            } else if (sampled) {
+              concurrency.succeeded(part.getPartSize(), System.nanoTime() - start);
+            } else {
+              concurrency.release();
+            }
+          }
+        };
+
+    concurrency.acquire();
+    try {
+      return scheduler == null ? executor.submit(measured) : scheduler.submit(rank, measured);
+    } catch (RejectedExecutionException e) {
+      concurrency.release();
+      throw e;
+    }
+  }
+
+  /**
+   * Waits for the parts given to {@link #submit}: for {@code executor} to finish them, or for each
+   * of them when they were queued on a shared {@link PartScheduler} instead.
+   */
+  protected void awaitParts(ExecutorService executor, Collection<? extends Future<?>> results)
+      throws InterruptedException {
+    executor.shutdown();
+    executor.awaitTermination(maxUploadDuration, TimeUnit.DAYS);
+    if (scheduler == null) {
+      return;
+    }
+
+    for (val result : results) {
+      try {
+        result.get();
+      } catch (ExecutionException | CancellationException e) {
+        // reported by takeCareOfException
+      }
+    }
+  }
+
+  /** Ends the progress report, adding the concurrency decisions made during the transfer. */
+  protected void endProgress(boolean incomplete) {
+    progress.end(incomplete);
+    if (concurrency.isAdaptive()) {
+      progress.report("Concurrency", concurrency.toString());
+    }
+  }
+
+  /** Returns the MD5 of the whole object sent: its digest, else the one given, if any. */
+  protected String getObjectMd5() throws IOException {
+    return objectChecksum == null ? objectMd5 : objectChecksum.finish();
+  }
+
+  /** Reserves memory to buffer {@code part}, waiting for parts in flight to release it. */
+  protected void acquireMemory(String direction, Part part) throws InterruptedException {
+    if (memory.tryAcquire(part.getPartSize())) {
+      return;
+    }
+
+    val throttle =
+        new MemoryThrottleEvent(
+            direction, part.getPartNumber(), part.getPartSize() - memory.getAvailable());
+    throttle.begin();
+    memory.acquire(part.getPartSize());
+    throttle.commit();
+  }
+
   // TODO: need unit test confirming case where source MD5 is null
   protected boolean isCorrupted(DataChannel channel, Part part, File outputDir) throws IOException {
     if ((part.getSourceMd5() != null) && channel.verifyMd5(part.getSourceMd5())) {
@@ -253,6 +377,12 @@ public class ParallelPartObjectTransport implements Transport {
   public static class RemoteParallelBuilder extends Transport.AbstractBuilder {
 
     private int nThreads;
+    private int minParallel;
+    private int maxParallel;
+    private AdaptiveReadTimeout readTimeout;
+    private PartScheduler scheduler;
+    private long rank;
+    private Consumer<Part> partListener;
     private long memory;
     private int maxUploadDuration;
 
@@ -261,6 +391,32 @@ public class ParallelPartObjectTransport implements Transport {
       return this;
     }
 
+    /** Adapts the parts in flight between {@code min} and {@code max}, from the worker threads. */
+    public RemoteParallelBuilder withAdaptiveConcurrency(int min, int max) {
+      this.minParallel = min;
+      this.maxParallel = max;
+      return this;
+    }
+
+    /** Read timeout of the data connections, shortened to the throughput observed. */
+    public RemoteParallelBuilder withReadTimeout(AdaptiveReadTimeout readTimeout) {
+      this.readTimeout = readTimeout;
+      return this;
+    }
+
+    /** Queues parts on {@code scheduler}, shared with other objects, at {@code rank}. */
+    public RemoteParallelBuilder withScheduler(PartScheduler scheduler, long rank) {
+      this.scheduler = scheduler;
+      this.rank = rank;
+      return this;
+    }
+
+    /** Hands each part to {@code listener} on its worker once transferred or found complete. */
+    public RemoteParallelBuilder withPartListener(Consumer<Part> listener) {
+      this.partListener = listener;
+      return this;
+    }
+
     public RemoteParallelBuilder withMemory(long memory) {
       this.memory = memory;
       return this;
@@ -271,6 +427,14 @@ public class ParallelPartObjectTransport implements Transport {
       return this;
     }
 
+    /**
+     * Whether downloaded parts are written straight into the output file, rather than into part
+     * files merged once every part is done.
+     */
+    public boolean isReceivedInPlace() {
+      return false;
+    }
+
     @Override
     public Transport build() {
       checkArgumentsNotNull();
@@ -286,6 +450,12 @@ public class ParallelPartObjectTransport implements Transport {
       Preconditions.checkNotNull(mode);
 
       nThreads = nThreads < MIN_WORKER ? MIN_WORKER : nThreads;
+      if (maxParallel <= minParallel) {
+        // fixed concurrency
+        minParallel = nThreads;
+        maxParallel = nThreads;
+      }
+      minParallel = minParallel < MIN_WORKER ? MIN_WORKER : minParallel;
       memory = memory < MIN_MEMORY ? MIN_MEMORY : memory;
       maxUploadDuration = maxUploadDuration < 1 ? Integer.MAX_VALUE : maxUploadDuration;
     }
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.client.transport;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.Closeable;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+/**
+ * One pool of workers transferring the parts of several objects at once, and one memory budget for
+ * the parts they buffer. Parts wait in a single queue ordered by the rank of their object, lowest
+ * first, and in submission order within a rank, so the parts of small objects are not stuck behind
+ * those of a large one started earlier.
+ *
+ * <p>Transports given a scheduler submit their parts here instead of to their own pool; everything
+ * else about a transfer, including its resume state, stays with the object.
+ */
+@Slf4j
+public class PartScheduler implements Closeable {
+
+  /** State. */
+  private final ThreadPoolExecutor workers;
+
+  @Getter private final MemoryBudget memory;
+
+  private final AtomicLong sequence = new AtomicLong();
+
+  public PartScheduler(int threads, long memory) {
+    this.memory = new MemoryBudget(memory);
+    this.workers =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            0L,
+            MILLISECONDS,
+            new PriorityBlockingQueue<>(),
+            new ThreadFactoryBuilder().setNameFormat("part-worker-%s").build());
+  }
+
+  /** Queues {@code task} behind every task of a lower {@code rank}. */
+  public <T> Future<T> submit(long rank, @NonNull Callable<T> task) {
+    val ranked = new RankedTask<T>(task, rank, sequence.getAndIncrement());
+    workers.execute(ranked);
+    return ranked;
+  }
+
+  /** Stops the workers once the parts already queued are transferred. */
+  @Override
+  public void close() {
+    workers.shutdown();
+  }
+
+  private static class RankedTask<T> extends FutureTask<T> implements Comparable<RankedTask<?>> {
+
+    private final long rank;
+    private final long sequence;
+
+    RankedTask(Callable<T> task, long rank, long sequence) {
+      super(task);
+      this.rank = rank;
+      this.sequence = sequence;
+    }
+
+    @Override
+    public int compareTo(RankedTask<?> other) {
+      int byRank = Long.compare(rank, other.rank);
+      return byRank != 0 ? byRank : Long.compare(sequence, other.sequence);
+    }
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.client.transport;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+import bio.overture.score.core.model.Part;
+import com.google.common.io.BaseEncoding;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+/**
+ * Checks the parts of a file against their source MD5s on a pool of its own, ahead of a transfer,
+ * rather than on the transfer's workers between parts. Parts are read through memory maps, so the
+ * hashing threads copy nothing and leave the page cache to the kernel.
+ */
+@Slf4j
+public class PartVerifier {
+
+  /** Constants. */
+  private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+
+  /** Configuration. */
+  private final int threads;
+
+  public PartVerifier(int threads) {
+    this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+  }
+
+  /**
+   * Returns the {@code parts} of {@code file} whose contents do not match their source MD5. Each
+   * part is read at its entry in {@code positions}, by part number, rather than at its offset in
+   * the object, as a file may start part way into it.
+   */
+  public List<Part> findCorrupted(
+      @NonNull File file, @NonNull List<Part> parts, @NonNull Map<Integer, Long> positions)
+      throws IOException {
+    val executor =
+        Executors.newFixedThreadPool(
+            Math.max(1, Math.min(threads, parts.size())),
+            new ThreadFactoryBuilder().setNameFormat("verifier-%s").setDaemon(true).build());
+    try (FileChannel channel = FileChannel.open(file.toPath(), READ)) {
+      val results = new ArrayList<Future<Boolean>>(parts.size());
+      for (val part : parts) {
+        val position = positions.get(part.getPartNumber());
+        results.add(executor.submit(() -> isIntact(channel, part, position)));
+      }
+      executor.shutdown();
+
+      val corrupted = new ArrayList<Part>();
+      for (int i = 0; i < parts.size(); i++) {
+        if (!results.get(i).get()) {
+          corrupted.add(parts.get(i));
+        }
+      }
+
+      log.info("Verified {} parts of {}, {} corrupted", parts.size(), file, corrupted.size());
+      return corrupted;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted verifying " + file);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException("Failed to verify " + file, e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static boolean isIntact(FileChannel channel, Part part, long start) throws IOException {
+    if (part.getSourceMd5() == null) {
+      // As in the transports, a part that cannot be checked is not trusted
+      return false;
+    }
+
+    val md5 = md5();
+    val end = start + part.getPartSize();
+    for (long position = start; position < end; position += WINDOW_SIZE) {
+      val window = channel.map(MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, end - position));
+      md5.update(window);
+    }
+
+    val actual = BaseEncoding.base16().lowerCase().encode(md5.digest());
+    if (!actual.equals(part.getSourceMd5())) {
+      log.warn(
+          "md5 failed for part #{}. Expected: {}, Actual: {}.",
+          part.getPartNumber(),
+          part.getSourceMd5(),
+          actual);
+      return false;
+    }
+
+    return true;
+  }
+
+  @SneakyThrows(NoSuchAlgorithmException.class)
+  private static MessageDigest md5() {
+    return MessageDigest.getInstance("MD5");
+  }
+}
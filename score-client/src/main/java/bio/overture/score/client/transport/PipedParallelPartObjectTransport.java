@@ -17,6 +17,7 @@
  */
 package bio.overture.score.client.transport;
 
+import bio.overture.score.client.jfr.PartTransferEvent;
 import bio.overture.score.client.progress.ProgressDataChannel;
 import bio.overture.score.core.model.DataChannel;
 import bio.overture.score.core.model.Part;
@@ -43,28 +44,35 @@ public class PipedParallelPartObjectTransport extends ParallelPartObjectTranspor
   public void send(File file) {
 
     log.debug("Number of Concurrency: {}", nThreads);
-    ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+    ExecutorService executor = newWorkerPool("uploader-%s");
     ImmutableList.Builder<Future<Part>> results = ImmutableList.builder();
     progress.start();
     for (final Part part : parts) {
+      // The pipe buffers the whole part until it is sent
+      acquireMemory(PartTransferEvent.UPLOAD, part);
       final PipedOutputStream pos = new PipedOutputStream();
       final PipedInputStream pis = new PipedInputStream(pos, (int) part.getPartSize());
 
       results.add(
-          executor.submit(
+          submit(
+              executor,
+              part,
               new Callable<Part>() {
 
                 @Override
                 public Part call() throws Exception {
-                  DataChannel dataChannel =
-                      new ProgressDataChannel(
-                          new PipedDataChannel(pis, 0, part.getPartSize(), null), progress);
-                  progress.startTransfer();
-                  proxy.uploadPart(dataChannel, part, objectId, uploadId);
-                  // progress.incrementByteWritten(part.getPartSize());
-                  progress.incrementParts(1);
-                  memory.addAndGet(part.getPartSize());
-                  return part;
+                  try {
+                    DataChannel dataChannel =
+                        new ProgressDataChannel(
+                            new PipedDataChannel(pis, 0, part.getPartSize(), null), progress);
+                    progress.startTransfer();
+                    proxy.uploadPart(dataChannel, part, objectId, uploadId);
+                    // progress.incrementByteWritten(part.getPartSize());
+                    progress.incrementParts(1);
+                    return part;
+                  } finally {
+                    memory.release(part.getPartSize());
+                  }
                 }
               }));
 
@@ -73,22 +81,18 @@ public class PipedParallelPartObjectTransport extends ParallelPartObjectTranspor
       pos.close();
       // progress.incrementByteRead(part.getPartSize());
       progress.incrementParts(0);
-      long remaining = memory.addAndGet(-part.getPartSize());
-      log.debug("Remaining Memory : {}", remaining);
-      while (memory.get() < 0) {
-        TimeUnit.SECONDS.sleep(1);
-      }
+      log.debug("Remaining Memory : {}", memory.getAvailable());
     }
-    executor.shutdown();
-    executor.awaitTermination(super.maxUploadDuration, TimeUnit.DAYS);
+    awaitParts(executor, results.build());
+    progress.stop();
     try {
       takeCareOfException(results.build());
-      proxy.finalizeUpload(objectId, uploadId);
+      proxy.finalizeUpload(objectId, uploadId, getObjectMd5());
     } catch (Throwable e) {
-      progress.end(true);
+      endProgress(true);
       throw e;
     }
-    progress.end(false);
+    endProgress(false);
   }
 
   public static LocalParallelBuilder builder() {
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.client.transport;
+
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+/**
+ * Channel over one part of a {@link FileChannel} shared by every part of the object, at the part's
+ * own offset. Data is staged through a pooled direct buffer and moved with positional reads and
+ * writes, so neither the channel position nor a memory mapping is shared between workers, and the
+ * part is never held in memory as a whole.
+ */
+@Slf4j
+public class PositionalDataChannel extends AbstractDataChannel {
+
+  /** Dependencies. */
+  private final FileChannel file;
+
+  private final DirectBufferPool buffers;
+
+  private final DownloadPipeline pipeline;
+
+  /** Configuration. */
+  @Getter private final long offset;
+
+  @Getter private final long length;
+
+  /** State. */
+  @Getter private String md5 = null;
+
+  private long written = 0;
+
+  public PositionalDataChannel(
+      @NonNull FileChannel file, @NonNull DirectBufferPool buffers, long offset, long length) {
+    this(file, buffers, null, offset, length);
+  }
+
+  /** Reads handed to a non-null {@code pipeline} are hashed and written by its stages. */
+  public PositionalDataChannel(
+      @NonNull FileChannel file,
+      @NonNull DirectBufferPool buffers,
+      DownloadPipeline pipeline,
+      long offset,
+      long length) {
+    this.file = file;
+    this.buffers = buffers;
+    this.pipeline = pipeline;
+    this.offset = offset;
+    this.length = length;
+  }
+
+  /** Every read and write starts at the part offset, so there is nothing to rewind. */
+  @Override
+  public void reset() throws IOException {
+    written = 0;
+  }
+
+  /** Streams the part from the file and calculates the hash once it is fully written */
+  @Override
+  public void writeTo(OutputStream os) throws IOException {
+    val buffer = buffers.acquire();
+    try (val hos = new HashingOutputStream(Hashing.md5(), os)) {
+      val writeChannel = Channels.newChannel(hos);
+      long position = offset;
+      long end = offset + length;
+      while (position < end) {
+        buffer.clear();
+        buffer.limit((int) Math.min(buffer.capacity(), end - position));
+        int n = file.read(buffer, position);
+        if (n < 0) {
+          throw new EOFException("Part ends beyond end of file at " + position);
+        }
+
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+          writeChannel.write(buffer);
+        }
+        position += n;
+      }
+      md5 = hos.hash().toString();
+    } finally {
+      buffers.release(buffer);
+    }
+  }
+
+  @Override
+  public void readFrom(InputStream is) throws IOException {
+    val readChannel = Channels.newChannel(is);
+    val buffer = buffers.acquire();
+    try {
+      written = 0;
+      boolean eos = false;
+      while (!eos && written < length) {
+        buffer.clear();
+        buffer.limit((int) Math.min(buffer.capacity(), length - written));
+        while (buffer.hasRemaining()) {
+          if (readChannel.read(buffer) < 0) {
+            // A truncated body leaves the part short; the hash of what was read is then checked
+            // against the expected MD5 of the whole part, as with the memory mapped channel.
+            log.warn("Reached end of stream after {} of {} bytes", written, length);
+            eos = true;
+            break;
+          }
+        }
+
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+          written += file.write(buffer, offset + written);
+        }
+      }
+    } finally {
+      buffers.release(buffer);
+    }
+  }
+
+  @Override
+  public String readAndHash(InputStream is) throws IOException {
+    if (pipeline == null) {
+      return super.readAndHash(is);
+    }
+
+    return pipeline.receive(is, offset, length);
+  }
+
+  /** The shared file is forced by the transport, not per part */
+  @Override
+  public void commitToDisk() {}
+}
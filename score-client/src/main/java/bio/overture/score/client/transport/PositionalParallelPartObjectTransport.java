@@ -0,0 +1,330 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.client.transport;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+import bio.overture.score.client.download.Downloads;
+import bio.overture.score.client.exception.NotResumableException;
+import bio.overture.score.client.exception.NotRetryableException;
+import bio.overture.score.client.exception.RetryableException;
+import bio.overture.score.client.progress.ProgressDataChannel;
+import bio.overture.score.client.progress.ProgressMemoryMappedDataChannel;
+import bio.overture.score.core.model.Part;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Ordering;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+/**
+ * A data transport moving every part through one shared {@link FileChannel} with positional reads
+ * and writes from pooled direct buffers, filled and drained by the worker threads themselves.
+ * Unlike {@link MemoryMappedParallelPartObjectTransport} no part is memory mapped, and unlike
+ * {@link PipedParallelPartObjectTransport} no part is copied into a pipe up front, so heap and
+ * resident memory stay at one buffer per worker regardless of the part size.
+ *
+ * <p>A downloaded file is forced to disk once all parts are written. With a positive force interval
+ * it is also forced whenever that many bytes have been written since the last force, bounding how
+ * much a crash can lose from parts already recorded as downloaded.
+ *
+ * <p>With hashing and writing threads configured, downloads go through a {@link DownloadPipeline}:
+ * the workers only read the network, and the pipeline's own threads hash and write.
+ */
+@Slf4j
+public class PositionalParallelPartObjectTransport extends ParallelPartObjectTransport {
+
+  /** Constants. */
+  private static final int BUFFER_SIZE = 1024 * 1024;
+
+  /** Configuration. */
+  private final long forceInterval;
+
+  private final int hashThreads;
+  private final int writeThreads;
+
+  private PositionalParallelPartObjectTransport(PositionalParallelBuilder builder) {
+    super(builder);
+    this.forceInterval = builder.forceInterval;
+    this.hashThreads = builder.hashThreads;
+    this.writeThreads = builder.writeThreads;
+    log.debug("Transport Settings: {}", builder.toString());
+  }
+
+  @Override
+  @SneakyThrows
+  public void send(File file) {
+    log.debug("send file: {}", file.getPath());
+    val executor = newWorkerPool("uploader-%s");
+    val buffers = new DirectBufferPool(BUFFER_SIZE);
+    val results = ImmutableList.<Future<Part>>builder();
+    progress.start();
+
+    try (FileChannel channel = FileChannel.open(file.toPath(), READ)) {
+      for (final Part part : parts) {
+        results.add(
+            submit(
+                executor,
+                part,
+                () -> {
+                  val dataChannel =
+                      new ProgressDataChannel(
+                          new PositionalDataChannel(
+                              channel, buffers, part.getOffset(), part.getPartSize()),
+                          progress);
+                  if (part.isCompleted()) {
+                    if (checksum && isCorrupted(dataChannel, part, file)) {
+                      log.info("Checksum failed; Reuploading part: {}", part);
+                      progress.startTransfer();
+                      proxy.uploadPart(dataChannel, part, objectId, uploadId);
+                    }
+                    progress.incrementChecksumParts();
+                  } else {
+                    progress.startTransfer();
+                    proxy.uploadPart(dataChannel, part, objectId, uploadId);
+                    progress.incrementParts(1);
+                  }
+                  return part;
+                }));
+      }
+
+      awaitParts(executor, results.build());
+    } finally {
+      // a worker interrupted mid read closes the shared channel, so never leave any running
+      executor.shutdownNow();
+      log.debug("Allocated {} direct buffers", buffers.getAllocated());
+    }
+
+    progress.stop();
+    try {
+      takeCareOfException(results.build());
+      proxy.finalizeUpload(objectId, uploadId, getObjectMd5());
+    } catch (Throwable e) {
+      endProgress(true);
+      throw e;
+    }
+    endProgress(false);
+  }
+
+  @Override
+  @SneakyThrows
+  public void receive(File outputDir) {
+    log.debug("Preparing to receive {} in {}", objectId, outputDir.toString());
+    val filename = Downloads.getDownloadFile(outputDir, objectId);
+    val fileSize = Downloads.calculateTotalSize(parts);
+
+    if (!Ordering.natural().isOrdered(parts)) {
+      Collections.sort(parts);
+    }
+
+    log.debug("Downloading object to file: {}, size:{}", filename.getPath(), fileSize);
+    val downloadExecutorService = newWorkerPool("downloader-%s");
+    val buffers = new DirectBufferPool(BUFFER_SIZE);
+    val results = new LinkedList<Future<Part>>();
+    progress.start();
+
+    boolean hasError = false;
+    String stages = null;
+    try (RandomAccessFile raf = new RandomAccessFile(filename, "rw");
+        FileChannel file = raf.getChannel();
+        DownloadPipeline pipeline =
+            hashThreads > 0 && writeThreads > 0
+                ? new DownloadPipeline(file, buffers, nThreads, hashThreads, writeThreads)
+                : null) {
+      raf.setLength(fileSize);
+      val force = new BatchedForce(file, forceInterval);
+
+      long offset = 0;
+      for (final Part part : parts) {
+        // the file starts at the requested offset, so parts are laid out back to back from 0
+        val currOffset = offset;
+        offset += part.getPartSize();
+
+        log.debug("Submitting part # '{}' download.", part.getPartNumber());
+        results.push(
+            submit(
+                downloadExecutorService,
+                part,
+                () -> {
+                  val channel =
+                      new ProgressMemoryMappedDataChannel(
+                          new PositionalDataChannel(
+                              file, buffers, pipeline, currOffset, part.getPartSize()),
+                          progress);
+                  try {
+                    if (part.isCompleted()) {
+                      if (checksum && isCorrupted(channel, part, outputDir)) {
+                        log.debug("Part #{} is corrupted. Re-downloading...", part.getPartNumber());
+                        progress.startTransfer();
+                        proxy.downloadPart(channel, part, objectId, outputDir);
+                        force.written(part.getPartSize());
+                      }
+                      progress.incrementChecksumParts();
+                    } else {
+                      progress.startTransfer();
+                      proxy.downloadPart(channel, part, objectId, outputDir);
+                      force.written(part.getPartSize());
+                      progress.incrementParts(1);
+                    }
+                    return part;
+                  } catch (RetryableException | NotResumableException | NotRetryableException e) {
+                    log.error("Failed to receive part: {}", part, e);
+                    throw e;
+                  } catch (Throwable e) {
+                    throw new NotRetryableException(e);
+                  }
+                }));
+
+        // check finished parts as they complete instead of only at the end
+        while (!results.isEmpty() && results.getLast().isDone()) {
+          try {
+            results.removeLast().get();
+          } catch (ExecutionException e) {
+            log.error("Download part failed", e);
+            hasError = true;
+            if (e.getCause() instanceof NotResumableException) {
+              log.error("Download cannot be processed", e);
+              downloadExecutorService.shutdownNow();
+              throw e.getCause();
+            }
+          }
+        }
+      }
+
+      log.info("all tasks are submitted, waiting for completion...");
+      awaitParts(downloadExecutorService, results);
+      log.info("all tasks are completed");
+
+      if (pipeline != null) {
+        // every part has been written by now, so this only stops the stages
+        pipeline.close();
+        stages = pipeline.toString();
+      }
+
+      if (!hasError) {
+        log.debug("Flushing '{}' to disk...", filename);
+        file.force(false);
+      }
+    } finally {
+      // a worker interrupted mid write closes the shared channel, so never leave any running
+      downloadExecutorService.shutdownNow();
+      log.debug("Allocated {} direct buffers", buffers.getAllocated());
+    }
+
+    progress.stop();
+    if (hasError) {
+      endProgress(true, stages);
+      throw new NotRetryableException(new IOException("some parts failed to download."));
+    }
+
+    try {
+      log.info("finalizing download...");
+      takeCareOfException(results);
+      proxy.finalizeDownload(outputDir, objectId);
+      log.info("Download is finalized");
+    } catch (Throwable e) {
+      endProgress(true, stages);
+      throw e;
+    }
+    endProgress(false, stages);
+  }
+
+  private void endProgress(boolean failed, String stages) {
+    endProgress(failed);
+    if (stages != null) {
+      progress.report("Stages", stages);
+    }
+  }
+
+  /** Forces the shared file to disk every {@code interval} bytes written by any worker. */
+  @RequiredArgsConstructor
+  private static class BatchedForce {
+
+    private final FileChannel file;
+    private final long interval;
+    private final AtomicLong unforced = new AtomicLong();
+
+    void written(long bytes) throws IOException {
+      if (interval <= 0 || unforced.addAndGet(bytes) < interval) {
+        return;
+      }
+
+      synchronized (this) {
+        // another worker may have forced while this one waited
+        if (unforced.get() < interval) {
+          return;
+        }
+
+        unforced.set(0);
+        log.debug("Forcing file to disk after {} bytes", interval);
+        file.force(false);
+      }
+    }
+  }
+
+  public static PositionalParallelBuilder builder() {
+    return new PositionalParallelBuilder();
+  }
+
+  @Data
+  @EqualsAndHashCode(callSuper = true)
+  public static class PositionalParallelBuilder extends RemoteParallelBuilder {
+
+    private long forceInterval;
+    private int hashThreads;
+    private int writeThreads;
+
+    /** Bytes written between forcing the file to disk; 0 only forces once all parts are written. */
+    public PositionalParallelBuilder withForceInterval(long bytes) {
+      this.forceInterval = bytes;
+      return this;
+    }
+
+    /**
+     * Threads hashing and writing downloaded data, so that the workers only read the network; 0 for
+     * either keeps all three on the workers.
+     */
+    public PositionalParallelBuilder withPipeline(int hashThreads, int writeThreads) {
+      this.hashThreads = hashThreads;
+      this.writeThreads = writeThreads;
+      return this;
+    }
+
+    @Override
+    public boolean isReceivedInPlace() {
+      return true;
+    }
+
+    @Override
+    public Transport build() {
+      checkArgumentsNotNull();
+      return new PositionalParallelPartObjectTransport(this);
+    }
+  }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.client.transport;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.base.Splitter;
+import com.google.common.io.BaseEncoding;
+import lombok.Getter;
+import lombok.val;
+
+/**
+ * MD5 (RFC 1321) whose running state can be saved and restored, which {@link
+ * java.security.MessageDigest} does not allow. Hashing a large object can then continue in a later
+ * process from the last {@link #checkpoint()} instead of from the first byte.
+ */
+public class ResumableMd5 {
+
+  /** Constants. */
+  private static final int BLOCK_SIZE = 64;
+
+  private static final int[] SINES = new int[64];
+
+  static {
+    for (int i = 0; i < SINES.length; i++) {
+      SINES[i] = (int) (long) (Math.abs(Math.sin(i + 1)) * (1L << 32));
+    }
+  }
+
+  private static final BaseEncoding HEX = BaseEncoding.base16().lowerCase();
+
+  /** State. */
+  private final int[] state = {0x67452301, 0xefcdab89, 0x98badcfe, 0x10325476};
+
+  private final byte[] block = new byte[BLOCK_SIZE];
+  private final int[] words = new int[16];
+
+  /** Bytes hashed so far. */
+  @Getter private long count = 0;
+
+  public void update(byte[] bytes, int offset, int length) {
+    int buffered = (int) (count % BLOCK_SIZE);
+    count += length;
+
+    // complete a block left partly filled by the previous update
+    if (buffered > 0) {
+      int n = Math.min(length, BLOCK_SIZE - buffered);
+      System.arraycopy(bytes, offset, block, buffered, n);
+      offset += n;
+      length -= n;
+      if (buffered + n < BLOCK_SIZE) {
+        return;
+      }
+
+      transform(block, 0);
+    }
+
+    while (length >= BLOCK_SIZE) {
+      transform(bytes, offset);
+      offset += BLOCK_SIZE;
+      length -= BLOCK_SIZE;
+    }
+
+    System.arraycopy(bytes, offset, block, 0, length);
+  }
+
+  /** The digest of the bytes hashed so far as lowercase hex, leaving the state as is. */
+  public String hexDigest() {
+    val copy = restore(checkpoint());
+    val bits = count * 8;
+    val padding = new byte[(int) (BLOCK_SIZE - (count + 8) % BLOCK_SIZE)];
+    padding[0] = (byte) 0x80;
+    copy.update(padding, 0, padding.length);
+
+    val length = new byte[8];
+    for (int i = 0; i < 8; i++) {
+      length[i] = (byte) (bits >>> (8 * i));
+    }
+    copy.update(length, 0, length.length);
+
+    val digest = new byte[16];
+    for (int i = 0; i < 16; i++) {
+      digest[i] = (byte) (copy.state[i / 4] >>> (8 * (i % 4)));
+    }
+
+    return HEX.encode(digest);
+  }
+
+  /** The state as text, for {@link #restore(String)}. */
+  public String checkpoint() {
+    val text = new StringBuilder().append(count);
+    for (val word : state) {
+      text.append(':').append(Integer.toUnsignedString(word, 16));
+    }
+
+    return text.append(':').append(HEX.encode(block, 0, (int) (count % BLOCK_SIZE))).toString();
+  }
+
+  public static ResumableMd5 restore(String checkpoint) {
+    val fields = Splitter.on(':').splitToList(checkpoint);
+    checkArgument(fields.size() == 6, "Not an MD5 checkpoint: '%s'", checkpoint);
+
+    val md5 = new ResumableMd5();
+    md5.count = Long.parseLong(fields.get(0));
+    for (int i = 0; i < 4; i++) {
+      md5.state[i] = Integer.parseUnsignedInt(fields.get(i + 1), 16);
+    }
+
+    val buffered = HEX.decode(fields.get(5));
+    checkArgument(
+        md5.count >= 0 && buffered.length == md5.count % BLOCK_SIZE,
+        "Inconsistent MD5 checkpoint: '%s'",
+        checkpoint);
+    System.arraycopy(buffered, 0, md5.block, 0, buffered.length);
+
+    return md5;
+  }
+
+  private void transform(byte[] bytes, int offset) {
+    for (int i = 0; i < 16; i++) {
+      int j = offset + 4 * i;
+      words[i] =
+          (bytes[j] & 0xff)
+              | (bytes[j + 1] & 0xff) << 8
+              | (bytes[j + 2] & 0xff) << 16
+              | (bytes[j + 3] & 0xff) << 24;
+    }
+
+    int a = state[0];
+    int b = state[1];
+    int c = state[2];
+    int d = state[3];
+    for (int i = 0; i < 16; i += 4) {
+      a = round1(a, b, c, d, words[i], 7, SINES[i]);
+      d = round1(d, a, b, c, words[i + 1], 12, SINES[i + 1]);
+      c = round1(c, d, a, b, words[i + 2], 17, SINES[i + 2]);
+      b = round1(b, c, d, a, words[i + 3], 22, SINES[i + 3]);
+    }
+    for (int i = 16; i < 32; i += 4) {
+      a = round2(a, b, c, d, words[(5 * i + 1) & 15], 5, SINES[i]);
+      d = round2(d, a, b, c, words[(5 * (i + 1) + 1) & 15], 9, SINES[i + 1]);
+      c = round2(c, d, a, b, words[(5 * (i + 2) + 1) & 15], 14, SINES[i + 2]);
+      b = round2(b, c, d, a, words[(5 * (i + 3) + 1) & 15], 20, SINES[i + 3]);
+    }
+    for (int i = 32; i < 48; i += 4) {
+      a = round3(a, b, c, d, words[(3 * i + 5) & 15], 4, SINES[i]);
+      d = round3(d, a, b, c, words[(3 * (i + 1) + 5) & 15], 11, SINES[i + 1]);
+      c = round3(c, d, a, b, words[(3 * (i + 2) + 5) & 15], 16, SINES[i + 2]);
+      b = round3(b, c, d, a, words[(3 * (i + 3) + 5) & 15], 23, SINES[i + 3]);
+    }
+    for (int i = 48; i < 64; i += 4) {
+      a = round4(a, b, c, d, words[(7 * i) & 15], 6, SINES[i]);
+      d = round4(d, a, b, c, words[(7 * (i + 1)) & 15], 10, SINES[i + 1]);
+      c = round4(c, d, a, b, words[(7 * (i + 2)) & 15], 15, SINES[i + 2]);
+      b = round4(b, c, d, a, words[(7 * (i + 3)) & 15], 21, SINES[i + 3]);
+    }
+
+    state[0] += a;
+    state[1] += b;
+    state[2] += c;
+    state[3] += d;
+  }
+
+  private static int round1(int a, int b, int c, int d, int word, int shift, int sine) {
+    return b + Integer.rotateLeft(a + ((b & c) | (~b & d)) + word + sine, shift);
+  }
+
+  private static int round2(int a, int b, int c, int d, int word, int shift, int sine) {
+    return b + Integer.rotateLeft(a + ((b & d) | (c & ~d)) + word + sine, shift);
+  }
+
+  private static int round3(int a, int b, int c, int d, int word, int shift, int sine) {
+    return b + Integer.rotateLeft(a + (b ^ c ^ d) + word + sine, shift);
+  }
+
+  private static int round4(int a, int b, int c, int d, int word, int shift, int sine) {
+    return b + Integer.rotateLeft(a + (c ^ (b | ~d)) + word + sine, shift);
+  }
+}
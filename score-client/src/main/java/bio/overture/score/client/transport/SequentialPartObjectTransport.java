@@ -38,6 +38,8 @@ public class SequentialPartObjectTransport implements Transport {
   private final List<Part> parts;
   private final String objectId;
   private final String uploadId;
+  private final IncrementalChecksum objectChecksum;
+  private final String objectMd5;
 
   private SequentialPartObjectTransport(SequentialBuilder builder) {
     this.proxy = builder.proxy;
@@ -45,6 +47,8 @@ public class SequentialPartObjectTransport implements Transport {
     this.parts = builder.parts;
     this.objectId = builder.objectId;
     this.uploadId = builder.uploadId;
+    this.objectChecksum = builder.objectChecksum;
+    this.objectMd5 = builder.objectMd5;
   }
 
   @Override
@@ -79,7 +83,8 @@ public class SequentialPartObjectTransport implements Transport {
         progress.incrementParts(1);
       }
     }
-    proxy.finalizeUpload(objectId, uploadId);
+    proxy.finalizeUpload(
+        objectId, uploadId, objectChecksum == null ? objectMd5 : objectChecksum.finish());
     progress.end(false);
   }
 
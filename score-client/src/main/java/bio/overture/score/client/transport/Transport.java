@@ -55,6 +55,14 @@ public interface Transport {
     Builder withTransportMode(Mode mode);
 
     Builder withChecksum(boolean checksum);
+
+    /** Digests the whole object as parts are sent, for the server to verify at finalize. */
+    Builder withObjectChecksum(IncrementalChecksum objectChecksum);
+
+    /**
+     * The MD5 of the whole object as given by the user, sent as is at finalize when not digested.
+     */
+    Builder withObjectMd5(String objectMd5);
   }
 
   abstract class AbstractBuilder implements Builder {
@@ -66,6 +74,8 @@ public interface Transport {
     protected String uploadId;
     protected Mode mode;
     protected boolean checksum;
+    protected IncrementalChecksum objectChecksum;
+    protected String objectMd5;
 
     @Override
     public Builder withProgressBar(Progress progressBar) {
@@ -108,5 +118,17 @@ public interface Transport {
       this.checksum = checksum;
       return this;
     }
+
+    @Override
+    public Builder withObjectChecksum(IncrementalChecksum objectChecksum) {
+      this.objectChecksum = objectChecksum;
+      return this;
+    }
+
+    @Override
+    public Builder withObjectMd5(String objectMd5) {
+      this.objectMd5 = objectMd5;
+      return this;
+    }
   }
 }
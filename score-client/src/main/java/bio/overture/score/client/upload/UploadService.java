@@ -17,12 +17,27 @@
  */
 package bio.overture.score.client.upload;
 
+import bio.overture.score.client.transport.PartScheduler;
 import java.io.File;
 import java.io.IOException;
 
 public interface UploadService {
 
+  /**
+   * Uploads {@code file} as {@code objectId}. A {@code null} {@code md5} has the object digested
+   * while it is sent, where the implementation supports it.
+   */
   public void upload(File file, String objectId, String md5, boolean redo) throws IOException;
 
+  /**
+   * Uploads {@code file} with its parts transferred by the shared {@code scheduler}, alongside the
+   * parts of other files. Implementations without parallel parts upload on their own.
+   */
+  public default void upload(
+      File file, String objectId, String md5, boolean redo, PartScheduler scheduler)
+      throws IOException {
+    upload(file, objectId, md5, redo);
+  }
+
   public boolean isObjectExist(String objectId) throws IOException;
 }
@@ -18,10 +18,12 @@
 package bio.overture.score.client.upload;
 
 import bio.overture.score.client.exception.NotRetryableException;
+import bio.overture.score.client.state.FileFingerprint;
 import bio.overture.score.client.state.TransferState;
 import bio.overture.score.core.model.ObjectSpecification;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.Optional;
 import lombok.NonNull;
 import lombok.SneakyThrows;
@@ -98,6 +100,45 @@ public class UploadStateStore extends TransferState {
     return result;
   }
 
+  /**
+   * Records the fingerprint of the file being uploaded, taken before any of its parts is read, so
+   * that a resumed upload can tell whether the parts already sent still match the file.
+   */
+  public static void saveFingerprint(
+      @NonNull String uploadStateDir,
+      @NonNull String objectId,
+      @NonNull FileFingerprint fingerprint) {
+    val fingerprintFile =
+        new File(getObjectStatePath(uploadStateDir, objectId), getFingerprintName());
+    try (PrintWriter out = new PrintWriter(fingerprintFile, StandardCharsets.UTF_8.name())) {
+      out.println(fingerprint.serialize());
+    } catch (IOException e) {
+      throw new NotRetryableException(e);
+    }
+  }
+
+  public static Optional<FileFingerprint> fetchFingerprint(
+      @NonNull String uploadStateDir, @NonNull String objectId) {
+    val fingerprintFile =
+        new File(getObjectStatePath(uploadStateDir, objectId), getFingerprintName());
+    if (!fingerprintFile.exists()) {
+      return Optional.empty();
+    }
+
+    try {
+      val content =
+          new String(Files.readAllBytes(fingerprintFile.toPath()), StandardCharsets.UTF_8);
+      return Optional.of(FileFingerprint.parse(content));
+    } catch (IOException | IllegalArgumentException e) {
+      log.warn("Ignoring file fingerprint {}: {}", fingerprintFile, e.getMessage());
+      return Optional.empty();
+    }
+  }
+
+  protected static String getFingerprintName() {
+    return "fingerprint";
+  }
+
   public static void close(@NonNull String uploadStateDir, @NonNull String objectId)
       throws IOException {
     val dirToDelete = new File(getObjectStatePath(uploadStateDir, objectId));
@@ -21,7 +21,13 @@ import bio.overture.score.client.cli.Terminal;
 import bio.overture.score.client.exception.NotResumableException;
 import bio.overture.score.client.exception.NotRetryableException;
 import bio.overture.score.client.progress.Progress;
+import bio.overture.score.client.progress.TransferTimings;
+import bio.overture.score.client.state.FileFingerprint;
 import bio.overture.score.client.storage.StorageService;
+import bio.overture.score.client.transport.IncrementalChecksum;
+import bio.overture.score.client.transport.ParallelPartObjectTransport.RemoteParallelBuilder;
+import bio.overture.score.client.transport.PartScheduler;
+import bio.overture.score.client.transport.ResumableMd5;
 import bio.overture.score.client.transport.Transport;
 import bio.overture.score.client.upload.UploadService;
 import bio.overture.score.client.upload.UploadStateStore;
@@ -57,6 +63,7 @@ public class S3UploadService implements UploadService {
 
   @Autowired private Transport.Builder transportBuilder;
   @Autowired private Terminal terminal;
+  @Autowired private TransferTimings transferTimings;
 
   @PostConstruct
   public void setup() {
@@ -74,27 +81,41 @@ public class S3UploadService implements UploadService {
   @Override
   public void upload(File file, String objectId, String md5, final boolean redo)
       throws IOException {
+    upload(file, objectId, md5, redo, null);
+  }
+
+  @Override
+  public void upload(
+      File file, String objectId, String md5, final boolean redo, PartScheduler scheduler)
+      throws IOException {
     log.debug("Initiating S3 upload");
     boolean tryAgain = redo;
-    for (int retry = 0; retry < retryNumber; retry++)
-      try {
-        if (tryAgain) {
-          startUpload(file, objectId, md5, tryAgain);
-        } else {
-          // only perform checksum the first time of the resume
-          resumeIfPossible(file, objectId, md5, retry == 0 ? true : false);
+    try {
+      for (int retry = 0; retry < retryNumber; retry++)
+        try {
+          if (tryAgain) {
+            startUpload(file, objectId, md5, tryAgain, scheduler);
+          } else {
+            // only perform checksum the first time of the resume
+            resumeIfPossible(file, objectId, md5, retry == 0 ? true : false, scheduler);
+          }
+          return;
+        } catch (NotRetryableException e) {
+          log.warn(
+              "Upload was not completed successfully in the last execution. Checking data integrity. Please wait...");
+          tryAgain = !storageService.isUploadDataRecoverable(objectId, file.length());
         }
-        return;
-      } catch (NotRetryableException e) {
-        log.warn(
-            "Upload was not completed successfully in the last execution. Checking data integrity. Please wait...");
-        tryAgain = !storageService.isUploadDataRecoverable(objectId, file.length());
-      }
+
+      throw new RuntimeException("Number of retries exhausted");
+    } finally {
+      transferTimings.report(terminal, objectId, quiet);
+    }
   }
 
   /** Start an upload given the object id */
   @SneakyThrows
-  private void startUpload(File file, String objectId, String md5, boolean overwrite) {
+  private void startUpload(
+      File file, String objectId, String md5, boolean overwrite, PartScheduler scheduler) {
     log.info("Start a new upload...");
     ObjectSpecification spec = null;
     try {
@@ -103,6 +124,10 @@ public class S3UploadService implements UploadService {
       // Delete if already present
       if (overwrite) {
         UploadStateStore.create(getUploadStateDir(file), spec);
+        val fingerprint = FileFingerprint.of(file);
+        if (fingerprint.isPresent()) {
+          UploadStateStore.saveFingerprint(getUploadStateDir(file), objectId, fingerprint.get());
+        }
       }
     } catch (NotRetryableException e) {
       // A NotRetryable exception during initiateUpload should just end whole process
@@ -114,8 +139,8 @@ public class S3UploadService implements UploadService {
       throw new NotResumableException(e);
     }
 
-    val progress = new Progress(terminal, quiet, spec.getParts().size(), 0);
-    uploadParts(spec.getParts(), file, objectId, spec.getUploadId(), progress);
+    val progress = newProgress(spec.getParts().size(), 0, scheduler);
+    uploadParts(spec.getParts(), file, objectId, spec.getUploadId(), md5, progress, scheduler);
     cleanupState(file, objectId);
   }
 
@@ -124,16 +149,17 @@ public class S3UploadService implements UploadService {
    * possible if the upload progress cannot be retrieved.
    */
   @SneakyThrows
-  private void resumeIfPossible(File uploadFile, String objectId, String md5, boolean checksum) {
+  private void resumeIfPossible(
+      File uploadFile, String objectId, String md5, boolean checksum, PartScheduler scheduler) {
     try {
       val progress = checkProgress(uploadFile, objectId);
-      resume(uploadFile, progress, objectId, checksum);
+      resume(uploadFile, progress, objectId, md5, checksum, scheduler);
     } catch (NotRetryableException e) {
       // org.icgc.dcc.storage.client.exception.ServiceRetryableResponseErrorHandler translates the
       // 404 received from
       // server into a NotRetryableException
       log.info("No upload id found for object id {}. Start new upload.", objectId);
-      startUpload(uploadFile, objectId, md5, true);
+      startUpload(uploadFile, objectId, md5, true, scheduler);
       return;
     }
   }
@@ -173,9 +199,19 @@ public class S3UploadService implements UploadService {
    * Resume an upload given the upload progress. Checksum is required only for the first attempt for
    * each process execution.
    */
-  private void resume(File file, UploadProgress uploadProgress, String objectId, boolean checksum)
+  private void resume(
+      File file,
+      UploadProgress uploadProgress,
+      String objectId,
+      String md5,
+      boolean checksum,
+      PartScheduler scheduler)
       throws IOException {
     log.info("Resume from the previous upload...");
+    if (checksum && isUnchanged(file, objectId)) {
+      log.info("{} is unchanged since the upload started, skipping verification", file);
+      checksum = false;
+    }
 
     val parts = uploadProgress.getParts();
     int completedParts = numCompletedParts(parts);
@@ -190,11 +226,33 @@ public class S3UploadService implements UploadService {
       parts.removeIf((Part part) -> part.isCompleted());
     }
 
-    val progress = new Progress(terminal, quiet, totalParts, completedParts);
-    uploadParts(parts, file, uploadProgress.getObjectId(), uploadProgress.getUploadId(), progress);
+    val progress = newProgress(totalParts, completedParts, scheduler);
+    uploadParts(
+        parts,
+        file,
+        uploadProgress.getObjectId(),
+        uploadProgress.getUploadId(),
+        md5,
+        progress,
+        scheduler);
     cleanupState(file, objectId);
   }
 
+  /** Whether {@code file} still has the fingerprint it had when its upload started. */
+  private boolean isUnchanged(File file, String objectId) throws IOException {
+    val fingerprint = FileFingerprint.of(file);
+    return fingerprint.isPresent()
+        && fingerprint.equals(UploadStateStore.fetchFingerprint(getUploadStateDir(file), objectId));
+  }
+
+  /**
+   * Files sharing a scheduler are uploaded at once, so their progress bars are kept quiet rather
+   * than overwriting each other.
+   */
+  private Progress newProgress(int totalParts, int completedParts, PartScheduler scheduler) {
+    return new Progress(terminal, quiet || scheduler != null, totalParts, completedParts);
+  }
+
   /** Calculate the number of completed parts */
   private int numCompletedParts(List<Part> parts) {
     int completedTotal = 0;
@@ -206,11 +264,27 @@ public class S3UploadService implements UploadService {
     return completedTotal;
   }
 
-  /** Start upload parts using a specific configured data transport */
+  /**
+   * Start upload parts using a specific configured data transport. Without an {@code md5} the
+   * object is digested as its parts are sent. The server checks the digest, or the {@code md5} as
+   * given, at finalize against the MD5 given when the upload started, or records it when none was.
+   */
   @SneakyThrows
   private void uploadParts(
-      List<Part> parts, File file, String objectId, String uploadId, Progress progressBar) {
-    val transport =
+      List<Part> parts,
+      File file,
+      String objectId,
+      String uploadId,
+      String md5,
+      Progress progressBar,
+      PartScheduler scheduler) {
+    try (IncrementalChecksum objectMd5 =
+        md5 == null
+            ? new IncrementalChecksum(file, file.length(), new ResumableMd5(), checkpoint -> {})
+            : null) {
+      Transport transport;
+      // The builder is shared by the files uploaded together
+      synchronized (transportBuilder) {
         transportBuilder
             .withProxy(storageService)
             .withProgressBar(progressBar)
@@ -218,9 +292,23 @@ public class S3UploadService implements UploadService {
             .withObjectId(objectId)
             .withTransportMode(Transport.Mode.UPLOAD)
             .withSessionId(uploadId)
-            .build();
+            .withObjectChecksum(objectMd5)
+            .withObjectMd5(md5);
+        if (transportBuilder instanceof RemoteParallelBuilder) {
+          // Smaller files first, so that they complete while the larger ones stream
+          ((RemoteParallelBuilder) transportBuilder)
+              .withScheduler(scheduler, 1 + file.length())
+              .withPartListener(
+                  objectMd5 == null
+                      ? null
+                      // an uploaded file starts at the start of the object
+                      : part -> objectMd5.completed(part.getOffset(), part.getPartSize()));
+        }
+        transport = transportBuilder.build();
+      }
 
-    transport.send(file);
+      transport.send(file);
+    }
   }
 
   @Override
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.client.command;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import bio.overture.score.client.cli.Terminal;
+import bio.overture.score.client.exception.NotResumableException;
+import bio.overture.score.client.exception.NotRetryableException;
+import bio.overture.score.client.progress.TransferTimings;
+import bio.overture.score.client.storage.StorageService;
+import bio.overture.score.client.transport.IncrementalChecksum;
+import bio.overture.score.client.transport.Transport;
+import bio.overture.score.client.upload.UploadStateStore;
+import bio.overture.score.client.upload.s3.S3UploadService;
+import bio.overture.score.core.model.ObjectSpecification;
+import bio.overture.score.core.model.Part;
+import bio.overture.score.core.model.UploadProgress;
+import bio.overture.score.core.util.MD5s;
+import com.google.common.hash.Hashing;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.val;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class UploadCommandTest {
+
+  private static final String OBJECT_ID = "45dfcd17-8e80-53fc-b400-cc8b583dae05";
+  private static final String UPLOAD_ID = "upload";
+
+  @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+  private final UploadCommand command = new UploadCommand();
+  private final S3UploadService uploader = new S3UploadService();
+
+  private StorageService storageService;
+  private Terminal terminal;
+  private File file;
+  private String md5;
+
+  /** The MD5 the upload was started with, as held by the server. */
+  private String expectedMd5;
+
+  private final AtomicReference<IncrementalChecksum> objectChecksum = new AtomicReference<>();
+  private final AtomicReference<String> objectMd5 = new AtomicReference<>();
+
+  @Before
+  public void set_up() throws Exception {
+    val data = new byte[10_000];
+    new Random(43).nextBytes(data);
+    file = tmp.newFile();
+    Files.write(file.toPath(), data);
+    md5 = Hashing.md5().hashBytes(data).toString();
+
+    storageService = mock(StorageService.class);
+    terminal = mock(Terminal.class);
+    when(storageService.isUploadDataRecoverable(OBJECT_ID, data.length)).thenReturn(true);
+
+    // The transport sends the digest of the file if it was asked to compute one, else the MD5 given
+    val transport = mock(Transport.class);
+    doAnswer(
+            invocation -> {
+              val checksum = objectChecksum.get();
+              storageService.finalizeUpload(
+                  OBJECT_ID, UPLOAD_ID, checksum == null ? objectMd5.get() : checksum.finish());
+              return null;
+            })
+        .when(transport)
+        .send(file);
+    val transportBuilder = mock(Transport.Builder.class, RETURNS_SELF);
+    when(transportBuilder.build()).thenReturn(transport);
+    doAnswer(
+            invocation -> {
+              objectChecksum.set(invocation.getArgument(0));
+              return transportBuilder;
+            })
+        .when(transportBuilder)
+        .withObjectChecksum(any());
+    doAnswer(
+            invocation -> {
+              objectMd5.set(invocation.getArgument(0));
+              return transportBuilder;
+            })
+        .when(transportBuilder)
+        .withObjectMd5(any());
+
+    ReflectionTestUtils.setField(uploader, "quiet", true);
+    ReflectionTestUtils.setField(uploader, "retryNumber", 3);
+    ReflectionTestUtils.setField(uploader, "uploadStateDir", tmp.getRoot().getPath());
+    ReflectionTestUtils.setField(uploader, "storageService", storageService);
+    ReflectionTestUtils.setField(uploader, "transportBuilder", transportBuilder);
+    ReflectionTestUtils.setField(uploader, "terminal", terminal);
+    ReflectionTestUtils.setField(uploader, "transferTimings", mock(TransferTimings.class));
+
+    ReflectionTestUtils.setField(command, "uploader", uploader);
+    ReflectionTestUtils.setField(command, "terminal", terminal);
+    ReflectionTestUtils.setField(command, "verifyConnection", false);
+    ReflectionTestUtils.setField(command, "objectId", OBJECT_ID);
+    ReflectionTestUtils.setField(command, "file", file);
+
+    // An earlier run started the upload with a wrong --md5 and was cut short
+    expectedMd5 = Hashing.md5().hashBytes(new byte[] {1}).toString();
+    val part = Part.builder().partNumber(1).partSize(data.length).offset(0).build();
+    val spec =
+        new ObjectSpecification(
+            null, OBJECT_ID, UPLOAD_ID, Arrays.asList(part), data.length, expectedMd5, false);
+    UploadStateStore.create(tmp.getRoot().getPath(), spec);
+    when(storageService.initiateUpload(eq(OBJECT_ID), anyLong(), anyBoolean(), any()))
+        .thenReturn(spec);
+    when(storageService.getProgress(OBJECT_ID, data.length))
+        .thenReturn(new UploadProgress(OBJECT_ID, UPLOAD_ID, Arrays.asList(part)));
+  }
+
+  @Test
+  public void test_upload_not_matching_md5_it_was_started_with_fails() throws Exception {
+    // As the server does, rejecting a mismatch with a conflict the client does not retry
+    doAnswer(
+            invocation -> {
+              String sent = invocation.getArgument(2);
+              if (!MD5s.isEqual(sent, expectedMd5)) {
+                throw new NotResumableException(new IOException("Storage client error: 409"));
+              }
+              return null;
+            })
+        .when(storageService)
+        .finalizeUpload(anyString(), anyString(), any());
+    ReflectionTestUtils.setField(command, "md5", "auto");
+
+    val throwable = catchThrowable(command::execute);
+
+    assertThat(throwable).isInstanceOf(NotResumableException.class);
+    verify(storageService).finalizeUpload(OBJECT_ID, UPLOAD_ID, md5);
+    verify(terminal, never()).println("Upload completed");
+  }
+
+  @Test
+  public void test_upload_fails_once_retries_are_exhausted() throws Exception {
+    doAnswer(
+            invocation -> {
+              throw new NotRetryableException(new IOException("Storage client error: 400"));
+            })
+        .when(storageService)
+        .finalizeUpload(anyString(), anyString(), any());
+    ReflectionTestUtils.setField(command, "md5", md5);
+
+    val throwable = catchThrowable(command::execute);
+
+    assertThat(throwable).hasMessageContaining("retries exhausted");
+    // the MD5 given is sent as is, without the file being digested
+    verify(storageService, atLeast(3)).finalizeUpload(OBJECT_ID, UPLOAD_ID, md5);
+    assertThat(objectChecksum.get()).isNull();
+    verify(terminal, never()).println("Upload completed");
+  }
+}
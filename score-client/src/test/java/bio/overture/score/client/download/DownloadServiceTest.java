@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.client.download;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import bio.overture.score.client.cli.Terminal;
+import bio.overture.score.client.config.TransportProperties;
+import bio.overture.score.client.progress.TransferTimings;
+import bio.overture.score.client.state.FileFingerprint;
+import bio.overture.score.client.storage.StorageService;
+import bio.overture.score.client.transport.Transport;
+import bio.overture.score.core.model.ObjectSpecification;
+import bio.overture.score.core.model.Part;
+import com.google.common.hash.Hashing;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Random;
+import lombok.val;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class DownloadServiceTest {
+
+  private static final String OBJECT_ID = "45dfcd17-8e80-53fc-b400-cc8b583dae05";
+
+  @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+  private final DownloadService downloadService = new DownloadService();
+
+  private DownloadStateStore stateStore;
+  private Transport.Builder transportBuilder;
+  private Transport transport;
+  private DownloadRequest request;
+  private ObjectSpecification spec;
+  private byte[] data;
+  private File file;
+
+  @Before
+  public void set_up() throws Exception {
+    stateStore = mock(DownloadStateStore.class);
+    transport = mock(Transport.class);
+    transportBuilder = mock(Transport.Builder.class, RETURNS_SELF);
+    when(transportBuilder.build()).thenReturn(transport);
+
+    ReflectionTestUtils.setField(downloadService, "quiet", true);
+    ReflectionTestUtils.setField(downloadService, "retryNumber", 1);
+    ReflectionTestUtils.setField(downloadService, "storageService", mock(StorageService.class));
+    ReflectionTestUtils.setField(downloadService, "downloadStateStore", stateStore);
+    ReflectionTestUtils.setField(downloadService, "transportBuilder", transportBuilder);
+    ReflectionTestUtils.setField(downloadService, "terminal", mock(Terminal.class));
+    ReflectionTestUtils.setField(downloadService, "transferTimings", mock(TransferTimings.class));
+    ReflectionTestUtils.setField(
+        downloadService, "transportProperties", mock(TransportProperties.class));
+
+    // a download of the object from 10_000 on, both of its parts completed by an earlier attempt
+    data = new byte[30_000];
+    new Random(41).nextBytes(data);
+    spec = new ObjectSpecification();
+    spec.setObjectId(OBJECT_ID);
+    spec.setObjectSize(data.length);
+    spec.setParts(Arrays.asList(part(2, 10_000, 10_000), part(3, 20_000, 10_000)));
+    request = DownloadRequest.builder().outputDir(tmp.newFolder()).objectId(OBJECT_ID).build();
+    when(stateStore.getProgress(request.getOutputDir(), OBJECT_ID)).thenReturn(spec);
+
+    file = request.getOutputFilePath();
+    Files.write(file.toPath(), Arrays.copyOfRange(data, 10_000, 30_000));
+  }
+
+  @Test
+  public void test_unchanged_file_is_not_verified_on_resume() throws Exception {
+    // garbled, but recorded as it is now, so its parts are trusted without being read
+    garble(15_000);
+    when(stateStore.loadFingerprint(request.getOutputDir(), OBJECT_ID))
+        .thenReturn(FileFingerprint.of(file));
+
+    downloadService.download(request, false);
+
+    verify(stateStore, never()).deletePart(any(), any(), any());
+    verify(transportBuilder).withChecksum(false);
+    assertThat(spec.getParts()).allMatch(Part::isCompleted);
+  }
+
+  @Test
+  public void test_changed_file_is_verified_and_corrupted_parts_downloaded_again()
+      throws Exception {
+    garble(15_000);
+    when(stateStore.loadFingerprint(request.getOutputDir(), OBJECT_ID))
+        .thenReturn(Optional.empty());
+
+    downloadService.download(request, false);
+
+    val parts = spec.getParts();
+    verify(stateStore).deletePart(request.getOutputDir(), OBJECT_ID, parts.get(1));
+    verify(stateStore, never()).deletePart(request.getOutputDir(), OBJECT_ID, parts.get(0));
+    verify(transportBuilder).withChecksum(false);
+    assertThat(parts.get(0).isCompleted()).isTrue();
+    assertThat(parts.get(1).isCompleted()).isFalse();
+  }
+
+  @Test
+  public void test_file_of_another_size_is_left_to_transport_to_verify() throws Exception {
+    Files.write(file.toPath(), Arrays.copyOfRange(data, 10_000, 25_000));
+    when(stateStore.loadFingerprint(request.getOutputDir(), OBJECT_ID))
+        .thenReturn(Optional.empty());
+
+    downloadService.download(request, false);
+
+    verify(stateStore, never()).deletePart(any(), any(), any());
+    verify(transportBuilder).withChecksum(true);
+  }
+
+  @Test
+  public void test_fingerprint_is_committed_after_transfer() throws Exception {
+    when(stateStore.loadFingerprint(request.getOutputDir(), OBJECT_ID))
+        .thenReturn(FileFingerprint.of(file));
+
+    downloadService.download(request, false);
+
+    val order = inOrder(stateStore, transport);
+    order.verify(stateStore).clearFingerprint(request.getOutputDir(), OBJECT_ID);
+    order.verify(transport).receive(request.getOutputDir());
+    order
+        .verify(stateStore)
+        .commitFingerprint(request.getOutputDir(), OBJECT_ID, FileFingerprint.of(file).get());
+  }
+
+  /** Flips a byte of the file, at {@code position} in it. */
+  private void garble(int position) throws Exception {
+    val contents = Files.readAllBytes(file.toPath());
+    contents[position] ^= 1;
+    Files.write(file.toPath(), contents);
+  }
+
+  private Part part(int number, int offset, int size) {
+    return Part.builder()
+        .partNumber(number)
+        .offset(offset)
+        .partSize(size)
+        .md5("completed")
+        .sourceMd5(Hashing.md5().hashBytes(data, offset, size).toString())
+        .build();
+  }
+}
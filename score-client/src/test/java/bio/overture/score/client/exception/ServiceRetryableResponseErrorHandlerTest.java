@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.client.exception;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import lombok.val;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+
+public class ServiceRetryableResponseErrorHandlerTest {
+
+  private final ServiceRetryableResponseErrorHandler handler =
+      new ServiceRetryableResponseErrorHandler();
+
+  @Test
+  public void test_conflict_is_not_resumable() {
+    val response = new MockClientHttpResponse("MD5 mismatch".getBytes(), HttpStatus.CONFLICT);
+
+    val throwable = catchThrowable(() -> handler.handleError(response));
+
+    assertThat(throwable).isExactlyInstanceOf(NotResumableException.class);
+    assertThat(throwable.getCause()).hasMessageContaining("MD5 mismatch");
+  }
+
+  @Test
+  public void test_bad_request_is_not_retryable() {
+    val response = new MockClientHttpResponse(new byte[0], HttpStatus.BAD_REQUEST);
+
+    assertThat(catchThrowable(() -> handler.handleError(response)))
+        .isExactlyInstanceOf(NotRetryableException.class);
+  }
+}
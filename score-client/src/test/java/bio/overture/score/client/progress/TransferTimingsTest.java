@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.client.progress;
+
+import static bio.overture.score.core.util.ServerTimings.CORRELATION_ID_HEADER;
+import static bio.overture.score.core.util.ServerTimings.SERVER_TIMING_HEADER;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import lombok.val;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+public class TransferTimingsTest {
+
+  TransferTimings timings;
+  RestTemplate template;
+  MockRestServiceServer server;
+
+  @Before
+  public void setUp() {
+    timings = new TransferTimings();
+    template = new RestTemplate();
+    template.getInterceptors().add(new ServerTimingInterceptor(timings));
+    server = MockRestServiceServer.bindTo(template).build();
+  }
+
+  @Test
+  public void test_correlation_id_is_stable_per_transfer() {
+    val first = timings.getCorrelationId("object-1");
+
+    assertThat(timings.getCorrelationId("object-1")).isEqualTo(first);
+    assertThat(timings.getCorrelationId("object-2")).isNotEqualTo(first);
+
+    timings.finish("object-1");
+    assertThat(timings.getCorrelationId("object-1")).isNotEqualTo(first);
+  }
+
+  @Test
+  public void test_server_timings_are_summed_per_transfer() {
+    val correlationId = timings.getCorrelationId("object-1");
+    respond(correlationId, "auth;dur=2.0, metadata;dur=30.0, total;dur=40.0");
+    respond(correlationId, "auth;dur=1.0, sign;dur=0.5, total;dur=5.0");
+    server
+        .expect(requestTo("http://score/download/object-1"))
+        .andRespond(withSuccess("{}", MediaType.APPLICATION_JSON));
+
+    get(correlationId);
+    get(correlationId);
+    get(null);
+
+    server.verify();
+    val transfer = timings.finish("object-1").get();
+    assertThat(transfer.getRequests()).isEqualTo(2);
+    assertThat(transfer.getDurations())
+        .containsEntry("auth", 3.0)
+        .containsEntry("metadata", 30.0)
+        .containsEntry("sign", 0.5)
+        .containsEntry("total", 45.0);
+    assertThat(transfer.toString())
+        .isEqualTo(
+            "auth 3ms, metadata 30ms, total 45ms, sign 1ms, 2 requests (correlation id "
+                + correlationId
+                + ")");
+    assertThat(timings.finish("object-1")).isEmpty();
+  }
+
+  private void respond(String correlationId, String serverTiming) {
+    val headers = new HttpHeaders();
+    headers.add(SERVER_TIMING_HEADER, serverTiming);
+    server
+        .expect(requestTo("http://score/download/object-1"))
+        .andExpect(header(CORRELATION_ID_HEADER, correlationId))
+        .andRespond(withSuccess("{}", MediaType.APPLICATION_JSON).headers(headers));
+  }
+
+  private void get(String correlationId) {
+    val headers = new HttpHeaders();
+    if (correlationId != null) {
+      headers.add(CORRELATION_ID_HEADER, correlationId);
+    }
+    template.exchange(
+        "http://score/download/object-1", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+  }
+}
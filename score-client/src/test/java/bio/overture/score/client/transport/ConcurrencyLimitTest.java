@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.client.transport;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CompletableFuture;
+import lombok.val;
+import org.junit.Test;
+
+public class ConcurrencyLimitTest {
+
+  private static final long PART = 1024 * 1024;
+
+  @Test
+  public void test_fixed_limit_blocks_until_released() throws Exception {
+    val limit = ConcurrencyLimit.fixed(2);
+    limit.acquire();
+    limit.acquire();
+
+    val waiting =
+        CompletableFuture.runAsync(
+            () -> {
+              try {
+                limit.acquire();
+              } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+              }
+            });
+    Thread.sleep(100);
+    assertThat(waiting).isNotDone();
+
+    limit.succeeded(PART, MILLISECONDS.toNanos(10));
+    waiting.get(5, SECONDS);
+    assertThat(limit.isAdaptive()).isFalse();
+    assertThat(limit.getDecisions()).isEmpty();
+  }
+
+  @Test
+  public void test_increases_by_one_per_window_up_to_max() throws Exception {
+    val limit = new ConcurrencyLimit(2, 1, 4, null);
+    for (int i = 0; i < 20; i++) {
+      transfer(limit, MILLISECONDS.toNanos(10));
+    }
+
+    assertThat(limit.getLimit()).isEqualTo(4);
+    assertThat(limit.getDecisions()).extracting("reason").containsExactly("increase", "increase");
+  }
+
+  @Test
+  public void test_halves_on_failure_and_on_slow_parts() throws Exception {
+    val readTimeout = new AdaptiveReadTimeout(60_000);
+    val limit = new ConcurrencyLimit(8, 1, 16, readTimeout);
+    limit.acquire();
+    limit.failed();
+    assertThat(limit.getLimit()).isEqualTo(4);
+
+    // a window at full speed, then one where each part takes three times as long
+    for (int i = 0; i < 4; i++) {
+      transfer(limit, MILLISECONDS.toNanos(10));
+    }
+    assertThat(limit.getLimit()).isEqualTo(5);
+    for (int i = 0; i < 5; i++) {
+      transfer(limit, MILLISECONDS.toNanos(30));
+    }
+
+    assertThat(limit.getLimit()).isEqualTo(2);
+    assertThat(limit.getDecisions())
+        .extracting("reason")
+        .containsExactly("error", "increase", "latency");
+    assertThat(readTimeout.getMillis()).isEqualTo(10_000);
+  }
+
+  private static void transfer(ConcurrencyLimit limit, long nanos) throws InterruptedException {
+    limit.acquire();
+    limit.succeeded(PART, nanos);
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.client.transport;
+
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import com.google.common.hash.Hashing;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.val;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DownloadPipelineTest {
+
+  @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test
+  public void test_retry_is_not_overwritten_by_abandoned_attempt() throws Exception {
+    val data = new byte[8_000];
+    new Random(5).nextBytes(data);
+    val path = tmp.newFile().toPath();
+    val buffers = new DirectBufferPool(1024);
+    val stale = new byte[1024];
+    Arrays.fill(stale, (byte) 0xff);
+
+    try (val file = FileChannel.open(path, READ, WRITE)) {
+      // the first write, of the attempt that fails, lags behind the writes of its retry
+      val writes = new AtomicInteger();
+      val channel =
+          delegate(
+              file,
+              (buffer, position) -> {
+                if (writes.getAndIncrement() == 0) {
+                  Thread.sleep(500);
+                }
+                return file.write(buffer, position);
+              });
+
+      try (val pipeline = new DownloadPipeline(channel, buffers, 1, 1, 2)) {
+        assertThatThrownBy(() -> pipeline.receive(failingAfter(stale), 0, data.length))
+            .isInstanceOf(IOException.class)
+            .hasMessage("Connection reset");
+
+        val md5 = pipeline.receive(new ByteArrayInputStream(data), 0, data.length);
+        assertThat(md5).isEqualTo(Hashing.md5().hashBytes(data).toString());
+      }
+    }
+
+    assertThat(Files.readAllBytes(path)).isEqualTo(data);
+  }
+
+  @Test
+  public void test_failed_write_fails_attempt_and_retry_succeeds() throws Exception {
+    val data = new byte[8_000];
+    new Random(9).nextBytes(data);
+    val path = tmp.newFile().toPath();
+    val buffers = new DirectBufferPool(1024);
+
+    try (val file = FileChannel.open(path, READ, WRITE)) {
+      val writes = new AtomicInteger();
+      val channel =
+          delegate(
+              file,
+              (buffer, position) -> {
+                if (writes.getAndIncrement() == 2) {
+                  throw new IOException("No space left on device");
+                }
+                return file.write(buffer, position);
+              });
+
+      try (val pipeline = new DownloadPipeline(channel, buffers, 1, 1, 1)) {
+        assertThatThrownBy(() -> pipeline.receive(new ByteArrayInputStream(data), 0, data.length))
+            .isInstanceOf(IOException.class)
+            .hasRootCauseMessage("No space left on device");
+
+        val md5 = pipeline.receive(new ByteArrayInputStream(data), 0, data.length);
+        assertThat(md5).isEqualTo(Hashing.md5().hashBytes(data).toString());
+      }
+    }
+
+    assertThat(Files.readAllBytes(path)).isEqualTo(data);
+  }
+
+  /** Yields {@code data}, then fails as a dropped connection would. */
+  private static InputStream failingAfter(byte[] data) {
+    return new SequenceInputStream(
+        new ByteArrayInputStream(data),
+        new InputStream() {
+
+          @Override
+          public int read() throws IOException {
+            throw new IOException("Connection reset");
+          }
+        });
+  }
+
+  /** A channel whose positional writes go through {@code write}, the only call the stages make. */
+  private static FileChannel delegate(FileChannel file, PositionalWrite write) throws IOException {
+    val channel = mock(FileChannel.class);
+    doAnswer(
+            invocation ->
+                write.write(invocation.<ByteBuffer>getArgument(0), invocation.getArgument(1)))
+        .when(channel)
+        .write(any(ByteBuffer.class), anyLong());
+
+    return channel;
+  }
+
+  private interface PositionalWrite {
+
+    int write(ByteBuffer buffer, long position) throws Exception;
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.client.transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.hash.Hashing;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import lombok.val;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class IncrementalChecksumTest {
+
+  @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test
+  public void test_parts_reported_out_of_order_hash_to_object_md5() throws Exception {
+    val data = new byte[40_000];
+    new Random(17).nextBytes(data);
+    val file = tmp.newFile();
+    Files.write(file.toPath(), data);
+
+    try (val checksum =
+        new IncrementalChecksum(file, data.length, new ResumableMd5(), checkpoint -> {})) {
+      checksum.completed(10_000, 10_000);
+      checksum.completed(0, 10_000);
+      checksum.completed(30_000, 10_000);
+      checksum.completed(20_000, 10_000);
+
+      assertThat(checksum.finish()).isEqualTo(Hashing.md5().hashBytes(data).toString());
+    }
+  }
+
+  @Test
+  public void test_unreported_parts_are_hashed_on_finish() throws Exception {
+    val data = new byte[25_000];
+    new Random(19).nextBytes(data);
+    val file = tmp.newFile();
+    Files.write(file.toPath(), data);
+
+    // as for an upload resumed past parts that were sent earlier
+    try (val checksum =
+        new IncrementalChecksum(file, data.length, new ResumableMd5(), checkpoint -> {})) {
+      checksum.completed(20_000, 5_000);
+
+      assertThat(checksum.finish()).isEqualTo(Hashing.md5().hashBytes(data).toString());
+    }
+  }
+
+  @Test
+  public void test_hashing_resumes_from_checkpoint() throws Exception {
+    val data = new byte[30_000];
+    new Random(23).nextBytes(data);
+    val file = tmp.newFile();
+    Files.write(file.toPath(), data);
+
+    val earlier = new ResumableMd5();
+    earlier.update(data, 0, 20_000);
+    val md5 = ResumableMd5.restore(earlier.checkpoint());
+
+    // the first two parts are not read again, so garbling them on disk goes unnoticed
+    Files.write(file.toPath(), new byte[20_000]);
+    try (val out = Files.newOutputStream(file.toPath(), StandardOpenOption.APPEND)) {
+      out.write(data, 20_000, 10_000);
+    }
+
+    try (val checksum = new IncrementalChecksum(file, data.length, md5, checkpoint -> {})) {
+      checksum.completed(20_000, 10_000);
+
+      assertThat(checksum.finish()).isEqualTo(Hashing.md5().hashBytes(data).toString());
+    }
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.client.transport;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CompletableFuture;
+import lombok.val;
+import org.junit.Test;
+
+public class MemoryBudgetTest {
+
+  @Test
+  public void test_acquire_blocks_until_released() throws Exception {
+    val budget = new MemoryBudget(100);
+    budget.acquire(60);
+    assertThat(budget.tryAcquire(60)).isFalse();
+
+    val waiting =
+        CompletableFuture.runAsync(
+            () -> {
+              try {
+                budget.acquire(60);
+              } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+              }
+            });
+    Thread.sleep(100);
+    assertThat(waiting).isNotDone();
+
+    budget.release(60);
+    waiting.get(5, SECONDS);
+    assertThat(budget.getAvailable()).isEqualTo(40);
+  }
+
+  @Test
+  public void test_oversized_request_is_admitted_alone() throws Exception {
+    val budget = new MemoryBudget(100);
+    assertThat(budget.tryAcquire(250)).isTrue();
+    assertThat(budget.tryAcquire(1)).isFalse();
+
+    budget.release(250);
+    assertThat(budget.getAvailable()).isEqualTo(budget.getCapacity());
+  }
+}
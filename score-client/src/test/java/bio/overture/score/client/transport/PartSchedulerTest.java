@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.client.transport;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import lombok.val;
+import org.junit.Test;
+
+public class PartSchedulerTest {
+
+  @Test
+  public void test_parts_run_by_rank_then_submission_order() throws Exception {
+    val order = new CopyOnWriteArrayList<String>();
+    val blocked = new CountDownLatch(1);
+
+    try (val scheduler = new PartScheduler(1, 1024)) {
+      // occupies the only worker while the rest are queued
+      scheduler.submit(0, () -> blocked.await(5, SECONDS));
+      val results =
+          List.of(
+              scheduler.submit(30, () -> order.add("large-1")),
+              scheduler.submit(2, () -> order.add("small")),
+              scheduler.submit(30, () -> order.add("large-2")),
+              scheduler.submit(0, () -> order.add("index")));
+      blocked.countDown();
+
+      for (val result : results) {
+        result.get(5, SECONDS);
+      }
+    }
+
+    assertThat(order).containsExactly("index", "small", "large-1", "large-2");
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.client.transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import bio.overture.score.core.model.Part;
+import com.google.common.hash.Hashing;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import lombok.val;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PartVerifierTest {
+
+  @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test
+  public void test_only_parts_that_differ_from_their_source_are_corrupted() throws Exception {
+    val data = new byte[30_000];
+    new Random(29).nextBytes(data);
+    val parts =
+        Arrays.asList(
+            part(1, data, 0, 10_000), part(2, data, 10_000, 10_000), part(3, data, 20_000, 10_000));
+
+    // the second part is garbled on disk after it was downloaded
+    val file = tmp.newFile();
+    val garbled = data.clone();
+    garbled[15_000] ^= 1;
+    Files.write(file.toPath(), garbled);
+
+    assertThat(new PartVerifier(2).findCorrupted(file, parts, positions(parts)))
+        .containsExactly(parts.get(1));
+  }
+
+  @Test
+  public void test_parts_of_offset_download_are_read_at_their_position_in_file() throws Exception {
+    val data = new byte[30_000];
+    new Random(37).nextBytes(data);
+    val parts = Arrays.asList(part(2, data, 10_000, 10_000), part(3, data, 20_000, 10_000));
+
+    // the file holds the object from the offset of its first part on
+    val file = tmp.newFile();
+    Files.write(file.toPath(), Arrays.copyOfRange(data, 10_000, 30_000));
+
+    assertThat(new PartVerifier(2).findCorrupted(file, parts, positions(parts))).isEmpty();
+  }
+
+  @Test
+  public void test_parts_without_a_source_md5_are_corrupted() throws Exception {
+    val data = new byte[10_000];
+    new Random(31).nextBytes(data);
+    val file = tmp.newFile();
+    Files.write(file.toPath(), data);
+    val part = part(1, data, 0, 10_000);
+    part.setSourceMd5(null);
+
+    val parts = Arrays.asList(part);
+
+    assertThat(new PartVerifier(0).findCorrupted(file, parts, positions(parts)))
+        .containsExactly(part);
+  }
+
+  private static Map<Integer, Long> positions(List<Part> parts) {
+    val positions = new HashMap<Integer, Long>();
+    long position = 0;
+    for (val part : parts) {
+      positions.put(part.getPartNumber(), position);
+      position += part.getPartSize();
+    }
+    return positions;
+  }
+
+  private static Part part(int number, byte[] data, int offset, int size) {
+    return Part.builder()
+        .partNumber(number)
+        .offset(offset)
+        .partSize(size)
+        .sourceMd5(Hashing.md5().hashBytes(data, offset, size).toString())
+        .build();
+  }
+}
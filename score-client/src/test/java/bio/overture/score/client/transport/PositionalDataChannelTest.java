@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.client.transport;
+
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.google.common.hash.Hashing;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import lombok.val;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PositionalDataChannelTest {
+
+  @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test
+  public void test_parts_are_written_at_their_offsets() throws Exception {
+    val data = new byte[10_000];
+    new Random(42).nextBytes(data);
+    val path = tmp.newFile().toPath();
+    val buffers = new DirectBufferPool(1024);
+
+    try (val file = FileChannel.open(path, READ, WRITE)) {
+      // written out of order, as parallel workers would
+      val second = new PositionalDataChannel(file, buffers, 6_000, 4_000);
+      second.readFrom(new ByteArrayInputStream(data, 6_000, 4_000));
+      val first = new PositionalDataChannel(file, buffers, 0, 6_000);
+      first.readFrom(new ByteArrayInputStream(data, 0, 6_000));
+
+      val body = new ByteArrayOutputStream();
+      second.writeTo(body);
+      assertThat(body.toByteArray()).isEqualTo(Arrays.copyOfRange(data, 6_000, 10_000));
+      assertThat(second.getMd5()).isEqualTo(Hashing.md5().hashBytes(data, 6_000, 4_000).toString());
+    }
+
+    assertThat(Files.readAllBytes(path)).isEqualTo(data);
+    assertThat(buffers.getAllocated()).isEqualTo(1);
+  }
+
+  @Test
+  public void test_truncated_stream_fails_md5() throws Exception {
+    val data = new byte[4_000];
+    new Random(7).nextBytes(data);
+    val path = tmp.newFile().toPath();
+    val buffers = new DirectBufferPool(1024);
+    // preallocated, as the transport does, so the missing tail reads back as zeros
+    Files.write(path, new byte[data.length]);
+
+    try (val file = FileChannel.open(path, READ, WRITE)) {
+      val channel = new PositionalDataChannel(file, buffers, 0, data.length);
+      channel.readFrom(new ByteArrayInputStream(Arrays.copyOf(data, 2_500)));
+
+      assertThat(channel.verifyMd5(Hashing.md5().hashBytes(data).toString())).isFalse();
+    }
+  }
+
+  @Test
+  public void test_pipelined_parts_are_hashed_and_written() throws Exception {
+    val data = new byte[64_000];
+    new Random(3).nextBytes(data);
+    val path = tmp.newFile().toPath();
+    val buffers = new DirectBufferPool(1024);
+    val workers = Executors.newFixedThreadPool(4);
+
+    try (val file = FileChannel.open(path, READ, WRITE);
+        val pipeline = new DownloadPipeline(file, buffers, 4, 2, 2)) {
+      val md5s = new ArrayList<Future<String>>();
+      for (int offset = 0; offset < data.length; offset += 8_000) {
+        val channel = new PositionalDataChannel(file, buffers, pipeline, offset, 8_000);
+        val body = new ByteArrayInputStream(data, offset, 8_000);
+        md5s.add(workers.submit(() -> channel.readAndHash(body)));
+      }
+
+      for (int i = 0; i < md5s.size(); i++) {
+        assertThat(md5s.get(i).get())
+            .isEqualTo(Hashing.md5().hashBytes(data, i * 8_000, 8_000).toString());
+      }
+    } finally {
+      workers.shutdownNow();
+    }
+
+    assertThat(Files.readAllBytes(path)).isEqualTo(data);
+  }
+
+  @Test
+  public void test_pipelined_write_failure_fails_part() throws Exception {
+    val path = tmp.newFile().toPath();
+    val buffers = new DirectBufferPool(1024);
+
+    try (val file = FileChannel.open(path, READ);
+        val pipeline = new DownloadPipeline(file, buffers, 1, 1, 1)) {
+      val channel = new PositionalDataChannel(file, buffers, pipeline, 0, 4_000);
+
+      assertThatThrownBy(() -> channel.readAndHash(new ByteArrayInputStream(new byte[4_000])))
+          .isInstanceOf(IOException.class);
+    }
+  }
+}
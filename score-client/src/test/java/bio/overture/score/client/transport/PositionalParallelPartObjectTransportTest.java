@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.client.transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import bio.overture.score.client.cli.Terminal;
+import bio.overture.score.client.download.Downloads;
+import bio.overture.score.client.progress.Progress;
+import bio.overture.score.client.storage.StorageService;
+import bio.overture.score.core.model.DataChannel;
+import bio.overture.score.core.model.Part;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import lombok.val;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PositionalParallelPartObjectTransportTest {
+
+  private static final String OBJECT_ID = "object";
+
+  @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test
+  public void test_offset_download_starts_at_beginning_of_file() throws Exception {
+    assertOffsetDownload(PositionalParallelPartObjectTransport.builder());
+  }
+
+  @Test
+  public void test_pipelined_offset_download_starts_at_beginning_of_file() throws Exception {
+    assertOffsetDownload(PositionalParallelPartObjectTransport.builder().withPipeline(2, 2));
+  }
+
+  private void assertOffsetDownload(
+      PositionalParallelPartObjectTransport.PositionalParallelBuilder builder) throws Exception {
+    val object = new byte[100_000];
+    new Random(11).nextBytes(object);
+    long offset = 12_345;
+
+    // parts of a range request carry offsets into the object, not into the downloaded file
+    val parts = new ArrayList<Part>();
+    for (int number = 1; offset < object.length; number++) {
+      val size = Math.min(20_000, object.length - offset);
+      parts.add(Part.builder().partNumber(number).offset(offset).partSize(size).build());
+      offset += size;
+    }
+
+    val storage = mock(StorageService.class);
+    doAnswer(
+            invocation -> {
+              DataChannel channel = invocation.getArgument(0);
+              Part part = invocation.getArgument(1);
+              channel.readAndHash(
+                  new ByteArrayInputStream(
+                      object, (int) part.getOffset(), (int) part.getPartSize()));
+              return null;
+            })
+        .when(storage)
+        .downloadPart(any(), any(), anyString(), any());
+
+    val outputDir = tmp.newFolder();
+    builder
+        .withNumberOfWorkerThreads(4)
+        .withProxy(storage)
+        .withProgressBar(new Progress(new Terminal(false, true), true, parts.size(), 0))
+        .withParts(parts)
+        .withObjectId(OBJECT_ID)
+        .withSessionId(OBJECT_ID)
+        .withTransportMode(Transport.Mode.DOWNLOAD)
+        .withChecksum(false)
+        .build()
+        .receive(outputDir);
+
+    File file = Downloads.getDownloadFile(outputDir, OBJECT_ID);
+    assertThat(Files.readAllBytes(file.toPath()))
+        .isEqualTo(Arrays.copyOfRange(object, 12_345, object.length));
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.client.transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.hash.Hashing;
+import java.util.Random;
+import lombok.val;
+import org.junit.Test;
+
+public class ResumableMd5Test {
+
+  @Test
+  public void test_digest_matches_md5_across_block_boundaries() {
+    val data = new byte[1_000];
+    new Random(11).nextBytes(data);
+
+    for (val length : new int[] {0, 1, 55, 56, 63, 64, 65, 119, 120, 1_000}) {
+      val md5 = new ResumableMd5();
+      // uneven updates, so that blocks are assembled from several of them
+      for (int offset = 0; offset < length; offset += 37) {
+        md5.update(data, offset, Math.min(37, length - offset));
+      }
+
+      assertThat(md5.hexDigest())
+          .as("length %s", length)
+          .isEqualTo(Hashing.md5().hashBytes(data, 0, length).toString());
+    }
+  }
+
+  @Test
+  public void test_restored_checkpoint_continues_digest() {
+    val data = new byte[10_000];
+    new Random(5).nextBytes(data);
+
+    val md5 = new ResumableMd5();
+    md5.update(data, 0, 4_099);
+    val restored = ResumableMd5.restore(md5.checkpoint());
+    restored.update(data, 4_099, data.length - 4_099);
+
+    assertThat(restored.getCount()).isEqualTo(data.length);
+    assertThat(restored.hexDigest()).isEqualTo(Hashing.md5().hashBytes(data).toString());
+    // taking the digest leaves the state untouched
+    assertThat(restored.hexDigest()).isEqualTo(Hashing.md5().hashBytes(data).toString());
+  }
+}
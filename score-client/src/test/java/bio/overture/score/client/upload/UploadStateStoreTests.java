@@ -2,14 +2,21 @@ package bio.overture.score.client.upload;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import bio.overture.score.client.state.FileFingerprint;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.util.Optional;
 import lombok.val;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 public class UploadStateStoreTests {
 
+  @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
   String getTestResourceRoot() {
     return getClass().getClassLoader().getResource("fixtures/upload/").getPath();
   }
@@ -35,4 +42,25 @@ public class UploadStateStoreTests {
     val resultFile = UploadStateStore.getContainingDir(testFile);
     assertThat(resultFile).isNotNull();
   }
+
+  @Test
+  public void test_fetch_fingerprint_matches_until_the_file_changes() throws IOException {
+    val dir = tmp.getRoot().getPath();
+    val file = tmp.newFile("file.bam");
+    Files.write(file.toPath(), new byte[] {1, 2, 3});
+    tmp.newFolder(".object-id");
+    UploadStateStore.saveFingerprint(dir, "object-id", FileFingerprint.of(file).get());
+
+    assertThat(UploadStateStore.fetchFingerprint(dir, "object-id"))
+        .isEqualTo(FileFingerprint.of(file));
+
+    Files.write(file.toPath(), new byte[] {4}, StandardOpenOption.APPEND);
+    assertThat(UploadStateStore.fetchFingerprint(dir, "object-id"))
+        .isNotEqualTo(FileFingerprint.of(file));
+  }
+
+  @Test
+  public void test_fetch_fingerprint_without_one_saved() throws IOException {
+    assertThat(UploadStateStore.fetchFingerprint(tmp.getRoot().getPath(), "object-id")).isEmpty();
+  }
 }
@@ -17,6 +17,8 @@
  */
 package bio.overture.score.core.model;
 
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -30,6 +32,17 @@ public interface DataChannel {
 
   void readFrom(InputStream is) throws IOException;
 
+  /**
+   * Reads the channel from {@code is} and returns the MD5 of the bytes read. Channels able to hash
+   * off the reading thread override this.
+   */
+  default String readAndHash(InputStream is) throws IOException {
+    try (HashingInputStream his = new HashingInputStream(Hashing.md5(), is)) {
+      readFrom(his);
+      return his.hash().toString();
+    }
+  }
+
   void reset() throws IOException;
 
   long getLength();
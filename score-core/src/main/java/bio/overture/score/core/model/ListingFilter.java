@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.core.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import java.util.Set;
+import java.util.function.Predicate;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Server side restriction of a repository listing. Every criterion is optional; an empty filter
+ * matches all objects.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ListingFilter implements Predicate<ObjectInfo> {
+
+  /** Only objects with one of these ids. */
+  private Set<String> objectIds;
+
+  /** Only objects modified at or after this epoch millisecond. */
+  private Long modifiedSince;
+
+  /** Only objects of at least this many bytes. */
+  private Long minSize;
+
+  /** Only objects of at most this many bytes. */
+  private Long maxSize;
+
+  @JsonIgnore
+  public boolean isEmpty() {
+    return objectIds == null && modifiedSince == null && minSize == null && maxSize == null;
+  }
+
+  @Override
+  public boolean test(ObjectInfo info) {
+    if (objectIds != null && !objectIds.contains(info.getId())) {
+      return false;
+    }
+    if (modifiedSince != null && info.getLastModified() < modifiedSince) {
+      return false;
+    }
+    if (minSize != null && info.getSize() < minSize) {
+      return false;
+    }
+    if (maxSize != null && info.getSize() > maxSize) {
+      return false;
+    }
+
+    return true;
+  }
+}
@@ -38,6 +38,11 @@ public class ForwardingDataChannel implements DataChannel {
     delegate.readFrom(is);
   }
 
+  @Override
+  public String readAndHash(InputStream is) throws IOException {
+    return delegate.readAndHash(is);
+  }
+
   @Override
   public void reset() throws IOException {
     delegate.reset();
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.core.util;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import java.util.Locale;
+import java.util.Map;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+import lombok.val;
+
+/**
+ * Request correlation and <a href="https://www.w3.org/TR/server-timing/">Server-Timing</a> header
+ * utilities shared by client and server.
+ */
+@NoArgsConstructor(access = PRIVATE)
+public final class ServerTimings {
+
+  /** Identifies every request made on behalf of one transfer. Echoed back by the server. */
+  public static final String CORRELATION_ID_HEADER = "X-Correlation-Id";
+
+  public static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+  /**
+   * @return header value listing each metric with its duration in milliseconds, in map order
+   */
+  public static String format(@NonNull Map<String, Double> durations) {
+    val header = new StringBuilder();
+    for (val entry : durations.entrySet()) {
+      if (header.length() > 0) {
+        header.append(", ");
+      }
+      header
+          .append(entry.getKey())
+          .append(";dur=")
+          .append(String.format(Locale.ROOT, "%.1f", entry.getValue()));
+    }
+    return header.toString();
+  }
+
+  /**
+   * Adds the duration of each metric of {@code header} to {@code durations}. Metrics without a
+   * duration and malformed durations are ignored.
+   */
+  public static void parse(String header, @NonNull Map<String, Double> durations) {
+    if (header == null) {
+      return;
+    }
+
+    for (val metric : Splitters.COMMA.trimResults().omitEmptyStrings().split(header)) {
+      val params = Splitters.SEMICOLON.trimResults().splitToList(metric);
+      for (val param : params.subList(1, params.size())) {
+        if (param.regionMatches(true, 0, "dur=", 0, 4)) {
+          try {
+            durations.merge(params.get(0), Double.parseDouble(param.substring(4)), Double::sum);
+          } catch (NumberFormatException e) {
+            // Skip malformed metric
+          }
+          break;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.core.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.val;
+import org.junit.Test;
+
+public class ServerTimingsTest {
+
+  @Test
+  public void test_format() {
+    Map<String, Double> durations = new LinkedHashMap<>();
+    durations.put("auth", 12.34);
+    durations.put("total", 100.0);
+
+    assertThat(ServerTimings.format(durations)).isEqualTo("auth;dur=12.3, total;dur=100.0");
+  }
+
+  @Test
+  public void test_parse_accumulates() {
+    Map<String, Double> durations = new LinkedHashMap<>();
+    ServerTimings.parse("auth;dur=12.5, metadata;desc=\"SONG\";dur=40", durations);
+    ServerTimings.parse("auth;dur=2.5,cache, sign;dur=oops", durations);
+
+    assertThat(durations).containsOnlyKeys("auth", "metadata");
+    assertThat(durations.get("auth")).isEqualTo(15.0);
+    assertThat(durations.get("metadata")).isEqualTo(40.0);
+  }
+
+  @Test
+  public void test_round_trip() {
+    Map<String, Double> durations = new LinkedHashMap<>();
+    durations.put("store", 5.0);
+    durations.put("sign", 0.5);
+
+    val parsed = new LinkedHashMap<String, Double>();
+    ServerTimings.parse(ServerTimings.format(durations), parsed);
+
+    assertThat(parsed).isEqualTo(durations);
+  }
+
+  @Test
+  public void test_parse_null() {
+    Map<String, Double> durations = new LinkedHashMap<>();
+    ServerTimings.parse(null, durations);
+
+    assertThat(durations).isEmpty();
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.server.benchmarks;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static org.openjdk.jmh.annotations.Mode.AverageTime;
+import static org.openjdk.jmh.annotations.Mode.Throughput;
+
+import bio.overture.score.core.model.ObjectSpecification;
+import bio.overture.score.core.model.Part;
+import bio.overture.score.core.util.SimplePartCalculator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.ArrayList;
+import lombok.val;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Jackson round trip of a 10,000 part {@link ObjectSpecification}, as done for the upload state,
+ * the .meta object and every upload/download specification response.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Throughput, AverageTime})
+@OutputTimeUnit(MICROSECONDS)
+@Fork(
+    value = 2,
+    jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ObjectSpecificationBenchmark {
+
+  /** Constants. */
+  private static final int MIN_PART_SIZE = 20 * 1024 * 1024;
+
+  private static final long PART_COUNT = 10_000;
+
+  /** Same configuration as the mappers of the S3 services and state store. */
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  private ObjectSpecification specification;
+  private byte[] json;
+
+  @Setup
+  public void setUp() throws IOException {
+    val objectId = "a82efa12-9aac-558b-9f5e-a7c1de2e1ae1";
+    val parts = new ArrayList<Part>();
+    for (val part : new SimplePartCalculator(MIN_PART_SIZE).divide(PART_COUNT * MIN_PART_SIZE)) {
+      // Presigned URLs and MD5s as after finalizing an upload and preparing its download
+      part.setUrl(
+          "http://localhost:9000/oicr.icgc.test/data/"
+              + objectId
+              + "?partNumber="
+              + part.getPartNumber()
+              + "&uploadId=2~3jrnNcS5nf0F6NvzUSn8E4lpyI6gxvA&AWSAccessKeyId=minio"
+              + "&Expires=1760918400&Signature=u7mRO2Jt0T%2FpVx8cQm9b1P3cRrE%3D");
+      part.setMd5("9e107d9d372bb6826bd81d3542a419d6");
+      part.setSourceMd5("9e107d9d372bb6826bd81d3542a419d6");
+      parts.add(part);
+    }
+
+    specification =
+        ObjectSpecification.builder()
+            .objectKey("data/" + objectId)
+            .objectId(objectId)
+            .uploadId("2~3jrnNcS5nf0F6NvzUSn8E4lpyI6gxvA")
+            .parts(parts)
+            .objectSize(PART_COUNT * MIN_PART_SIZE)
+            .objectMd5("e4d909c290d0fb1ca068ffaddf22cbd0")
+            .build();
+    json = mapper.writeValueAsBytes(specification);
+  }
+
+  @Benchmark
+  public byte[] serialize() throws IOException {
+    return mapper.writeValueAsBytes(specification);
+  }
+
+  @Benchmark
+  public ObjectSpecification deserialize() throws IOException {
+    return mapper.readValue(json, ObjectSpecification.class);
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.server.benchmarks;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static org.openjdk.jmh.annotations.Mode.AverageTime;
+import static org.openjdk.jmh.annotations.Mode.Throughput;
+
+import bio.overture.score.server.metadata.MetadataEntity;
+import bio.overture.score.server.metadata.MetadataService;
+import bio.overture.score.server.security.ScopedJwtAuthenticationToken;
+import bio.overture.score.server.security.scope.DownloadScopeAuthorizationStrategy;
+import bio.overture.score.server.security.scope.UploadScopeAuthorizationStrategy;
+import bio.overture.score.server.util.Scopes;
+import com.nimbusds.jose.shaded.json.JSONArray;
+import com.nimbusds.jose.shaded.json.JSONObject;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import lombok.NonNull;
+import lombok.val;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+/**
+ * Scope matching of the upload and download authorization strategies, with the metadata server
+ * replaced by an in-process stand-in. The study scope granted is the last of the token's scopes.
+ *
+ * <p>{@code scoped} tokens carry the scopes parsed at authentication, as issued by
+ * ScopedJwtAuthenticationConverter; the others are parsed from the JWT claims on every check.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Throughput, AverageTime})
+@OutputTimeUnit(MICROSECONDS)
+@Fork(
+    value = 2,
+    jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ScopeAuthorizationBenchmark {
+
+  /** Constants. */
+  private static final String OBJECT_ID = "a82efa12-9aac-558b-9f5e-a7c1de2e1ae1";
+
+  private static final String STUDY_PREFIX = "score.";
+  private static final String UPLOAD_SUFFIX = ".upload";
+  private static final String DOWNLOAD_SUFFIX = ".download";
+  private static final String STUDY = "PRAD-US";
+
+  @Param({"10", "200"})
+  private int scopeCount;
+
+  @Param({"true", "false"})
+  private boolean scoped;
+
+  private UploadScopeAuthorizationStrategy upload;
+  private DownloadScopeAuthorizationStrategy download;
+  private Authentication studyToken;
+  private Authentication systemToken;
+
+  @Setup
+  public void setUp() {
+    val metadataService = new StandInMetadataService();
+    upload =
+        new UploadScopeAuthorizationStrategy(
+            STUDY_PREFIX, UPLOAD_SUFFIX, "score.WRITE", metadataService, "ego");
+    download =
+        new DownloadScopeAuthorizationStrategy(
+            STUDY_PREFIX, DOWNLOAD_SUFFIX, "score.READ", metadataService, "ego");
+
+    val scopes = new JSONArray();
+    for (int i = 0; i < scopeCount - 2; i++) {
+      scopes.add(STUDY_PREFIX + "STUDY-" + i + UPLOAD_SUFFIX);
+    }
+    scopes.add(STUDY_PREFIX + STUDY + DOWNLOAD_SUFFIX);
+    scopes.add(STUDY_PREFIX + STUDY + UPLOAD_SUFFIX);
+    studyToken = authentication(scopes);
+
+    val systemScopes = new JSONArray();
+    systemScopes.addAll(scopes.subList(0, scopeCount - 1));
+    systemScopes.add("SCORE.write");
+    systemToken = authentication(systemScopes);
+  }
+
+  @Benchmark
+  public boolean uploadSystemScope() {
+    return upload.authorize(systemToken, OBJECT_ID);
+  }
+
+  @Benchmark
+  public boolean uploadStudyScope() {
+    return upload.authorize(studyToken, OBJECT_ID);
+  }
+
+  @Benchmark
+  public boolean downloadStudyScope() {
+    return download.authorize(studyToken, OBJECT_ID);
+  }
+
+  private Authentication authentication(JSONArray scopes) {
+    val now = Instant.now();
+    val jwt =
+        Jwt.withTokenValue("token")
+            .header("alg", "RS256")
+            .issuedAt(now)
+            .expiresAt(now.plusSeconds(3600))
+            .claims(claims -> claims.put("context", new JSONObject(Map.of("scope", scopes))))
+            .build();
+
+    return scoped
+        ? new ScopedJwtAuthenticationToken(jwt, List.of(), Scopes.extractJwtScopes(jwt))
+        : new JwtAuthenticationToken(jwt);
+  }
+
+  /** Controlled-access entity of the study, answered without a metadata server. */
+  private static class StandInMetadataService extends MetadataService {
+
+    private final MetadataEntity entity =
+        MetadataEntity.builder()
+            .id(OBJECT_ID)
+            .gnosId("EGAZ00001254368")
+            .projectCode(STUDY)
+            .access("controlled")
+            .build();
+
+    @Override
+    public MetadataEntity getEntity(@NonNull String id) {
+      return entity;
+    }
+  }
+}
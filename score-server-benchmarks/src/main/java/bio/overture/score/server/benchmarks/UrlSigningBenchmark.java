@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.server.benchmarks;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static org.openjdk.jmh.annotations.Mode.AverageTime;
+import static org.openjdk.jmh.annotations.Mode.Throughput;
+
+import bio.overture.score.core.model.ObjectKey;
+import bio.overture.score.core.model.Part;
+import bio.overture.score.core.util.ObjectKeys;
+import bio.overture.score.server.repository.s3.S3URLGenerator;
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.Protocol;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.auth.SignerFactory;
+import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.S3ClientOptions;
+import com.amazonaws.services.s3.internal.S3Signer;
+import java.util.Date;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Presigning one part URL with {@link S3URLGenerator}, configured as in S3Config against a local
+ * endpoint. Signing is computed in-process; nothing is sent to the endpoint.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Throughput, AverageTime})
+@OutputTimeUnit(MICROSECONDS)
+@Fork(
+    value = 2,
+    jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class UrlSigningBenchmark {
+
+  /** Constants. */
+  private static final String ENDPOINT = "http://localhost:9000";
+
+  private static final String BUCKET = "oicr.icgc.test";
+  private static final String UPLOAD_ID = "2~3jrnNcS5nf0F6NvzUSn8E4lpyI6gxvA";
+
+  /** Signers selected by S3Config: V2 by default, V4 with encryption or s3.sigV4Enabled. */
+  @Param({"S3SignerType", "AWSS3V4SignerType"})
+  private String signer;
+
+  /** Whether s3.preSignedUrlHostOverride rewrites the signed URL. */
+  @Param({"false", "true"})
+  private boolean hostOverride;
+
+  private S3URLGenerator generator;
+  private ObjectKey objectKey;
+  private Part part;
+  private Date expiration;
+
+  @Setup
+  public void setUp() {
+    SignerFactory.registerSigner("S3Signer", S3Signer.class);
+    ClientConfiguration clientConfiguration = new ClientConfiguration();
+    clientConfiguration.setSignerOverride(signer);
+    clientConfiguration.setProtocol(Protocol.HTTP);
+
+    AmazonS3Client s3Client =
+        new AmazonS3Client(new BasicAWSCredentials("minio", "minio123"), clientConfiguration);
+    s3Client.setEndpoint(ENDPOINT);
+    s3Client.setS3ClientOptions(new S3ClientOptions().withPathStyleAccess(true));
+
+    generator =
+        hostOverride
+            ? new S3URLGenerator(s3Client, ENDPOINT, "https://object.example.org")
+            : new S3URLGenerator(s3Client);
+    objectKey = ObjectKeys.getObjectKey("data", "a82efa12-9aac-558b-9f5e-a7c1de2e1ae1");
+    part = new Part(42, 20 * 1024 * 1024, 41L * 20 * 1024 * 1024, null, null, null);
+    expiration = new Date(System.currentTimeMillis() + 24 * 60 * 60 * 1000L);
+  }
+
+  @Benchmark
+  public String uploadPartUrl() {
+    return generator.getUploadPartUrl(BUCKET, objectKey, UPLOAD_ID, part, expiration);
+  }
+
+  @Benchmark
+  public String downloadPartUrl() {
+    return generator.getDownloadPartUrl(BUCKET, objectKey, part, expiration);
+  }
+}
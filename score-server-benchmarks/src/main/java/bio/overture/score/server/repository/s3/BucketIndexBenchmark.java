@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.server.repository.s3;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static org.openjdk.jmh.annotations.Mode.AverageTime;
+import static org.openjdk.jmh.annotations.Mode.Throughput;
+
+import java.util.UUID;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Bucket index calculation of {@link S3BucketNamingService}. Lives in the {@code s3} package to
+ * reach {@link S3BucketNamingService#calculateIndex(String)}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Throughput, AverageTime})
+@OutputTimeUnit(MICROSECONDS)
+@Fork(
+    value = 2,
+    jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class BucketIndexBenchmark {
+
+  /** Constants. */
+  private static final int KEY_COUNT = 1024;
+
+  @Param({"MODULO", "CONSISTENT"})
+  private BucketPartitioning partitioning;
+
+  @Param({"8", "64"})
+  private int bucketPoolSize;
+
+  private S3BucketNamingService service;
+  private String[] objectIds;
+  private int next;
+
+  @Setup
+  public void setUp() {
+    service = new S3BucketNamingService();
+    service.setObjectBucketName("oicr.icgc.test");
+    service.setStateBucketName("oicr.icgc.test");
+    service.setBucketKeySize(2);
+    service.setBucketPoolSize(bucketPoolSize);
+    service.setPartitioning(partitioning);
+
+    // Rotate through keys so the ring lookups do not always hit the same virtual node
+    objectIds = new String[KEY_COUNT];
+    for (int i = 0; i < KEY_COUNT; i++) {
+      objectIds[i] = "data/" + UUID.nameUUIDFromBytes(new byte[] {(byte) i, (byte) (i >> 8)});
+    }
+  }
+
+  @Benchmark
+  public int calculateIndex() {
+    next = (next + 1) & (KEY_COUNT - 1);
+    return service.calculateIndex(objectIds[next]);
+  }
+
+  @Benchmark
+  public String objectBucketName() {
+    next = (next + 1) & (KEY_COUNT - 1);
+    return service.getObjectBucketName(objectIds[next]);
+  }
+}
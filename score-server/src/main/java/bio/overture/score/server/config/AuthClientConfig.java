@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.server.config;
+
+import bio.overture.score.server.security.KeycloakPermission;
+import bio.overture.score.server.security.SigningKeyJwtDecoder;
+import bio.overture.score.server.security.TokenCache;
+import bio.overture.score.server.security.TokenCacheEndpoint;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+import lombok.val;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.security.converter.RsaKeyConverters;
+import org.springframework.security.oauth2.core.OAuth2AuthenticatedPrincipal;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Connections to, and caching of responses from, the authorization server (EGO or Keycloak).
+ *
+ * <p>Every authenticated request is checked against the authorization server, so connections are
+ * pooled and kept alive, and results are cached per token for a bounded time.
+ */
+@Configuration
+@Profile("secure")
+public class AuthClientConfig {
+
+  @Value("${auth.client.maxConnections:50}")
+  private int maxConnections;
+
+  @Value("${auth.client.connectTimeout:5000}")
+  private int connectTimeout;
+
+  @Value("${auth.client.readTimeout:15000}")
+  private int readTimeout;
+
+  @Value("${auth.cache.maximumSize:10000}")
+  private long cacheMaximumSize;
+
+  @Value("${auth.cache.ttl:300}")
+  private long cacheTtlSeconds;
+
+  @Value("${auth.jwt.keyRefreshInterval:3600}")
+  private long signingKeyRefreshSeconds;
+
+  @Value("${auth.jwt.keyRetryInterval:30}")
+  private long signingKeyRetrySeconds;
+
+  @Bean(destroyMethod = "close")
+  public CloseableHttpClient authHttpClient() {
+    val requestConfig =
+        RequestConfig.custom()
+            .setConnectTimeout(connectTimeout)
+            .setConnectionRequestTimeout(connectTimeout)
+            .setSocketTimeout(readTimeout)
+            .build();
+
+    return HttpClients.custom()
+        .setMaxConnTotal(maxConnections)
+        .setMaxConnPerRoute(maxConnections)
+        .setDefaultRequestConfig(requestConfig)
+        .useSystemProperties()
+        .build();
+  }
+
+  @Bean
+  public TokenCache<OAuth2AuthenticatedPrincipal> apiKeyCache(MeterRegistry registry) {
+    return new TokenCache<>(
+        "auth.apikey", cacheMaximumSize, Duration.ofSeconds(cacheTtlSeconds), registry);
+  }
+
+  @Bean
+  public TokenCache<List<KeycloakPermission>> keycloakPermissionCache(MeterRegistry registry) {
+    return new TokenCache<>(
+        "auth.keycloak.permissions",
+        cacheMaximumSize,
+        Duration.ofSeconds(cacheTtlSeconds),
+        registry);
+  }
+
+  /**
+   * Replaces Spring Boot's decoder for {@code public-key-location}, which reads the key once at
+   * startup (failing it when the authorization server is down) and never again.
+   */
+  @Bean
+  @ConditionalOnProperty("spring.security.oauth2.resourceserver.jwt.public-key-location")
+  public JwtDecoder signingKeyJwtDecoder(
+      @Value("${spring.security.oauth2.resourceserver.jwt.public-key-location}") String location,
+      CloseableHttpClient authHttpClient) {
+    return new SigningKeyJwtDecoder(
+        signingKeySource(location, authHttpClient),
+        Duration.ofSeconds(signingKeyRefreshSeconds),
+        Duration.ofSeconds(signingKeyRetrySeconds));
+  }
+
+  @Bean
+  public TokenCacheEndpoint tokenCacheEndpoint(List<TokenCache<?>> caches) {
+    return new TokenCacheEndpoint(caches);
+  }
+
+  private static Supplier<RSAPublicKey> signingKeySource(String location, HttpClient httpClient) {
+    if (location.startsWith("http:") || location.startsWith("https:")) {
+      val template = new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+      return () -> readKey(new ByteArrayInputStream(template.getForObject(location, byte[].class)));
+    }
+
+    val resource = new DefaultResourceLoader().getResource(location);
+    return () -> {
+      try (InputStream inputStream = resource.getInputStream()) {
+        return readKey(inputStream);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    };
+  }
+
+  private static RSAPublicKey readKey(InputStream inputStream) {
+    return RsaKeyConverters.x509().convert(inputStream);
+  }
+}
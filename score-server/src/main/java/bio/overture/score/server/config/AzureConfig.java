@@ -17,10 +17,13 @@
  */
 package bio.overture.score.server.config;
 
+import bio.overture.score.server.repository.azure.AzureRequestMetrics;
 import com.microsoft.azure.storage.CloudStorageAccount;
+import com.microsoft.azure.storage.OperationContext;
 import com.microsoft.azure.storage.StorageException;
 import com.microsoft.azure.storage.blob.CloudBlobClient;
 import com.microsoft.azure.storage.blob.CloudBlobContainer;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.net.URISyntaxException;
 import java.security.InvalidKeyException;
 import lombok.Data;
@@ -58,8 +61,11 @@ public class AzureConfig {
   }
 
   @Bean
-  public CloudBlobContainer azureContainer()
+  public CloudBlobContainer azureContainer(MeterRegistry registry)
       throws URISyntaxException, StorageException, InvalidKeyException {
+    OperationContext.getGlobalRequestCompletedEventHandler()
+        .addListener(new AzureRequestMetrics(registry));
+
     CloudBlobContainer result = azureClient().getContainerReference(containerName);
     if (!result.exists()) {
       log.error(String.format("What the? No '%s' container found", containerName));
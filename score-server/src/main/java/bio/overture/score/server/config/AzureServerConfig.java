@@ -19,16 +19,19 @@ package bio.overture.score.server.config;
 
 import bio.overture.score.core.util.PartCalculator;
 import bio.overture.score.server.repository.BucketNamingService;
+import bio.overture.score.server.repository.TimedURLGenerator;
 import bio.overture.score.server.repository.URLGenerator;
 import bio.overture.score.server.repository.UploadStateStore;
 import bio.overture.score.server.repository.azure.AzureBucketNamingService;
 import bio.overture.score.server.repository.azure.AzurePartCalculator;
 import bio.overture.score.server.repository.azure.AzureURLGenerator;
 import bio.overture.score.server.repository.azure.AzureUploadStateStore;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.Profile;
 
 /** Server level configuration */
@@ -57,10 +60,16 @@ public class AzureServerConfig {
   }
 
   @Bean
-  public URLGenerator url() {
+  public AzureURLGenerator azureUrlGenerator() {
     return new AzureURLGenerator();
   }
 
+  @Bean
+  @Primary
+  public URLGenerator url(AzureURLGenerator azureUrlGenerator, MeterRegistry registry) {
+    return new TimedURLGenerator(azureUrlGenerator, registry);
+  }
+
   @Bean
   public BucketNamingService bucketNamingService() {
     return new AzureBucketNamingService();
@@ -17,15 +17,13 @@
  */
 package bio.overture.score.server.config;
 
-import bio.overture.score.core.util.PartCalculator;
-import bio.overture.score.core.util.SimplePartCalculator;
 import bio.overture.score.server.repository.BenchmarkURLGenerator;
+import bio.overture.score.server.repository.TimedURLGenerator;
 import bio.overture.score.server.repository.URLGenerator;
-import bio.overture.score.server.repository.UploadStateStore;
-import bio.overture.score.server.repository.s3.S3UploadStateStore;
-import org.springframework.beans.factory.annotation.Value;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.Profile;
 
 /** Configurations used for benchmarking the object store service */
@@ -33,21 +31,15 @@ import org.springframework.context.annotation.Profile;
 @Profile("benchmark")
 public class BenchmarkConfig {
 
-  @Value("${upload.partsize}")
-  private int partSize;
-
-  @Bean
-  public UploadStateStore stateStore() {
-    return new S3UploadStateStore();
-  }
-
   @Bean
-  public PartCalculator calculator() {
-    return new SimplePartCalculator(partSize);
+  public BenchmarkURLGenerator benchmarkUrlGenerator() {
+    return new BenchmarkURLGenerator();
   }
 
   @Bean
-  public URLGenerator url() {
-    return new BenchmarkURLGenerator();
+  @Primary
+  public URLGenerator benchmarkUrl(
+      BenchmarkURLGenerator benchmarkUrlGenerator, MeterRegistry registry) {
+    return new TimedURLGenerator(benchmarkUrlGenerator, registry);
   }
 }
@@ -20,7 +20,10 @@ package bio.overture.score.server.config;
 import static java.util.concurrent.TimeUnit.MINUTES;
 
 import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
 import java.util.concurrent.ConcurrentMap;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CachingConfigurerSupport;
@@ -39,24 +42,30 @@ public class CacheConfig extends CachingConfigurerSupport {
   /** Constants. */
   private static final int CACHE_TTL_MINUTES = 60;
 
+  /** Dependencies. */
+  @Autowired private MeterRegistry registry;
+
   @Override
   public CacheManager cacheManager() {
     return new ConcurrentMapCacheManager() {
 
       @Override
       protected Cache createConcurrentMapCache(String name) {
-        return new ConcurrentMapCache(name, createStore(), false);
+        return new ConcurrentMapCache(name, createStore(name), false);
       }
 
       /**
-       * @return Guava cache instance with a suitable TTL.
+       * @return Guava cache instance with a suitable TTL, with its hit ratio published.
        */
-      private ConcurrentMap<Object, Object> createStore() {
-        return CacheBuilder.newBuilder()
-            .expireAfterWrite(CACHE_TTL_MINUTES, MINUTES)
-            .maximumSize(100)
-            .build()
-            .asMap();
+      private ConcurrentMap<Object, Object> createStore(String name) {
+        com.google.common.cache.Cache<Object, Object> cache =
+            CacheBuilder.newBuilder()
+                .expireAfterWrite(CACHE_TTL_MINUTES, MINUTES)
+                .maximumSize(100)
+                .recordStats()
+                .build();
+        GuavaCacheMetrics.monitor(registry, cache, name);
+        return cache.asMap();
       }
     };
   }
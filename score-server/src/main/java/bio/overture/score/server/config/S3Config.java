@@ -1,5 +1,6 @@
 package bio.overture.score.server.config;
 
+import bio.overture.score.server.repository.s3.S3RequestMetrics;
 import com.amazonaws.ClientConfiguration;
 import com.amazonaws.Protocol;
 import com.amazonaws.auth.BasicAWSCredentials;
@@ -13,6 +14,7 @@ import com.amazonaws.services.s3.S3ClientOptions;
 import com.amazonaws.services.s3.internal.S3Signer;
 import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
 import com.amazonaws.services.s3.model.SSEAlgorithm;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -44,8 +46,8 @@ public class S3Config {
   private int connectionTimeout;
 
   @Bean
-  public AmazonS3 s3() {
-    AmazonS3 s3Client = null;
+  public AmazonS3 s3(MeterRegistry registry) {
+    AmazonS3Client s3Client = null;
     if (accessKey != null && secretKey != null) {
       s3Client =
           new AmazonS3Client(new BasicAWSCredentials(accessKey, secretKey), clientConfiguration());
@@ -58,6 +60,7 @@ public class S3Config {
     log.debug("Timeout: {}", connectionTimeout);
     s3Client.setEndpoint(endpoint);
     s3Client.setS3ClientOptions(new S3ClientOptions().withPathStyleAccess(true));
+    s3Client.addRequestHandler(new S3RequestMetrics(registry));
 
     return s3Client;
   }
@@ -20,8 +20,11 @@ package bio.overture.score.server.config;
 import bio.overture.score.server.metadata.MetadataService;
 import bio.overture.score.server.properties.ScopeProperties;
 import bio.overture.score.server.security.ApiKeyIntrospector;
+import bio.overture.score.server.security.ScopedJwtAuthenticationConverter;
+import bio.overture.score.server.security.TokenCache;
 import bio.overture.score.server.security.scope.DownloadScopeAuthorizationStrategy;
 import bio.overture.score.server.security.scope.UploadScopeAuthorizationStrategy;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.util.UUID;
 import javax.servlet.http.HttpServletRequest;
 import lombok.Getter;
@@ -29,9 +32,12 @@ import lombok.NonNull;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
+import org.apache.http.impl.client.CloseableHttpClient;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.*;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
 import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationManagerResolver;
@@ -39,10 +45,10 @@ import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+import org.springframework.security.oauth2.core.OAuth2AuthenticatedPrincipal;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationProvider;
 import org.springframework.security.oauth2.server.resource.authentication.OpaqueTokenAuthenticationProvider;
-import org.springframework.security.oauth2.server.resource.introspection.OpaqueTokenIntrospector;
 
 /**
  * Resource service configuration file.<br>
@@ -66,6 +72,10 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
   private final ScopeProperties scopeProperties;
 
   @Autowired private JwtDecoder jwtDecoder;
+  @Autowired private CloseableHttpClient authHttpClient;
+  @Autowired private TokenCache<OAuth2AuthenticatedPrincipal> apiKeyCache;
+  @Autowired private MeterRegistry meterRegistry;
+  @Autowired private Environment environment;
 
   @Autowired
   public SecurityConfig(@NonNull ScopeProperties scopeProperties) {
@@ -81,6 +91,11 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
   private void configureAuthorization(HttpSecurity http) throws Exception {
     scopeProperties.logScopeProperties();
 
+    if (environment.acceptsProfiles(Profiles.of("benchmark"))) {
+      // The stand-in metadata server is called without a token, as the real one would be
+      http.authorizeRequests().antMatchers("/entities/**", "/studies/**").permitAll();
+    }
+
     // @formatter:off
     http.authorizeRequests()
         .antMatchers("/health")
@@ -109,11 +124,11 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
 
     // Auth Managers for JWT and for ApiKeys. JWT uses the default auth provider,
     // but OpaqueTokens are handled by the custom ApiKeyIntrospector
-    AuthenticationManager jwt = new ProviderManager(new JwtAuthenticationProvider(jwtDecoder));
+    val jwtProvider = new JwtAuthenticationProvider(jwtDecoder);
+    jwtProvider.setJwtAuthenticationConverter(new ScopedJwtAuthenticationConverter());
+    AuthenticationManager jwt = new ProviderManager(jwtProvider);
     AuthenticationManager opaqueToken =
-        new ProviderManager(
-            new OpaqueTokenAuthenticationProvider(
-                new ApiKeyIntrospector(url, clientId, clientSecret, tokenName)));
+        new ProviderManager(new OpaqueTokenAuthenticationProvider(introspector()));
 
     return (request) -> useJwt(request) ? jwt : opaqueToken;
   }
@@ -144,8 +159,9 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
   }
 
   @Bean
-  public OpaqueTokenIntrospector introspector() {
-    return new ApiKeyIntrospector(url, clientId, clientSecret, tokenName);
+  public ApiKeyIntrospector introspector() {
+    return new ApiKeyIntrospector(
+        url, clientId, clientSecret, tokenName, authHttpClient, apiKeyCache, meterRegistry);
   }
 
   private boolean useJwt(HttpServletRequest request) {
@@ -20,15 +20,19 @@ package bio.overture.score.server.config;
 import bio.overture.score.core.util.PartCalculator;
 import bio.overture.score.core.util.SimplePartCalculator;
 import bio.overture.score.server.repository.BucketNamingService;
+import bio.overture.score.server.repository.RecordedUploadStateStore;
+import bio.overture.score.server.repository.TimedURLGenerator;
 import bio.overture.score.server.repository.URLGenerator;
 import bio.overture.score.server.repository.UploadStateStore;
 import bio.overture.score.server.repository.s3.S3BucketNamingService;
 import bio.overture.score.server.repository.s3.S3URLGenerator;
 import bio.overture.score.server.repository.s3.S3UploadStateStore;
 import com.amazonaws.services.s3.AmazonS3;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 
 /** Server level configuration */
 @Configuration
@@ -44,18 +48,25 @@ public class ServerConfig {
   private String s3Endpoint;
 
   @Bean
-  public UploadStateStore stateStore() {
+  public S3UploadStateStore s3StateStore() {
     return new S3UploadStateStore();
   }
 
+  @Bean
+  @Primary
+  public UploadStateStore stateStore(S3UploadStateStore s3StateStore) {
+    return new RecordedUploadStateStore(s3StateStore);
+  }
+
   @Bean
   public PartCalculator calculator() {
     return new SimplePartCalculator(partSize);
   }
 
   @Bean
-  public URLGenerator url(AmazonS3 s3Client) {
-    return new S3URLGenerator(s3Client, s3Endpoint, preSignedUrlsHostOverride);
+  public URLGenerator url(AmazonS3 s3Client, MeterRegistry registry) {
+    return new TimedURLGenerator(
+        new S3URLGenerator(s3Client, s3Endpoint, preSignedUrlsHostOverride), registry);
   }
 
   @Bean
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.server.controller;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.springframework.http.HttpHeaders.ACCEPT_RANGES;
+import static org.springframework.http.HttpHeaders.CONTENT_RANGE;
+import static org.springframework.http.MediaType.APPLICATION_OCTET_STREAM_VALUE;
+
+import bio.overture.score.server.repository.BenchmarkDownloadService;
+import bio.overture.score.server.repository.BenchmarkObjectData;
+import java.io.IOException;
+import javax.servlet.http.HttpServletResponse;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+/** An emulator for S3 download for benchmarking purpose only */
+@Setter
+@RestController
+@RequestMapping("/download")
+@Slf4j
+@Profile("benchmark")
+public class BenchmarkDownloadController {
+
+  @Autowired BenchmarkDownloadService downloadService;
+
+  /** Serves the synthetic object, or the single byte range requested, like a ranged S3 GET. */
+  @RequestMapping(method = RequestMethod.GET, value = "/data/{object-id}")
+  public void getObjectData(
+      @PathVariable("object-id") String objectId,
+      @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+      HttpServletResponse response)
+      throws IOException {
+    val size = downloadService.getObjectSize(objectId);
+    long offset = 0L;
+    long length = size;
+
+    if (range != null) {
+      try {
+        val ranges = HttpRange.parseRanges(range);
+        // Like S3, multiple ranges are not supported and the whole object is returned instead
+        if (ranges.size() == 1) {
+          offset = ranges.get(0).getRangeStart(size);
+          checkArgument(offset < size, "Range starts beyond the end of the object");
+          length = ranges.get(0).getRangeEnd(size) - offset + 1L;
+          response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+          response.setHeader(
+              CONTENT_RANGE, "bytes " + offset + "-" + (offset + length - 1L) + "/" + size);
+        }
+      } catch (IllegalArgumentException e) {
+        log.debug("Unsatisfiable range '{}' of object id {}: {}", range, objectId, e.getMessage());
+        response.setHeader(CONTENT_RANGE, "bytes */" + size);
+        response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+        return;
+      }
+    }
+
+    log.debug("object id: {}, offset: {}, number of bytes: {}", objectId, offset, length);
+    response.setHeader(ACCEPT_RANGES, "bytes");
+    response.setContentType(APPLICATION_OCTET_STREAM_VALUE);
+    response.setContentLengthLong(length);
+    BenchmarkObjectData.write(objectId, offset, length, response.getOutputStream());
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.server.controller;
+
+import bio.overture.score.server.metadata.MetadataEntity;
+import java.util.Map;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * An emulator for the metadata server (SONG) for benchmarking purpose only. Pointing {@code
+ * metadata.url} of the server and the client at the server itself registers every object id as an
+ * open access file of a published analysis.
+ */
+@RestController
+@Profile("benchmark")
+public class BenchmarkMetadataController {
+
+  /** Constants. */
+  private static final String STUDY_ID = "BENCHMARK";
+
+  private static final String ANALYSIS_ID = "benchmark";
+
+  @RequestMapping(method = RequestMethod.GET, value = "/entities/{object-id}")
+  public @ResponseBody MetadataEntity getEntity(@PathVariable("object-id") String objectId) {
+    return MetadataEntity.builder()
+        .id(objectId)
+        .gnosId(ANALYSIS_ID)
+        .fileName(objectId + ".bin")
+        .projectCode(STUDY_ID)
+        .access("open")
+        .build();
+  }
+
+  @RequestMapping(method = RequestMethod.GET, value = "/studies/{study-id}/analysis/{analysis-id}")
+  public @ResponseBody Map<String, String> getAnalysis(
+      @PathVariable("study-id") String studyId, @PathVariable("analysis-id") String analysisId) {
+    return Map.of("analysisId", analysisId, "studyId", studyId, "analysisState", "PUBLISHED");
+  }
+}
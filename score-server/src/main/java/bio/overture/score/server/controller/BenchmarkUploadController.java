@@ -99,7 +99,8 @@ public class BenchmarkUploadController extends UploadController {
   public void finalizeUpload(
       @RequestHeader(value = "access-token", required = true) final String accessToken,
       @PathVariable(value = "object-id") String objectId,
-      @RequestParam(value = "uploadId", required = true) String uploadId) {
+      @RequestParam(value = "uploadId", required = true) String uploadId,
+      @RequestParam(value = "md5", required = false) String md5) {
     // NO-OP
   }
 
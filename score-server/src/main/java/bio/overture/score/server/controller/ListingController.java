@@ -17,23 +17,111 @@
  */
 package bio.overture.score.server.controller;
 
+import static java.util.stream.Collectors.toList;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
+
+import bio.overture.score.core.model.ListingFilter;
 import bio.overture.score.core.model.ObjectInfo;
+import bio.overture.score.core.model.ObjectInfoPage;
 import bio.overture.score.server.repository.ListingService;
+import bio.overture.score.server.util.Listings;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedOutputStream;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import lombok.val;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+/**
+ * Repository listing. Besides the full JSON array, the listing can be restricted server side, paged
+ * with a cursor ({@code /listing/pages}) or streamed as newline delimited JSON by requesting {@code
+ * application/x-ndjson}. Large object id sets can be submitted as a {@link ListingFilter} body with
+ * {@code POST}.
+ */
 @Component
 @RestController
 public class ListingController {
 
+  /** Constants. */
+  private static final int DEFAULT_PAGE_SIZE = 1000;
+
+  private static final int MAX_PAGE_SIZE = 10000;
+
   @Autowired private ListingService listingService;
+  @Autowired private ObjectMapper mapper;
 
   @RequestMapping(value = "/listing", method = RequestMethod.GET)
-  public List<ObjectInfo> list() {
-    return listingService.getListing();
+  public List<ObjectInfo> list(
+      @RequestParam(value = "objectId", required = false) Set<String> objectIds,
+      @RequestParam(value = "modifiedSince", required = false) Long modifiedSince,
+      @RequestParam(value = "minSize", required = false) Long minSize,
+      @RequestParam(value = "maxSize", required = false) Long maxSize) {
+    return list(new ListingFilter(objectIds, modifiedSince, minSize, maxSize));
+  }
+
+  @RequestMapping(
+      value = "/listing",
+      method = RequestMethod.GET,
+      produces = APPLICATION_NDJSON_VALUE)
+  public StreamingResponseBody stream(
+      @RequestParam(value = "objectId", required = false) Set<String> objectIds,
+      @RequestParam(value = "modifiedSince", required = false) Long modifiedSince,
+      @RequestParam(value = "minSize", required = false) Long minSize,
+      @RequestParam(value = "maxSize", required = false) Long maxSize) {
+    return stream(new ListingFilter(objectIds, modifiedSince, minSize, maxSize));
+  }
+
+  @RequestMapping(value = "/listing", method = RequestMethod.POST)
+  public List<ObjectInfo> list(@RequestBody ListingFilter filter) {
+    if (filter.isEmpty()) {
+      return listingService.getListing();
+    }
+
+    return filter(filter).collect(toList());
+  }
+
+  @RequestMapping(
+      value = "/listing",
+      method = RequestMethod.POST,
+      produces = APPLICATION_NDJSON_VALUE)
+  public StreamingResponseBody stream(@RequestBody ListingFilter filter) {
+    val objects = filter(filter);
+    val writer = mapper.writerFor(ObjectInfo.class);
+
+    return out -> {
+      val buffered = new BufferedOutputStream(out);
+      for (val object : (Iterable<ObjectInfo>) objects::iterator) {
+        buffered.write(writer.writeValueAsBytes(object));
+        buffered.write('\n');
+      }
+      buffered.flush();
+    };
+  }
+
+  @RequestMapping(value = "/listing/pages", method = RequestMethod.GET)
+  public ObjectInfoPage page(
+      @RequestParam(value = "cursor", required = false) String cursor,
+      @RequestParam(value = "limit", defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+      @RequestParam(value = "objectId", required = false) Set<String> objectIds,
+      @RequestParam(value = "modifiedSince", required = false) Long modifiedSince,
+      @RequestParam(value = "minSize", required = false) Long minSize,
+      @RequestParam(value = "maxSize", required = false) Long maxSize) {
+    return Listings.page(
+        listingService.getListing(),
+        new ListingFilter(objectIds, modifiedSince, minSize, maxSize),
+        cursor,
+        Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+  }
+
+  private Stream<ObjectInfo> filter(ListingFilter filter) {
+    return listingService.getListing().stream().filter(filter);
   }
 }
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.server.controller;
+
+import static bio.overture.score.core.util.ServerTimings.CORRELATION_ID_HEADER;
+import static bio.overture.score.core.util.ServerTimings.SERVER_TIMING_HEADER;
+
+import bio.overture.score.server.util.RequestTimings;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Tags every request with the client supplied correlation id (or a new one), both in the logs and
+ * in the response, and reports where the request spent its time in a {@code Server-Timing} header.
+ *
+ * <p>Runs ahead of the security filter chain so that token validation is part of the timings. The
+ * header is added just before the response is committed, so it covers everything up to the first
+ * byte of the body.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+  /** Constants. */
+  public static final String CORRELATION_ID_MDC_KEY = "correlationId";
+
+  private static final Pattern VALID_CORRELATION_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    String correlationId = getCorrelationId(request);
+    TimingResponse timingResponse = new TimingResponse(response, RequestTimings.start(request));
+    timingResponse.setHeader(CORRELATION_ID_HEADER, correlationId);
+
+    MDC.put(CORRELATION_ID_MDC_KEY, correlationId);
+    try {
+      filterChain.doFilter(request, timingResponse);
+    } finally {
+      MDC.remove(CORRELATION_ID_MDC_KEY);
+      timingResponse.addTimingHeader();
+    }
+  }
+
+  private static String getCorrelationId(HttpServletRequest request) {
+    String correlationId = request.getHeader(CORRELATION_ID_HEADER);
+    if (correlationId != null && VALID_CORRELATION_ID.matcher(correlationId).matches()) {
+      return correlationId;
+    }
+
+    return UUID.randomUUID().toString();
+  }
+
+  /** Adds the timing header once, before anything can commit the response. */
+  private static class TimingResponse extends HttpServletResponseWrapper {
+
+    private final RequestTimings timings;
+    private boolean timed;
+
+    TimingResponse(HttpServletResponse response, RequestTimings timings) {
+      super(response);
+      this.timings = timings;
+    }
+
+    void addTimingHeader() {
+      if (!timed && !isCommitted()) {
+        timed = true;
+        setHeader(SERVER_TIMING_HEADER, timings.toHeader());
+      }
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+      addTimingHeader();
+      return super.getOutputStream();
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+      addTimingHeader();
+      return super.getWriter();
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+      addTimingHeader();
+      super.flushBuffer();
+    }
+
+    @Override
+    public void sendError(int sc) throws IOException {
+      addTimingHeader();
+      super.sendError(sc);
+    }
+
+    @Override
+    public void sendError(int sc, String msg) throws IOException {
+      addTimingHeader();
+      super.sendError(sc, msg);
+    }
+
+    @Override
+    public void sendRedirect(String location) throws IOException {
+      addTimingHeader();
+      super.sendRedirect(location);
+    }
+  }
+}
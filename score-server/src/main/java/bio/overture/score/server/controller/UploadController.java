@@ -19,6 +19,7 @@ package bio.overture.score.server.controller;
 
 import bio.overture.score.core.model.ObjectSpecification;
 import bio.overture.score.core.model.UploadProgress;
+import bio.overture.score.server.jfr.UploadEvent;
 import bio.overture.score.server.repository.UploadService;
 import bio.overture.score.server.security.TokenHasher;
 import bio.overture.score.server.util.HttpServletRequests;
@@ -31,6 +32,7 @@ import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -51,6 +53,7 @@ import org.springframework.web.bind.annotation.RestController;
 @RestController
 @RequestMapping("/upload")
 @Slf4j
+@Profile("!benchmark") // Replaced by BenchmarkUploadController
 public class UploadController {
 
   @Autowired UploadService uploadService;
@@ -77,7 +80,16 @@ public class UploadController {
         Long.toString(fileSize),
         ipAddress,
         userAgent);
-    return uploadService.initiateUpload(objectId, fileSize, md5, overwrite);
+    UploadEvent event = new UploadEvent(UploadEvent.INITIATE, objectId);
+    event.setFileSize(fileSize);
+    event.begin();
+    try {
+      val spec = uploadService.initiateUpload(objectId, fileSize, md5, overwrite);
+      event.initiated(spec);
+      return spec;
+    } finally {
+      event.commit();
+    }
   }
 
   @ProjectCodeScoped
@@ -123,9 +135,18 @@ public class UploadController {
   public void finalizeUpload(
       @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = true) final String accessToken,
       @PathVariable(value = "object-id") String objectId,
-      @RequestParam(value = "uploadId", required = true) String uploadId) {
+      @RequestParam(value = "uploadId", required = true) String uploadId,
+      @RequestParam(value = "md5", required = false) String md5) {
     val watch = Stopwatch.createStarted();
-    uploadService.finalizeUpload(objectId, uploadId);
+    UploadEvent event = new UploadEvent(UploadEvent.FINALIZE, objectId);
+    event.setUploadId(uploadId);
+    event.begin();
+    try {
+      uploadService.finalizeUpload(objectId, uploadId, md5);
+      event.succeeded();
+    } finally {
+      event.commit();
+    }
     log.info("Finalize upload completed in {}", watch);
   }
 
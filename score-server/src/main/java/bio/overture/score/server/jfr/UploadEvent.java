@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.server.jfr;
+
+import bio.overture.score.core.model.ObjectSpecification;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Flight Recorder event spanning the initiation or finalization of a multipart upload. */
+@Name("bio.overture.score.server.Upload")
+@Label("Upload")
+@Category({"Score", "Server"})
+@Description("Initiation or finalization of a multipart upload")
+@StackTrace(false)
+public class UploadEvent extends jdk.jfr.Event {
+
+  public static final String INITIATE = "initiate";
+  public static final String FINALIZE = "finalize";
+
+  @Label("Operation")
+  String operation;
+
+  @Label("Object Id")
+  String objectId;
+
+  @Label("Upload Id")
+  String uploadId;
+
+  @Label("File Size")
+  @DataAmount
+  long fileSize;
+
+  @Label("Parts")
+  int parts;
+
+  @Label("Succeeded")
+  boolean succeeded;
+
+  public UploadEvent(String operation, String objectId) {
+    this.operation = operation;
+    this.objectId = objectId;
+  }
+
+  public void setUploadId(String uploadId) {
+    this.uploadId = uploadId;
+  }
+
+  public void setFileSize(long fileSize) {
+    this.fileSize = fileSize;
+  }
+
+  public void initiated(ObjectSpecification spec) {
+    if (spec != null) {
+      uploadId = spec.getUploadId();
+      parts = spec.getParts() == null ? 0 : spec.getParts().size();
+    }
+    succeeded();
+  }
+
+  public void succeeded() {
+    succeeded = true;
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.server.metadata;
+
+import static lombok.AccessLevel.PRIVATE;
+import static org.springframework.web.context.request.RequestAttributes.SCOPE_REQUEST;
+
+import java.util.function.Supplier;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+import lombok.val;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Memoizes metadata lookups for the duration of the current HTTP request.
+ *
+ * <p>A single request resolves the same entity in the authorization layer (study and access type)
+ * and again in the upload/download services (registration and analysis state). Resolving through
+ * this context makes each distinct lookup hit the metadata server once per request. Outside of a
+ * request (e.g. scheduled jobs) lookups are passed straight through.
+ */
+@NoArgsConstructor(access = PRIVATE)
+public final class MetadataRequestContext {
+
+  /** Constants. */
+  private static final String ENTITY_ATTRIBUTE =
+      MetadataRequestContext.class.getName() + ".entity.";
+
+  private static final String ANALYSIS_STATE_ATTRIBUTE =
+      MetadataRequestContext.class.getName() + ".analysisState.";
+
+  public static MetadataEntity getEntity(
+      @NonNull MetadataService metadataService, @NonNull String objectId) {
+    return resolve(ENTITY_ATTRIBUTE + objectId, () -> metadataService.getEntity(objectId));
+  }
+
+  public static String getAnalysisState(
+      @NonNull MetadataService metadataService, @NonNull MetadataEntity entity) {
+    val key = ANALYSIS_STATE_ATTRIBUTE + entity.getProjectCode() + "/" + entity.getGnosId();
+    return resolve(key, () -> metadataService.getAnalysisStateForMetadata(entity));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T resolve(String name, Supplier<T> resolver) {
+    val attributes = RequestContextHolder.getRequestAttributes();
+    if (attributes == null) {
+      return resolver.get();
+    }
+
+    val cached = (T) attributes.getAttribute(name, SCOPE_REQUEST);
+    if (cached != null) {
+      return cached;
+    }
+
+    // Failures are not memoized so that they surface the same way on every lookup
+    val resolved = resolver.get();
+    if (resolved != null) {
+      attributes.setAttribute(name, resolved, SCOPE_REQUEST);
+    }
+
+    return resolved;
+  }
+}
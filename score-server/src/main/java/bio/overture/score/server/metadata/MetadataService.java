@@ -23,12 +23,17 @@ import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 
 import bio.overture.score.server.exception.IdNotFoundException;
+import bio.overture.score.server.util.RequestTimings;
+import bio.overture.score.server.util.RequestTimings.Phase;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.NonNull;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
@@ -42,16 +47,26 @@ public class MetadataService {
   @Value("${metadata.url}")
   private String metadataUrl;
 
+  @Autowired private MeterRegistry registry;
+
   private static final String ANALYSIS_STATE = "analysisState";
   private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+  private static final String OUTCOME_SUCCESS = "SUCCESS";
+  private static final String OUTCOME_ERROR = "ERROR";
 
   public MetadataEntity getEntity(@NonNull String id) {
     log.debug("using " + metadataUrl + " for MetaData server");
+    val sample = Timer.start(registry);
+    String outcome = OUTCOME_ERROR;
     try {
-      return restTemplate
-          .getForEntity(metadataUrl + "/entities/" + id, MetadataEntity.class)
-          .getBody();
+      val entity =
+          restTemplate
+              .getForEntity(metadataUrl + "/entities/" + id, MetadataEntity.class)
+              .getBody();
+      outcome = OUTCOME_SUCCESS;
+      return entity;
     } catch (HttpClientErrorException e) {
+      outcome = e.getStatusCode().name();
       if (e.getStatusCode() == NOT_FOUND) {
         throw new IdNotFoundException(format("Entity %s is not registered on the server.", id));
       }
@@ -59,15 +74,22 @@ public class MetadataService {
       log.error("Unexpected response code {} while getting ID {}", e.getStatusCode(), id);
 
       throw e;
+    } finally {
+      RequestTimings.record(Phase.METADATA, sample.stop(timer("entity", outcome)));
     }
   }
 
   public String getAnalysisStateForMetadata(@NonNull MetadataEntity metadataEntity) {
     val studyId = getStudyId(metadataEntity);
     val analysisId = getAnalysisId(metadataEntity);
+    val sample = Timer.start(registry);
+    String outcome = OUTCOME_ERROR;
     try {
-      return readAnalysisState(studyId, analysisId);
+      val state = readAnalysisState(studyId, analysisId);
+      outcome = OUTCOME_SUCCESS;
+      return state;
     } catch (HttpClientErrorException e) {
+      outcome = e.getStatusCode().name();
       if (e.getStatusCode() == NOT_FOUND || e.getStatusCode() == BAD_REQUEST) {
         throw new IdNotFoundException(
             format(
@@ -80,9 +102,20 @@ public class MetadataService {
           analysisId,
           studyId);
       throw e;
+    } finally {
+      RequestTimings.record(Phase.METADATA, sample.stop(timer("analysis", outcome)));
     }
   }
 
+  private Timer timer(String operation, String outcome) {
+    return Timer.builder("score.metadata.requests")
+        .description("Latency of calls to the metadata server")
+        .tag("operation", operation)
+        .tag("outcome", outcome)
+        .publishPercentiles(0.5, 0.95, 0.99)
+        .register(registry);
+  }
+
   public static String getAnalysisId(MetadataEntity metadataEntity) {
     return metadataEntity.getGnosId();
   }
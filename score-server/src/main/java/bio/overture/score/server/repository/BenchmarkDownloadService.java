@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.server.repository;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import bio.overture.score.core.model.ObjectSpecification;
+import bio.overture.score.core.model.Part;
+import bio.overture.score.core.util.ObjectKeys;
+import bio.overture.score.core.util.PartCalculator;
+import bio.overture.score.server.exception.InternalUnrecoverableError;
+import bio.overture.score.server.exception.NotRetryableException;
+import com.google.common.base.Stopwatch;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingOutputStream;
+import com.google.common.io.ByteStreams;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.Setter;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+/**
+ * Download emulator for benchmarking purpose only.
+ *
+ * <p>Every object id resolves to a synthetic object of {@code benchmark.download.objectSize} bytes
+ * (or its entry in {@code benchmark.download.objectSizes}) whose content is {@link
+ * BenchmarkObjectData}. Specifications carry the MD5 of each part and, when they cover the whole
+ * object, of the object, so clients verify downloads exactly as against a real object store. Part
+ * URLs point at {@code BenchmarkDownloadController}.
+ */
+@Slf4j
+@Setter
+@Service
+@Primary
+@Profile("benchmark")
+@ConfigurationProperties(prefix = "benchmark.download")
+public class BenchmarkDownloadService implements DownloadService {
+
+  /** Configuration. */
+  private long objectSize = 1024L * 1024L * 1024L;
+
+  private Map<String, Long> objectSizes = new HashMap<>();
+
+  @Value("${s3.data.directory}")
+  private String dataDir;
+
+  @Value("${s3.download.expiration}")
+  private int expiration;
+
+  @Value("${object.sentinel}")
+  private String sentinelObjectId;
+
+  /** Dependencies. */
+  @Autowired private PartCalculator partCalculator;
+
+  @Autowired private URLGenerator urlGenerator;
+
+  @Autowired private BucketNamingService bucketNamingService;
+
+  /** State. */
+  private final LoadingCache<SpecificationKey, ObjectSpecification> specifications =
+      CacheBuilder.newBuilder().maximumSize(1000).build(CacheLoader.from(this::checksum));
+
+  public long getObjectSize(String objectId) {
+    return objectSizes.getOrDefault(objectId, objectSize);
+  }
+
+  @Override
+  public ObjectSpecification download(
+      String objectId, long offset, long length, boolean forExternalUse, boolean excludeUrls) {
+    checkArgument(offset > -1L);
+    val size = getObjectSize(objectId);
+    if (forExternalUse) {
+      offset = 0L;
+      length = size;
+    } else if (length < 0L) {
+      length = size - offset;
+    }
+
+    if ((offset + length) > size) {
+      throw new InternalUnrecoverableError(
+          "Specified parameters exceed object size (object id: "
+              + objectId
+              + ", offset: "
+              + offset
+              + ", length: "
+              + length
+              + ")");
+    }
+
+    val checksums =
+        specifications.getUnchecked(new SpecificationKey(objectId, offset, length, forExternalUse));
+    val objectKey = ObjectKeys.getObjectKey(dataDir, objectId);
+    val expirationDate = getExpirationDate();
+    val bucketName = bucketNamingService.getObjectBucketName(objectId);
+
+    // Parts are mutable, so each response gets its own copies
+    val parts = new ArrayList<Part>(checksums.getParts().size());
+    for (val part : checksums.getParts()) {
+      String url = null;
+      if (!excludeUrls) {
+        url =
+            forExternalUse
+                ? urlGenerator.getDownloadUrl(bucketName, objectKey, expirationDate)
+                : urlGenerator.getDownloadPartUrl(bucketName, objectKey, part, expirationDate);
+      }
+      parts.add(
+          new Part(
+              part.getPartNumber(),
+              part.getPartSize(),
+              part.getOffset(),
+              url,
+              null,
+              part.getSourceMd5()));
+    }
+
+    return new ObjectSpecification(
+        objectKey.getKey(), objectId, objectId, parts, size, checksums.getObjectMd5(), false);
+  }
+
+  @Override
+  public String getSentinelObject() {
+    if ((sentinelObjectId == null) || (sentinelObjectId.isEmpty())) {
+      throw new NotRetryableException(
+          new IllegalArgumentException("Sentinel object id not defined"));
+    }
+
+    val objectKey = ObjectKeys.getObjectKey(dataDir, sentinelObjectId);
+    return urlGenerator.getDownloadUrl(
+        bucketNamingService.getObjectBucketName(sentinelObjectId), objectKey, getExpirationDate());
+  }
+
+  /** Generates the requested range once to compute the MD5s a real object store would hold. */
+  @SneakyThrows
+  private ObjectSpecification checksum(SpecificationKey key) {
+    val watch = Stopwatch.createStarted();
+    List<Part> parts =
+        key.isForExternalUse()
+            ? partCalculator.specify(0L, -1L)
+            : partCalculator.divide(key.getOffset(), key.getLength());
+
+    // The object MD5 is only known to clients when the parts make up the whole object
+    val whole = key.getOffset() == 0L && key.getLength() == getObjectSize(key.getObjectId());
+    val objectHash = new HashingOutputStream(Hashing.md5(), ByteStreams.nullOutputStream());
+    if (key.isForExternalUse()) {
+      BenchmarkObjectData.write(key.getObjectId(), 0L, key.getLength(), objectHash);
+    } else {
+      for (val part : parts) {
+        val partHash = new HashingOutputStream(Hashing.md5(), objectHash);
+        BenchmarkObjectData.write(
+            key.getObjectId(), part.getOffset(), part.getPartSize(), partHash);
+        part.setSourceMd5(partHash.hash().toString());
+      }
+    }
+
+    log.info(
+        "Generated checksums of {} bytes of benchmark object {} in {}",
+        key.getLength(),
+        key.getObjectId(),
+        watch);
+    return ObjectSpecification.builder()
+        .parts(parts)
+        .objectMd5(whole ? objectHash.hash().toString() : null)
+        .build();
+  }
+
+  private Date getExpirationDate() {
+    val now = LocalDateTime.now();
+    return Date.from(now.plusDays(expiration).atZone(ZoneId.systemDefault()).toInstant());
+  }
+
+  @lombok.Value
+  private static class SpecificationKey {
+
+    String objectId;
+    long offset;
+    long length;
+    boolean forExternalUse;
+  }
+}
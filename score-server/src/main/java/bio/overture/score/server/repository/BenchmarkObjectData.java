@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.server.repository;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static lombok.AccessLevel.PRIVATE;
+
+import com.google.common.hash.Hashing;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+import lombok.val;
+
+/**
+ * Content of the synthetic objects served in benchmark mode.
+ *
+ * <p>Byte {@code p} of an object is byte {@code p % 8} (little-endian) of a SplitMix64 mix of the
+ * object's seed and {@code p / 8}, so any range can be generated on its own, at memory speed, and
+ * always with the same bytes for the same object id.
+ */
+@NoArgsConstructor(access = PRIVATE)
+public final class BenchmarkObjectData {
+
+  /** Constants. */
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+  public static void write(
+      @NonNull String objectId, long offset, long length, @NonNull OutputStream out)
+      throws IOException {
+    val seed = seed(objectId);
+    val buffer = new byte[BUFFER_SIZE];
+    val words = ByteBuffer.wrap(buffer).order(ByteOrder.LITTLE_ENDIAN);
+
+    long position = offset;
+    long remaining = length;
+    while (remaining > 0) {
+      val count = (int) Math.min(BUFFER_SIZE, remaining);
+      fill(seed, position, buffer, words, count);
+      out.write(buffer, 0, count);
+      position += count;
+      remaining -= count;
+    }
+  }
+
+  private static void fill(long seed, long position, byte[] buffer, ByteBuffer words, int count) {
+    int i = 0;
+
+    // Leading bytes up to the first word boundary
+    while (i < count && ((position + i) & 7) != 0) {
+      buffer[i] = byteAt(seed, position + i);
+      i++;
+    }
+
+    // Whole words
+    long word = (position + i) >>> 3;
+    while (i + 8 <= count) {
+      words.putLong(i, mix(seed + word * GOLDEN_GAMMA));
+      word++;
+      i += 8;
+    }
+
+    // Trailing bytes
+    while (i < count) {
+      buffer[i] = byteAt(seed, position + i);
+      i++;
+    }
+  }
+
+  private static byte byteAt(long seed, long position) {
+    return (byte) (mix(seed + (position >>> 3) * GOLDEN_GAMMA) >>> ((position & 7) << 3));
+  }
+
+  private static long seed(String objectId) {
+    return Hashing.murmur3_128().hashString(objectId, UTF_8).asLong();
+  }
+
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+}
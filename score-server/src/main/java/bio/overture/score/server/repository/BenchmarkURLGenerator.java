@@ -35,8 +35,8 @@ public class BenchmarkURLGenerator implements URLGenerator {
       String bucketName, ObjectKey objectKey, String uploadId, Part part, Date expiration) {
     log.info("Benchmark mode is on");
     return endpoint
-        + "/upload/"
-        + objectKey
+        + "/upload/data/"
+        + objectKey.getObjectId()
         + "?partNumber="
         + String.valueOf(part.getPartNumber())
         + "&uploadId="
@@ -46,11 +46,12 @@ public class BenchmarkURLGenerator implements URLGenerator {
   @Override
   public String getDownloadPartUrl(
       String bucketName, ObjectKey objectKey, Part part, Date expiration) {
-    return null;
+    // The part range is sent by clients in the Range header, as with presigned S3 URLs
+    return getDownloadUrl(bucketName, objectKey, expiration);
   }
 
   @Override
   public String getDownloadUrl(String bucketName, ObjectKey objectKey, Date expiration) {
-    return null;
+    return endpoint + "/download/data/" + objectKey.getObjectId();
   }
 }
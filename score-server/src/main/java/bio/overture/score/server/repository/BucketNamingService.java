@@ -29,4 +29,19 @@ public interface BucketNamingService {
   public String getObjectBucketName(String objectId);
 
   public boolean isPartitioned();
+
+  /**
+   * @return the object bucket under the layout in effect before the last partitioning change, or
+   *     {@code null} if there is no such change in progress or it places the object identically
+   */
+  public default String getPreviousObjectBucketName(String objectId) {
+    return null;
+  }
+
+  /**
+   * @see #getPreviousObjectBucketName(String)
+   */
+  public default String getPreviousStateBucketName(String objectId) {
+    return null;
+  }
 }
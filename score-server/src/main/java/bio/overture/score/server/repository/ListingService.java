@@ -22,5 +22,8 @@ import java.util.List;
 
 public interface ListingService {
 
+  /**
+   * @return all published objects, sorted by object id
+   */
   List<ObjectInfo> getListing();
 }
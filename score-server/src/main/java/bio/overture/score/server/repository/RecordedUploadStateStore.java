@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.server.repository;
+
+import bio.overture.score.core.model.ObjectSpecification;
+import bio.overture.score.core.model.Part;
+import bio.overture.score.server.jfr.StateStoreEvent;
+import bio.overture.score.server.util.RequestTimings;
+import bio.overture.score.server.util.RequestTimings.Phase;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import lombok.NonNull;
+
+/**
+ * Decorates an {@link UploadStateStore} so that every call is visible in Flight Recorder as a
+ * {@link StateStoreEvent} and in the {@code Server-Timing} of the request that made it.
+ */
+public class RecordedUploadStateStore implements UploadStateStore {
+
+  /** Dependencies. */
+  private final UploadStateStore delegate;
+
+  public RecordedUploadStateStore(@NonNull UploadStateStore delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public void create(ObjectSpecification spec) {
+    record("create", spec.getObjectId(), spec.getUploadId(), () -> delegate.create(spec));
+  }
+
+  @Override
+  public ObjectSpecification read(String objectId, String uploadId) {
+    return record("read", objectId, uploadId, () -> delegate.read(objectId, uploadId));
+  }
+
+  @Override
+  public void delete(String objectId, String uploadId) {
+    record("delete", objectId, uploadId, () -> delegate.delete(objectId, uploadId));
+  }
+
+  @Override
+  public void deletePart(String objectId, String uploadId, int partNumber) {
+    record(
+        "deletePart",
+        objectId,
+        uploadId,
+        () -> delegate.deletePart(objectId, uploadId, partNumber));
+  }
+
+  @Override
+  public void markCompletedParts(String objectId, String uploadId, List<Part> parts) {
+    record(
+        "markCompletedParts",
+        objectId,
+        uploadId,
+        () -> delegate.markCompletedParts(objectId, uploadId, parts));
+  }
+
+  @Override
+  public boolean isCompleted(String objectId, String uploadId) {
+    return record(
+        "isCompleted", objectId, uploadId, () -> delegate.isCompleted(objectId, uploadId));
+  }
+
+  @Override
+  public void finalizeUploadPart(
+      String objectId, String uploadId, int partNumber, String md5, String eTag) {
+    record(
+        "finalizeUploadPart",
+        objectId,
+        uploadId,
+        () -> delegate.finalizeUploadPart(objectId, uploadId, partNumber, md5, eTag));
+  }
+
+  @Override
+  public Map<Integer, UploadPartDetail> getUploadStatePartDetails(
+      String objectId, String uploadId) {
+    return record(
+        "getUploadStatePartDetails",
+        objectId,
+        uploadId,
+        () -> delegate.getUploadStatePartDetails(objectId, uploadId));
+  }
+
+  @Override
+  public String getUploadId(String objectId) {
+    return record("getUploadId", objectId, null, () -> delegate.getUploadId(objectId));
+  }
+
+  private void record(String operation, String objectId, String uploadId, Runnable call) {
+    record(
+        operation,
+        objectId,
+        uploadId,
+        () -> {
+          call.run();
+          return null;
+        });
+  }
+
+  private static <T> T record(
+      String operation, String objectId, String uploadId, Supplier<T> call) {
+    StateStoreEvent event = new StateStoreEvent(operation, objectId, uploadId);
+    event.begin();
+    long start = System.nanoTime();
+    try {
+      T result = call.get();
+      event.succeeded();
+      return result;
+    } finally {
+      RequestTimings.record(Phase.STORE, System.nanoTime() - start);
+      event.commit();
+    }
+  }
+}
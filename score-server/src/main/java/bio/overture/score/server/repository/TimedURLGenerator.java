@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.server.repository;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import bio.overture.score.core.model.ObjectKey;
+import bio.overture.score.core.model.Part;
+import bio.overture.score.server.util.RequestTimings;
+import bio.overture.score.server.util.RequestTimings.Phase;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Date;
+import java.util.function.Supplier;
+import lombok.NonNull;
+
+/** Decorates a {@link URLGenerator} so that the time spent pre-signing URLs is recorded. */
+public class TimedURLGenerator implements URLGenerator {
+
+  /** Constants. */
+  public static final String METRIC_NAME = "score.url.signing";
+
+  /** Dependencies. */
+  private final URLGenerator delegate;
+
+  /** State. */
+  private final Timer uploadPartTimer;
+
+  private final Timer downloadPartTimer;
+  private final Timer downloadTimer;
+
+  public TimedURLGenerator(@NonNull URLGenerator delegate, @NonNull MeterRegistry registry) {
+    this.delegate = delegate;
+    this.uploadPartTimer = timer("upload_part", registry);
+    this.downloadPartTimer = timer("download_part", registry);
+    this.downloadTimer = timer("download", registry);
+  }
+
+  @Override
+  public String getUploadPartUrl(
+      String bucketName, ObjectKey objectKey, String uploadId, Part part, Date expiration) {
+    return time(
+        uploadPartTimer,
+        () -> delegate.getUploadPartUrl(bucketName, objectKey, uploadId, part, expiration));
+  }
+
+  @Override
+  public String getDownloadPartUrl(
+      String bucketName, ObjectKey objectKey, Part part, Date expiration) {
+    return time(
+        downloadPartTimer,
+        () -> delegate.getDownloadPartUrl(bucketName, objectKey, part, expiration));
+  }
+
+  @Override
+  public String getDownloadUrl(String bucketName, ObjectKey objectKey, Date expiration) {
+    return time(downloadTimer, () -> delegate.getDownloadUrl(bucketName, objectKey, expiration));
+  }
+
+  private static String time(Timer timer, Supplier<String> call) {
+    long start = System.nanoTime();
+    try {
+      return call.get();
+    } finally {
+      long nanos = System.nanoTime() - start;
+      timer.record(nanos, NANOSECONDS);
+      RequestTimings.record(Phase.SIGN, nanos);
+    }
+  }
+
+  private static Timer timer(String operation, MeterRegistry registry) {
+    return Timer.builder(METRIC_NAME)
+        .description("Time spent pre-signing object storage URLs")
+        .tag("operation", operation)
+        .publishPercentiles(0.5, 0.95, 0.99)
+        .register(registry);
+  }
+}
@@ -32,7 +32,11 @@ public interface UploadService {
   void finalizeUploadPart(
       String objectId, String uploadId, int partNumber, String md5, String eTag);
 
-  void finalizeUpload(String objectId, String uploadId);
+  /**
+   * Completes the upload. A non-empty {@code md5} is the client's digest of the whole object,
+   * checked against the one given at initiation or recorded when there was none.
+   */
+  void finalizeUpload(String objectId, String uploadId, String md5);
 
   String getUploadId(String objectId);
 
@@ -5,15 +5,25 @@ import static org.springframework.http.HttpStatus.Series.SERVER_ERROR;
 
 import bio.overture.score.server.config.KeycloakConfig;
 import bio.overture.score.server.security.KeycloakPermission;
+import bio.overture.score.server.security.TokenCache;
+import bio.overture.score.server.security.TokenCache.Expiring;
+import bio.overture.score.server.util.RequestTimings;
+import bio.overture.score.server.util.RequestTimings.Phase;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import java.io.IOException;
 import java.util.List;
+import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
+import org.apache.http.impl.client.CloseableHttpClient;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Profile;
 import org.springframework.http.*;
 import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.server.resource.introspection.BadOpaqueTokenException;
 import org.springframework.security.oauth2.server.resource.introspection.OAuth2IntrospectionException;
 import org.springframework.stereotype.Service;
@@ -28,12 +38,46 @@ import org.springframework.web.client.RestTemplate;
 public class KeycloakAuthorizationService {
 
   private final KeycloakConfig keycloakConfig;
-
-  public KeycloakAuthorizationService(@Autowired KeycloakConfig keycloakConfig) {
+  private final TokenCache<List<KeycloakPermission>> cache;
+  private final RestTemplate template;
+  private final Timer timer;
+
+  public KeycloakAuthorizationService(
+      @Autowired KeycloakConfig keycloakConfig,
+      @Autowired CloseableHttpClient authHttpClient,
+      @Autowired TokenCache<List<KeycloakPermission>> keycloakPermissionCache,
+      @Autowired MeterRegistry registry) {
     this.keycloakConfig = keycloakConfig;
+    this.cache = keycloakPermissionCache;
+    this.timer =
+        Timer.builder("score.auth.introspection")
+            .description("Latency of token checks against the authorization server")
+            .tag("provider", "keycloak")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(registry);
+
+    this.template = new RestTemplate(new HttpComponentsClientHttpRequestFactory(authHttpClient));
+    this.template.setErrorHandler(new RestTemplateResponseErrorHandler());
+  }
+
+  /**
+   * Returns the permissions (RPT) granted to {@code accessToken}. Grants are cached until the token
+   * expires (or the cache TTL elapses), concurrent requests for the same token share a single UMA
+   * ticket exchange.
+   */
+  public List<KeycloakPermission> fetchAuthorizationGrants(@NonNull Jwt accessToken) {
+    val token = accessToken.getTokenValue();
+    return RequestTimings.time(
+        Phase.AUTH,
+        () ->
+            cache.get(
+                token,
+                () ->
+                    Expiring.of(
+                        timer.record(() -> fetchGrants(token)), accessToken.getExpiresAt())));
   }
 
-  public List<KeycloakPermission> fetchAuthorizationGrants(String accessToken) {
+  private List<KeycloakPermission> fetchGrants(String accessToken) {
 
     val serviceUrl = keycloakConfig.permissionUrl();
 
@@ -44,8 +88,6 @@ public class KeycloakAuthorizationService {
 
     try {
       // Get response from Keycloak
-      val template = new RestTemplate();
-      template.setErrorHandler(new RestTemplateResponseErrorHandler());
       response = template.postForEntity(serviceUrl, request, KeycloakPermission[].class);
     } catch (ResourceAccessException e) {
       log.error(
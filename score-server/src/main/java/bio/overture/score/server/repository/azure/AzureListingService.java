@@ -21,6 +21,7 @@ import static bio.overture.score.core.util.UUIDs.isUUID;
 
 import bio.overture.score.core.model.ObjectInfo;
 import bio.overture.score.server.repository.ListingService;
+import bio.overture.score.server.util.Listings;
 import com.google.common.collect.Lists;
 import com.microsoft.azure.storage.blob.CloudBlob;
 import com.microsoft.azure.storage.blob.CloudBlobContainer;
@@ -66,6 +67,8 @@ public class AzureListingService implements ListingService {
       }
     }
 
+    // Sorted so that callers can page through the listing by object id
+    listing.sort(Listings.BY_ID);
     return listing;
   }
 
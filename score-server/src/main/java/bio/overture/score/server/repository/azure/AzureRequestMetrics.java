@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.server.repository.azure;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import bio.overture.score.server.util.RequestTimings;
+import bio.overture.score.server.util.RequestTimings.Phase;
+import com.microsoft.azure.storage.RequestCompletedEvent;
+import com.microsoft.azure.storage.StorageEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.net.HttpURLConnection;
+import lombok.NonNull;
+import lombok.val;
+
+/**
+ * Records the latency of every Azure Blob Storage call as {@code score.storage.requests}, tagged
+ * with the operation, the container and the resulting HTTP status. Unlike the S3 client, the Azure
+ * SDK reports each attempt separately, so retries are recorded individually.
+ */
+public class AzureRequestMetrics extends StorageEvent<RequestCompletedEvent> {
+
+  /** Constants. */
+  public static final String METRIC_NAME = "score.storage.requests";
+
+  private static final String UNKNOWN = "unknown";
+
+  /** Dependencies. */
+  private final MeterRegistry registry;
+
+  public AzureRequestMetrics(@NonNull MeterRegistry registry) {
+    this.registry = registry;
+  }
+
+  @Override
+  public void eventOccurred(RequestCompletedEvent event) {
+    val result = event.getRequestResult();
+    if (result == null || result.getStartDate() == null || result.getStopDate() == null) {
+      return;
+    }
+
+    String operation = UNKNOWN;
+    String container = UNKNOWN;
+    if (event.getConnectionObject() instanceof HttpURLConnection) {
+      val connection = (HttpURLConnection) event.getConnectionObject();
+      operation = getOperation(connection.getRequestMethod(), connection.getURL().getQuery());
+      container = getContainer(connection.getURL().getPath());
+    }
+
+    val millis = result.getStopDate().getTime() - result.getStartDate().getTime();
+    Timer.builder(METRIC_NAME)
+        .description("Latency of object storage calls")
+        .tag("backend", "azure")
+        .tag("operation", operation)
+        .tag("bucket", container)
+        .tag("status", String.valueOf(result.getStatusCode()))
+        .publishPercentiles(0.5, 0.95, 0.99)
+        .register(registry)
+        .record(millis, MILLISECONDS);
+    RequestTimings.record(Phase.STORAGE, MILLISECONDS.toNanos(millis));
+  }
+
+  /** Blob operations are distinguished by HTTP method and the {@code comp} query parameter. */
+  static String getOperation(String method, String query) {
+    if (query != null) {
+      for (val param : query.split("&")) {
+        if (param.startsWith("comp=")) {
+          return method + ":" + param.substring("comp=".length());
+        }
+      }
+    }
+
+    return method;
+  }
+
+  static String getContainer(String path) {
+    if (path == null || path.length() <= 1) {
+      return UNKNOWN;
+    }
+
+    val end = path.indexOf('/', 1);
+    return end < 0 ? path.substring(1) : path.substring(1, end);
+  }
+}
@@ -110,7 +110,7 @@ public class AzureUploadService implements UploadService {
   }
 
   @Override
-  public void finalizeUpload(String objectId, String uploadId) {
+  public void finalizeUpload(String objectId, String uploadId, String md5) {
     // Empty implementation - not applicable for Azure Upload since we're using the Upload
     // implementation supplied by
     // SDK
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.server.repository.s3;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Preconditions;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import java.util.Arrays;
+import lombok.Getter;
+
+/**
+ * Maps object ids onto a fixed number of buckets such that growing the pool from {@code n} to
+ * {@code m} buckets only moves about {@code (m - n) / m} of the objects.
+ *
+ * <p>Each bucket owns {@code virtualNodes} points on a 32-bit hash ring; an object belongs to the
+ * bucket owning the first point at or after the object's own hash.
+ */
+final class ConsistentHashRing {
+
+  /** Constants. */
+  private static final HashFunction HASH = Hashing.murmur3_32();
+
+  @Getter private final int size;
+  @Getter private final int virtualNodes;
+
+  /** Sorted ring points and the bucket owning each. */
+  private final int[] points;
+
+  private final int[] buckets;
+
+  ConsistentHashRing(int size, int virtualNodes) {
+    Preconditions.checkArgument(size > 0, "Ring size must be positive: %s", size);
+    Preconditions.checkArgument(
+        virtualNodes > 0, "Virtual nodes must be positive: %s", virtualNodes);
+    this.size = size;
+    this.virtualNodes = virtualNodes;
+
+    // Pack (point, bucket) so a single sort orders both
+    long[] ring = new long[size * virtualNodes];
+    int n = 0;
+    for (int bucket = 0; bucket < size; bucket++) {
+      for (int node = 0; node < virtualNodes; node++) {
+        long point = hash("bucket-" + bucket + "#" + node);
+        ring[n++] = (point << 32) | bucket;
+      }
+    }
+    Arrays.sort(ring);
+
+    this.points = new int[ring.length];
+    this.buckets = new int[ring.length];
+    for (int i = 0; i < ring.length; i++) {
+      points[i] = (int) (ring[i] >> 32);
+      buckets[i] = (int) ring[i];
+    }
+  }
+
+  int locate(String key) {
+    int i = Arrays.binarySearch(points, hash(key));
+    if (i < 0) {
+      i = -i - 1;
+    }
+
+    // Wrap around the ring
+    return buckets[i == points.length ? 0 : i];
+  }
+
+  private static int hash(String key) {
+    return HASH.hashString(key, UTF_8).asInt();
+  }
+}
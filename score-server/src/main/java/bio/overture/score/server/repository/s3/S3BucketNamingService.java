@@ -19,9 +19,14 @@ package bio.overture.score.server.repository.s3;
 
 import bio.overture.score.server.repository.BucketNamingService;
 import com.google.common.base.Preconditions;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
+import lombok.val;
 import org.apache.commons.lang.StringUtils;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -43,18 +48,69 @@ public class S3BucketNamingService implements BucketNamingService {
   @Value("${bucket.size.key}")
   private int bucketKeySize;
 
+  @Value("${bucket.partitioning:modulo}")
+  private BucketPartitioning partitioning = BucketPartitioning.MODULO;
+
+  @Value("${bucket.virtualNodes:128}")
+  private int virtualNodes = 128;
+
+  /** Layout before the last change of pool size or partitioning, while objects are rebalanced. */
+  @Value("${bucket.previous.partitioning:modulo}")
+  private BucketPartitioning previousPartitioning = BucketPartitioning.MODULO;
+
+  @Value("${bucket.previous.size.pool:0}")
+  private int previousBucketPoolSize;
+
   public static final int MAX_KEY_LENGTH = 7;
   private static Pattern P = Pattern.compile(".+\\.\\d+$");
 
+  /** Rings by pool size. */
+  @ToString.Exclude @EqualsAndHashCode.Exclude
+  private final Map<Integer, ConsistentHashRing> rings = new ConcurrentHashMap<>();
+
   int doStrategyCalculation(String objectId) {
     Preconditions.checkArgument(bucketKeySize > 0);
-    String piece = String.format("0x%s", scrubObjectKey(objectId).substring(0, bucketKeySize));
-    return Integer.decode(piece);
+    // Parses the leading hex digits in place: this runs for every bucket name lookup
+    val key = scrubObjectKey(objectId);
+    if (key.length() < bucketKeySize) {
+      throw new StringIndexOutOfBoundsException(bucketKeySize);
+    }
+
+    int value = 0;
+    for (int i = 0; i < bucketKeySize; i++) {
+      val digit = Character.digit(key.charAt(i), 16);
+      if (digit < 0 || value > (Integer.MAX_VALUE >> 4)) {
+        throw new NumberFormatException(
+            "Invalid bucket key '" + key.substring(0, bucketKeySize) + "' in " + objectId);
+      }
+      value = (value << 4) | digit;
+    }
+
+    return value;
   }
 
   int calculateIndex(String objectId) {
+    return calculateIndex(objectId, partitioning, bucketPoolSize);
+  }
+
+  int calculateIndex(String objectId, BucketPartitioning partitioning, int poolSize) {
+    if (partitioning == BucketPartitioning.CONSISTENT) {
+      return getRing(poolSize).locate(scrubObjectKey(objectId));
+    }
+
     int keyValue = doStrategyCalculation(objectId);
-    return keyValue % bucketPoolSize;
+    return keyValue % poolSize;
+  }
+
+  private ConsistentHashRing getRing(int poolSize) {
+    val ring = rings.get(poolSize);
+    if (ring != null && ring.getVirtualNodes() == virtualNodes) {
+      return ring;
+    }
+
+    val rebuilt = new ConsistentHashRing(poolSize, virtualNodes);
+    rings.put(poolSize, rebuilt);
+    return rebuilt;
   }
 
   public String getBaseObjectBucketName() {
@@ -89,6 +145,38 @@ public class S3BucketNamingService implements BucketNamingService {
     return getBucketName(objectId, stateBucketName);
   }
 
+  @Override
+  public String getPreviousObjectBucketName(String objectId) {
+    return getPreviousBucketName(objectId, objectBucketName);
+  }
+
+  @Override
+  public String getPreviousStateBucketName(String objectId) {
+    return getPreviousBucketName(objectId, stateBucketName);
+  }
+
+  /**
+   * @return {@code true} while objects may still be placed according to the previous layout
+   */
+  public boolean isMigrating() {
+    return isPartitioned()
+        && previousBucketPoolSize > 0
+        && (previousBucketPoolSize != bucketPoolSize || previousPartitioning != partitioning);
+  }
+
+  String getPreviousBucketName(String objectId, String baseName) {
+    if (!isMigrating()) {
+      return null;
+    }
+
+    val previousIndex = calculateIndex(objectId, previousPartitioning, previousBucketPoolSize);
+    if (previousIndex == calculateIndex(objectId)) {
+      return null;
+    }
+
+    return constructBucketName(baseName, previousIndex);
+  }
+
   String getBucketName(String objectId, String baseName) {
     String result = baseName; // default case where bucket pool size is 0
 
@@ -102,6 +190,14 @@ public class S3BucketNamingService implements BucketNamingService {
   }
 
   public String scrubObjectKey(String objectKey) {
+    val slash = objectKey.lastIndexOf('/');
+    if (slash < 0) {
+      return objectKey;
+    }
+    if (slash < objectKey.length() - 1) {
+      return objectKey.substring(slash + 1);
+    }
+
     String[] parts = objectKey.split("/");
     if (parts.length > 1) {
       return parts[parts.length - 1];
@@ -112,7 +208,7 @@ public class S3BucketNamingService implements BucketNamingService {
 
   public String constructBucketName(String baseName, int bucketIndex) {
     // deliberately does not pad single digits with leading 0's
-    return String.format("%s.%d", baseName, bucketIndex);
+    return baseName + "." + bucketIndex;
   }
 
   public boolean isPartitionBucket(String bucketName) {
@@ -135,7 +231,7 @@ public class S3BucketNamingService implements BucketNamingService {
       throw new IllegalArgumentException("Missing State Bucket Name configuration");
     }
 
-    if (isPartitioned() && bucketKeySize <= 0) {
+    if (isPartitioned() && partitioning == BucketPartitioning.MODULO && bucketKeySize <= 0) {
       throw new IllegalArgumentException(
           "Invalid Bucket Partitioning Configuration: negative key size: " + bucketKeySize);
     }
@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.server.repository.s3;
+
+import static bio.overture.score.core.util.UUIDs.isUUID;
+
+import bio.overture.score.core.util.ObjectKeys;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.CopyObjectRequest;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.transfer.TransferManager;
+import com.amazonaws.services.s3.transfer.TransferManagerBuilder;
+import java.io.File;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.PreDestroy;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Moves objects placed by the previous bucket layout ({@code bucket.previous.*}) to their partition
+ * bucket under the current one, using server-side copies.
+ *
+ * <p>The data object is copied before its {@code .meta} file, so an object is only ever looked up
+ * at its new placement once it is complete there. Until then reads are served from the previous
+ * placement. Source copies are kept unless {@code bucket.rebalance.deleteSource} is set, since
+ * pre-signed URLs handed out earlier may still point at them. Runs on {@code
+ * bucket.rebalance.cron}, which should be enabled on a single server only.
+ */
+@Slf4j
+@Setter
+@Service
+public class S3BucketRebalancer {
+
+  /** Constants. */
+  private static final long MAX_SINGLE_COPY_SIZE = 5L * 1024 * 1024 * 1024;
+
+  /** Configuration. */
+  @Value("${s3.data.directory}")
+  private String dataDir;
+
+  @Value("${bucket.rebalance.deleteSource:false}")
+  private boolean deleteSource;
+
+  /** Dependencies. */
+  @Autowired private AmazonS3 s3;
+
+  @Autowired private S3BucketNamingService bucketNamingService;
+  @Autowired private S3ObjectLocationIndex locationIndex;
+
+  /** State. */
+  private final AtomicBoolean running = new AtomicBoolean();
+
+  private TransferManager transferManager;
+
+  /**
+   * @return the number of objects moved
+   */
+  @Scheduled(cron = "${bucket.rebalance.cron:-}")
+  public int rebalance() {
+    if (!bucketNamingService.isMigrating()) {
+      log.info("Bucket layout unchanged, nothing to rebalance");
+      return 0;
+    }
+    if (!running.compareAndSet(false, true)) {
+      log.warn("Rebalance already in progress");
+      return 0;
+    }
+
+    int moved = 0;
+    try {
+      val baseBucketName = bucketNamingService.getBaseObjectBucketName();
+      for (int i = 0; i < bucketNamingService.getPreviousBucketPoolSize(); i++) {
+        val bucketName = bucketNamingService.constructBucketName(baseBucketName, i);
+        log.info("Rebalancing objects in bucket {}", bucketName);
+        moved += rebalanceBucket(bucketName);
+      }
+    } catch (InterruptedException e) {
+      log.warn("Rebalance interrupted after moving {} objects", moved);
+      Thread.currentThread().interrupt();
+    } finally {
+      running.set(false);
+    }
+
+    log.info("Rebalance moved {} objects", moved);
+    return moved;
+  }
+
+  private int rebalanceBucket(String bucketName) throws InterruptedException {
+    val request = new ListObjectsRequest().withBucketName(bucketName).withPrefix(dataDir);
+
+    int moved = 0;
+    ObjectListing listing;
+    do {
+      listing = s3.listObjects(request);
+      String lastKey = null;
+      for (val objectSummary : listing.getObjectSummaries()) {
+        lastKey = objectSummary.getKey();
+        val objectId = new File(lastKey).getName();
+
+        // Only objects placed here by the previous layout, and not by the current one
+        if (isUUID(objectId)
+            && bucketName.equals(bucketNamingService.getPreviousObjectBucketName(objectId))) {
+          try {
+            move(objectId, objectSummary.getSize());
+            moved++;
+          } catch (AmazonServiceException e) {
+            log.error("Error moving objectId {} from {}: {}", objectId, bucketName, e);
+          }
+        }
+      }
+
+      request.setMarker(listing.getNextMarker() != null ? listing.getNextMarker() : lastKey);
+    } while (listing.isTruncated());
+
+    return moved;
+  }
+
+  void move(String objectId, long size) throws InterruptedException {
+    val objectKey = ObjectKeys.getObjectKey(dataDir, objectId);
+    val sourceBucketName = bucketNamingService.getPreviousObjectBucketName(objectId);
+    val sourceStateBucketName = bucketNamingService.getPreviousStateBucketName(objectId);
+    val targetBucketName = bucketNamingService.getObjectBucketName(objectId);
+    val targetStateBucketName = bucketNamingService.getStateBucketName(objectId);
+
+    // Already there (e.g. re-uploaded since the layout changed): never overwrite
+    if (!exists(targetStateBucketName, objectKey.getMetaKey())) {
+      log.info("Moving objectId {} from {} to {}", objectId, sourceBucketName, targetBucketName);
+      copy(
+          new CopyObjectRequest(
+              sourceBucketName, objectKey.getKey(), targetBucketName, objectKey.getKey()),
+          size);
+
+      if (exists(sourceStateBucketName, objectKey.getMetaKey())) {
+        s3.copyObject(
+            sourceStateBucketName,
+            objectKey.getMetaKey(),
+            targetStateBucketName,
+            objectKey.getMetaKey());
+      }
+    }
+    locationIndex.markStored(objectId);
+
+    if (deleteSource) {
+      s3.deleteObject(sourceStateBucketName, objectKey.getMetaKey());
+      s3.deleteObject(sourceBucketName, objectKey.getKey());
+    }
+  }
+
+  private void copy(CopyObjectRequest request, long size) throws InterruptedException {
+    if (size <= MAX_SINGLE_COPY_SIZE) {
+      s3.copyObject(request);
+    } else {
+      // Multipart copy
+      getTransferManager().copy(request).waitForCopyResult();
+    }
+  }
+
+  private boolean exists(String bucketName, String key) {
+    try {
+      s3.getObjectMetadata(bucketName, key);
+      return true;
+    } catch (AmazonServiceException e) {
+      if (e.getStatusCode() == HttpStatus.NOT_FOUND.value()) {
+        return false;
+      }
+
+      throw e;
+    }
+  }
+
+  private synchronized TransferManager getTransferManager() {
+    if (transferManager == null) {
+      transferManager =
+          TransferManagerBuilder.standard()
+              .withS3Client(s3)
+              .withMultipartCopyThreshold(MAX_SINGLE_COPY_SIZE)
+              .build();
+    }
+
+    return transferManager;
+  }
+
+  @PreDestroy
+  public synchronized void shutdown() {
+    if (transferManager != null) {
+      // Leave the shared client open
+      transferManager.shutdownNow(false);
+    }
+  }
+}
@@ -32,10 +32,12 @@ import bio.overture.score.server.exception.InternalUnrecoverableError;
 import bio.overture.score.server.exception.NotRetryableException;
 import bio.overture.score.server.exception.RetryableException;
 import bio.overture.score.server.metadata.MetadataEntity;
+import bio.overture.score.server.metadata.MetadataRequestContext;
 import bio.overture.score.server.metadata.MetadataService;
 import bio.overture.score.server.repository.BucketNamingService;
 import bio.overture.score.server.repository.DownloadService;
 import bio.overture.score.server.repository.URLGenerator;
+import bio.overture.score.server.repository.s3.S3ObjectLocationIndex.Placement;
 import com.amazonaws.AmazonServiceException;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.GetObjectRequest;
@@ -44,6 +46,8 @@ import com.amazonaws.services.s3.model.S3Object;
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
@@ -90,13 +94,28 @@ public class S3DownloadService implements DownloadService {
   @Autowired private PartCalculator partCalculator;
   @Autowired private MetadataService metadataService;
   @Autowired private S3Config s3config;
+  @Autowired private S3ObjectLocationIndex locationIndex;
+
+  private final MeterRegistry registry;
+
+  /** State. */
+  private final Timer metaParseTimer;
+
+  public S3DownloadService(@Autowired MeterRegistry registry) {
+    this.registry = registry;
+    this.metaParseTimer =
+        Timer.builder("score.meta.parse")
+            .description("Time spent reading and parsing .meta object specifications")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(registry);
+  }
 
   @Override
   public ObjectSpecification download(
       String objectId, long offset, long length, boolean forExternalUse, boolean excludeUrls) {
     try {
       if (!excludeUrls) {
-        checkPublishedAnalysisState(metadataService.getEntity(objectId));
+        checkPublishedAnalysisState(MetadataRequestContext.getEntity(metadataService, objectId));
       }
       checkArgument(offset > -1L);
 
@@ -118,7 +137,7 @@ public class S3DownloadService implements DownloadService {
         } else {
           parts = partCalculator.divide(offset, length);
         }
-        fillPartUrls(objectKey, parts, false, forExternalUse);
+        fillPartUrls(objectKey, parts, Placement.CURRENT, forExternalUse);
 
         val md5 = getObjectMd5(metadata);
 
@@ -166,7 +185,9 @@ public class S3DownloadService implements DownloadService {
         parts = partCalculator.divide(offset, length);
       }
 
-      fillPartUrls(objectKey, parts, objectSpec.isRelocated(), forExternalUse);
+      Placement placement =
+          objectSpec.isRelocated() ? Placement.BASE : locationIndex.getPlacement(objectId);
+      fillPartUrls(objectKey, parts, placement, forExternalUse);
 
       val spec =
           new ObjectSpecification(
@@ -230,7 +251,7 @@ public class S3DownloadService implements DownloadService {
   void checkPublishedAnalysisState(MetadataEntity entity) {
     if (!useLegacyMode) {
       val objectId = entity.getId();
-      val analysisState = metadataService.getAnalysisStateForMetadata(entity);
+      val analysisState = MetadataRequestContext.getAnalysisState(metadataService, entity);
       if (!analysisState.equals(PUBLISHED_ANALYSIS_STATE)) {
         val message =
             String.format(
@@ -262,7 +283,7 @@ public class S3DownloadService implements DownloadService {
       spec.setRelocated(obj.isRelocated());
 
       // We do this now in case we are returning it immediately in download() call
-      fillPartUrls(objectKey, spec.getParts(), obj.isRelocated(), false);
+      fillPartUrls(objectKey, spec.getParts(), obj.getPlacement(), false);
 
       return spec;
     } catch (JsonParseException | JsonMappingException e) {
@@ -289,7 +310,12 @@ public class S3DownloadService implements DownloadService {
   private ObjectSpecification readSpecification(S3Object obj)
       throws JsonParseException, JsonMappingException, IOException {
     @Cleanup val inputStream = obj.getObjectContent();
-    return MAPPER.readValue(inputStream, ObjectSpecification.class);
+    val sample = Timer.start(registry);
+    try {
+      return MAPPER.readValue(inputStream, ObjectSpecification.class);
+    } finally {
+      sample.stop(metaParseTimer);
+    }
   }
 
   /*
@@ -316,38 +342,53 @@ public class S3DownloadService implements DownloadService {
    * Retrieve meta file object
    */
   private S3FetchedObject getObject(String objectId, String objectMetaKey) {
+    if (bucketNamingService.isPartitioned()) {
+      if (locationIndex.isMissing(objectId)) {
+        throw new IdNotFoundException(objectId);
+      }
+
+      Placement placement = locationIndex.getPlacement(objectId);
+      if (placement != Placement.CURRENT) {
+        S3FetchedObject obj = fetchObject(objectId, objectMetaKey, placement);
+        if (obj != null) {
+          return obj;
+        }
+
+        // Moved since it was indexed, e.g. re-uploaded or rebalanced through another server
+        locationIndex.markStored(objectId);
+      }
+    }
+
     String stateBucketName = bucketNamingService.getStateBucketName(objectId);
     try {
       return fetchObject(stateBucketName, objectMetaKey);
     } catch (AmazonServiceException e) {
       if (e.getStatusCode() == HttpStatus.NOT_FOUND.value()) {
         if (bucketNamingService.isPartitioned()) {
+          // Not rebalanced yet
+          if (bucketNamingService.getPreviousStateBucketName(objectId) != null) {
+            S3FetchedObject obj = fetchObject(objectId, objectMetaKey, Placement.PREVIOUS);
+            if (obj != null) {
+              locationIndex.markPrevious(objectId);
+              return obj;
+            }
+          }
+
           // Try again with master bucket
-          log.warn(
-              "Object with objectId: {} not found in {}, objectKey: {}: {}. Trying master bucket {}",
+          log.info(
+              "Object with objectId: {} not found in {}, objectKey: {}. Trying master bucket {}",
               objectId,
               stateBucketName,
               objectMetaKey,
-              e,
               bucketNamingService.getBaseStateBucketName());
-          try {
-            stateBucketName = bucketNamingService.getBaseStateBucketName(); // use base bucket name
-            val obj = fetchObject(stateBucketName, objectMetaKey);
-            obj.setRelocated(true);
-            return obj;
-          } catch (AmazonServiceException e2) {
-            log.error(
-                "Failed to get object with objectId: {} from {}, objectKey: {}: {}",
-                objectId,
-                stateBucketName,
-                objectMetaKey,
-                e);
-            if ((e.getStatusCode() == HttpStatus.NOT_FOUND.value()) || (!e.isRetryable())) {
-              throw new IdNotFoundException(objectId);
-            } else {
-              throw new RetryableException(e);
-            }
+          S3FetchedObject obj = fetchObject(objectId, objectMetaKey, Placement.BASE);
+          if (obj == null) {
+            locationIndex.markMissing(objectId);
+            throw new IdNotFoundException(objectId);
           }
+
+          locationIndex.markRelocated(objectId);
+          return obj;
         } else {
           // Not a partitioned bucket - not found is not found
           throw new IdNotFoundException(objectId);
@@ -363,6 +404,56 @@ public class S3DownloadService implements DownloadService {
     }
   }
 
+  /*
+   * Retrieve meta file object from a bucket other than its partition, or null if it isn't there
+   */
+  private S3FetchedObject fetchObject(String objectId, String objectMetaKey, Placement placement) {
+    val stateBucketName = getStateBucketName(objectId, placement);
+    try {
+      val obj = fetchObject(stateBucketName, objectMetaKey);
+      obj.setPlacement(placement);
+      return obj;
+    } catch (AmazonServiceException e) {
+      if (e.getStatusCode() == HttpStatus.NOT_FOUND.value()) {
+        return null;
+      }
+
+      log.error(
+          "Failed to get object with objectId: {} from {}, objectKey: {}: {}",
+          objectId,
+          stateBucketName,
+          objectMetaKey,
+          e);
+      if (e.isRetryable()) {
+        throw new RetryableException(e);
+      } else {
+        throw new IdNotFoundException(objectId);
+      }
+    }
+  }
+
+  private String getStateBucketName(String objectId, Placement placement) {
+    switch (placement) {
+      case BASE:
+        return bucketNamingService.getBaseStateBucketName();
+      case PREVIOUS:
+        return bucketNamingService.getPreviousStateBucketName(objectId);
+      default:
+        return bucketNamingService.getStateBucketName(objectId);
+    }
+  }
+
+  private String getObjectBucketName(String objectId, Placement placement) {
+    switch (placement) {
+      case BASE:
+        return bucketNamingService.getObjectBucketName(objectId, true);
+      case PREVIOUS:
+        return bucketNamingService.getPreviousObjectBucketName(objectId);
+      default:
+        return bucketNamingService.getObjectBucketName(objectId);
+    }
+  }
+
   private S3FetchedObject fetchObject(String bucketName, String objectMetaKey) {
     // Perform actual retrieval of object from S3/ObjectStore
     val request = new GetObjectRequest(bucketName, objectMetaKey);
@@ -370,25 +461,17 @@ public class S3DownloadService implements DownloadService {
   }
 
   private void fillPartUrls(
-      ObjectKey objectKey, List<Part> parts, boolean isRelocated, boolean forExternalUse) {
+      ObjectKey objectKey, List<Part> parts, Placement placement, boolean forExternalUse) {
     // Construct pre-signed URL's for data objects (the /data bucket)
     val expirationDate = getExpirationDate();
+    val bucketName = getObjectBucketName(objectKey.getObjectId(), placement);
 
     for (val part : parts) {
       if (forExternalUse) {
         // There should only be one part - don't include RANGE header in pre-signed URL
-        part.setUrl(
-            urlGenerator.getDownloadUrl(
-                bucketNamingService.getObjectBucketName(objectKey.getObjectId(), isRelocated),
-                objectKey,
-                expirationDate));
+        part.setUrl(urlGenerator.getDownloadUrl(bucketName, objectKey, expirationDate));
       } else {
-        part.setUrl(
-            urlGenerator.getDownloadPartUrl(
-                bucketNamingService.getObjectBucketName(objectKey.getObjectId(), isRelocated),
-                objectKey,
-                part,
-                expirationDate));
+        part.setUrl(urlGenerator.getDownloadPartUrl(bucketName, objectKey, part, expirationDate));
       }
     }
   }
@@ -17,6 +17,7 @@
  */
 package bio.overture.score.server.repository.s3;
 
+import bio.overture.score.server.repository.s3.S3ObjectLocationIndex.Placement;
 import com.amazonaws.services.s3.model.S3Object;
 import lombok.Data;
 
@@ -25,9 +26,16 @@ import lombok.Data;
 public class S3FetchedObject {
 
   private S3Object s3Object;
-  private boolean relocated = false;
+  private Placement placement = Placement.CURRENT;
 
   public S3FetchedObject(S3Object s3obj) {
     s3Object = s3obj;
   }
+
+  /**
+   * @return {@code true} if the object was found in the base bucket
+   */
+  public boolean isRelocated() {
+    return placement == Placement.BASE;
+  }
 }
@@ -21,6 +21,7 @@ import static bio.overture.score.core.util.UUIDs.isUUID;
 
 import bio.overture.score.core.model.ObjectInfo;
 import bio.overture.score.server.repository.ListingService;
+import bio.overture.score.server.util.Listings;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.AmazonS3Exception;
 import com.amazonaws.services.s3.model.ListObjectsRequest;
@@ -30,6 +31,7 @@ import com.google.common.collect.Lists;
 import java.io.File;
 import java.util.List;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
@@ -55,6 +57,7 @@ public class S3ListingService implements ListingService {
   @Autowired private AmazonS3 s3;
 
   @Autowired private S3BucketNamingService bucketNamingService;
+  @Autowired private S3ObjectLocationIndex locationIndex;
 
   /*
    * (non-Javadoc)
@@ -78,15 +81,37 @@ public class S3ListingService implements ListingService {
       }
     }
 
+    val relocatedCount = listing.size();
     int bucketPartitions =
         bucketNamingService.getBucketPoolSize() <= 0 ? 0 : bucketNamingService.getBucketPoolSize();
     for (int i = 0; i < bucketPartitions; i++) {
       listing.addAll(listBucketContents(bucketNamingService.constructBucketName(bucketName, i)));
     }
+    if (bucketNamingService.isPartitioned()) {
+      indexRelocated(listing, relocatedCount);
+    }
 
+    // Sorted so that callers can page through the listing by object id
+    listing.sort(Listings.BY_ID);
     return listing;
   }
 
+  /**
+   * Objects only in the base bucket are served from there without probing their partition first.
+   */
+  private void indexRelocated(List<ObjectInfo> listing, int relocatedCount) {
+    val partitioned =
+        listing.subList(relocatedCount, listing.size()).stream()
+            .map(ObjectInfo::getId)
+            .collect(Collectors.toSet());
+    val relocated =
+        listing.subList(0, relocatedCount).stream()
+            .map(ObjectInfo::getId)
+            .filter(id -> !partitioned.contains(id))
+            .collect(Collectors.toList());
+    locationIndex.markRelocated(relocated);
+  }
+
   private List<ObjectInfo> listBucketContents(String bucket) {
     val listing = Lists.<ObjectInfo>newArrayList();
     readBucket(
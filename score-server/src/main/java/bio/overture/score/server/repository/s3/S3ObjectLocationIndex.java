@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.server.repository.s3;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Remembers where objects live when buckets are partitioned ({@code bucket.size.pool > 0}).
+ *
+ * <p>Objects uploaded before partitioning was enabled live in the base bucket, and every lookup for
+ * them used to probe the partitioned bucket first, costing an extra round trip and a 404. The
+ * (finite) set of such relocated objects is kept exactly: it is learnt from the first 404 and from
+ * the object listing. Likewise, while objects are being rebalanced to a new layout (see {@link
+ * S3BucketRebalancer}), objects found at their previous placement are remembered until moved.
+ *
+ * <p>Downloads may also remember objects found in neither bucket for {@code
+ * bucket.index.missingTtl} seconds so that repeated lookups of missing objects don't hit the object
+ * store at all. Only the server finalizing an upload forgets such a miss, so this is off by default
+ * and only safe on a single node. Uploads never rely on it.
+ */
+@Slf4j
+@Service
+public class S3ObjectLocationIndex implements MeterBinder {
+
+  /** Where an object lives, if not in its partition bucket. */
+  public enum Placement {
+    /** The partition bucket of the current layout */
+    CURRENT,
+    /** The partition bucket of the previous layout, until rebalanced */
+    PREVIOUS,
+    /** The base bucket, for objects uploaded before partitioning */
+    BASE
+  }
+
+  /** State. */
+  private final Map<String, Placement> placements = new ConcurrentHashMap<>();
+
+  private final Cache<String, Boolean> missing;
+
+  public S3ObjectLocationIndex() {
+    this(0, 100_000);
+  }
+
+  @Autowired
+  public S3ObjectLocationIndex(
+      @Value("${bucket.index.missingTtl:0}") long missingTtlSeconds,
+      @Value("${bucket.index.missingMaximumSize:100000}") long missingMaximumSize) {
+    this.missing =
+        CacheBuilder.newBuilder()
+            .maximumSize(missingMaximumSize)
+            .expireAfterWrite(missingTtlSeconds, TimeUnit.SECONDS)
+            .recordStats()
+            .build();
+  }
+
+  @Override
+  public void bindTo(@NonNull MeterRegistry registry) {
+    GuavaCacheMetrics.monitor(registry, missing, "bucket.index.missing");
+    for (Placement placement : EnumSet.of(Placement.PREVIOUS, Placement.BASE)) {
+      Gauge.builder("score.bucket.index.placements", placements, p -> count(p, placement))
+          .description("Objects known to live outside their partition bucket")
+          .tag("placement", placement.name())
+          .register(registry);
+    }
+  }
+
+  public Placement getPlacement(@NonNull String objectId) {
+    return placements.getOrDefault(objectId, Placement.CURRENT);
+  }
+
+  /**
+   * @return {@code true} if the object is known to live in the base bucket
+   */
+  public boolean isRelocated(@NonNull String objectId) {
+    return getPlacement(objectId) == Placement.BASE;
+  }
+
+  /**
+   * @return {@code true} if the object was recently found in neither bucket
+   */
+  public boolean isMissing(@NonNull String objectId) {
+    return missing.getIfPresent(objectId) != null;
+  }
+
+  public void markRelocated(@NonNull String objectId) {
+    mark(objectId, Placement.BASE);
+  }
+
+  public void markRelocated(@NonNull Collection<String> objectIds) {
+    objectIds.forEach(objectId -> placements.put(objectId, Placement.BASE));
+    missing.invalidateAll(objectIds);
+    log.debug("Indexed {} objects in the base bucket", objectIds.size());
+  }
+
+  public void markPrevious(@NonNull String objectId) {
+    mark(objectId, Placement.PREVIOUS);
+  }
+
+  public void markMissing(@NonNull String objectId) {
+    missing.put(objectId, Boolean.TRUE);
+  }
+
+  /** Records an object stored in its partition bucket, by a completed upload or a rebalance. */
+  public void markStored(@NonNull String objectId) {
+    placements.remove(objectId);
+    missing.invalidate(objectId);
+  }
+
+  private static double count(Map<String, Placement> placements, Placement placement) {
+    return placements.values().stream().filter(placement::equals).count();
+  }
+
+  private void mark(String objectId, Placement placement) {
+    placements.put(objectId, placement);
+    missing.invalidate(objectId);
+  }
+}
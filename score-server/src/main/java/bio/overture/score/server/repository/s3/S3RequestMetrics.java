@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.server.repository.s3;
+
+import bio.overture.score.server.util.RequestTimings;
+import bio.overture.score.server.util.RequestTimings.Phase;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.Request;
+import com.amazonaws.Response;
+import com.amazonaws.handlers.HandlerContextKey;
+import com.amazonaws.handlers.RequestHandler2;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.NonNull;
+import lombok.val;
+
+/**
+ * Records the latency of every S3 SDK call as {@code score.storage.requests}, tagged with the
+ * operation, the bucket and the resulting HTTP status. Retries made by the SDK are included in the
+ * recorded time of the originating call.
+ */
+public class S3RequestMetrics extends RequestHandler2 {
+
+  /** Constants. */
+  public static final String METRIC_NAME = "score.storage.requests";
+
+  private static final HandlerContextKey<Timer.Sample> SAMPLE =
+      new HandlerContextKey<>(S3RequestMetrics.class.getName());
+
+  private static final String UNKNOWN = "unknown";
+
+  /** Dependencies. */
+  private final MeterRegistry registry;
+
+  public S3RequestMetrics(@NonNull MeterRegistry registry) {
+    this.registry = registry;
+  }
+
+  @Override
+  public void beforeRequest(Request<?> request) {
+    request.addHandlerContext(SAMPLE, Timer.start(registry));
+  }
+
+  @Override
+  public void afterResponse(Request<?> request, Response<?> response) {
+    val status =
+        response == null || response.getHttpResponse() == null
+            ? UNKNOWN
+            : String.valueOf(response.getHttpResponse().getStatusCode());
+    record(request, status);
+  }
+
+  @Override
+  public void afterError(Request<?> request, Response<?> response, Exception e) {
+    val status =
+        e instanceof AmazonServiceException
+            ? String.valueOf(((AmazonServiceException) e).getStatusCode())
+            : "CLIENT_ERROR";
+    record(request, status);
+  }
+
+  private void record(Request<?> request, String status) {
+    val sample = request.getHandlerContext(SAMPLE);
+    if (sample == null) {
+      return;
+    }
+
+    val nanos =
+        sample.stop(
+            Timer.builder(METRIC_NAME)
+                .description("Latency of object storage calls")
+                .tag("backend", "s3")
+                .tag("operation", getOperation(request))
+                .tag("bucket", getBucket(request.getResourcePath()))
+                .tag("status", status)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry));
+    RequestTimings.record(Phase.STORAGE, nanos);
+  }
+
+  static String getOperation(Request<?> request) {
+    val original = request.getOriginalRequest();
+    if (original == null) {
+      return request.getHttpMethod().name();
+    }
+
+    val name = original.getClass().getSimpleName();
+    return name.endsWith("Request") ? name.substring(0, name.length() - "Request".length()) : name;
+  }
+
+  /** Path style access puts the bucket in the first segment of the resource path. */
+  static String getBucket(String resourcePath) {
+    if (resourcePath == null || resourcePath.isEmpty()) {
+      return UNKNOWN;
+    }
+
+    val start = resourcePath.charAt(0) == '/' ? 1 : 0;
+    val end = resourcePath.indexOf('/', start);
+    val bucket = end < 0 ? resourcePath.substring(start) : resourcePath.substring(start, end);
+    return bucket.isEmpty() ? UNKNOWN : bucket;
+  }
+}
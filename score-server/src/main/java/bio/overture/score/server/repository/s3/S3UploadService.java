@@ -1,18 +1,22 @@
 package bio.overture.score.server.repository.s3;
 
 import static bio.overture.score.server.metadata.MetadataService.getAnalysisId;
+import static com.google.common.base.Strings.isNullOrEmpty;
 
 import bio.overture.score.core.model.ObjectKey;
 import bio.overture.score.core.model.ObjectSpecification;
 import bio.overture.score.core.model.UploadProgress;
+import bio.overture.score.core.util.MD5s;
 import bio.overture.score.core.util.ObjectKeys;
 import bio.overture.score.core.util.PartCalculator;
 import bio.overture.score.server.config.S3Config;
+import bio.overture.score.server.exception.ChecksumMismatchException;
 import bio.overture.score.server.exception.IdNotFoundException;
 import bio.overture.score.server.exception.InternalUnrecoverableError;
 import bio.overture.score.server.exception.NotRetryableException;
 import bio.overture.score.server.exception.RetryableException;
 import bio.overture.score.server.metadata.MetadataEntity;
+import bio.overture.score.server.metadata.MetadataRequestContext;
 import bio.overture.score.server.metadata.MetadataService;
 import bio.overture.score.server.repository.URLGenerator;
 import bio.overture.score.server.repository.UploadPartDetail;
@@ -81,6 +85,7 @@ public class S3UploadService implements UploadService {
   @Autowired private UploadStateStore stateStore;
   @Autowired private URLGenerator urlGenerator;
   @Autowired private PartCalculator partCalculator;
+  @Autowired private S3ObjectLocationIndex locationIndex;
 
   @Override
   public ObjectSpecification initiateUpload(
@@ -153,34 +158,55 @@ public class S3UploadService implements UploadService {
   @Override
   public boolean exists(@NonNull String objectId) {
     val objectKey = ObjectKeys.getObjectKey(dataDir, objectId);
+    // Never trust a remembered miss here: another node may have stored the object since
+    if (bucketNamingService.isPartitioned()) {
+      if (locationIndex.isRelocated(objectId)
+          && existsInBucket(bucketNamingService.getBaseStateBucketName(), objectKey)) {
+        return true;
+      }
+    }
+
     String actualBucketName = bucketNamingService.getStateBucketName(objectId);
+    if (existsInBucket(actualBucketName, objectKey)) {
+      return true;
+    }
+
+    if (bucketNamingService.isPartitioned()) {
+      // Not rebalanced yet
+      val previousBucketName = bucketNamingService.getPreviousStateBucketName(objectId);
+      if (previousBucketName != null && existsInBucket(previousBucketName, objectKey)) {
+        locationIndex.markPrevious(objectId);
+        return true;
+      }
+
+      // Try again with master bucket
+      log.info(
+          "Metafile {} not found in {}. Trying master bucket {}",
+          objectKey.getMetaKey(),
+          actualBucketName,
+          bucketNamingService.getBaseStateBucketName());
+      actualBucketName = bucketNamingService.getBaseStateBucketName(); // use base bucket name
+      if (existsInBucket(actualBucketName, objectKey)) {
+        log.info("ObjectKey {} found in master bucket {}", objectKey, actualBucketName);
+        locationIndex.markRelocated(objectId);
+        return true;
+      }
+
+      log.info("ObjectKey {} also not found in master bucket {}", objectKey, actualBucketName);
+    } else {
+      // Not a partitioned bucket - not found is not found
+    }
+
+    return false;
+  }
+
+  private boolean existsInBucket(String bucketName, ObjectKey objectKey) {
     try {
-      s3Client.getObjectMetadata(actualBucketName, objectKey.getMetaKey());
+      s3Client.getObjectMetadata(bucketName, objectKey.getMetaKey());
       return true;
     } catch (AmazonServiceException e) {
-
       if (e.getStatusCode() == HttpStatus.NOT_FOUND.value()) {
-        if (bucketNamingService.isPartitioned()) {
-
-          // Try again with master bucket
-          log.info(
-              "Metafile {} not found in {}. Trying master bucket {}",
-              objectKey.getMetaKey(),
-              actualBucketName,
-              bucketNamingService.getBaseStateBucketName());
-          try {
-            actualBucketName = bucketNamingService.getBaseStateBucketName(); // use base bucket name
-            s3Client.getObjectMetadata(actualBucketName, objectKey.getMetaKey());
-            log.info("ObjectKey {} found in master bucket {}", objectKey, actualBucketName);
-            return true;
-          } catch (AmazonServiceException e2) {
-            log.info(
-                "ObjectKey {} also not found in master bucket {}", objectKey, actualBucketName);
-            return false;
-          }
-        } else {
-          // Not a partitioned bucket - not found is not found
-        }
+        return false;
       } else if (e.isRetryable()) {
         // Don't depend on Amazon's isRetryable() flag...
         // (we originally defaulted to retry everything)
@@ -190,7 +216,6 @@ public class S3UploadService implements UploadService {
         throw new NotRetryableException(e);
       }
     }
-    return false;
   }
 
   private boolean isPartExists(
@@ -258,7 +283,7 @@ public class S3UploadService implements UploadService {
   }
 
   @Override
-  public void finalizeUpload(String objectId, String uploadId) {
+  public void finalizeUpload(String objectId, String uploadId, String md5) {
     log.info("finalizing object id {} with upload id: {}", objectId, uploadId);
 
     val actualBucketName = bucketNamingService.getObjectBucketName(objectId);
@@ -267,6 +292,25 @@ public class S3UploadService implements UploadService {
     try {
       if (stateStore.isCompleted(objectId, uploadId)) {
 
+        val spec = stateStore.read(objectId, uploadId);
+        if (!isNullOrEmpty(md5)) {
+          // Checked before completing, so a mismatched upload can still be redone
+          if (isNullOrEmpty(spec.getObjectMd5())) {
+            spec.setObjectMd5(md5);
+          } else if (!MD5s.isEqual(spec.getObjectMd5(), md5)) {
+            log.error(
+                "Upload of {} cannot be finalized: client MD5 {} does not match expected {}",
+                objectId,
+                md5,
+                spec.getObjectMd5());
+            // Sending the same object again cannot fix it, so the client gives up on a conflict
+            throw new ChecksumMismatchException(
+                String.format(
+                    "Object %s has MD5 %s but %s was expected",
+                    objectId, md5, spec.getObjectMd5()));
+          }
+        }
+
         val details = stateStore.getUploadStatePartDetails(objectId, uploadId);
         val etags =
             details.values().stream().map(detail -> detail.getEtag()).collect(Collectors.toList());
@@ -293,7 +337,6 @@ public class S3UploadService implements UploadService {
           throw e;
         }
 
-        val spec = stateStore.read(objectId, uploadId);
         // Update meta with md5's
         spec.getParts()
             .forEach(
@@ -313,6 +356,7 @@ public class S3UploadService implements UploadService {
                 + ": "
                 + objectMetaKey.toString());
         s3Client.putObject(actualStateBucketName, objectMetaKey, data, meta);
+        locationIndex.markStored(objectId);
         // Delete working files in upload directory
         log.debug("About to delete working files from state directory");
         stateStore.delete(objectId, uploadId);
@@ -433,7 +477,7 @@ public class S3UploadService implements UploadService {
   }
 
   void checkRegistered(String objectId) {
-    val entity = metadataClient.getEntity(objectId);
+    val entity = MetadataRequestContext.getEntity(metadataClient, objectId);
     if (!entity.getId().equals(objectId)) {
       val message =
           String.format(
@@ -451,7 +495,7 @@ public class S3UploadService implements UploadService {
 
   void checkUnpublishedAnalysisState(MetadataEntity entity) {
     val objectId = entity.getId();
-    val analysisState = metadataClient.getAnalysisStateForMetadata(entity);
+    val analysisState = MetadataRequestContext.getAnalysisState(metadataClient, entity);
     if (!analysisState.equals(UNPUBLISHED_ANALYSIS_STATE)) {
       val message =
           String.format(
@@ -3,24 +3,31 @@ package bio.overture.score.server.security;
 import static org.springframework.http.HttpStatus.Series.CLIENT_ERROR;
 import static org.springframework.http.HttpStatus.Series.SERVER_ERROR;
 
+import bio.overture.score.server.security.TokenCache.Expiring;
 import bio.overture.score.server.util.JsonUtils;
+import bio.overture.score.server.util.RequestTimings;
+import bio.overture.score.server.util.RequestTimings.Phase;
 import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import java.io.IOException;
+import java.time.Instant;
 import java.util.*;
-import lombok.AllArgsConstructor;
+import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
+import org.apache.http.client.HttpClient;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.oauth2.core.OAuth2AuthenticatedPrincipal;
 import org.springframework.security.oauth2.server.resource.introspection.BadOpaqueTokenException;
-import org.springframework.security.oauth2.server.resource.introspection.OAuth2IntrospectionAuthenticatedPrincipal;
 import org.springframework.security.oauth2.server.resource.introspection.OAuth2IntrospectionException;
 import org.springframework.security.oauth2.server.resource.introspection.OpaqueTokenIntrospector;
 import org.springframework.util.LinkedMultiValueMap;
@@ -30,16 +37,55 @@ import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
 @Slf4j
-@AllArgsConstructor
 public class ApiKeyIntrospector implements OpaqueTokenIntrospector {
 
-  private String introspectionUri;
-  private String clientId;
-  private String clientSecret;
-  private String tokenName;
+  private final String introspectionUri;
+  private final String clientId;
+  private final String clientSecret;
+  private final String tokenName;
+
+  /** Dependencies. */
+  private final RestTemplate template;
+
+  private final TokenCache<OAuth2AuthenticatedPrincipal> cache;
+  private final Timer timer;
+
+  public ApiKeyIntrospector(
+      @NonNull String introspectionUri,
+      @NonNull String clientId,
+      @NonNull String clientSecret,
+      @NonNull String tokenName,
+      @NonNull HttpClient httpClient,
+      @NonNull TokenCache<OAuth2AuthenticatedPrincipal> cache,
+      @NonNull MeterRegistry registry) {
+    this.introspectionUri = introspectionUri;
+    this.clientId = clientId;
+    this.clientSecret = clientSecret;
+    this.tokenName = tokenName;
+    this.cache = cache;
+    this.timer =
+        Timer.builder("score.auth.introspection")
+            .description("Latency of token checks against the authorization server")
+            .tag("provider", "ego")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(registry);
+
+    this.template = new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+    this.template.setErrorHandler(new RestTemplateResponseErrorHandler());
+  }
 
   @Override
   public OAuth2AuthenticatedPrincipal introspect(String token) {
+    return RequestTimings.time(
+        Phase.AUTH, () -> cache.get(token, () -> timer.record(() -> check(token))));
+  }
+
+  /** Evicts a revoked token so that the next request using it is checked again. */
+  public void invalidate(String token) {
+    cache.invalidate(token);
+  }
+
+  private Expiring<OAuth2AuthenticatedPrincipal> check(String token) {
 
     // Add token to body
     MultiValueMap<String, String> formData = new LinkedMultiValueMap<>();
@@ -49,8 +95,6 @@ public class ApiKeyIntrospector implements OpaqueTokenIntrospector {
     val uriWithToken = UriComponentsBuilder.fromHttpUrl(introspectionUri).build().toUri();
 
     // Get response from Auth Server
-    val template = new RestTemplate();
-    template.setErrorHandler(new RestTemplateResponseErrorHandler());
     val response =
         template.postForEntity(
             uriWithToken, new HttpEntity<>(formData, getBasicAuthHeader()), JsonNode.class);
@@ -71,7 +115,12 @@ public class ApiKeyIntrospector implements OpaqueTokenIntrospector {
     }
 
     // ApiKey check is successful. Build authenticated principal and return.
-    return convertResponseToPrincipal(responseBody);
+    return Expiring.of(convertResponseToPrincipal(responseBody), getExpiry(responseBody));
+  }
+
+  private static Instant getExpiry(JsonNode response) {
+    // "exp" is in epoch seconds
+    return response.has("exp") ? Instant.ofEpochSecond(response.get("exp").asLong()) : null;
   }
 
   private HttpHeaders getBasicAuthHeader() {
@@ -127,7 +176,7 @@ public class ApiKeyIntrospector implements OpaqueTokenIntrospector {
       }
     }
 
-    return new OAuth2IntrospectionAuthenticatedPrincipal(claims, authorities);
+    return new ScopedApiKeyPrincipal(claims, authorities, ScopeSet.of(response.getScope()));
   }
 
   public class RestTemplateResponseErrorHandler implements ResponseErrorHandler {
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.server.security;
+
+import static java.util.Locale.ROOT;
+
+import com.google.common.collect.ForwardingSet;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import java.util.Collection;
+import java.util.Set;
+import lombok.NonNull;
+import lombok.val;
+
+/**
+ * Immutable, case-insensitive set of granted scopes.
+ *
+ * <p>Scopes are normalized and interned once when a token is authenticated, so that the scope
+ * checks made for each object are plain hash lookups and the thousands of cached principals share
+ * the same few scope strings.
+ */
+public final class ScopeSet extends ForwardingSet<String> {
+
+  /** Constants. */
+  private static final Interner<String> INTERNER = Interners.newWeakInterner();
+
+  private static final ScopeSet EMPTY = new ScopeSet(ImmutableSet.of());
+
+  /** State. */
+  private final ImmutableSet<String> scopes;
+
+  private ScopeSet(ImmutableSet<String> scopes) {
+    this.scopes = scopes;
+  }
+
+  public static ScopeSet empty() {
+    return EMPTY;
+  }
+
+  public static ScopeSet of(@NonNull Collection<String> scopes) {
+    if (scopes instanceof ScopeSet) {
+      return (ScopeSet) scopes;
+    }
+    if (scopes.isEmpty()) {
+      return EMPTY;
+    }
+
+    val builder = ImmutableSet.<String>builder();
+    for (val scope : scopes) {
+      if (scope != null) {
+        builder.add(INTERNER.intern(normalize(scope)));
+      }
+    }
+
+    return new ScopeSet(builder.build());
+  }
+
+  @Override
+  public boolean contains(Object scope) {
+    return scope instanceof String && scopes.contains(normalize((String) scope));
+  }
+
+  @Override
+  protected Set<String> delegate() {
+    return scopes;
+  }
+
+  private static String normalize(String scope) {
+    return scope.toLowerCase(ROOT);
+  }
+}
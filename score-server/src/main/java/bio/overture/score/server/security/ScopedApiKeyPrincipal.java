@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.server.security;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import lombok.Getter;
+import lombok.NonNull;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.core.OAuth2AuthenticatedPrincipal;
+import org.springframework.security.oauth2.server.resource.introspection.OAuth2IntrospectionClaimAccessor;
+
+/**
+ * An introspected API key along with the scopes it grants. Instances are cached per token by {@link
+ * ApiKeyIntrospector}, so the scopes are parsed once per token rather than once per request.
+ */
+@Getter
+public class ScopedApiKeyPrincipal
+    implements OAuth2AuthenticatedPrincipal,
+        OAuth2IntrospectionClaimAccessor,
+        ScopedAuthentication {
+
+  private final Map<String, Object> attributes;
+  private final Collection<GrantedAuthority> authorities;
+  private final ScopeSet scopeSet;
+
+  public ScopedApiKeyPrincipal(
+      @NonNull Map<String, Object> attributes,
+      @NonNull Collection<GrantedAuthority> authorities,
+      @NonNull ScopeSet scopeSet) {
+    this.attributes = Collections.unmodifiableMap(attributes);
+    this.authorities = Collections.unmodifiableCollection(authorities);
+    this.scopeSet = scopeSet;
+  }
+
+  @Override
+  public Map<String, Object> getClaims() {
+    return attributes;
+  }
+
+  @Override
+  public String getName() {
+    return getSubject();
+  }
+}
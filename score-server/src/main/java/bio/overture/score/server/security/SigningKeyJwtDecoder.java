@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.server.security;
+
+import bio.overture.score.server.util.RequestTimings;
+import bio.overture.score.server.util.RequestTimings.Phase;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+/**
+ * Verifies JWTs locally against the authorization server's public signing key.
+ *
+ * <p>The key is fetched on first use rather than at startup, then refreshed every {@code
+ * refreshInterval} by whichever request notices it is stale while the others keep using the current
+ * key. A token whose signature does not verify triggers an early refresh, at most once every {@code
+ * retryInterval}, so that a rotated key is picked up without a restart. If the authorization server
+ * is unreachable the last known key stays in use.
+ */
+@Slf4j
+public class SigningKeyJwtDecoder implements JwtDecoder {
+
+  /** Dependencies. */
+  private final Supplier<RSAPublicKey> keySource;
+
+  private final Clock clock;
+
+  /** Configuration. */
+  private final long refreshIntervalMillis;
+
+  private final long retryIntervalMillis;
+
+  /** State. */
+  private final ReentrantLock lock = new ReentrantLock();
+
+  private volatile JwtDecoder delegate;
+  private volatile long fetchedAt;
+  private volatile long attemptedAt;
+
+  public SigningKeyJwtDecoder(
+      @NonNull Supplier<RSAPublicKey> keySource,
+      @NonNull Duration refreshInterval,
+      @NonNull Duration retryInterval) {
+    this(keySource, refreshInterval, retryInterval, Clock.systemUTC());
+  }
+
+  SigningKeyJwtDecoder(
+      @NonNull Supplier<RSAPublicKey> keySource,
+      @NonNull Duration refreshInterval,
+      @NonNull Duration retryInterval,
+      @NonNull Clock clock) {
+    this.keySource = keySource;
+    this.refreshIntervalMillis = refreshInterval.toMillis();
+    this.retryIntervalMillis = retryInterval.toMillis();
+    this.clock = clock;
+  }
+
+  @Override
+  public Jwt decode(String token) throws JwtException {
+    return RequestTimings.time(Phase.AUTH, () -> decodeWithRefresh(token));
+  }
+
+  private Jwt decodeWithRefresh(String token) {
+    val current = getDelegate();
+    try {
+      return current.decode(token);
+    } catch (JwtValidationException e) {
+      // Signature was fine, the claims were not (e.g. expired)
+      throw e;
+    } catch (BadJwtException e) {
+      val refreshed = refresh(current);
+      if (refreshed == current) {
+        throw e;
+      }
+
+      return refreshed.decode(token);
+    }
+  }
+
+  private JwtDecoder getDelegate() {
+    val current = delegate;
+    if (current == null) {
+      return load();
+    }
+
+    // Stale: one request refreshes, the others carry on with the current key
+    if (clock.millis() - fetchedAt >= refreshIntervalMillis && lock.tryLock()) {
+      try {
+        if (clock.millis() - fetchedAt >= refreshIntervalMillis) {
+          return fetch(current);
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    return delegate;
+  }
+
+  private JwtDecoder load() {
+    lock.lock();
+    try {
+      val current = delegate;
+      if (current != null) {
+        return current;
+      }
+
+      val loaded = fetch(null);
+      if (loaded == null) {
+        throw new JwtException("Unable to load the signing key of the authorization server");
+      }
+
+      return loaded;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Re-fetches the key after a failed verification, unless it was attempted very recently. */
+  private JwtDecoder refresh(JwtDecoder failed) {
+    lock.lock();
+    try {
+      if (delegate != failed) {
+        // Another request refreshed in the meantime
+        return delegate;
+      }
+      if (clock.millis() - attemptedAt < retryIntervalMillis) {
+        return failed;
+      }
+
+      log.info("Token signature did not verify, refreshing signing key");
+      return fetch(failed);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private JwtDecoder fetch(JwtDecoder fallback) {
+    val now = clock.millis();
+    attemptedAt = now;
+    try {
+      delegate = NimbusJwtDecoder.withPublicKey(keySource.get()).build();
+      fetchedAt = now;
+      log.debug("Fetched signing key");
+    } catch (RuntimeException e) {
+      if (fallback == null) {
+        log.error("Failed to fetch signing key: {}", e.getMessage());
+        return null;
+      }
+
+      // Keep verifying with the last known key, try again on the next interval
+      log.warn(
+          "Failed to refresh signing key, continuing with the current one: {}", e.getMessage());
+      fetchedAt = now;
+    }
+
+    return delegate;
+  }
+}
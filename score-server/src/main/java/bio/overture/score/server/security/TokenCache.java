@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.server.security;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+/**
+ * Bounded cache of authorization results keyed by a SHA-256 hash of the access token (the token
+ * itself is never retained).
+ *
+ * <p>Entries live for at most the configured TTL, and never beyond the expiry reported for the
+ * token. Concurrent lookups of the same uncached token are coalesced into a single load.
+ */
+@Slf4j
+public class TokenCache<V> {
+
+  @Getter private final String name;
+  private final Cache<String, Expiring<V>> cache;
+  private final Duration ttl;
+  private final Clock clock;
+
+  public TokenCache(
+      @NonNull String name, long maximumSize, @NonNull Duration ttl, MeterRegistry registry) {
+    this(name, maximumSize, ttl, registry, Clock.systemUTC());
+  }
+
+  @VisibleForTesting
+  TokenCache(
+      @NonNull String name,
+      long maximumSize,
+      @NonNull Duration ttl,
+      MeterRegistry registry,
+      @NonNull Clock clock) {
+    this.name = name;
+    this.ttl = ttl;
+    this.clock = clock;
+    this.cache =
+        CacheBuilder.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(ttl.toMillis(), MILLISECONDS)
+            .recordStats()
+            .build();
+
+    if (registry != null) {
+      GuavaCacheMetrics.monitor(registry, cache, name);
+    }
+  }
+
+  /**
+   * Returns the cached value for {@code token}, invoking {@code loader} if there is none or it has
+   * expired. Exceptions thrown by the loader are propagated and not cached.
+   */
+  public V get(@NonNull String token, @NonNull Supplier<Expiring<V>> loader) {
+    val key = key(token);
+
+    val cached = load(key, loader);
+    if (!cached.isExpired(clock.millis())) {
+      return cached.getValue();
+    }
+
+    // Expired before the TTL because the token itself expired
+    cache.asMap().remove(key, cached);
+    return load(key, loader).getValue();
+  }
+
+  /** Removes {@code token}, e.g. after it has been revoked. */
+  public void invalidate(@NonNull String token) {
+    cache.invalidate(key(token));
+  }
+
+  public void invalidateAll() {
+    log.info("Invalidating all entries of token cache '{}'", name);
+    cache.invalidateAll();
+  }
+
+  public long size() {
+    return cache.size();
+  }
+
+  private Expiring<V> load(String key, Supplier<Expiring<V>> loader) {
+    try {
+      return cache.get(key, () -> cap(loader.get()));
+    } catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  private Expiring<V> cap(Expiring<V> loaded) {
+    val deadline = clock.millis() + ttl.toMillis();
+    return loaded.getExpiresAt() <= deadline ? loaded : new Expiring<>(loaded.getValue(), deadline);
+  }
+
+  private static String key(String token) {
+    return Hashing.sha256().hashString(token, UTF_8).toString();
+  }
+
+  /** A value together with the epoch millisecond after which it must no longer be used. */
+  @Getter
+  @RequiredArgsConstructor
+  public static class Expiring<V> {
+
+    @NonNull private final V value;
+    private final long expiresAt;
+
+    public static <V> Expiring<V> of(V value, Instant expiresAt) {
+      return new Expiring<>(value, expiresAt == null ? Long.MAX_VALUE : expiresAt.toEpochMilli());
+    }
+
+    boolean isExpired(long now) {
+      return now >= expiresAt;
+    }
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.server.security;
+
+import static java.util.stream.Collectors.toMap;
+
+import java.util.List;
+import java.util.Map;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+
+/**
+ * Management endpoint to evict revoked tokens from the {@link TokenCache}s before their TTL
+ * elapses. Like every actuator endpoint besides health it has to be exposed explicitly through
+ * {@code management.endpoints.web.exposure.include}.
+ */
+@RequiredArgsConstructor
+@Endpoint(id = "tokencache")
+public class TokenCacheEndpoint {
+
+  @NonNull private final List<TokenCache<?>> caches;
+
+  @ReadOperation
+  public Map<String, Long> sizes() {
+    return caches.stream().collect(toMap(TokenCache::getName, TokenCache::size));
+  }
+
+  /**
+   * @param token the revoked token, or {@code null} to evict every cached token
+   */
+  @WriteOperation
+  public void invalidate(@Nullable String token) {
+    for (TokenCache<?> cache : caches) {
+      if (token == null) {
+        cache.invalidateAll();
+      } else {
+        cache.invalidate(TokenHasher.scrubToken(token));
+      }
+    }
+  }
+}
@@ -20,8 +20,10 @@ import static bio.overture.score.server.util.Scopes.extractGrantedScopes;
 import static bio.overture.score.server.util.Scopes.extractGrantedScopesFromRpt;
 
 import bio.overture.score.server.exception.NotRetryableException;
+import bio.overture.score.server.metadata.MetadataRequestContext;
 import bio.overture.score.server.metadata.MetadataService;
 import bio.overture.score.server.repository.auth.KeycloakAuthorizationService;
+import bio.overture.score.server.security.ScopeSet;
 import java.util.Set;
 import lombok.Getter;
 import lombok.NonNull;
@@ -48,13 +50,13 @@ public abstract class AbstractScopeAuthorizationStrategy {
   public abstract boolean authorize(Authentication authentication, String objectId);
 
   protected boolean verifyOneOfSystemScope(@NonNull Set<String> grantedScopes) {
-    return grantedScopes.stream().anyMatch(s -> s.equalsIgnoreCase(getSystemScope()));
+    return ScopeSet.of(grantedScopes).contains(getSystemScope());
   }
 
   protected boolean verifyOneOfStudyScope(
       @NonNull Set<String> grantedScopes, @NonNull final String objectId) {
     val studyScope = getStudyScope(fetchStudyId(objectId));
-    return grantedScopes.stream().anyMatch(studyScope::equalsIgnoreCase);
+    return ScopeSet.of(grantedScopes).contains(studyScope);
   }
 
   /**
@@ -65,7 +67,7 @@ public abstract class AbstractScopeAuthorizationStrategy {
    */
   protected String fetchStudyId(@NonNull final String objectId) {
     // makes a query to meta service to retrieve project code for the given object id
-    val entity = metadataService.getEntity(objectId);
+    val entity = MetadataRequestContext.getEntity(metadataService, objectId);
     if (entity != null) {
       val studyId = entity.getProjectCode();
       log.info("Fetched studyId '{}' for objectId '{}'", studyId, objectId);
@@ -85,7 +87,7 @@ public abstract class AbstractScopeAuthorizationStrategy {
    */
   protected String fetchFileAccessType(@NonNull final String objectId) {
     // makes a query to meta service to retrieve project code for the given object id
-    val entity = metadataService.getEntity(objectId);
+    val entity = MetadataRequestContext.getEntity(metadataService, objectId);
     if (entity != null) {
       return entity.getAccess();
     } else {
@@ -105,7 +107,7 @@ public abstract class AbstractScopeAuthorizationStrategy {
         && authentication instanceof JwtAuthenticationToken) {
       val authGrants =
           keycloakAuthorizationService.fetchAuthorizationGrants(
-              ((JwtAuthenticationToken) authentication).getToken().getTokenValue());
+              ((JwtAuthenticationToken) authentication).getToken());
 
       grantedScopes = extractGrantedScopesFromRpt(authGrants);
     } else {
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.server.util;
+
+import static java.util.stream.Collectors.toList;
+import static lombok.AccessLevel.PRIVATE;
+
+import bio.overture.score.core.model.ListingFilter;
+import bio.overture.score.core.model.ObjectInfo;
+import bio.overture.score.core.model.ObjectInfoPage;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+import lombok.val;
+
+/** Filtering and cursor based paging over a listing sorted by object id. */
+@NoArgsConstructor(access = PRIVATE)
+public final class Listings {
+
+  public static final Comparator<ObjectInfo> BY_ID = Comparator.comparing(ObjectInfo::getId);
+
+  /**
+   * Returns at most {@code limit} objects of {@code listing} matching {@code filter} whose id sorts
+   * strictly after {@code cursor}.
+   *
+   * @param listing listing sorted by {@link #BY_ID}
+   * @param cursor {@code nextCursor} of the previous page, or {@code null} for the first page
+   */
+  public static ObjectInfoPage page(
+      @NonNull List<ObjectInfo> listing, @NonNull ListingFilter filter, String cursor, int limit) {
+    val objects =
+        listing.subList(startIndex(listing, cursor), listing.size()).stream()
+            .filter(filter)
+            .limit(limit + 1L)
+            .collect(toList());
+
+    if (objects.size() <= limit) {
+      return new ObjectInfoPage(objects, null);
+    }
+
+    val page = objects.subList(0, limit);
+    return new ObjectInfoPage(page, page.get(limit - 1).getId());
+  }
+
+  private static int startIndex(List<ObjectInfo> listing, String cursor) {
+    if (cursor == null || cursor.isEmpty()) {
+      return 0;
+    }
+
+    val index = Collections.binarySearch(listing, new ObjectInfo(cursor, 0, 0), BY_ID);
+    return index >= 0 ? index + 1 : -(index + 1);
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.server.util;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.springframework.web.context.request.RequestAttributes.SCOPE_REQUEST;
+
+import bio.overture.score.core.util.ServerTimings;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+import javax.servlet.ServletRequest;
+import lombok.NonNull;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Accumulates the time the current HTTP request spends in each backend, for the {@code
+ * Server-Timing} response header. Outside of a request (e.g. scheduled jobs) recording is a no-op.
+ */
+public final class RequestTimings {
+
+  /** Where request time is spent. */
+  public enum Phase {
+    /** Token validation and introspection */
+    AUTH("auth"),
+    /** Metadata (SONG) lookups */
+    METADATA("metadata"),
+    /** Upload state store calls, including their own object storage calls */
+    STORE("store"),
+    /** URL pre-signing */
+    SIGN("sign"),
+    /** Object storage calls */
+    STORAGE("storage");
+
+    private final String metric;
+
+    Phase(String metric) {
+      this.metric = metric;
+    }
+  }
+
+  /** Constants. */
+  private static final String ATTRIBUTE = RequestTimings.class.getName();
+
+  private static final double NANOS_PER_MILLI = NANOSECONDS.convert(1, MILLISECONDS);
+
+  /** State. */
+  private final long start = System.nanoTime();
+
+  private final AtomicLongArray nanos = new AtomicLongArray(Phase.values().length);
+
+  private RequestTimings() {}
+
+  /** Starts accumulating timings for {@code request}. */
+  public static RequestTimings start(@NonNull ServletRequest request) {
+    RequestTimings timings = new RequestTimings();
+    request.setAttribute(ATTRIBUTE, timings);
+    return timings;
+  }
+
+  public static void record(@NonNull Phase phase, long nanos) {
+    RequestTimings timings = current();
+    if (timings != null) {
+      timings.nanos.addAndGet(phase.ordinal(), nanos);
+    }
+  }
+
+  public static <T> T time(@NonNull Phase phase, @NonNull Supplier<T> call) {
+    long start = System.nanoTime();
+    try {
+      return call.get();
+    } finally {
+      record(phase, System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * @return {@code Server-Timing} header value with each phase the request spent time in, and the
+   *     total time so far
+   */
+  public String toHeader() {
+    Map<String, Double> durations = new LinkedHashMap<>();
+    for (Phase phase : Phase.values()) {
+      long phaseNanos = nanos.get(phase.ordinal());
+      if (phaseNanos > 0) {
+        durations.put(phase.metric, phaseNanos / NANOS_PER_MILLI);
+      }
+    }
+    durations.put("total", (System.nanoTime() - start) / NANOS_PER_MILLI);
+    return ServerTimings.format(durations);
+  }
+
+  private static RequestTimings current() {
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+    return attributes == null
+        ? null
+        : (RequestTimings) attributes.getAttribute(ATTRIBUTE, SCOPE_REQUEST);
+  }
+}
@@ -3,6 +3,8 @@ package bio.overture.score.server.util;
 import static lombok.AccessLevel.PRIVATE;
 
 import bio.overture.score.server.security.KeycloakPermission;
+import bio.overture.score.server.security.ScopeSet;
+import bio.overture.score.server.security.ScopedAuthentication;
 import com.nimbusds.jose.shaded.json.JSONArray;
 import com.nimbusds.jose.shaded.json.JSONObject;
 import java.util.*;
@@ -10,28 +12,39 @@ import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.server.resource.authentication.BearerTokenAuthentication;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
-import org.springframework.security.oauth2.server.resource.introspection.OAuth2IntrospectionAuthenticatedPrincipal;
 
 @Slf4j
 @NoArgsConstructor(access = PRIVATE)
 public class Scopes {
 
   private static final String EXP = "exp";
+  private static final String SCOPE = "scope";
+  private static final String SCOPE_AUTHORITY_PREFIX = "SCOPE_";
 
   public static Set<String> extractGrantedScopes(Authentication authentication) {
+    // scopes parsed once when the token was authenticated
+    if (authentication instanceof ScopedAuthentication) {
+      return ((ScopedAuthentication) authentication).getScopeSet();
+    }
+    if (authentication != null && authentication.getPrincipal() instanceof ScopedAuthentication) {
+      return ((ScopedAuthentication) authentication.getPrincipal()).getScopeSet();
+    }
+
     // if not OAuth2, then no scopes available at all
-    Set<String> grantedScopes = Collections.emptySet();
+    Set<String> grantedScopes = ScopeSet.empty();
     if (authentication instanceof JwtAuthenticationToken) {
-      grantedScopes = getJwtScopes((JwtAuthenticationToken) authentication);
+      grantedScopes = extractJwtScopes(((JwtAuthenticationToken) authentication).getToken());
     } else if (authentication instanceof BearerTokenAuthentication) {
       grantedScopes = getApiKeyScopes((BearerTokenAuthentication) authentication);
     }
     return grantedScopes;
   }
 
-  public static Set<String> extractGrantedScopesFromRpt(List<KeycloakPermission> permissionList) {
+  public static ScopeSet extractGrantedScopesFromRpt(List<KeycloakPermission> permissionList) {
     Set<String> grantedScopes = new HashSet();
 
     permissionList.stream()
@@ -46,7 +59,7 @@ public class Scopes {
                       });
             });
 
-    return grantedScopes;
+    return ScopeSet.of(grantedScopes);
   }
 
   public static long extractExpiry(Map<String, ?> map) {
@@ -59,10 +72,10 @@ public class Scopes {
     return 0L;
   }
 
-  private static Set<String> getJwtScopes(JwtAuthenticationToken jwt) {
+  public static ScopeSet extractJwtScopes(Jwt jwt) {
     Set<String> output = new HashSet();
     try {
-      val context = jwt.getToken().getClaim("context");
+      val context = jwt.getClaim("context");
       if (context instanceof JSONObject) {
         val scopes = ((JSONObject) context).get("scope");
         if (scopes instanceof JSONArray) {
@@ -75,13 +88,28 @@ public class Scopes {
     } catch (ClassCastException e) {
       log.debug("Received JWT not structured as expected. No scopes found.");
     }
-    return output;
+    return ScopeSet.of(output);
   }
 
-  private static Set<String> getApiKeyScopes(BearerTokenAuthentication tokenAuthentication) {
-    val scopes =
-        ((OAuth2IntrospectionAuthenticatedPrincipal) tokenAuthentication.getPrincipal())
-            .getScopes();
-    return Set.copyOf(scopes);
+  private static ScopeSet getApiKeyScopes(BearerTokenAuthentication tokenAuthentication) {
+    // read from the token attributes, whichever principal the token was authenticated into
+    val scope = tokenAuthentication.getTokenAttributes().get(SCOPE);
+    if (scope instanceof Collection) {
+      val values = (Collection<?>) scope;
+      Set<String> output = new HashSet<>();
+      values.stream()
+          .filter(value -> value instanceof String)
+          .forEach(value -> output.add((String) value));
+      return ScopeSet.of(output);
+    } else if (scope instanceof String) {
+      return ScopeSet.of(Arrays.asList(((String) scope).split(" ")));
+    }
+
+    Set<String> output = new HashSet<>();
+    tokenAuthentication.getAuthorities().stream()
+        .map(GrantedAuthority::getAuthority)
+        .filter(authority -> authority.startsWith(SCOPE_AUTHORITY_PREFIX))
+        .forEach(authority -> output.add(authority.substring(SCOPE_AUTHORITY_PREFIX.length())));
+    return ScopeSet.of(output);
   }
 }
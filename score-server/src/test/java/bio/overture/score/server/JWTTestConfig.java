@@ -33,6 +33,7 @@ public class JWTTestConfig {
   }
 
   @Bean
+  @Primary
   public JwtDecoder jwtDecoder() {
     return NimbusJwtDecoder.withPublicKey((RSAPublicKey) keyPair.getPublic())
         .signatureAlgorithm(SignatureAlgorithm.from(String.valueOf(SignatureAlgorithm.RS256)))
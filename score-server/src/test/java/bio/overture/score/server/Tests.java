@@ -24,6 +24,7 @@ import bio.overture.score.server.repository.UploadService;
 import bio.overture.score.server.repository.s3.S3BucketNamingService;
 import bio.overture.score.server.repository.s3.S3UploadService;
 import bio.overture.score.server.repository.s3.S3UploadStateStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.NoArgsConstructor;
 import lombok.val;
 
@@ -39,7 +40,7 @@ public class Tests {
     val endpoint = "https://www.cancercollaboratory.org:9080";
     val s3Config = new S3Config();
     s3Config.setEndpoint(endpoint);
-    val s3Client = s3Config.s3();
+    val s3Client = s3Config.s3(new SimpleMeterRegistry());
 
     val namingService = new S3BucketNamingService();
     namingService.setObjectBucketName(OBJECT_BUCKET_NAME);
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.server.controller;
+
+import static bio.overture.score.core.util.ServerTimings.CORRELATION_ID_HEADER;
+import static bio.overture.score.core.util.ServerTimings.SERVER_TIMING_HEADER;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import bio.overture.score.core.util.ServerTimings;
+import bio.overture.score.server.util.RequestTimings;
+import bio.overture.score.server.util.RequestTimings.Phase;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import lombok.SneakyThrows;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+public class ServerTimingFilterTest {
+
+  MockHttpServletRequest request;
+  MockHttpServletResponse response;
+  ServerTimingFilter filter;
+
+  @Before
+  public void setUp() {
+    request = new MockHttpServletRequest("GET", "/download/object");
+    response = new MockHttpServletResponse();
+    filter = new ServerTimingFilter();
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+  }
+
+  @After
+  public void tearDown() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  @Test
+  @SneakyThrows
+  public void test_reports_phases_before_body_is_written() {
+    request.addHeader(CORRELATION_ID_HEADER, "transfer-1");
+
+    filter.doFilter(
+        request,
+        response,
+        new MockFilterChain(
+            new HttpServlet() {
+              @Override
+              protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+                  throws IOException {
+                assertThat(MDC.get(ServerTimingFilter.CORRELATION_ID_MDC_KEY))
+                    .isEqualTo("transfer-1");
+                RequestTimings.record(Phase.METADATA, MILLISECONDS.toNanos(40));
+                RequestTimings.record(Phase.SIGN, MILLISECONDS.toNanos(2));
+                resp.getWriter().write("{}");
+                resp.flushBuffer();
+                RequestTimings.record(Phase.STORE, MILLISECONDS.toNanos(5));
+              }
+            }));
+
+    assertThat(response.getHeader(CORRELATION_ID_HEADER)).isEqualTo("transfer-1");
+    assertThat(MDC.get(ServerTimingFilter.CORRELATION_ID_MDC_KEY)).isNull();
+
+    Map<String, Double> durations = new LinkedHashMap<>();
+    ServerTimings.parse(response.getHeader(SERVER_TIMING_HEADER), durations);
+    assertThat(durations).containsOnlyKeys("metadata", "sign", "total");
+    assertThat(durations.get("metadata")).isEqualTo(40.0);
+    assertThat(durations.get("sign")).isEqualTo(2.0);
+  }
+
+  @Test
+  @SneakyThrows
+  public void test_replaces_invalid_correlation_id() {
+    request.addHeader(CORRELATION_ID_HEADER, "not valid\r\nX-Injected: 1");
+
+    filter.doFilter(request, response, new MockFilterChain());
+
+    assertThat(response.getHeader(CORRELATION_ID_HEADER)).hasSize(36);
+    assertThat(response.getHeader(SERVER_TIMING_HEADER)).startsWith("total;dur=");
+  }
+}
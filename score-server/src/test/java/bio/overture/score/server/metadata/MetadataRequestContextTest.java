@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.server.metadata;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import bio.overture.score.core.util.ObjectKeys;
+import bio.overture.score.server.repository.s3.S3DownloadService;
+import bio.overture.score.server.security.scope.DownloadScopeAuthorizationStrategy;
+import bio.overture.score.server.service.download.ObjectDownloadServiceStubFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.val;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+public class MetadataRequestContextTest {
+
+  private static final String OBJECT_ID = "a82efa12-9aac-558b-9f51-beb21b7a2298";
+
+  MetadataEntity entity;
+  MetadataService metadataService;
+  DownloadScopeAuthorizationStrategy authorizationStrategy;
+  S3DownloadService downloadService;
+
+  @Before
+  public void setUp() {
+    entity =
+        MetadataEntity.builder()
+            .id(OBJECT_ID)
+            .fileName("file_1")
+            .access("open")
+            .gnosId("an1")
+            .projectCode("project")
+            .build();
+    metadataService = mock(MetadataService.class);
+    when(metadataService.getEntity(OBJECT_ID)).thenReturn(entity);
+    when(metadataService.getAnalysisStateForMetadata(entity)).thenReturn("PUBLISHED");
+
+    authorizationStrategy =
+        new DownloadScopeAuthorizationStrategy(
+            "score.", ".READ", "score.READ", metadataService, "ego");
+
+    val service = new S3DownloadService(new SimpleMeterRegistry());
+    service.setMetadataService(metadataService);
+    ReflectionTestUtils.setField(service, "dataDir", "data");
+    downloadService = spy(service);
+    val spec =
+        ObjectDownloadServiceStubFactory.createObjectSpecification(
+            OBJECT_ID, ObjectKeys.getObjectKey("data", OBJECT_ID), 1024);
+    spec.setParts(ObjectDownloadServiceStubFactory.createParts(1));
+    doReturn(spec).when(downloadService).getSpecification(OBJECT_ID);
+  }
+
+  @After
+  public void tearDown() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  @Test
+  public void test_metadata_is_fetched_once_per_request() {
+    RequestContextHolder.setRequestAttributes(
+        new ServletRequestAttributes(new MockHttpServletRequest()));
+
+    assertThat(authorizationStrategy.authorize(authentication(), OBJECT_ID)).isTrue();
+    assertThat(downloadService.download(OBJECT_ID, 0, -1, false, false)).isNotNull();
+
+    verify(metadataService, times(1)).getEntity(OBJECT_ID);
+    verify(metadataService, times(1)).getAnalysisStateForMetadata(entity);
+  }
+
+  @Test
+  public void test_metadata_is_fetched_again_for_next_request() {
+    for (int i = 0; i < 2; i++) {
+      RequestContextHolder.setRequestAttributes(
+          new ServletRequestAttributes(new MockHttpServletRequest()));
+      authorizationStrategy.authorize(authentication(), OBJECT_ID);
+      downloadService.download(OBJECT_ID, 0, -1, false, false);
+      RequestContextHolder.resetRequestAttributes();
+    }
+
+    verify(metadataService, times(2)).getEntity(OBJECT_ID);
+    verify(metadataService, times(2)).getAnalysisStateForMetadata(entity);
+  }
+
+  @Test
+  public void test_metadata_is_not_memoized_outside_of_request() {
+    authorizationStrategy.authorize(authentication(), OBJECT_ID);
+    downloadService.download(OBJECT_ID, 0, -1, false, false);
+
+    verify(metadataService, times(2)).getEntity(OBJECT_ID);
+    verify(metadataService, times(1)).getAnalysisStateForMetadata(entity);
+  }
+
+  private static TestingAuthenticationToken authentication() {
+    return new TestingAuthenticationToken("user", "token");
+  }
+}
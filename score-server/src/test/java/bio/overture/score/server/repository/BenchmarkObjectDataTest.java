@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.server.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import lombok.SneakyThrows;
+import lombok.val;
+import org.junit.Test;
+
+public class BenchmarkObjectDataTest {
+
+  private static final String OBJECT_ID = "56f3cb04-38b4-574c-bffb-af1426113194";
+
+  @Test
+  public void test_same_object_id_yields_same_bytes() {
+    assertThat(read(OBJECT_ID, 0, 100_000)).isEqualTo(read(OBJECT_ID, 0, 100_000));
+  }
+
+  @Test
+  public void test_different_object_ids_yield_different_bytes() {
+    assertThat(read(OBJECT_ID, 0, 1024))
+        .isNotEqualTo(read("f6f3cb04-38b4-574c-bffb-af1426113194", 0, 1024));
+  }
+
+  @Test
+  public void test_range_matches_slice_of_whole_object() {
+    // Spans several internal buffers and starts off a word boundary
+    val whole = read(OBJECT_ID, 0, 200_000);
+    val offset = 65_533;
+    val length = 70_001;
+
+    assertThat(read(OBJECT_ID, offset, length))
+        .isEqualTo(Arrays.copyOfRange(whole, offset, offset + length));
+  }
+
+  @Test
+  public void test_empty_range() {
+    assertThat(read(OBJECT_ID, 10, 0)).isEmpty();
+  }
+
+  @SneakyThrows
+  private static byte[] read(String objectId, long offset, long length) {
+    val output = new ByteArrayOutputStream();
+    BenchmarkObjectData.write(objectId, offset, length, output);
+    return output.toByteArray();
+  }
+}
@@ -18,7 +18,11 @@
 package bio.overture.score.server.repository;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
+import bio.overture.score.server.repository.s3.BucketPartitioning;
 import bio.overture.score.server.repository.s3.S3BucketNamingService;
 import org.junit.Before;
 import org.junit.Test;
@@ -185,6 +189,13 @@ public class BucketNamingServiceTest {
     sut.getObjectBucketName("Lorem ipsum dolor");
   }
 
+  @Test(expected = NumberFormatException.class)
+  public void signed_object_id() {
+    sut.setBucketPoolSize(10);
+    sut.setBucketKeySize(3);
+    sut.getObjectBucketName("-1f3cb04-38b4-574c-bffb-af1426113194");
+  }
+
   @Test
   public void key_with_data_path() {
     String key = "data/56f3cb04-38b4-574c-bffb-af1426113194";
@@ -215,4 +226,41 @@ public class BucketNamingServiceTest {
 
     System.out.println(sut.getObjectBucketName("a82efa12-9aac-558b-9f51-beb21b7a2298"));
   }
+
+  @Test
+  public void consistent_partitioning_within_pool() {
+    sut.setBucketPoolSize(16);
+    sut.setPartitioning(BucketPartitioning.CONSISTENT);
+    String value = sut.getObjectBucketName("56f3cb04-38b4-574c-bffb-af1426113194");
+    assertTrue(value.matches(OBJECT_BASE_BUCKET.replace(".", "\\.") + "\\.\\d+"));
+    assertTrue(Integer.parseInt(value.substring(OBJECT_BASE_BUCKET.length() + 1)) < 16);
+  }
+
+  @Test
+  public void no_previous_bucket_without_layout_change() {
+    sut.setBucketPoolSize(16);
+    sut.setBucketKeySize(2);
+    assertNull(sut.getPreviousObjectBucketName("56f3cb04-38b4-574c-bffb-af1426113194"));
+
+    sut.setPreviousBucketPoolSize(16);
+    assertFalse(sut.isMigrating());
+    assertNull(sut.getPreviousObjectBucketName("56f3cb04-38b4-574c-bffb-af1426113194"));
+  }
+
+  @Test
+  public void previous_bucket_while_migrating() {
+    sut.setBucketPoolSize(17);
+    sut.setBucketKeySize(2);
+    sut.setPreviousBucketPoolSize(16);
+    assertTrue(sut.isMigrating());
+
+    // 0x56 = 86: 86 % 16 = 6, 86 % 17 = 1
+    String objectId = "56f3cb04-38b4-574c-bffb-af1426113194";
+    assertEquals(OBJECT_BASE_BUCKET + ".1", sut.getObjectBucketName(objectId));
+    assertEquals(OBJECT_BASE_BUCKET + ".6", sut.getPreviousObjectBucketName(objectId));
+    assertEquals(STATE_BASE_BUCKET + ".6", sut.getPreviousStateBucketName(objectId));
+
+    // 0x00 = 0: same bucket under both layouts
+    assertNull(sut.getPreviousObjectBucketName("00f3cb04-38b4-574c-bffb-af1426113194"));
+  }
 }
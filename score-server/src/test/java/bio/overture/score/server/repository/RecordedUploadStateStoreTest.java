@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.server.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import bio.overture.score.server.exception.IdNotFoundException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import lombok.SneakyThrows;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RecordedUploadStateStoreTest {
+
+  private static final String EVENT_NAME = "bio.overture.score.server.StateStore";
+
+  UploadStateStore delegate;
+  RecordedUploadStateStore store;
+
+  @Before
+  public void setUp() {
+    delegate = mock(UploadStateStore.class);
+    store = new RecordedUploadStateStore(delegate);
+  }
+
+  @Test
+  public void test_records_successful_calls() {
+    when(delegate.isCompleted("object", "upload")).thenReturn(true);
+
+    List<RecordedEvent> events;
+    try (Recording recording = start()) {
+      assertThat(store.isCompleted("object", "upload")).isTrue();
+      store.deletePart("object", "upload", 3);
+      events = stop(recording);
+    }
+
+    verify(delegate).deletePart("object", "upload", 3);
+    assertThat(events).hasSize(2);
+    assertThat(events.get(0).getString("operation")).isEqualTo("isCompleted");
+    assertThat(events.get(0).getString("objectId")).isEqualTo("object");
+    assertThat(events.get(0).getString("uploadId")).isEqualTo("upload");
+    assertThat(events.get(0).getBoolean("succeeded")).isTrue();
+    assertThat(events.get(1).getString("operation")).isEqualTo("deletePart");
+  }
+
+  @Test
+  public void test_records_failed_calls() {
+    doThrow(new IdNotFoundException("missing")).when(delegate).getUploadId("object");
+
+    List<RecordedEvent> events;
+    try (Recording recording = start()) {
+      assertThatThrownBy(() -> store.getUploadId("object")).isInstanceOf(IdNotFoundException.class);
+      events = stop(recording);
+    }
+
+    assertThat(events).hasSize(1);
+    assertThat(events.get(0).getString("operation")).isEqualTo("getUploadId");
+    assertThat(events.get(0).getBoolean("succeeded")).isFalse();
+  }
+
+  private static Recording start() {
+    Recording recording = new Recording();
+    recording.enable(EVENT_NAME);
+    recording.start();
+    return recording;
+  }
+
+  @SneakyThrows
+  private static List<RecordedEvent> stop(Recording recording) {
+    recording.stop();
+    Path file = Files.createTempFile("state-store", ".jfr");
+    try {
+      recording.dump(file);
+      return RecordingFile.readAllEvents(file).stream()
+          .filter(event -> event.getEventType().getName().equals(EVENT_NAME))
+          .collect(Collectors.toList());
+    } finally {
+      Files.delete(file);
+    }
+  }
+}
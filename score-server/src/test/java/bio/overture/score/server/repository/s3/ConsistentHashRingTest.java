@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.server.repository.s3;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.UUID;
+import lombok.val;
+import org.junit.Test;
+
+public class ConsistentHashRingTest {
+
+  private static final int OBJECTS = 20000;
+
+  @Test
+  public void test_objects_are_spread_evenly() {
+    val sut = new ConsistentHashRing(16, 128);
+
+    val counts = new int[16];
+    for (int i = 0; i < OBJECTS; i++) {
+      counts[sut.locate(objectId(i))]++;
+    }
+
+    val mean = OBJECTS / 16;
+    for (val count : counts) {
+      assertThat(count).isBetween((int) (mean * 0.7), (int) (mean * 1.3));
+    }
+  }
+
+  @Test
+  public void test_growing_pool_moves_few_objects() {
+    val before = new ConsistentHashRing(16, 128);
+    val after = new ConsistentHashRing(17, 128);
+
+    int moved = 0;
+    for (int i = 0; i < OBJECTS; i++) {
+      val objectId = objectId(i);
+      val bucket = after.locate(objectId);
+      if (bucket != before.locate(objectId)) {
+        // Objects only ever move to the new bucket
+        assertThat(bucket).isEqualTo(16);
+        moved++;
+      }
+    }
+
+    // Ideally 1/17th, against 16/17th for modulo
+    assertThat(moved).isBetween(OBJECTS / 17 / 2, OBJECTS / 17 * 2);
+  }
+
+  @Test
+  public void test_placement_is_stable() {
+    val objectId = objectId(42);
+    assertThat(new ConsistentHashRing(8, 64).locate(objectId))
+        .isEqualTo(new ConsistentHashRing(8, 64).locate(objectId));
+  }
+
+  private static String objectId(int i) {
+    return UUID.nameUUIDFromBytes(Integer.toString(i).getBytes()).toString();
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.server.repository.s3;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.CopyObjectRequest;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import lombok.val;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class S3BucketRebalancerTest {
+
+  // 0x56 = 86: bucket 6 of 16, bucket 1 of 17
+  private static final String MOVED_ID = "56f3cb04-38b4-574c-bffb-af1426113194";
+  // 0x06 = 6: bucket 6 of both
+  private static final String KEPT_ID = "06f3cb04-38b4-574c-bffb-af1426113194";
+
+  AmazonS3 s3;
+  S3ObjectLocationIndex index;
+  S3BucketNamingService namingService;
+  S3BucketRebalancer sut;
+
+  @Before
+  public void setUp() {
+    namingService = new S3BucketNamingService();
+    namingService.setObjectBucketName("oicr.icgc");
+    namingService.setStateBucketName("oicr.icgc.state");
+    namingService.setBucketKeySize(2);
+    namingService.setBucketPoolSize(17);
+    namingService.setPreviousBucketPoolSize(16);
+
+    s3 = mock(AmazonS3.class);
+    when(s3.listObjects(any(ListObjectsRequest.class)))
+        .thenAnswer(
+            invocation -> {
+              ListObjectsRequest request = invocation.getArgument(0);
+              val listing = new ObjectListing();
+              if (request.getBucketName().equals("oicr.icgc.6")) {
+                listing.getObjectSummaries().add(summary(MOVED_ID));
+                listing.getObjectSummaries().add(summary(KEPT_ID));
+              }
+              return listing;
+            });
+    when(s3.getObjectMetadata(eq("oicr.icgc.state.1"), anyString())).thenThrow(notFound());
+
+    index = new S3ObjectLocationIndex();
+    index.markPrevious(MOVED_ID);
+
+    sut = new S3BucketRebalancer();
+    sut.setS3(s3);
+    sut.setBucketNamingService(namingService);
+    sut.setLocationIndex(index);
+    ReflectionTestUtils.setField(sut, "dataDir", "data");
+  }
+
+  @Test
+  public void test_moves_objects_placed_by_previous_layout() {
+    assertThat(sut.rebalance()).isEqualTo(1);
+
+    verify(s3)
+        .copyObject(
+            argThat(
+                (CopyObjectRequest request) ->
+                    request.getSourceBucketName().equals("oicr.icgc.6")
+                        && request.getDestinationBucketName().equals("oicr.icgc.1")
+                        && request.getSourceKey().equals("data/" + MOVED_ID)));
+    verify(s3)
+        .copyObject(
+            "oicr.icgc.state.6",
+            "data/" + MOVED_ID + ".meta",
+            "oicr.icgc.state.1",
+            "data/" + MOVED_ID + ".meta");
+    verify(s3, never()).deleteObject(anyString(), anyString());
+    assertThat(index.getPlacement(MOVED_ID)).isEqualTo(S3ObjectLocationIndex.Placement.CURRENT);
+  }
+
+  @Test
+  public void test_deletes_source_when_configured() {
+    sut.setDeleteSource(true);
+    sut.rebalance();
+
+    verify(s3).deleteObject("oicr.icgc.state.6", "data/" + MOVED_ID + ".meta");
+    verify(s3).deleteObject("oicr.icgc.6", "data/" + MOVED_ID);
+    verify(s3, never()).deleteObject("oicr.icgc.6", "data/" + KEPT_ID);
+  }
+
+  @Test
+  public void test_nothing_to_do_without_layout_change() {
+    namingService.setPreviousBucketPoolSize(0);
+
+    assertThat(sut.rebalance()).isZero();
+    verify(s3, never()).listObjects(any(ListObjectsRequest.class));
+  }
+
+  private static S3ObjectSummary summary(String objectId) {
+    val summary = new S3ObjectSummary();
+    summary.setKey("data/" + objectId);
+    summary.setSize(1024);
+    return summary;
+  }
+
+  private static AmazonServiceException notFound() {
+    val exception = new AmazonServiceException("Not Found");
+    exception.setStatusCode(HttpStatus.NOT_FOUND.value());
+    return exception;
+  }
+}
@@ -9,6 +9,7 @@ import static org.mockito.Mockito.when;
 import bio.overture.score.server.exception.NotRetryableException;
 import bio.overture.score.server.metadata.MetadataEntity;
 import bio.overture.score.server.metadata.MetadataService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 import org.junit.Before;
@@ -22,7 +23,7 @@ public class S3DownloadServiceTest {
 
   private final String objectId = "45dfcd17-8e80-53fc-b400-cc8b583dae05";
 
-  private S3DownloadService s3DownloadService = new S3DownloadService();
+  private S3DownloadService s3DownloadService = new S3DownloadService(new SimpleMeterRegistry());
 
   private MetadataService mockService;
 
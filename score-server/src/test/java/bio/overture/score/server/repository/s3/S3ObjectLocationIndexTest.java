@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.server.repository.s3;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import bio.overture.score.core.util.ObjectKeys;
+import bio.overture.score.server.repository.URLGenerator;
+import bio.overture.score.server.service.download.ObjectDownloadServiceStubFactory;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import lombok.SneakyThrows;
+import lombok.val;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class S3ObjectLocationIndexTest {
+
+  private static final String OBJECT_ID = "45dfcd17-8e80-53fc-b400-cc8b583dae05";
+  private static final String BASE_STATE_BUCKET = "oicr.icgc.state";
+  private static final String DATA_DIR = "data";
+
+  AmazonS3 s3Client;
+  S3ObjectLocationIndex index;
+  S3DownloadService downloadService;
+
+  @Before
+  public void setUp() {
+    val namingService = new S3BucketNamingService();
+    namingService.setObjectBucketName("oicr.icgc");
+    namingService.setStateBucketName(BASE_STATE_BUCKET);
+    namingService.setBucketPoolSize(4);
+    namingService.setBucketKeySize(2);
+
+    s3Client = mock(AmazonS3.class);
+    index = new S3ObjectLocationIndex();
+
+    downloadService = new S3DownloadService(new SimpleMeterRegistry());
+    downloadService.setS3Client(s3Client);
+    downloadService.setBucketNamingService(namingService);
+    downloadService.setUrlGenerator(mock(URLGenerator.class));
+    downloadService.setLocationIndex(index);
+    ReflectionTestUtils.setField(downloadService, "dataDir", DATA_DIR);
+  }
+
+  @Test
+  public void test_relocated_object_is_fetched_from_base_bucket_first_time() {
+    when(s3Client.getObject(any(GetObjectRequest.class)))
+        .thenAnswer(
+            invocation -> {
+              GetObjectRequest request = invocation.getArgument(0);
+              if (request.getBucketName().equals(BASE_STATE_BUCKET)) {
+                return specificationObject();
+              }
+              throw notFound();
+            });
+
+    assertThat(downloadService.getSpecification(OBJECT_ID).isRelocated()).isTrue();
+    assertThat(downloadService.getSpecification(OBJECT_ID).isRelocated()).isTrue();
+
+    assertThat(index.isRelocated(OBJECT_ID)).isTrue();
+    verify(s3Client, times(1)).getObject(inBucket(BASE_STATE_BUCKET + ".1"));
+    verify(s3Client, times(2)).getObject(inBucket(BASE_STATE_BUCKET));
+  }
+
+  @Test
+  public void test_object_is_served_from_previous_layout_until_rebalanced() {
+    val namingService =
+        (S3BucketNamingService)
+            ReflectionTestUtils.getField(downloadService, "bucketNamingService");
+    // 0x45 = 69: bucket 1 of 4, bucket 4 of 5
+    namingService.setBucketPoolSize(5);
+    namingService.setPreviousBucketPoolSize(4);
+    when(s3Client.getObject(any(GetObjectRequest.class)))
+        .thenAnswer(
+            invocation -> {
+              GetObjectRequest request = invocation.getArgument(0);
+              if (request.getBucketName().equals(BASE_STATE_BUCKET + ".1")) {
+                return specificationObject();
+              }
+              throw notFound();
+            });
+
+    assertThat(downloadService.getSpecification(OBJECT_ID).isRelocated()).isFalse();
+    assertThat(downloadService.getSpecification(OBJECT_ID)).isNotNull();
+
+    assertThat(index.getPlacement(OBJECT_ID)).isEqualTo(S3ObjectLocationIndex.Placement.PREVIOUS);
+    verify(s3Client, times(1)).getObject(inBucket(BASE_STATE_BUCKET + ".4"));
+    verify(s3Client, times(2)).getObject(inBucket(BASE_STATE_BUCKET + ".1"));
+    verify(s3Client, never()).getObject(inBucket(BASE_STATE_BUCKET));
+  }
+
+  @Test
+  public void test_missing_object_is_looked_up_again_by_default() {
+    when(s3Client.getObject(any(GetObjectRequest.class))).thenThrow(notFound());
+
+    assertThat(downloadService.getSpecification(OBJECT_ID)).isNull();
+    assertThat(downloadService.getSpecification(OBJECT_ID)).isNull();
+
+    assertThat(index.isMissing(OBJECT_ID)).isFalse();
+    verify(s3Client, times(4)).getObject(any(GetObjectRequest.class));
+  }
+
+  @Test
+  public void test_missing_object_is_not_looked_up_again() {
+    index = new S3ObjectLocationIndex(60, 100);
+    downloadService.setLocationIndex(index);
+    when(s3Client.getObject(any(GetObjectRequest.class))).thenThrow(notFound());
+
+    assertThat(downloadService.getSpecification(OBJECT_ID)).isNull();
+    assertThat(downloadService.getSpecification(OBJECT_ID)).isNull();
+
+    assertThat(index.isMissing(OBJECT_ID)).isTrue();
+    verify(s3Client, times(2)).getObject(any(GetObjectRequest.class));
+  }
+
+  @Test
+  public void test_upload_moves_object_to_partition() {
+    index.markRelocated(OBJECT_ID);
+    index.markStored(OBJECT_ID);
+    when(s3Client.getObject(any(GetObjectRequest.class)))
+        .thenAnswer(invocation -> specificationObject());
+
+    assertThat(downloadService.getSpecification(OBJECT_ID).isRelocated()).isFalse();
+    verify(s3Client, never()).getObject(inBucket(BASE_STATE_BUCKET));
+  }
+
+  @Test
+  public void test_upload_service_uses_index() {
+    val uploadService = new S3UploadService();
+    ReflectionTestUtils.setField(uploadService, "s3Client", s3Client);
+    ReflectionTestUtils.setField(uploadService, "dataDir", DATA_DIR);
+    ReflectionTestUtils.setField(
+        uploadService,
+        "bucketNamingService",
+        ReflectionTestUtils.getField(downloadService, "bucketNamingService"));
+    ReflectionTestUtils.setField(uploadService, "locationIndex", index);
+    when(s3Client.getObjectMetadata(eq(BASE_STATE_BUCKET + ".1"), anyString()))
+        .thenThrow(notFound());
+
+    assertThat(uploadService.exists(OBJECT_ID)).isTrue();
+    assertThat(uploadService.exists(OBJECT_ID)).isTrue();
+
+    verify(s3Client, times(1)).getObjectMetadata(eq(BASE_STATE_BUCKET + ".1"), anyString());
+    verify(s3Client, times(2)).getObjectMetadata(eq(BASE_STATE_BUCKET), anyString());
+  }
+
+  @Test
+  public void test_upload_service_does_not_trust_missing_objects() {
+    val uploadService = new S3UploadService();
+    ReflectionTestUtils.setField(uploadService, "s3Client", s3Client);
+    ReflectionTestUtils.setField(uploadService, "dataDir", DATA_DIR);
+    ReflectionTestUtils.setField(
+        uploadService,
+        "bucketNamingService",
+        ReflectionTestUtils.getField(downloadService, "bucketNamingService"));
+    index = new S3ObjectLocationIndex(60, 100);
+    index.markMissing(OBJECT_ID);
+    ReflectionTestUtils.setField(uploadService, "locationIndex", index);
+
+    // Stored by another node since
+    assertThat(uploadService.exists(OBJECT_ID)).isTrue();
+    verify(s3Client).getObjectMetadata(eq(BASE_STATE_BUCKET + ".1"), anyString());
+  }
+
+  private static GetObjectRequest inBucket(String bucketName) {
+    return argThat(request -> request != null && request.getBucketName().equals(bucketName));
+  }
+
+  private static AmazonServiceException notFound() {
+    val exception = new AmazonServiceException("Not Found");
+    exception.setStatusCode(HttpStatus.NOT_FOUND.value());
+    return exception;
+  }
+
+  @SneakyThrows
+  private static S3Object specificationObject() {
+    val spec =
+        ObjectDownloadServiceStubFactory.createObjectSpecification(
+            OBJECT_ID, ObjectKeys.getObjectKey(DATA_DIR, OBJECT_ID), 1000);
+    spec.setParts(ObjectDownloadServiceStubFactory.createParts(1));
+
+    val object = new S3Object();
+    object.setObjectContent(new ByteArrayInputStream(new ObjectMapper().writeValueAsBytes(spec)));
+    return object;
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.server.repository.s3;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.DefaultRequest;
+import com.amazonaws.Response;
+import com.amazonaws.http.HttpMethodName;
+import com.amazonaws.http.HttpResponse;
+import com.amazonaws.services.s3.model.GetObjectMetadataRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.val;
+import org.junit.Before;
+import org.junit.Test;
+
+public class S3RequestMetricsTest {
+
+  SimpleMeterRegistry registry;
+  S3RequestMetrics metrics;
+
+  @Before
+  public void setUp() {
+    registry = new SimpleMeterRegistry();
+    metrics = new S3RequestMetrics(registry);
+  }
+
+  @Test
+  public void test_records_operation_bucket_and_status() {
+    val request = request("oicr.icgc.3/data/45dfcd17-8e80-53fc-b400-cc8b583dae05.meta");
+    val httpResponse = new HttpResponse(request, null);
+    httpResponse.setStatusCode(200);
+
+    metrics.beforeRequest(request);
+    metrics.afterResponse(request, new Response<>(null, httpResponse));
+
+    val timer =
+        registry
+            .get(S3RequestMetrics.METRIC_NAME)
+            .tag("backend", "s3")
+            .tag("operation", "GetObjectMetadata")
+            .tag("bucket", "oicr.icgc.3")
+            .tag("status", "200")
+            .timer();
+    assertThat(timer.count()).isEqualTo(1);
+  }
+
+  @Test
+  public void test_records_service_errors() {
+    val request = request("/oicr.icgc/data/missing");
+    val exception = new AmazonServiceException("Not Found");
+    exception.setStatusCode(404);
+
+    metrics.beforeRequest(request);
+    metrics.afterError(request, null, exception);
+
+    assertThat(
+            registry
+                .get(S3RequestMetrics.METRIC_NAME)
+                .tag("bucket", "oicr.icgc")
+                .tag("status", "404")
+                .timer()
+                .count())
+        .isEqualTo(1);
+  }
+
+  @Test
+  public void test_ignores_requests_not_started() {
+    metrics.afterError(request("oicr.icgc/data/x"), null, new RuntimeException());
+
+    assertThat(registry.find(S3RequestMetrics.METRIC_NAME).timer()).isNull();
+  }
+
+  @Test
+  public void test_bucket_from_resource_path() {
+    assertThat(S3RequestMetrics.getBucket("oicr.icgc")).isEqualTo("oicr.icgc");
+    assertThat(S3RequestMetrics.getBucket("/oicr.icgc/")).isEqualTo("oicr.icgc");
+    assertThat(S3RequestMetrics.getBucket("")).isEqualTo("unknown");
+    assertThat(S3RequestMetrics.getBucket(null)).isEqualTo("unknown");
+  }
+
+  private static DefaultRequest<?> request(String resourcePath) {
+    val request =
+        new DefaultRequest<>(new GetObjectMetadataRequest("oicr.icgc", "data/x"), "Amazon S3");
+    request.setHttpMethod(HttpMethodName.HEAD);
+    request.setResourcePath(resourcePath);
+    return request;
+  }
+}
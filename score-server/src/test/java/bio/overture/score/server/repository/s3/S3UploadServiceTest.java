@@ -17,16 +17,107 @@
  */
 package bio.overture.score.server.repository.s3;
 
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import bio.overture.score.core.model.ObjectSpecification;
+import bio.overture.score.core.model.Part;
 import bio.overture.score.core.util.ObjectKeys;
 import bio.overture.score.server.Tests;
+import bio.overture.score.server.exception.ChecksumMismatchException;
+import bio.overture.score.server.repository.UploadPartDetail;
+import bio.overture.score.server.repository.UploadStateStore;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.InputStream;
 import lombok.val;
+import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
-@Ignore("For development only")
 public class S3UploadServiceTest {
 
+  private static final String OBJECT_ID = "45dfcd17-8e80-53fc-b400-cc8b583dae05";
+  private static final String UPLOAD_ID = "upload";
+  private static final String MD5 = "900150983cd24fb0d6963f7d28e17f72";
+  private static final String OTHER_MD5 = "e2fc714c4727ee9395f324cd2e7f331f";
+
+  private final S3UploadService uploadService = new S3UploadService();
+
+  private AmazonS3 s3Client;
+  private UploadStateStore stateStore;
+
+  @Before
+  public void set_up() {
+    s3Client = mock(AmazonS3.class);
+    stateStore = mock(UploadStateStore.class);
+    val bucketNamingService = mock(S3BucketNamingService.class);
+    when(bucketNamingService.getObjectBucketName(OBJECT_ID)).thenReturn("data");
+    when(bucketNamingService.getStateBucketName(OBJECT_ID)).thenReturn("state");
+
+    uploadService.setDataDir("data");
+    uploadService.setS3Client(s3Client);
+    uploadService.setStateStore(stateStore);
+    uploadService.setBucketNamingService(bucketNamingService);
+    uploadService.setLocationIndex(mock(S3ObjectLocationIndex.class));
+
+    val detail =
+        UploadPartDetail.builder().partNumber(1).etag(new PartETag(1, "etag")).md5(MD5).build();
+    when(stateStore.isCompleted(OBJECT_ID, UPLOAD_ID)).thenReturn(true);
+    when(stateStore.getUploadStatePartDetails(OBJECT_ID, UPLOAD_ID))
+        .thenReturn(singletonMap(1, detail));
+  }
+
   @Test
+  public void test_finalize_with_mismatched_md5_is_rejected() {
+    when(stateStore.read(OBJECT_ID, UPLOAD_ID)).thenReturn(spec(MD5));
+
+    val throwable =
+        catchThrowable(() -> uploadService.finalizeUpload(OBJECT_ID, UPLOAD_ID, OTHER_MD5));
+
+    assertThat(throwable)
+        .isExactlyInstanceOf(ChecksumMismatchException.class)
+        .hasMessageContaining(OTHER_MD5);
+    // left uncompleted, so that the upload can be redone
+    verify(s3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    verify(stateStore, never()).delete(OBJECT_ID, UPLOAD_ID);
+  }
+
+  @Test
+  public void test_finalize_with_matching_md5_completes() throws Exception {
+    when(stateStore.read(OBJECT_ID, UPLOAD_ID)).thenReturn(spec(MD5));
+
+    uploadService.finalizeUpload(OBJECT_ID, UPLOAD_ID, MD5);
+
+    assertThat(storedSpec().getObjectMd5()).isEqualTo(MD5);
+    verify(stateStore).delete(OBJECT_ID, UPLOAD_ID);
+  }
+
+  @Test
+  public void test_finalize_records_md5_when_none_was_given() throws Exception {
+    when(stateStore.read(OBJECT_ID, UPLOAD_ID)).thenReturn(spec(null));
+
+    uploadService.finalizeUpload(OBJECT_ID, UPLOAD_ID, MD5);
+
+    assertThat(storedSpec().getObjectMd5()).isEqualTo(MD5);
+    verify(stateStore).delete(OBJECT_ID, UPLOAD_ID);
+  }
+
+  @Test
+  @Ignore("For development only")
   public void testListUploads() {
     val uploadService = Tests.createUploadService();
 
@@ -43,4 +134,22 @@ public class S3UploadServiceTest {
               + objectId);
     }
   }
+
+  private static ObjectSpecification spec(String objectMd5) {
+    val spec = new ObjectSpecification();
+    spec.setObjectId(OBJECT_ID);
+    spec.setUploadId(UPLOAD_ID);
+    spec.setObjectSize(3);
+    spec.setObjectMd5(objectMd5);
+    spec.setParts(singletonList(Part.builder().partNumber(1).partSize(3).offset(0).build()));
+    return spec;
+  }
+
+  /** Returns the specification written to the state bucket as the object's meta. */
+  private ObjectSpecification storedSpec() throws Exception {
+    val content = ArgumentCaptor.forClass(InputStream.class);
+    verify(s3Client)
+        .putObject(eq("state"), anyString(), content.capture(), any(ObjectMetadata.class));
+    return new ObjectMapper().readValue(content.getValue(), ObjectSpecification.class);
+  }
 }
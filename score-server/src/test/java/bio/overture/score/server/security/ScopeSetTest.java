@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.server.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.util.Collections;
+import lombok.val;
+import org.junit.Test;
+
+public class ScopeSetTest {
+
+  @Test
+  public void test_contains_ignores_case() {
+    val sut = ScopeSet.of(ImmutableSet.of("PROGRAMDATA-ABC.READ", "score.WRITE"));
+
+    assertThat(sut.contains("programdata-abc.read")).isTrue();
+    assertThat(sut.contains("SCORE.write")).isTrue();
+    assertThat(sut.contains("PROGRAMDATA-ABC.WRITE")).isFalse();
+    assertThat(sut.contains(null)).isFalse();
+    assertThat(sut).hasSize(2);
+  }
+
+  @Test
+  public void test_scopes_are_interned() {
+    val first = ScopeSet.of(ImmutableList.of(new String("score.READ")));
+    val second = ScopeSet.of(ImmutableList.of(new String("SCORE.read")));
+
+    assertThat(first.iterator().next()).isSameAs(second.iterator().next());
+  }
+
+  @Test
+  public void test_of_is_idempotent() {
+    val sut = ScopeSet.of(ImmutableSet.of("score.READ"));
+
+    assertThat(ScopeSet.of(sut)).isSameAs(sut);
+    assertThat(ScopeSet.of(Collections.emptySet())).isSameAs(ScopeSet.empty());
+  }
+}
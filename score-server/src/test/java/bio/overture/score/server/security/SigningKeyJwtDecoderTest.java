@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.server.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import bio.overture.score.server.utils.JWTGenerator;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.SneakyThrows;
+import lombok.val;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+public class SigningKeyJwtDecoderTest {
+
+  private static final Duration REFRESH = Duration.ofHours(1);
+  private static final Duration RETRY = Duration.ofSeconds(30);
+
+  private KeyPair keyPair;
+  private AtomicReference<RSAPublicKey> currentKey;
+  private AtomicInteger fetches;
+  private Clock clock;
+  private SigningKeyJwtDecoder sut;
+
+  @Before
+  public void setUp() {
+    keyPair = generateKeyPair();
+    currentKey = new AtomicReference<>((RSAPublicKey) keyPair.getPublic());
+    fetches = new AtomicInteger();
+    clock = mock(Clock.class);
+    when(clock.millis()).thenReturn(0L);
+    sut = new SigningKeyJwtDecoder(this::fetchKey, REFRESH, RETRY, clock);
+  }
+
+  @Test
+  public void test_key_is_fetched_once() {
+    val token = generateToken(keyPair);
+
+    assertThat(fetches.get()).isZero();
+    sut.decode(token);
+    sut.decode(token);
+    assertThat(fetches.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void test_key_is_refreshed_after_interval() {
+    val token = generateToken(keyPair);
+    sut.decode(token);
+
+    when(clock.millis()).thenReturn(REFRESH.toMillis());
+    sut.decode(token);
+    sut.decode(token);
+    assertThat(fetches.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void test_rotated_key_is_picked_up() {
+    sut.decode(generateToken(keyPair));
+
+    val rotated = generateKeyPair();
+    currentKey.set((RSAPublicKey) rotated.getPublic());
+    when(clock.millis()).thenReturn(RETRY.toMillis());
+
+    assertThat(sut.decode(generateToken(rotated))).isNotNull();
+    assertThat(fetches.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void test_bad_signatures_are_rate_limited() {
+    sut.decode(generateToken(keyPair));
+    val forged = generateToken(generateKeyPair());
+
+    when(clock.millis()).thenReturn(RETRY.toMillis());
+    assertThatThrownBy(() -> sut.decode(forged)).isInstanceOf(BadJwtException.class);
+    assertThatThrownBy(() -> sut.decode(forged)).isInstanceOf(BadJwtException.class);
+    assertThat(fetches.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void test_last_known_key_is_kept_when_fetch_fails() {
+    val token = generateToken(keyPair);
+    sut.decode(token);
+
+    currentKey.set(null);
+    when(clock.millis()).thenReturn(REFRESH.toMillis());
+    assertThat(sut.decode(token)).isNotNull();
+  }
+
+  @Test
+  public void test_unavailable_key() {
+    currentKey.set(null);
+
+    assertThatThrownBy(() -> sut.decode(generateToken(keyPair))).isInstanceOf(JwtException.class);
+  }
+
+  private RSAPublicKey fetchKey() {
+    fetches.incrementAndGet();
+    val key = currentKey.get();
+    if (key == null) {
+      throw new IllegalStateException("Authorization server unavailable");
+    }
+
+    return key;
+  }
+
+  private static String generateToken(KeyPair keyPair) {
+    return new JWTGenerator(keyPair).generateJwtNoContext(false);
+  }
+
+  @SneakyThrows
+  private static KeyPair generateKeyPair() {
+    val keyGenerator = KeyPairGenerator.getInstance("RSA");
+    keyGenerator.initialize(2048);
+    return keyGenerator.genKeyPair();
+  }
+}
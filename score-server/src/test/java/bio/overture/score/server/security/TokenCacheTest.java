@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.server.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import bio.overture.score.server.security.TokenCache.Expiring;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.val;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TokenCacheTest {
+
+  private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+
+  private AtomicInteger loads;
+  private MutableClock clock;
+  private TokenCache<String> sut;
+
+  @Before
+  public void setUp() {
+    loads = new AtomicInteger();
+    clock = new MutableClock(NOW);
+    sut = new TokenCache<>("test", 100, Duration.ofMinutes(5), null, clock);
+  }
+
+  @Test
+  public void test_cached_until_token_expiry() {
+    val expiry = NOW.plusSeconds(60);
+
+    assertThat(sut.get("token", () -> load("a", expiry))).isEqualTo("a");
+    assertThat(sut.get("token", () -> load("b", expiry))).isEqualTo("a");
+    assertThat(loads.get()).isEqualTo(1);
+
+    clock.instant = expiry;
+    assertThat(sut.get("token", () -> load("c", expiry.plusSeconds(60)))).isEqualTo("c");
+    assertThat(loads.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void test_ttl_caps_token_expiry() {
+    val expiry = NOW.plus(Duration.ofDays(1));
+    sut.get("token", () -> load("a", expiry));
+
+    clock.instant = NOW.plus(Duration.ofMinutes(5));
+    assertThat(sut.get("token", () -> load("b", expiry))).isEqualTo("b");
+  }
+
+  @Test
+  public void test_invalidate() {
+    sut.get("token", () -> load("a", null));
+    sut.get("other", () -> load("x", null));
+
+    sut.invalidate("token");
+    assertThat(sut.get("token", () -> load("b", null))).isEqualTo("b");
+    assertThat(sut.get("other", () -> load("y", null))).isEqualTo("x");
+  }
+
+  @Test
+  public void test_failures_not_cached() {
+    assertThatThrownBy(
+            () ->
+                sut.get(
+                    "token",
+                    () -> {
+                      throw new IllegalArgumentException("revoked");
+                    }))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("revoked");
+
+    assertThat(sut.get("token", () -> load("a", null))).isEqualTo("a");
+  }
+
+  @Test
+  public void test_concurrent_loads_coalesced() throws Exception {
+    val threads = 8;
+    val executor = Executors.newFixedThreadPool(threads);
+    val start = new CountDownLatch(1);
+    val release = new CountDownLatch(1);
+    try {
+      for (int i = 0; i < threads; i++) {
+        executor.submit(
+            () -> {
+              start.await();
+              return sut.get(
+                  "token",
+                  () -> {
+                    await(release);
+                    return load("a", null);
+                  });
+            });
+      }
+
+      start.countDown();
+      Thread.sleep(100);
+      release.countDown();
+    } finally {
+      executor.shutdown();
+      executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    assertThat(loads.get()).isEqualTo(1);
+  }
+
+  private Expiring<String> load(String value, Instant expiry) {
+    loads.incrementAndGet();
+    return Expiring.of(value, expiry);
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static class MutableClock extends Clock {
+
+    private Instant instant;
+
+    MutableClock(Instant instant) {
+      this.instant = instant;
+    }
+
+    @Override
+    public ZoneOffset getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return instant;
+    }
+  }
+}
@@ -31,10 +31,12 @@ import bio.overture.score.server.metadata.MetadataEntity;
 import bio.overture.score.server.metadata.MetadataService;
 import bio.overture.score.server.repository.s3.S3BucketNamingService;
 import bio.overture.score.server.repository.s3.S3DownloadService;
+import bio.overture.score.server.repository.s3.S3ObjectLocationIndex;
 import bio.overture.score.server.repository.s3.S3URLGenerator;
 import com.amazonaws.AmazonServiceException;
 import com.amazonaws.services.s3.AmazonS3;
 import com.google.common.base.Splitter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.net.URL;
 import java.util.regex.Pattern;
 import lombok.val;
@@ -63,7 +65,7 @@ public class ObjectDownloadServiceTest extends S3DownloadService {
   @Mock AmazonS3 s3Client;
 
   /** SUT */
-  S3DownloadService service = new S3DownloadService();
+  S3DownloadService service = new S3DownloadService(new SimpleMeterRegistry());
 
   S3BucketNamingService namingService = new S3BucketNamingService();
 
@@ -71,6 +73,10 @@ public class ObjectDownloadServiceTest extends S3DownloadService {
 
   MetadataEntity metadataEntity;
 
+  public ObjectDownloadServiceTest() {
+    super(new SimpleMeterRegistry());
+  }
+
   @Before
   public void setUp() {
     namingService.setObjectBucketName(objectBucketName);
@@ -79,6 +85,7 @@ public class ObjectDownloadServiceTest extends S3DownloadService {
     namingService.setBucketKeySize(3);
     service.setBucketNamingService(namingService);
     service.setS3Client(s3Client);
+    service.setLocationIndex(new S3ObjectLocationIndex());
 
     ReflectionTestUtils.setField(service, "dataDir", dataDir);
     ReflectionTestUtils.setField(service, "expiration", 7);
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.server.util;
+
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import bio.overture.score.core.model.ListingFilter;
+import bio.overture.score.core.model.ObjectInfo;
+import com.google.common.collect.ImmutableSet;
+import java.util.List;
+import java.util.stream.IntStream;
+import lombok.val;
+import org.junit.Test;
+
+public class ListingsTest {
+
+  private static final List<ObjectInfo> LISTING =
+      IntStream.range(0, 10)
+          .mapToObj(i -> new ObjectInfo("id-" + i, i * 100L, i * 10L))
+          .sorted(Listings.BY_ID)
+          .collect(toList());
+
+  @Test
+  public void test_page_through_listing() {
+    val filter = new ListingFilter();
+
+    val first = Listings.page(LISTING, filter, null, 4);
+    assertThat(ids(first.getObjects())).containsExactly("id-0", "id-1", "id-2", "id-3");
+    assertThat(first.getNextCursor()).isEqualTo("id-3");
+
+    val second = Listings.page(LISTING, filter, first.getNextCursor(), 4);
+    assertThat(ids(second.getObjects())).containsExactly("id-4", "id-5", "id-6", "id-7");
+
+    val last = Listings.page(LISTING, filter, second.getNextCursor(), 4);
+    assertThat(ids(last.getObjects())).containsExactly("id-8", "id-9");
+    assertThat(last.isLast()).isTrue();
+  }
+
+  @Test
+  public void test_cursor_not_in_listing() {
+    val page = Listings.page(LISTING, new ListingFilter(), "id-45", 100);
+    assertThat(ids(page.getObjects())).containsExactly("id-5", "id-6", "id-7", "id-8", "id-9");
+  }
+
+  @Test
+  public void test_filtered_page() {
+    val filter =
+        ListingFilter.builder()
+            .objectIds(ImmutableSet.of("id-1", "id-2", "id-7", "id-8", "unknown"))
+            .modifiedSince(200L)
+            .maxSize(70L)
+            .build();
+
+    val page = Listings.page(LISTING, filter, null, 1);
+    assertThat(ids(page.getObjects())).containsExactly("id-2");
+
+    val next = Listings.page(LISTING, filter, page.getNextCursor(), 1);
+    assertThat(ids(next.getObjects())).containsExactly("id-7");
+    assertThat(next.isLast()).isTrue();
+  }
+
+  private static List<String> ids(List<ObjectInfo> objects) {
+    return objects.stream().map(ObjectInfo::getId).collect(toList());
+  }
+}
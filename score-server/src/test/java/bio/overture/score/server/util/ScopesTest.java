@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.server.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import lombok.val;
+import org.junit.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.oauth2.core.DefaultOAuth2AuthenticatedPrincipal;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.server.resource.authentication.BearerTokenAuthentication;
+
+public class ScopesTest {
+
+  @Test
+  public void test_api_key_scopes_are_read_from_token_attributes() {
+    val authentication =
+        bearer(
+            Collections.singletonMap("scope", Arrays.asList("score.READ", "collab.WRITE")),
+            AuthorityUtils.NO_AUTHORITIES);
+
+    assertThat(Scopes.extractGrantedScopes(authentication))
+        .containsExactlyInAnyOrder("score.read", "collab.write");
+  }
+
+  @Test
+  public void test_api_key_scopes_fall_back_to_scope_authorities() {
+    val authentication =
+        bearer(
+            Collections.singletonMap("sub", "someone"),
+            AuthorityUtils.createAuthorityList("SCOPE_score.READ", "ROLE_USER"));
+
+    assertThat(Scopes.extractGrantedScopes(authentication)).containsExactly("score.read");
+  }
+
+  private static BearerTokenAuthentication bearer(
+      Map<String, Object> attributes, Collection<GrantedAuthority> authorities) {
+    // not an introspection principal, as for tokens authenticated another way
+    val principal = new DefaultOAuth2AuthenticatedPrincipal(attributes, authorities);
+    val token =
+        new OAuth2AccessToken(
+            OAuth2AccessToken.TokenType.BEARER,
+            "token",
+            Instant.now(),
+            Instant.now().plusSeconds(60));
+    return new BearerTokenAuthentication(principal, token, authorities);
+  }
+}
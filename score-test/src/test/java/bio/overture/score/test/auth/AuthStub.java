@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.test.auth;
+
+import static java.util.concurrent.TimeUnit.HOURS;
+
+import bio.overture.score.test.util.StubServer;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.BaseEncoding;
+import com.sun.net.httpserver.HttpServer;
+import java.security.KeyPairGenerator;
+import java.util.List;
+import java.util.UUID;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.val;
+
+/**
+ * Stand-in for the EGO authorization server. Every API key it hands out is valid and granted the
+ * system wide read and write scopes.
+ */
+public class AuthStub extends StubServer {
+
+  /** Constants. */
+  public static final String CHECK_TOKEN_PATH = "/oauth/check_token";
+
+  public static final String PUBLIC_KEY_PATH = "/oauth/token/public_key";
+
+  private static final List<String> SCOPES = ImmutableList.of("score.READ", "score.WRITE");
+
+  /** State. */
+  @Getter private final String apiKey = UUID.randomUUID().toString();
+
+  private final String publicKey = generatePublicKey();
+
+  public String getCheckTokenUrl() {
+    return getUrl() + CHECK_TOKEN_PATH;
+  }
+
+  public String getPublicKeyUrl() {
+    return getUrl() + PUBLIC_KEY_PATH;
+  }
+
+  @Override
+  protected void register(@NonNull HttpServer server) {
+    server.createContext(
+        CHECK_TOKEN_PATH,
+        handler(
+            exchange -> {
+              val expiry = (System.currentTimeMillis() + HOURS.toMillis(1)) / 1000L;
+              sendJson(
+                  exchange,
+                  200,
+                  ImmutableMap.of(
+                      "user_name", "load", "scope", SCOPES, "exp", expiry, "valid", true));
+            }));
+
+    // Only fetched when a JWT is presented; served so the secure profile has a valid key to load
+    server.createContext(PUBLIC_KEY_PATH, handler(exchange -> sendText(exchange, 200, publicKey)));
+  }
+
+  @SneakyThrows
+  private static String generatePublicKey() {
+    val generator = KeyPairGenerator.getInstance("RSA");
+    generator.initialize(2048);
+    val encoded = generator.generateKeyPair().getPublic().getEncoded();
+    return "-----BEGIN PUBLIC KEY-----\n"
+        + BaseEncoding.base64().withSeparator("\n", 64).encode(encoded)
+        + "\n-----END PUBLIC KEY-----\n";
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.test.load;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
+
+import bio.overture.score.core.model.ObjectSpecification;
+import bio.overture.score.core.util.ObjectKeys;
+import bio.overture.score.core.util.SimplePartCalculator;
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.S3ClientOptions;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.hash.Hashing;
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+/**
+ * Seeds the S3 stand-in with objects as the server would have left them after an upload: the data
+ * object and its {@code .meta} specification. Only the specification carries the object size; the
+ * data objects are empty since the load test never transfers object data.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class LoadFixtures {
+
+  /** Constants. */
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private static final String DATA_DIR = "data";
+
+  /** Configuration. */
+  @NonNull private final AmazonS3 s3;
+
+  @NonNull private final String bucketName;
+
+  private final int partSize;
+
+  public static AmazonS3 createClient(
+      @NonNull String endpoint, @NonNull String accessKey, @NonNull String secretKey) {
+    val s3 =
+        new AmazonS3Client(
+            new BasicAWSCredentials(accessKey, secretKey),
+            new ClientConfiguration().withSignerOverride("S3SignerType"));
+    s3.setEndpoint(endpoint);
+    s3.setS3ClientOptions(new S3ClientOptions().withPathStyleAccess(true));
+    return s3;
+  }
+
+  public List<String> seed(int objectCount, long objectSize) {
+    log.info("Seeding {} objects of {} bytes into '{}'...", objectCount, objectSize, bucketName);
+    if (!s3.doesBucketExist(bucketName)) {
+      s3.createBucket(bucketName);
+    }
+
+    return IntStream.range(0, objectCount)
+        .mapToObj(i -> seed(UUID.randomUUID().toString(), objectSize))
+        .collect(toList());
+  }
+
+  public int getPartCount(long objectSize) {
+    return new SimplePartCalculator(partSize).divide(objectSize).size();
+  }
+
+  @SneakyThrows
+  private String seed(String objectId, long objectSize) {
+    val objectKey = ObjectKeys.getObjectKey(DATA_DIR, objectId).getKey();
+    put(objectKey, new byte[0]);
+
+    val parts = new SimplePartCalculator(partSize).divide(objectSize);
+    for (val part : parts) {
+      part.setSourceMd5(md5(objectId + "/" + part.getPartNumber()));
+    }
+
+    val spec =
+        new ObjectSpecification(
+            objectKey, objectId, objectId, parts, objectSize, md5(objectId), false);
+    put(ObjectKeys.getObjectMetaKey(DATA_DIR, objectId), MAPPER.writeValueAsBytes(spec));
+
+    return objectId;
+  }
+
+  private void put(String key, byte[] content) {
+    val metadata = new ObjectMetadata();
+    metadata.setContentLength(content.length);
+    s3.putObject(bucketName, key, new ByteArrayInputStream(content), metadata);
+  }
+
+  /** Stands in for the checksums recorded on upload, which are never verified here. */
+  private static String md5(String value) {
+    return Hashing.md5().hashString(value, UTF_8).toString();
+  }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.test.load;
+
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.apache.http.HttpHeaders.AUTHORIZATION;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.HdrHistogram.Recorder;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.util.EntityUtils;
+
+/**
+ * Closed-loop load generator: each of {@link LoadSettings#getConcurrency()} clients issues the next
+ * request as soon as the previous one completed. Requests completing during the warmup are
+ * discarded.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class LoadGenerator {
+
+  /** Constants. */
+  private static final int SIGNIFICANT_DIGITS = 3;
+
+  private static final int NO_RESPONSE = -1;
+
+  /** Configuration. */
+  @NonNull private final LoadTarget target;
+
+  @NonNull private final LoadSettings settings;
+
+  @SneakyThrows
+  public LoadResult run(@NonNull LoadScenario scenario) {
+    val concurrency = settings.getConcurrency();
+    val run = new Run(scenario);
+
+    log.info("Running {} with {} clients...", scenario, concurrency);
+    val executor = Executors.newFixedThreadPool(concurrency);
+    try (val client = createClient(concurrency)) {
+      for (int i = 0; i < concurrency; i++) {
+        executor.execute(() -> run.loop(client));
+      }
+
+      SECONDS.sleep(settings.getWarmupSeconds());
+      run.recording.set(true);
+      val start = System.nanoTime();
+
+      SECONDS.sleep(settings.getDurationSeconds());
+      run.recording.set(false);
+      val elapsed = System.nanoTime() - start;
+
+      run.stopped.set(true);
+      executor.shutdown();
+      executor.awaitTermination(1, MINUTES);
+
+      val result = run.toResult(elapsed);
+      log.info(
+          "{}: {} requests, {} errors, {} req/s, p50 {} ms, p99 {} ms",
+          scenario,
+          result.getRequests(),
+          result.getErrors(),
+          String.format("%.1f", result.getThroughput()),
+          result.getLatency().getP50(),
+          result.getLatency().getP99());
+      return result;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static CloseableHttpClient createClient(int concurrency) {
+    // One pooled, kept-alive connection per client, like a client with its own connection
+    return HttpClients.custom()
+        .setMaxConnTotal(concurrency)
+        .setMaxConnPerRoute(concurrency)
+        .disableAutomaticRetries()
+        .build();
+  }
+
+  @RequiredArgsConstructor
+  private class Run {
+
+    private final LoadScenario scenario;
+
+    private final AtomicBoolean recording = new AtomicBoolean();
+    private final AtomicBoolean stopped = new AtomicBoolean();
+    private final AtomicInteger iterations = new AtomicInteger();
+
+    private final Recorder recorder = new Recorder(SIGNIFICANT_DIGITS);
+    private final LongAdder errors = new LongAdder();
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+
+    void loop(CloseableHttpClient client) {
+      while (!stopped.get()) {
+        execute(client);
+      }
+    }
+
+    private void execute(CloseableHttpClient client) {
+      val request = scenario.request(target, iterations.getAndIncrement());
+      request.setHeader(AUTHORIZATION, "Bearer " + target.getAccessToken());
+
+      val start = System.nanoTime();
+      int status;
+      try (val response = client.execute(request)) {
+        EntityUtils.consume(response.getEntity());
+        status = response.getStatusLine().getStatusCode();
+      } catch (IOException e) {
+        log.debug("{} failed: {}", request.getURI(), e.getMessage());
+        status = NO_RESPONSE;
+      }
+      val elapsed = System.nanoTime() - start;
+
+      if (recording.get()) {
+        recorder.recordValue(NANOSECONDS.toMicros(elapsed));
+        statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+        if (status < 200 || status >= 300) {
+          errors.increment();
+        }
+      }
+    }
+
+    LoadResult toResult(long elapsedNanos) {
+      val histogram = recorder.getIntervalHistogram();
+      val seconds = elapsedNanos / 1e9;
+      val counts = new TreeMap<Integer, Long>();
+      statuses.forEach((status, count) -> counts.put(status, count.sum()));
+
+      return LoadResult.builder()
+          .scenario(scenario)
+          .concurrency(settings.getConcurrency())
+          .durationSeconds(seconds)
+          .requests(histogram.getTotalCount())
+          .errors(errors.sum())
+          .throughput(histogram.getTotalCount() / seconds)
+          .latency(LoadResult.Latency.of(histogram))
+          .statuses(counts)
+          .build();
+    }
+  }
+}
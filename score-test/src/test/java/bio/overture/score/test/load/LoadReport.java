@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.test.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.File;
+import java.time.Instant;
+import java.util.List;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+
+/** JSON report of a load test run, for comparing the server's request path across changes. */
+@Slf4j
+@Value
+public class LoadReport {
+
+  /** Constants. */
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  /** ISO-8601 time the run started. */
+  @NonNull String startedAt;
+
+  int warmupSeconds;
+  int objectCount;
+  long objectSize;
+
+  @NonNull List<LoadResult> results;
+
+  public static LoadReport of(
+      @NonNull Instant startedAt,
+      @NonNull LoadSettings settings,
+      @NonNull List<LoadResult> results) {
+    return new LoadReport(
+        startedAt.toString(),
+        settings.getWarmupSeconds(),
+        settings.getObjectCount(),
+        settings.getObjectSize(),
+        results);
+  }
+
+  @SneakyThrows
+  public void write(@NonNull File file) {
+    FileUtils.forceMkdirParent(file);
+    MAPPER.writerWithDefaultPrettyPrinter().writeValue(file, this);
+    log.info("Wrote load report to '{}'", file.getAbsolutePath());
+  }
+}
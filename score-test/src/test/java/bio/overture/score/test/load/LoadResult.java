@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.test.load;
+
+import java.util.SortedMap;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+import org.HdrHistogram.Histogram;
+
+/** Throughput and latency distribution of a single scenario run. */
+@Value
+@Builder
+public class LoadResult {
+
+  @NonNull LoadScenario scenario;
+  int concurrency;
+  double durationSeconds;
+  long requests;
+  long errors;
+
+  /** Requests completed per second. */
+  double throughput;
+
+  @NonNull Latency latency;
+
+  /** Response counts by HTTP status, -1 for requests that failed without a response. */
+  @NonNull SortedMap<Integer, Long> statuses;
+
+  /** Latency percentiles in milliseconds. */
+  @Value
+  public static class Latency {
+
+    double min;
+    double mean;
+    double p50;
+    double p90;
+    double p99;
+    double p999;
+    double max;
+
+    /**
+     * @param histogram latencies in microseconds
+     */
+    public static Latency of(@NonNull Histogram histogram) {
+      return new Latency(
+          millis(histogram.getMinValue()),
+          histogram.getMean() / 1000.0,
+          millis(histogram.getValueAtPercentile(50.0)),
+          millis(histogram.getValueAtPercentile(90.0)),
+          millis(histogram.getValueAtPercentile(99.0)),
+          millis(histogram.getValueAtPercentile(99.9)),
+          millis(histogram.getMaxValue()));
+    }
+
+    private static double millis(long micros) {
+      return micros / 1000.0;
+    }
+  }
+}
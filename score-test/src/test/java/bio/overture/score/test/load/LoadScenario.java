@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.test.load;
+
+import java.util.UUID;
+import lombok.NonNull;
+import lombok.val;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
+
+/** The server request paths exercised by the load test. */
+public enum LoadScenario {
+
+  /** Download specification of a whole object, including pre-signed part URLs. */
+  DOWNLOAD_SPEC {
+
+    @Override
+    public HttpUriRequest request(@NonNull LoadTarget target, int iteration) {
+      return new HttpGet(
+          target.getServerUrl()
+              + "/download/"
+              + target.getObjectId(iteration)
+              + "?offset=0&length=-1");
+    }
+  },
+
+  /** Initiation of a multipart upload of a new object. */
+  UPLOAD_INIT {
+
+    @Override
+    public HttpUriRequest request(@NonNull LoadTarget target, int iteration) {
+      // Re-initiating an upload of a seeded object would cancel the one UPLOAD_PART finalizes
+      return new HttpPost(
+          target.getServerUrl()
+              + "/upload/"
+              + UUID.randomUUID()
+              + "/uploads?fileSize="
+              + target.getObjectSize());
+    }
+  },
+
+  /** Finalization of an uploaded part of an upload initiated before the run. */
+  UPLOAD_PART {
+
+    @Override
+    public HttpUriRequest request(@NonNull LoadTarget target, int iteration) {
+      // Spread over the parts so that every request records new part state
+      val objectId = target.getObjectId(iteration);
+      val partNumber = 1 + iteration % target.getPartCount();
+      return new HttpPost(
+          target.getServerUrl()
+              + "/upload/"
+              + objectId
+              + "/parts?partNumber="
+              + partNumber
+              + "&uploadId="
+              + target.getUploadId(objectId)
+              + "&md5=d41d8cd98f00b204e9800998ecf8427e&etag=d41d8cd98f00b204e9800998ecf8427e");
+    }
+  },
+
+  /** Listing of every object in the object store. */
+  LISTING {
+
+    @Override
+    public HttpUriRequest request(@NonNull LoadTarget target, int iteration) {
+      return new HttpGet(target.getServerUrl() + "/listing");
+    }
+  };
+
+  /** Creates the {@code iteration}-th request issued by a client, without authorization. */
+  public abstract HttpUriRequest request(LoadTarget target, int iteration);
+}
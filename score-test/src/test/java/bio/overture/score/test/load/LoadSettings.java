@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.test.load;
+
+import static java.util.stream.Collectors.toList;
+
+import bio.overture.score.core.util.Splitters;
+import java.io.File;
+import java.util.List;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+import lombok.val;
+
+/**
+ * Load test parameters. Defaults can be overridden with {@code -Dload.<name>=<value>}, e.g. {@code
+ * -Dload.concurrency=64 -Dload.scenarios=DOWNLOAD_SPEC,LISTING}.
+ */
+@Value
+@Builder
+public class LoadSettings {
+
+  /** Number of clients issuing requests back-to-back. */
+  int concurrency;
+
+  /** Seconds of load discarded from the results while the server warms up. */
+  int warmupSeconds;
+
+  /** Seconds of load recorded per scenario. */
+  int durationSeconds;
+
+  /** Number of distinct objects the requests are spread over. */
+  int objectCount;
+
+  /** Size of each seeded object. */
+  long objectSize;
+
+  @NonNull List<LoadScenario> scenarios;
+
+  @NonNull File reportFile;
+
+  public static LoadSettings fromSystemProperties() {
+    val scenarios = System.getProperty("load.scenarios");
+    return LoadSettings.builder()
+        .concurrency(Integer.getInteger("load.concurrency", 16))
+        .warmupSeconds(Integer.getInteger("load.warmup", 10))
+        .durationSeconds(Integer.getInteger("load.duration", 30))
+        .objectCount(Integer.getInteger("load.objects", 100))
+        .objectSize(Long.getLong("load.objectSize", 100L * 1024 * 1024))
+        .scenarios(
+            scenarios == null
+                ? List.of(LoadScenario.values())
+                : Splitters.COMMA.splitToList(scenarios).stream()
+                    .map(String::trim)
+                    .map(LoadScenario::valueOf)
+                    .collect(toList()))
+        .reportFile(new File(System.getProperty("load.report", "target/load-report.json")))
+        .build();
+  }
+}
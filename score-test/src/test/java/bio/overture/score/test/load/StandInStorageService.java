@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.test.load;
+
+import bio.overture.score.client.config.ClientProperties;
+import bio.overture.score.client.download.DownloadStateStore;
+import bio.overture.score.client.encryption.TokenEncryptionService;
+import bio.overture.score.client.exception.NotRetryableException;
+import bio.overture.score.client.progress.TransferTimings;
+import bio.overture.score.client.storage.ScoreStorageService;
+import bio.overture.score.core.model.ObjectSpecification;
+import bio.overture.score.core.model.Part;
+import bio.overture.score.test.s3.FaultyS3;
+import com.google.common.collect.Lists;
+import com.google.common.hash.Hashing;
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import lombok.NonNull;
+import lombok.val;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Storage service that hands out part URLs of a {@link FaultyS3} directly instead of asking the
+ * score server for them. Part transfers go through the client's own code paths unchanged, so only
+ * the transports and the object store are measured.
+ */
+public class StandInStorageService extends ScoreStorageService {
+
+  /** Constants. */
+  private static final String DATA_PREFIX = "data/";
+
+  /** Dependencies. */
+  private final FaultyS3 s3;
+
+  private final String bucketName;
+
+  /** Configuration. */
+  private final long partSize;
+
+  public StandInStorageService(
+      @NonNull FaultyS3 s3,
+      @NonNull String bucketName,
+      long partSize,
+      @NonNull DownloadStateStore downloadStateStore,
+      @NonNull RestTemplate dataTemplate,
+      @NonNull RetryTemplate retry) {
+    super(
+        s3.getUrl(),
+        downloadStateStore,
+        dataTemplate,
+        retry,
+        new RestTemplate(),
+        new RestTemplate(),
+        "stand-in",
+        new ClientProperties(),
+        new TokenEncryptionService(),
+        new TransferTimings());
+    this.s3 = s3;
+    this.bucketName = bucketName;
+    this.partSize = partSize;
+  }
+
+  @Override
+  public ObjectSpecification initiateUpload(
+      String objectId, long length, boolean overwrite, String md5) {
+    val key = DATA_PREFIX + objectId;
+    val uploadId = s3.initiateUpload(bucketName, key);
+    val parts = divide(length);
+    for (val part : parts) {
+      part.setUrl(s3.getPartUrl(bucketName, key, uploadId, part.getPartNumber()));
+    }
+
+    return ObjectSpecification.builder()
+        .objectKey(key)
+        .objectId(objectId)
+        .uploadId(uploadId)
+        .parts(parts)
+        .objectSize(length)
+        .objectMd5(md5)
+        .build();
+  }
+
+  @Override
+  public void finalizeUploadPart(
+      String objectId,
+      String uploadId,
+      int partNumber,
+      String md5,
+      String etag,
+      boolean disableChecksum)
+      throws IOException {
+    if (!disableChecksum && !md5.equals(etag)) {
+      throw new NotRetryableException();
+    }
+  }
+
+  @Override
+  public void finalizeUpload(String objectId, String uploadId) throws IOException {
+    if (s3.completeUpload(uploadId) == null) {
+      throw new NotRetryableException(new IOException("Upload " + uploadId + " does not exist"));
+    }
+  }
+
+  @Override
+  public ObjectSpecification getDownloadSpecification(String objectId, long offset, long length) {
+    val key = DATA_PREFIX + objectId;
+    val data = s3.getObject(bucketName, key);
+    val parts = divide(data.length);
+    for (val part : parts) {
+      part.setUrl(s3.getObjectUrl(bucketName, key));
+      part.setSourceMd5(
+          Hashing.md5()
+              .hashBytes(data, (int) part.getOffset(), (int) part.getPartSize())
+              .toString());
+    }
+
+    return ObjectSpecification.builder()
+        .objectKey(key)
+        .objectId(objectId)
+        .uploadId(objectId)
+        .parts(parts)
+        .objectSize(data.length)
+        .objectMd5(Hashing.md5().hashBytes(data).toString())
+        .build();
+  }
+
+  @Override
+  protected Optional<String> getEncryptedAccessToken() {
+    return Optional.empty();
+  }
+
+  /**
+   * @return a mutable list, since the transports sort the parts in place
+   */
+  private List<Part> divide(long length) {
+    val parts = Lists.<Part>newArrayList();
+    for (long offset = 0, number = 1; offset < length; offset += partSize, number++) {
+      parts.add(
+          Part.builder()
+              .partNumber((int) number)
+              .offset(offset)
+              .partSize(Math.min(partSize, length - offset))
+              .build());
+    }
+
+    return parts;
+  }
+}
@@ -0,0 +1,352 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.test.load;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.apache.commons.io.FileUtils.deleteDirectory;
+import static org.apache.commons.io.FileUtils.forceMkdir;
+import static org.apache.commons.io.FileUtils.writeByteArrayToFile;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import bio.overture.score.client.cli.Terminal;
+import bio.overture.score.client.config.ClientConfig;
+import bio.overture.score.client.download.DownloadStateStore;
+import bio.overture.score.client.download.Downloads;
+import bio.overture.score.client.exception.AmazonS3RetryableResponseErrorHandler;
+import bio.overture.score.client.progress.Progress;
+import bio.overture.score.client.transport.MemoryMappedParallelPartObjectTransport;
+import bio.overture.score.client.transport.ParallelPartObjectTransport;
+import bio.overture.score.client.transport.PipedParallelPartObjectTransport;
+import bio.overture.score.client.transport.PositionalParallelPartObjectTransport;
+import bio.overture.score.client.transport.SequentialPartObjectTransport;
+import bio.overture.score.client.transport.Transport;
+import bio.overture.score.core.model.Part;
+import bio.overture.score.test.s3.FaultProfile;
+import bio.overture.score.test.s3.FaultyS3;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.hash.Hashing;
+import java.io.File;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.apache.commons.io.FileUtils;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Uploads and downloads an object with each client transport against the {@link FaultyS3} stand-in
+ * under increasingly hostile fault profiles, and writes the throughput of each combination to a
+ * JSON report. Every transfer must complete intact, unless the transport cannot replay a part and
+ * faults cut parts short; the report shows what the faults cost.
+ *
+ * <p>Run with {@code mvn -pl score-test -P load test -Dtest=TransportLoadTest}. The object size,
+ * part size, worker threads and report file are set with the {@code transport.objectSize}, {@code
+ * transport.partSize}, {@code transport.threads} and {@code transport.report} system properties.
+ */
+@Slf4j
+@RunWith(Parameterized.class)
+@RequiredArgsConstructor
+public class TransportLoadTest {
+
+  /** Constants. */
+  private static final File ROOT_DIR = new File("target/transport");
+
+  private static final String BUCKET_NAME = "oicr.icgc.test";
+  private static final long MEGABYTE = 1024L * 1024L;
+  private static final int RETRIES = 20;
+  private static final int READ_TIMEOUT_SECONDS = 30;
+
+  private static final List<FaultProfile> FAULT_PROFILES =
+      ImmutableList.of(
+          FaultProfile.NONE,
+          FaultProfile.builder().name("latency").latencyMillis(50).build(),
+          FaultProfile.builder().name("bandwidth").bytesPerSecond(8 * MEGABYTE).build(),
+          FaultProfile.builder().name("stalls").stallRate(0.1).stallMillis(2000).build(),
+          FaultProfile.builder().name("errors").errorRate(0.1).errorStatus(503).build(),
+          FaultProfile.builder().name("resets").resetRate(0.1).build());
+
+  /** Configuration. */
+  private static final long OBJECT_SIZE = Long.getLong("transport.objectSize", 64 * MEGABYTE);
+
+  private static final long PART_SIZE = Long.getLong("transport.partSize", 2 * MEGABYTE);
+  private static final int THREADS = Integer.getInteger("transport.threads", 8);
+  private static final File REPORT_FILE =
+      new File(System.getProperty("transport.report", "target/transport-report.json"));
+
+  /** State. */
+  private static final FaultyS3 S3 = new FaultyS3();
+
+  private static final List<TransportReport.Result> RESULTS = Lists.newCopyOnWriteArrayList();
+  private static Instant startedAt;
+  private static File sourceFile;
+  private static String sourceMd5;
+
+  /** Parameters. */
+  private final TransportKind transport;
+
+  private final String faultsName;
+  private final FaultProfile faults;
+
+  @Parameters(name = "{0} with {1}")
+  public static Collection<Object[]> parameters() {
+    val parameters = Lists.<Object[]>newArrayList();
+    for (val transport : TransportKind.values()) {
+      for (val faults : FAULT_PROFILES) {
+        parameters.add(new Object[] {transport, faults.getName(), faults});
+      }
+    }
+
+    return parameters;
+  }
+
+  @BeforeClass
+  @SneakyThrows
+  public static void setUpClass() {
+    startedAt = Instant.now();
+    deleteDirectory(ROOT_DIR);
+    forceMkdir(ROOT_DIR);
+
+    val data = new byte[(int) OBJECT_SIZE];
+    new Random(1).nextBytes(data);
+    sourceFile = new File(ROOT_DIR, "source.bin");
+    writeByteArrayToFile(sourceFile, data);
+    sourceMd5 = Hashing.md5().hashBytes(data).toString();
+
+    S3.start(0);
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+    S3.stop();
+    new TransportReport(startedAt.toString(), OBJECT_SIZE, PART_SIZE, THREADS, RESULTS)
+        .write(REPORT_FILE);
+  }
+
+  @Test
+  @SneakyThrows
+  public void test_transfer() {
+    val objectId = UUID.randomUUID().toString();
+    val outputDir = new File(ROOT_DIR, objectId);
+    forceMkdir(outputDir);
+    val downloadStateStore = new DownloadStateStore();
+    val storage = createStorageService(downloadStateStore);
+
+    val upload = storage.initiateUpload(objectId, OBJECT_SIZE, false, sourceMd5);
+    S3.setFaults(faults);
+    try {
+      val uploaded =
+          measure(
+              Transport.Mode.UPLOAD,
+              () ->
+                  configure(storage, upload.getParts(), objectId, upload.getUploadId())
+                      .withTransportMode(Transport.Mode.UPLOAD)
+                      .build()
+                      .send(sourceFile));
+      if (!uploaded) {
+        return;
+      }
+
+      val object = S3.getObject(BUCKET_NAME, upload.getObjectKey());
+      assertThat(Hashing.md5().hashBytes(object).toString())
+          .as("Uploaded MD5")
+          .isEqualTo(sourceMd5);
+      if (!transport.isReceiving()) {
+        return;
+      }
+
+      val download = storage.getDownloadSpecification(objectId, 0, -1);
+      downloadStateStore.init(outputDir, download);
+      val downloaded =
+          measure(
+              Transport.Mode.DOWNLOAD,
+              () ->
+                  configure(storage, download.getParts(), objectId, objectId)
+                      .withTransportMode(Transport.Mode.DOWNLOAD)
+                      .build()
+                      .receive(outputDir));
+      if (downloaded) {
+        assertThat(FileUtils.readFileToByteArray(Downloads.getDownloadFile(outputDir, objectId)))
+            .as("Downloaded content")
+            .isEqualTo(object);
+      }
+    } finally {
+      S3.setFaults(FaultProfile.NONE);
+      S3.abortUpload(upload.getUploadId());
+      S3.deleteObject(BUCKET_NAME, upload.getObjectKey());
+      deleteDirectory(outputDir);
+    }
+  }
+
+  private Transport.Builder configure(
+      StandInStorageService storage, List<Part> parts, String objectId, String sessionId) {
+    return transport
+        .builder()
+        .withProxy(storage)
+        .withProgressBar(new Progress(new Terminal(false, true), true, parts.size(), 0))
+        .withParts(parts)
+        .withObjectId(objectId)
+        .withSessionId(sessionId)
+        .withChecksum(false);
+  }
+
+  /**
+   * @return whether the transfer completed
+   */
+  private boolean measure(Transport.Mode mode, Runnable transfer) {
+    S3.resetStats();
+    val watch = Stopwatch.createStarted();
+    Throwable failure = null;
+    try {
+      transfer.run();
+    } catch (Throwable t) {
+      failure = t;
+    }
+    val seconds = watch.elapsed(NANOSECONDS) / (double) SECONDS.toNanos(1);
+    val stats = S3.getStats();
+
+    val result =
+        TransportReport.Result.builder()
+            .transport(transport.name())
+            .faults(faults.getName())
+            .direction(mode.name().toLowerCase())
+            .completed(failure == null)
+            .seconds(seconds)
+            .megabytesPerSecond(failure == null ? OBJECT_SIZE / (double) MEGABYTE / seconds : 0)
+            .requests(stats.getRequests())
+            .errors(stats.getErrors())
+            .resets(stats.getResets())
+            .stalls(stats.getStalls())
+            .build();
+    log.info("{}", result);
+    RESULTS.add(result);
+
+    if (failure != null && !isExpected(mode, stats)) {
+      throw new AssertionError(transport + " failed to " + mode + " with " + faults, failure);
+    }
+
+    return failure == null;
+  }
+
+  /** Transports that cannot replay a part are not expected to survive parts being cut short. */
+  private boolean isExpected(Transport.Mode mode, FaultyS3.Stats stats) {
+    return mode == Transport.Mode.UPLOAD
+        && !transport.isReplaying()
+        && stats.getErrors() + stats.getResets() > 0;
+  }
+
+  private static StandInStorageService createStorageService(DownloadStateStore downloadStateStore) {
+    val requestFactory = new SimpleClientHttpRequestFactory();
+    requestFactory.setReadTimeout(READ_TIMEOUT_SECONDS * 1000);
+    requestFactory.setOutputStreaming(true);
+    requestFactory.setBufferRequestBody(false);
+
+    val dataTemplate = new RestTemplate(requestFactory);
+    dataTemplate.setErrorHandler(new AmazonS3RetryableResponseErrorHandler());
+
+    return new StandInStorageService(
+        S3,
+        BUCKET_NAME,
+        PART_SIZE,
+        downloadStateStore,
+        dataTemplate,
+        new ClientConfig().retryTemplate(RETRIES, 0));
+  }
+
+  /** The transports selectable with {@code transport.fileFrom}, configured as the client does. */
+  @RequiredArgsConstructor
+  enum TransportKind {
+    SEQUENTIAL(true, false) {
+
+      @Override
+      Transport.Builder builder() {
+        return SequentialPartObjectTransport.builder();
+      }
+    },
+    REMOTE(true, true) {
+
+      @Override
+      Transport.Builder builder() {
+        return ParallelPartObjectTransport.builder()
+            .withNumberOfWorkerThreads(THREADS)
+            .withMemory(OBJECT_SIZE);
+      }
+    },
+    MEMORY(true, true) {
+
+      @Override
+      Transport.Builder builder() {
+        return MemoryMappedParallelPartObjectTransport.builder()
+            .withNumberOfWorkerThreads(THREADS)
+            .withMemory(OBJECT_SIZE);
+      }
+    },
+    PIPED(false, true) {
+
+      @Override
+      Transport.Builder builder() {
+        return PipedParallelPartObjectTransport.builder()
+            .withNumberOfWorkerThreads(THREADS)
+            .withMemory(OBJECT_SIZE);
+      }
+    },
+    POSITIONAL(true, true) {
+
+      @Override
+      Transport.Builder builder() {
+        return PositionalParallelPartObjectTransport.builder()
+            .withNumberOfWorkerThreads(THREADS)
+            .withMemory(OBJECT_SIZE);
+      }
+    },
+    POSITIONAL_PIPELINE(true, true) {
+
+      @Override
+      Transport.Builder builder() {
+        return PositionalParallelPartObjectTransport.builder()
+            .withForceInterval(4 * PART_SIZE)
+            .withPipeline(2, 2)
+            .withNumberOfWorkerThreads(THREADS)
+            .withMemory(OBJECT_SIZE);
+      }
+    };
+
+    /** Whether a part can be uploaded again after a failed attempt. */
+    @Getter private final boolean replaying;
+
+    /** Whether the transport implements {@link Transport#receive(File)}. */
+    @Getter private final boolean receiving;
+
+    abstract Transport.Builder builder();
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.test.meta;
+
+import bio.overture.score.test.util.StubServer;
+import com.google.common.collect.ImmutableMap;
+import com.sun.net.httpserver.HttpServer;
+import lombok.NonNull;
+import lombok.val;
+
+/**
+ * Stand-in for the SONG metadata server. Any object id is registered as a controlled access file of
+ * a published analysis.
+ */
+public class MetadataStub extends StubServer {
+
+  /** Constants. */
+  public static final String PROJECT_CODE = "LOAD";
+
+  public static final String ANALYSIS_ID = "load";
+
+  @Override
+  protected void register(@NonNull HttpServer server) {
+    server.createContext(
+        "/entities/",
+        handler(
+            exchange -> {
+              val path = exchange.getRequestURI().getPath();
+              val objectId = path.substring(path.lastIndexOf('/') + 1);
+
+              val entity = new Entity();
+              entity.setId(objectId);
+              entity.setGnosId(ANALYSIS_ID);
+              entity.setFileName(objectId + ".bin");
+              entity.setProjectCode(PROJECT_CODE);
+              entity.setAccess("controlled");
+              sendJson(exchange, 200, entity);
+            }));
+
+    server.createContext(
+        "/studies/",
+        handler(
+            exchange -> sendJson(exchange, 200, ImmutableMap.of("analysisState", "PUBLISHED"))));
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.test.s3;
+
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * Degradation injected by {@link FaultyS3} into object data requests. Rates are the probability of
+ * a request being affected; which requests are affected is decided from {@link #getSeed()} and the
+ * order the requests arrive in, so the same profile injects the same sequence of faults.
+ */
+@Value
+@Builder(toBuilder = true)
+public class FaultProfile {
+
+  public static final FaultProfile NONE = FaultProfile.builder().name("none").build();
+
+  @NonNull String name;
+
+  /** Delay before responding to each request. */
+  @Builder.Default long latencyMillis = 0L;
+
+  /** Transfer rate of each request body, 0 for unlimited. */
+  @Builder.Default long bytesPerSecond = 0L;
+
+  /** Share of requests whose body pauses part way through for {@link #getStallMillis()}. */
+  @Builder.Default double stallRate = 0.0;
+
+  @Builder.Default long stallMillis = 0L;
+
+  /** Share of requests answered with {@link #getErrorStatus()} instead. */
+  @Builder.Default double errorRate = 0.0;
+
+  /** 503 Slow Down is retried by the client, 500 Internal Error is not. */
+  @Builder.Default int errorStatus = 503;
+
+  /** Share of requests whose connection is closed part way through the body. */
+  @Builder.Default double resetRate = 0.0;
+
+  @Builder.Default long seed = 0L;
+}
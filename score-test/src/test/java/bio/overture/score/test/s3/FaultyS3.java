@@ -0,0 +1,536 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.test.s3;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import bio.overture.score.core.util.Splitters;
+import bio.overture.score.test.util.StubServer;
+import com.google.common.base.Splitter;
+import com.google.common.hash.Hashing;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.SneakyThrows;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+/**
+ * In-memory stand-in for the subset of the S3 API used by the server and client: single and
+ * multipart uploads (initiate, upload part, list parts, complete, abort) and ranged GETs. Requests
+ * transferring object data are degraded according to the current {@link FaultProfile}, to reproduce
+ * slow and flaky object stores when measuring transports.
+ *
+ * <p>Requests are not authenticated, so pre-signed URLs of any signature version are accepted.
+ */
+@Slf4j
+public class FaultyS3 extends StubServer {
+
+  /** Constants. */
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private static final String XMLNS = "http://s3.amazonaws.com/doc/2006-03-01/";
+
+  private static final Splitter QUERY = Splitter.on('&');
+
+  /** Configuration. */
+  @Getter @Setter @NonNull private volatile FaultProfile faults = FaultProfile.NONE;
+
+  /** State. */
+  private final Map<String, StoredObject> objects = new ConcurrentHashMap<>();
+
+  private final Map<String, Upload> uploads = new ConcurrentHashMap<>();
+
+  private final AtomicLong dataRequests = new AtomicLong();
+  private final LongAdder errors = new LongAdder();
+  private final LongAdder resets = new LongAdder();
+  private final LongAdder stalls = new LongAdder();
+
+  public String getObjectUrl(@NonNull String bucketName, @NonNull String key) {
+    return getUrl() + "/" + bucketName + "/" + key;
+  }
+
+  public String getPartUrl(
+      @NonNull String bucketName, @NonNull String key, @NonNull String uploadId, int partNumber) {
+    return getObjectUrl(bucketName, key) + "?partNumber=" + partNumber + "&uploadId=" + uploadId;
+  }
+
+  public void putObject(@NonNull String bucketName, @NonNull String key, @NonNull byte[] data) {
+    objects.put(
+        bucketName + "/" + key, new StoredObject(data, Hashing.md5().hashBytes(data).toString()));
+  }
+
+  public byte[] getObject(@NonNull String bucketName, @NonNull String key) {
+    val object = objects.get(bucketName + "/" + key);
+    return object == null ? null : object.data;
+  }
+
+  public void deleteObject(@NonNull String bucketName, @NonNull String key) {
+    objects.remove(bucketName + "/" + key);
+  }
+
+  public String initiateUpload(@NonNull String bucketName, @NonNull String key) {
+    val uploadId = UUID.randomUUID().toString();
+    uploads.put(uploadId, new Upload(bucketName, key));
+    return uploadId;
+  }
+
+  /** Assembles the parts uploaded so far, in part number order, into the object. */
+  public String completeUpload(@NonNull String uploadId) {
+    val upload = uploads.remove(uploadId);
+    if (upload == null) {
+      return null;
+    }
+
+    val data =
+        new ByteArrayOutputStream(upload.parts.values().stream().mapToInt(p -> p.length).sum());
+    val partMd5s = new ByteArrayOutputStream();
+    for (val part : upload.parts.values()) {
+      data.writeBytes(part);
+      partMd5s.writeBytes(Hashing.md5().hashBytes(part).asBytes());
+    }
+    val eTag = Hashing.md5().hashBytes(partMd5s.toByteArray()) + "-" + upload.parts.size();
+    objects.put(upload.bucketName + "/" + upload.key, new StoredObject(data.toByteArray(), eTag));
+
+    return eTag;
+  }
+
+  public void abortUpload(@NonNull String uploadId) {
+    uploads.remove(uploadId);
+  }
+
+  public Stats getStats() {
+    return new Stats(dataRequests.get(), errors.sum(), resets.sum(), stalls.sum());
+  }
+
+  public void resetStats() {
+    dataRequests.set(0);
+    errors.reset();
+    resets.reset();
+    stalls.reset();
+  }
+
+  @Override
+  protected void register(@NonNull HttpServer server) {
+    server.createContext("/", this::handle);
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try {
+      dispatch(exchange);
+      exchange.close();
+    } catch (ConnectionReset e) {
+      // Leaving the handler exceptionally makes the HTTP server drop the connection
+      throw e;
+    } catch (Exception e) {
+      log.error("Failed to handle {} {}", exchange.getRequestMethod(), exchange.getRequestURI(), e);
+      exchange.close();
+    }
+  }
+
+  private void dispatch(HttpExchange exchange) throws IOException {
+    val path = exchange.getRequestURI().getPath();
+    val separator = path.indexOf('/', 1);
+    val bucketName = separator < 0 ? path.substring(1) : path.substring(1, separator);
+    val key = separator < 0 ? "" : path.substring(separator + 1);
+    val query = parseQuery(exchange.getRequestURI().getRawQuery());
+    val uploadId = query.get("uploadId");
+
+    switch (exchange.getRequestMethod()) {
+      case "POST":
+        if (query.containsKey("uploads")) {
+          initiateUpload(exchange, bucketName, key);
+        } else if (uploadId != null) {
+          completeUpload(exchange, bucketName, key, uploadId);
+        } else {
+          sendError(exchange, 405, "MethodNotAllowed");
+        }
+        break;
+      case "PUT":
+        if (uploadId != null) {
+          uploadPart(exchange, uploadId, Integer.parseInt(query.get("partNumber")));
+        } else {
+          putObject(exchange, bucketName, key);
+        }
+        break;
+      case "GET":
+        if (uploadId != null) {
+          listParts(exchange, bucketName, key, uploadId);
+        } else {
+          getObject(exchange, bucketName, key);
+        }
+        break;
+      case "HEAD":
+        headObject(exchange, bucketName, key);
+        break;
+      case "DELETE":
+        if (uploadId != null) {
+          abortUpload(uploadId);
+        } else {
+          deleteObject(bucketName, key);
+        }
+        exchange.sendResponseHeaders(204, -1);
+        break;
+      default:
+        sendError(exchange, 405, "MethodNotAllowed");
+    }
+  }
+
+  private void initiateUpload(HttpExchange exchange, String bucketName, String key)
+      throws IOException {
+    val uploadId = initiateUpload(bucketName, key);
+    sendXml(
+        exchange,
+        200,
+        "<InitiateMultipartUploadResult xmlns=\""
+            + XMLNS
+            + "\">"
+            + element("Bucket", bucketName)
+            + element("Key", key)
+            + element("UploadId", uploadId)
+            + "</InitiateMultipartUploadResult>");
+  }
+
+  private void completeUpload(HttpExchange exchange, String bucketName, String key, String uploadId)
+      throws IOException {
+    // The part list in the request body is trusted to name every part uploaded
+    exchange.getRequestBody().readAllBytes();
+    val eTag = completeUpload(uploadId);
+    if (eTag == null) {
+      sendError(exchange, 404, "NoSuchUpload");
+      return;
+    }
+
+    sendXml(
+        exchange,
+        200,
+        "<CompleteMultipartUploadResult xmlns=\""
+            + XMLNS
+            + "\">"
+            + element("Location", getObjectUrl(bucketName, key))
+            + element("Bucket", bucketName)
+            + element("Key", key)
+            + element("ETag", quote(eTag))
+            + "</CompleteMultipartUploadResult>");
+  }
+
+  private void listParts(HttpExchange exchange, String bucketName, String key, String uploadId)
+      throws IOException {
+    val upload = uploads.get(uploadId);
+    if (upload == null) {
+      sendError(exchange, 404, "NoSuchUpload");
+      return;
+    }
+
+    val xml =
+        new StringBuilder("<ListPartsResult xmlns=\"")
+            .append(XMLNS)
+            .append("\">")
+            .append(element("Bucket", bucketName))
+            .append(element("Key", key))
+            .append(element("UploadId", uploadId))
+            .append(element("PartNumberMarker", "0"))
+            .append(element("MaxParts", "10000"))
+            .append(element("IsTruncated", "false"));
+    upload.parts.forEach(
+        (partNumber, part) ->
+            xml.append("<Part>")
+                .append(element("PartNumber", partNumber.toString()))
+                .append(element("ETag", quote(Hashing.md5().hashBytes(part).toString())))
+                .append(element("Size", Integer.toString(part.length)))
+                .append("</Part>"));
+    sendXml(exchange, 200, xml.append("</ListPartsResult>").toString());
+  }
+
+  private void uploadPart(HttpExchange exchange, String uploadId, int partNumber)
+      throws IOException {
+    val upload = uploads.get(uploadId);
+    if (upload == null) {
+      sendError(exchange, 404, "NoSuchUpload");
+      return;
+    }
+
+    val data = receive(exchange);
+    if (data != null) {
+      upload.parts.put(partNumber, data);
+      sendStored(exchange, data);
+    }
+  }
+
+  private void putObject(HttpExchange exchange, String bucketName, String key) throws IOException {
+    val data = receive(exchange);
+    if (data != null) {
+      putObject(bucketName, key, data);
+      sendStored(exchange, data);
+    }
+  }
+
+  private void headObject(HttpExchange exchange, String bucketName, String key) throws IOException {
+    val object = objects.get(bucketName + "/" + key);
+    if (object == null) {
+      exchange.sendResponseHeaders(404, -1);
+      return;
+    }
+
+    exchange.getResponseHeaders().set("ETag", quote(object.eTag));
+    exchange.getResponseHeaders().set("Content-Length", Integer.toString(object.data.length));
+    exchange.sendResponseHeaders(200, -1);
+  }
+
+  private void getObject(HttpExchange exchange, String bucketName, String key) throws IOException {
+    val object = objects.get(bucketName + "/" + key);
+    if (object == null) {
+      sendError(exchange, 404, "NoSuchKey");
+      return;
+    }
+
+    val data = object.data;
+    long start = 0;
+    long end = data.length - 1L;
+    val range = exchange.getRequestHeaders().getFirst("Range");
+    if (range != null) {
+      val bounds = Splitters.DASH.splitToList(range.substring("bytes=".length()));
+      if (bounds.get(0).isEmpty()) {
+        start = Math.max(0, data.length - Long.parseLong(bounds.get(1)));
+      } else {
+        start = Long.parseLong(bounds.get(0));
+        end = bounds.get(1).isEmpty() ? end : Math.min(end, Long.parseLong(bounds.get(1)));
+      }
+      if (start > end) {
+        exchange.getResponseHeaders().set("Content-Range", "bytes */" + data.length);
+        sendError(exchange, 416, "InvalidRange");
+        return;
+      }
+    }
+
+    val fault = nextFault();
+    if (fault.fail(exchange)) {
+      return;
+    }
+
+    val length = end - start + 1L;
+    val headers = exchange.getResponseHeaders();
+    headers.set("Accept-Ranges", "bytes");
+    headers.set("Content-Type", "application/octet-stream");
+    headers.set("ETag", quote(object.eTag));
+    if (range != null) {
+      headers.set("Content-Range", "bytes " + start + "-" + end + "/" + data.length);
+    }
+    exchange.sendResponseHeaders(range == null ? 200 : 206, length);
+
+    try (val output = exchange.getResponseBody()) {
+      fault.transfer(new ByteArrayInputStream(data, (int) start, (int) length), output, length);
+    }
+  }
+
+  /**
+   * @return the request body, or {@code null} if a fault was injected in its place
+   */
+  private byte[] receive(HttpExchange exchange) throws IOException {
+    val contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+    if (contentLength == null) {
+      sendError(exchange, 411, "MissingContentLength");
+      return null;
+    }
+
+    val length = Long.parseLong(contentLength);
+    val fault = nextFault();
+    val data = new ByteArrayOutputStream((int) length);
+    fault.transfer(exchange.getRequestBody(), data, length);
+    // The HTTP server only keeps the connection alive once the body has been read to its end
+    exchange.getRequestBody().readAllBytes();
+
+    return fault.fail(exchange) ? null : data.toByteArray();
+  }
+
+  private static void sendStored(HttpExchange exchange, byte[] data) throws IOException {
+    exchange.getResponseHeaders().set("ETag", quote(Hashing.md5().hashBytes(data).toString()));
+    exchange.sendResponseHeaders(200, -1);
+  }
+
+  private Fault nextFault() {
+    val profile = faults;
+    val random = new SplittableRandom(profile.getSeed() * 31 + dataRequests.getAndIncrement());
+    return new Fault(
+        profile,
+        random.nextDouble() < profile.getErrorRate(),
+        random.nextDouble() < profile.getResetRate(),
+        random.nextDouble() < profile.getStallRate(),
+        random.nextDouble());
+  }
+
+  private static void sendError(HttpExchange exchange, int status, String code) throws IOException {
+    sendXml(
+        exchange,
+        status,
+        "<Error>" + element("Code", code) + element("Message", code) + "</Error>");
+  }
+
+  private static void sendXml(HttpExchange exchange, int status, String xml) throws IOException {
+    send(exchange, status, "application/xml", xml.getBytes(UTF_8));
+  }
+
+  private static String element(String name, String value) {
+    return "<" + name + ">" + value + "</" + name + ">";
+  }
+
+  private static String quote(String eTag) {
+    return "\"" + eTag + "\"";
+  }
+
+  @SneakyThrows
+  private static Map<String, String> parseQuery(String query) {
+    val parameters = new HashMap<String, String>();
+    if (query != null) {
+      for (val parameter : QUERY.split(query)) {
+        val separator = parameter.indexOf('=');
+        if (separator < 0) {
+          parameters.put(parameter, "");
+        } else {
+          parameters.put(
+              parameter.substring(0, separator),
+              URLDecoder.decode(parameter.substring(separator + 1), UTF_8.name()));
+        }
+      }
+    }
+
+    return parameters;
+  }
+
+  @RequiredArgsConstructor
+  private static class StoredObject {
+
+    private final byte[] data;
+
+    /** Computed once, since ranged GETs of large objects would otherwise rehash them each time. */
+    private final String eTag;
+  }
+
+  @RequiredArgsConstructor
+  private static class Upload {
+
+    private final String bucketName;
+    private final String key;
+    private final Map<Integer, byte[]> parts = new ConcurrentSkipListMap<>();
+  }
+
+  /** Faults drawn for a single data request. */
+  @RequiredArgsConstructor
+  private class Fault {
+
+    private final FaultProfile profile;
+    private final boolean error;
+    private final boolean reset;
+    private final boolean stall;
+
+    /** Share of the body transferred before a reset or stall. */
+    private final double position;
+
+    /** Answers with an error instead if one was drawn, after the configured latency. */
+    @SneakyThrows
+    boolean fail(HttpExchange exchange) {
+      MILLISECONDS.sleep(profile.getLatencyMillis());
+      if (error) {
+        errors.increment();
+        sendError(exchange, profile.getErrorStatus(), errorCode(profile.getErrorStatus()));
+      }
+
+      return error;
+    }
+
+    /** Copies {@code length} bytes at the configured rate, stalling or resetting as drawn. */
+    @SneakyThrows
+    void transfer(InputStream input, OutputStream output, long length) {
+      val boundary = (long) (length * position);
+      val buffer = new byte[BUFFER_SIZE];
+      val started = System.nanoTime();
+      boolean stalled = false;
+      long transferred = 0L;
+
+      while (transferred < length) {
+        if (transferred == boundary) {
+          if (reset) {
+            output.flush();
+            resets.increment();
+            throw new ConnectionReset();
+          }
+          if (stall && !stalled) {
+            stalls.increment();
+            MILLISECONDS.sleep(profile.getStallMillis());
+            stalled = true;
+          }
+        }
+
+        long count = Math.min(buffer.length, length - transferred);
+        if (transferred < boundary) {
+          count = Math.min(count, boundary - transferred);
+        }
+
+        val read = input.readNBytes(buffer, 0, (int) count);
+        if (read < count) {
+          throw new IOException("Request body ended after " + (transferred + read) + " bytes");
+        }
+        output.write(buffer, 0, read);
+        transferred += read;
+
+        if (profile.getBytesPerSecond() > 0) {
+          val due = SECONDS.toNanos(transferred) / profile.getBytesPerSecond();
+          NANOSECONDS.sleep(due - (System.nanoTime() - started));
+        }
+      }
+    }
+
+    private String errorCode(int status) {
+      return status == 503 ? "SlowDown" : "InternalError";
+    }
+  }
+
+  /** Thrown to have the HTTP server drop the connection part way through a body. */
+  private static class ConnectionReset extends IOException {}
+
+  /** Data requests served and faults injected since the last {@link #resetStats()}. */
+  @Value
+  public static class Stats {
+
+    long requests;
+    long errors;
+    long resets;
+    long stalls;
+  }
+}
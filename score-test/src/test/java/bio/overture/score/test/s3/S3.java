@@ -24,7 +24,6 @@ import java.util.function.Consumer;
 import java.util.function.Function;
 import lombok.Getter;
 import lombok.val;
-import sirius.kernel.Setup;
 import sirius.kernel.Sirius;
 import sirius.kernel.di.Injector;
 import sirius.web.controller.Controller;
@@ -36,8 +35,14 @@ public class S3 {
   @Getter private File multipartDir;
 
   public void start(File s3Root) {
-    val setup = createSetup(s3Root);
+    start(createSetup(s3Root));
+  }
+
+  public void start(File s3Root, int port) {
+    start(createSetup(s3Root).withPort(port));
+  }
 
+  private void start(S3Setup setup) {
     Sirius.start(setup);
 
     registerController();
@@ -65,19 +70,21 @@ public class S3 {
     Sirius.stop();
   }
 
-  private Setup createSetup(File s3Root) {
+  private S3Setup createSetup(File s3Root) {
     bucketDir = new File(s3Root, "buckets");
     checkState(bucketDir.mkdir(), "Could not create dir: %s", bucketDir);
 
     multipartDir = new File(s3Root, "multipart");
     checkState(multipartDir.mkdir(), "Could not create dir: %s", multipartDir);
 
-    return new S3Setup(ClassLoader.getSystemClassLoader())
-        .withAutoCreateBuckets(true)
-        .withBaseDir(bucketDir)
-        .withMultipartDir(multipartDir)
-        .withLogToFile(true)
-        .withLogToConsole(true);
+    val setup =
+        new S3Setup(ClassLoader.getSystemClassLoader())
+            .withAutoCreateBuckets(true)
+            .withBaseDir(bucketDir)
+            .withMultipartDir(multipartDir);
+    setup.withLogToFile(true).withLogToConsole(true);
+
+    return setup;
   }
 
   private static void registerController() {
@@ -42,6 +42,12 @@ public class S3Setup extends Setup {
     return this;
   }
 
+  /** Port the S3 API is served on, under the {@code /s3} path. */
+  public S3Setup withPort(int port) {
+    set("http.port", port);
+    return this;
+  }
+
   public S3Setup withMultipartDir(File multipartDir) {
     set("storage.multipartDir", multipartDir.getAbsolutePath());
     return this;
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package bio.overture.score.test.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+/**
+ * Minimal in-process HTTP server for standing in for the services the score server calls out to.
+ * Unlike a mock, it is reached over real sockets so that the server's client pools and timeouts are
+ * exercised.
+ */
+@Slf4j
+public abstract class StubServer {
+
+  /** Constants. */
+  protected static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private static final int THREADS = 32;
+
+  /** State. */
+  private HttpServer server;
+
+  private ExecutorService executor;
+
+  @SneakyThrows
+  public void start(int port) {
+    server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+    executor = Executors.newFixedThreadPool(THREADS);
+    server.setExecutor(executor);
+    register(server);
+    server.start();
+    log.info("{} listening on {}", getClass().getSimpleName(), getUrl());
+  }
+
+  public void stop() {
+    if (server != null) {
+      server.stop(0);
+      executor.shutdownNow();
+    }
+  }
+
+  public String getUrl() {
+    return "http://localhost:" + server.getAddress().getPort();
+  }
+
+  /** Adds the contexts served by this stub. */
+  protected abstract void register(HttpServer server);
+
+  protected static HttpHandler handler(@NonNull ExchangeHandler handler) {
+    return exchange -> {
+      try {
+        handler.handle(exchange);
+      } catch (Exception e) {
+        log.error(
+            "Failed to handle {} {}", exchange.getRequestMethod(), exchange.getRequestURI(), e);
+        exchange.sendResponseHeaders(500, -1);
+      } finally {
+        exchange.close();
+      }
+    };
+  }
+
+  protected static void sendJson(@NonNull HttpExchange exchange, int status, @NonNull Object body)
+      throws IOException {
+    send(exchange, status, "application/json", MAPPER.writeValueAsBytes(body));
+  }
+
+  protected static void send(
+      @NonNull HttpExchange exchange, int status, @NonNull String contentType, byte[] body)
+      throws IOException {
+    exchange.getResponseHeaders().set("Content-Type", contentType);
+    exchange.sendResponseHeaders(status, body.length);
+    try (val output = exchange.getResponseBody()) {
+      output.write(body);
+    }
+  }
+
+  protected static void sendText(@NonNull HttpExchange exchange, int status, @NonNull String body)
+      throws IOException {
+    send(exchange, status, "text/plain", body.getBytes(UTF_8));
+  }
+
+  @FunctionalInterface
+  protected interface ExchangeHandler {
+
+    void handle(HttpExchange exchange) throws Exception;
+  }
+}